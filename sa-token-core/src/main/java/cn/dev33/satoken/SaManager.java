@@ -286,14 +286,20 @@ public class SaManager {
 	 * @param stpLogic StpLogic
 	 */
 	public static void putStpLogic(StpLogic stpLogic) {
-		stpLogicMap.put(stpLogic.getLoginType(), stpLogic);
+		StpLogic oldStpLogic = stpLogicMap.put(stpLogic.getLoginType(), stpLogic);
+		if(oldStpLogic != null && oldStpLogic != stpLogic) {
+			oldStpLogic.destroy();
+		}
 	}
 
 	/**
 	 * 在全局集合中 移除 一个 StpLogic
 	 */
 	public static void removeStpLogic(String loginType) {
-		stpLogicMap.remove(loginType);
+		StpLogic oldStpLogic = stpLogicMap.remove(loginType);
+		if(oldStpLogic != null) {
+			oldStpLogic.destroy();
+		}
 	}
 
 	/**
@@ -111,6 +111,17 @@ public class SaTokenConfig implements Serializable {
 	 */
 	private Boolean autoRenew = true;
 
+	/**
+	 * 自动续签时，同一 token 的最后活跃时间写入持久层的最小间隔（单位: 秒），间隔内的多次续签会在内存中合并，再由后台线程批量写入，
+	 * 默认值 0 代表不合并，每次续签都立即写入
+	 */
+	private int autoRenewWriteInterval = 0;
+
+	/**
+	 * 是否合并每次请求中对 SaSession 的写入：开启后，Servlet 全局过滤器与 SaInterceptor 会在请求结束时统一写入，每次请求每个 SaSession 只写入一次
+	 */
+	private Boolean mergeSessionWrite = false;
+
 	/**
 	 * token 前缀, 前端提交 token 时应该填写的固定前缀，格式样例(satoken: Bearer xxxx-xxxx-xxxx-xxxx)
 	 */
@@ -440,6 +451,40 @@ public class SaTokenConfig implements Serializable {
 		return this;
 	}
 
+	/**
+	 * @return 自动续签时，同一 token 的最后活跃时间写入持久层的最小间隔（单位: 秒），间隔内的多次续签会在内存中合并，再由后台线程批量写入，
+	 * 默认值 0 代表不合并，每次续签都立即写入
+	 */
+	public int getAutoRenewWriteInterval() {
+		return autoRenewWriteInterval;
+	}
+
+	/**
+	 * @param autoRenewWriteInterval 自动续签时，同一 token 的最后活跃时间写入持久层的最小间隔（单位: 秒），间隔内的多次续签会在内存中合并，再由后台线程批量写入，
+	 * 默认值 0 代表不合并，每次续签都立即写入
+	 * @return 对象自身
+	 */
+	public SaTokenConfig setAutoRenewWriteInterval(int autoRenewWriteInterval) {
+		this.autoRenewWriteInterval = autoRenewWriteInterval;
+		return this;
+	}
+
+	/**
+	 * @return 是否合并每次请求中对 SaSession 的写入：开启后，Servlet 全局过滤器与 SaInterceptor 会在请求结束时统一写入，每次请求每个 SaSession 只写入一次
+	 */
+	public Boolean getMergeSessionWrite() {
+		return mergeSessionWrite;
+	}
+
+	/**
+	 * @param mergeSessionWrite 是否合并每次请求中对 SaSession 的写入：开启后，Servlet 全局过滤器与 SaInterceptor 会在请求结束时统一写入，每次请求每个 SaSession 只写入一次
+	 * @return 对象自身
+	 */
+	public SaTokenConfig setMergeSessionWrite(Boolean mergeSessionWrite) {
+		this.mergeSessionWrite = mergeSessionWrite;
+		return this;
+	}
+
 	/**
 	 * @return token 前缀, 前端提交 token 时应该填写的固定前缀，格式样例(satoken: Bearer xxxx-xxxx-xxxx-xxxx)
 	 */
@@ -689,6 +734,8 @@ public class SaTokenConfig implements Serializable {
 				+ ", dataRefreshPeriod=" + dataRefreshPeriod 
 				+ ", tokenSessionCheckLogin=" + tokenSessionCheckLogin
 				+ ", autoRenew=" + autoRenew 
+				+ ", autoRenewWriteInterval=" + autoRenewWriteInterval
+				+ ", mergeSessionWrite=" + mergeSessionWrite
 				+ ", tokenPrefix=" + tokenPrefix
 				+ ", isPrint=" + isPrint 
 				+ ", isLog=" + isLog 
@@ -67,6 +67,16 @@ public interface SaTokenContext {
 	 */
 	boolean matchPath(String pattern, String path);
 
+	/**
+	 * 判断：此上下文的 matchPath 是否与 AntPathMatcher 的匹配规则一致，且尾部的 / 不影响匹配结果 （例如 SpringBoot 2.x 中 Spring MVC 的 PatternsRequestCondition）
+	 * <p> 返回 true 时 SaRouteTable 会使用预编译的前缀树匹配路由，否则在请求时逐个调用 matchPath 匹配 </p>
+	 *
+	 * @return /
+	 */
+	default boolean isAntStylePathMatch() {
+		return false;
+	}
+
 	/**
 	 * 判断：在本次请求中，此上下文是否可用。
 	 * <p> 例如在部分 rpc 调用时， 一级上下文会返回 false，这时候框架就会选择使用二级上下文来处理请求 </p>
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.dao;
+
+import cn.dev33.satoken.fun.SaParamFunction;
+
+import java.util.Collection;
+
+/**
+ * 近端缓存失效通知通道，用于在多个节点之间广播 "某个 key 已被修改" 的消息
+ *
+ * <p>
+ *     单机测试可使用 {@link SaNearCacheChannelForLocal}，集群部署时应使用基于 Redis pub/sub 等中间件的实现。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public interface SaNearCacheChannel {
+
+	/**
+	 * 广播：指定 key 已失效
+	 *
+	 * @param key 失效的 key
+	 */
+	void publish(String key);
+
+	/**
+	 * 广播：多个 key 已失效（批量写入时使用，默认逐个调用 publish，基于中间件的实现应重写为一条消息，只需一次往返）
+	 *
+	 * @param keys 失效的 key 集合
+	 */
+	default void publishAll(Collection<String> keys) {
+		for (String key : keys) {
+			publish(key);
+		}
+	}
+
+	/**
+	 * 订阅失效消息
+	 *
+	 * @param listener 收到失效消息时执行的回调，参数为失效的 key
+	 */
+	void subscribe(SaParamFunction<String> listener);
+
+	/**
+	 * 取消订阅
+	 *
+	 * @param listener 要取消的回调
+	 */
+	void unsubscribe(SaParamFunction<String> listener);
+
+}
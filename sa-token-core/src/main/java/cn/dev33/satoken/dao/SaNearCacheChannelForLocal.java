@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.dao;
+
+import cn.dev33.satoken.fun.SaParamFunction;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 近端缓存失效通知通道，进程内实现（只能在同一个 JVM 内广播，一般用于单元测试或单机多实例场景）
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaNearCacheChannelForLocal implements SaNearCacheChannel {
+
+	/**
+	 * 所有订阅者
+	 */
+	public final List<SaParamFunction<String>> listenerList = new CopyOnWriteArrayList<>();
+
+	@Override
+	public void publish(String key) {
+		for (SaParamFunction<String> listener : listenerList) {
+			listener.run(key);
+		}
+	}
+
+	@Override
+	public void subscribe(SaParamFunction<String> listener) {
+		listenerList.add(listener);
+	}
+
+	@Override
+	public void unsubscribe(SaParamFunction<String> listener) {
+		listenerList.remove(listener);
+	}
+
+}
@@ -15,9 +15,16 @@
  */
 package cn.dev33.satoken.dao;
 
+import cn.dev33.satoken.fun.SaParamRetFunction;
 import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.util.SaFoxUtil;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Sa-Token 持久层接口
@@ -38,6 +45,9 @@ public interface SaTokenDao {
 	/** 常量，表示系统中不存在这个缓存（在对不存在的 key 获取剩余存活时间时返回此值） */
 	long NOT_VALUE_EXPIRE = -2;
 
+	/** 常量，遍历数据时每批次向存储端请求的 key 数量提示 (例如 Redis SCAN 命令的 COUNT 参数) */
+	int SCAN_BATCH_SIZE = 1000;
+
 	
 	// --------------------- 字符串读写 ---------------------
 	
@@ -59,7 +69,8 @@ public interface SaTokenDao {
 	void set(String key, String value, long timeout);
 
 	/**
-	 * 更新 value （过期时间不变）
+	 * 更新 value （过期时间不变，key 不存在时不做任何操作）
+	 * <p> 实现类应尽量在一次往返内原子完成，例如 Redis 6.0+ 的 SET key value XX KEEPTTL，避免先查询剩余存活时间再写入 </p>
 	 * @param key 键名称 
 	 * @param value 值 
 	 */
@@ -104,7 +115,8 @@ public interface SaTokenDao {
 	void setObject(String key, Object object, long timeout);
 
 	/**
-	 * 更新 Object （过期时间不变）
+	 * 更新 Object （过期时间不变，key 不存在时不做任何操作）
+	 * <p> 实现类应尽量在一次往返内原子完成，例如 Redis 6.0+ 的 SET key value XX KEEPTTL，避免先查询剩余存活时间再写入 </p>
 	 * @param key 键名称 
 	 * @param object 值 
 	 */
@@ -158,6 +170,7 @@ public interface SaTokenDao {
 	default void updateSession(SaSession session) {
 		updateObject(session.getId(), session);
 	}
+
 	
 	/**
 	 * 删除 SaSession
@@ -186,6 +199,96 @@ public interface SaTokenDao {
 	}
 	
 	
+	// --------------------- 批量读写 （默认循环调用单 key 方法，实现类可重写为 MGET、DEL、pipeline 等批量指令） ---------------------
+
+	/**
+	 * 批量获取 value
+	 *
+	 * @param keys 键名称集合
+	 * @return value 集合，与 keys 的顺序一一对应，不存在的 key 在对应位置返回 null
+	 */
+	default List<String> getMany(List<String> keys) {
+		List<String> list = new ArrayList<>(keys.size());
+		for (String key : keys) {
+			list.add(get(key));
+		}
+		return list;
+	}
+
+	/**
+	 * 批量写入 value，并设定统一的存活时间（单位: 秒）
+	 *
+	 * @param map 要写入的键值对集合
+	 * @param timeout 数据有效期（值大于0时限时存储，值=-1时永久存储，值=0或小于-2时不存储）
+	 */
+	default void setMany(Map<String, String> map, long timeout) {
+		for (Map.Entry<String, String> entry : map.entrySet()) {
+			set(entry.getKey(), entry.getValue(), timeout);
+		}
+	}
+
+	/**
+	 * 批量删除 key（String 与 Object 数据均可删除）
+	 *
+	 * @param keys 键名称集合
+	 */
+	default void deleteMany(Collection<String> keys) {
+		for (String key : keys) {
+			delete(key);
+		}
+	}
+
+	/**
+	 * 按顺序执行一组写操作，每个写入操作可以有各自的存活时间
+	 *
+	 * @param batch 操作集合
+	 */
+	default void executeBatch(SaTokenDaoBatch batch) {
+		for (SaTokenDaoBatch.Op op : batch.ops) {
+			if(op.type == SaTokenDaoBatch.SET) {
+				set(op.key, (String) op.value, op.timeout);
+			} else if(op.type == SaTokenDaoBatch.SET_OBJECT) {
+				setObject(op.key, op.value, op.timeout);
+			} else if(op.type == SaTokenDaoBatch.UPDATE) {
+				update(op.key, (String) op.value);
+			} else {
+				delete(op.key);
+			}
+		}
+	}
+
+
+	// --------------------- 获取并删除 （默认先读后删，不具备原子性，实现类可重写为 GETDEL、Lua 脚本等原子指令） ---------------------
+
+	/**
+	 * 获取并删除 value：同一个 key 被并发调用时，只有一个调用方能拿到值，适用于 ticket、code 等一次性凭证
+	 *
+	 * @param key 键名称
+	 * @return value，不存在时返回 null
+	 */
+	default String getAndDelete(String key) {
+		String value = get(key);
+		if(value != null) {
+			delete(key);
+		}
+		return value;
+	}
+
+	/**
+	 * 获取并删除 Object：同一个 key 被并发调用时，只有一个调用方能拿到值
+	 *
+	 * @param key 键名称
+	 * @return object，不存在时返回 null
+	 */
+	default Object getAndDeleteObject(String key) {
+		Object value = getObject(key);
+		if(value != null) {
+			deleteObject(key);
+		}
+		return value;
+	}
+
+	
 	// --------------------- 会话管理 ---------------------
 
 	/**
@@ -200,6 +303,67 @@ public interface SaTokenDao {
 	 */
 	List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType);
 
+	/**
+	 * 遍历数据：逐条回调所有匹配的 key，不会一次性将全部 key 加载到内存中
+	 *
+	 * <p>
+	 *     默认实现基于 searchData，Redis 等实现应当重写此方法，以 SCAN 等游标方式分批遍历。
+	 *     游标遍历期间发生变动的 key 可能被漏掉或重复回调。
+	 * </p>
+	 *
+	 * @param prefix 前缀
+	 * @param keyword 关键字
+	 * @param function 对每个 key 执行的回调，返回 false 代表停止遍历
+	 */
+	default void scanData(String prefix, String keyword, SaParamRetFunction<String, Boolean> function) {
+		for (String key : searchData(prefix, keyword, 0, -1, true)) {
+			if( ! function.run(key)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * 基于 scanData 实现的搜索数据：正序时遍历到第 start + size 条数据即停止，反序时需遍历全部数据
+	 *
+	 * <p> 注意：只有重写了 scanData 的实现类才可以在 searchData 中调用此方法，否则会无限递归 </p>
+	 *
+	 * @param prefix 前缀
+	 * @param keyword 关键字
+	 * @param start 开始处索引
+	 * @param size 获取数量  (-1代表从 start 处一直取到末尾)
+	 * @param sortType 排序类型（true=正序，false=反序）
+	 *
+	 * @return 查询到的数据集合
+	 */
+	default List<String> searchDataByScan(String prefix, String keyword, int start, int size, boolean sortType) {
+		// 游标遍历可能重复返回同一个 key，先去重再分页
+		Set<String> keySet = new LinkedHashSet<>();
+
+		// 反序时需要知道总数，只能先取出全部数据
+		if( ! sortType) {
+			scanData(prefix, keyword, key -> {
+				keySet.add(key);
+				return true;
+			});
+			return SaFoxUtil.searchList(new ArrayList<>(keySet), start, size, false);
+		}
+		// 正序时跳过前 start 条，取够 size 条后立即停止遍历
+		List<String> list = new ArrayList<>();
+		if(size == 0) {
+			return list;
+		}
+		int skip = Math.max(start, 0);
+		scanData(prefix, keyword, key -> {
+			if( ! keySet.add(key) || keySet.size() <= skip) {
+				return true;
+			}
+			list.add(key);
+			return size == -1 || list.size() < size;
+		});
+		return list;
+	}
+
 
 	// --------------------- 生命周期 ---------------------
 
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一组按顺序执行的写操作（写入 String、写入 Object、更新 String、删除），每个写入操作可以有各自的存活时间
+ *
+ * <p> 交给 {@link SaTokenDao#executeBatch(SaTokenDaoBatch)} 执行，Redis 实现会将其作为一个 pipeline 提交，整组操作只需一次往返 </p>
+ *
+ * <pre>
+ * 		SaTokenDaoBatch batch = new SaTokenDaoBatch()
+ * 				.delete("key-1")
+ * 				.set("key-2", "value", 3600)
+ * 				.setObject("key-3", model, 7200);
+ * 		SaManager.getSaTokenDao().executeBatch(batch);
+ * </pre>
+ *
+ * <p> 注意：批量操作只保证顺序执行，不保证原子性 </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoBatch {
+
+	/**
+	 * 操作类型：写入 String
+	 */
+	public static final int SET = 1;
+
+	/**
+	 * 操作类型：写入 Object
+	 */
+	public static final int SET_OBJECT = 2;
+
+	/**
+	 * 操作类型：删除 key
+	 */
+	public static final int DELETE = 3;
+
+	/**
+	 * 操作类型：更新 String（过期时间不变，key 不存在时不做任何操作）
+	 */
+	public static final int UPDATE = 4;
+
+	/**
+	 * 所有操作，按添加顺序排列
+	 */
+	public final List<Op> ops = new ArrayList<>();
+
+	/**
+	 * 添加操作：写入 String
+	 *
+	 * @param key 键名称
+	 * @param value 值
+	 * @param timeout 数据有效期（值大于0时限时存储，值=-1时永久存储，值=0或小于-2时不存储）
+	 * @return 对象自身
+	 */
+	public SaTokenDaoBatch set(String key, String value, long timeout) {
+		ops.add(new Op(SET, key, value, timeout));
+		return this;
+	}
+
+	/**
+	 * 添加操作：写入 Object
+	 *
+	 * @param key 键名称
+	 * @param object 值
+	 * @param timeout 数据有效期（值大于0时限时存储，值=-1时永久存储，值=0或小于-2时不存储）
+	 * @return 对象自身
+	 */
+	public SaTokenDaoBatch setObject(String key, Object object, long timeout) {
+		ops.add(new Op(SET_OBJECT, key, object, timeout));
+		return this;
+	}
+
+	/**
+	 * 添加操作：更新 String（过期时间不变，key 不存在时不做任何操作）
+	 *
+	 * @param key 键名称
+	 * @param value 值
+	 * @return 对象自身
+	 */
+	public SaTokenDaoBatch update(String key, String value) {
+		ops.add(new Op(UPDATE, key, value, 0));
+		return this;
+	}
+
+	/**
+	 * 添加操作：删除 key（String 与 Object 数据均可删除）
+	 *
+	 * @param key 键名称
+	 * @return 对象自身
+	 */
+	public SaTokenDaoBatch delete(String key) {
+		ops.add(new Op(DELETE, key, null, 0));
+		return this;
+	}
+
+	/**
+	 * 是否没有任何操作
+	 *
+	 * @return /
+	 */
+	public boolean isEmpty() {
+		return ops.isEmpty();
+	}
+
+	/**
+	 * 获取所有被操作的 key
+	 *
+	 * @return /
+	 */
+	public List<String> getKeys() {
+		List<String> keys = new ArrayList<>(ops.size());
+		for (Op op : ops) {
+			keys.add(op.key);
+		}
+		return keys;
+	}
+
+	/**
+	 * 判断一个写入操作是否需要执行（存活时间=0或小于-2时不存储，与 set / setObject 方法的规则一致，只对 SET、SET_OBJECT 操作有意义）
+	 *
+	 * @param op 操作
+	 * @return /
+	 */
+	public static boolean isStorable(Op op) {
+		return ! (op.timeout == 0 || op.timeout <= SaTokenDao.NOT_VALUE_EXPIRE);
+	}
+
+	@Override
+	public String toString() {
+		return "SaTokenDaoBatch " + ops;
+	}
+
+	/**
+	 * 单个操作
+	 */
+	public static class Op {
+
+		/**
+		 * 操作类型，取值：SET、SET_OBJECT、UPDATE、DELETE
+		 */
+		public final int type;
+
+		/**
+		 * 键名称
+		 */
+		public final String key;
+
+		/**
+		 * 写入的值（删除操作时为 null）
+		 */
+		public final Object value;
+
+		/**
+		 * 数据有效期（单位: 秒，更新、删除操作时无意义）
+		 */
+		public final long timeout;
+
+		public Op(int type, String key, Object value, long timeout) {
+			this.type = type;
+			this.key = key;
+			this.value = value;
+			this.timeout = timeout;
+		}
+
+		@Override
+		public String toString() {
+			return "Op [type=" + type + ", key=" + key + ", timeout=" + timeout + "]";
+		}
+
+	}
+
+}
@@ -17,11 +17,13 @@ package cn.dev33.satoken.dao;
 
 
 import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.fun.SaParamRetFunction;
 import cn.dev33.satoken.util.SaFoxUtil;
 
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 
 /**
  * Sa-Token 持久层接口，默认实现类（基于内存 Map，系统重启后数据丢失）
@@ -40,6 +42,12 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 	 * 存储数据过期时间的集合（单位: 毫秒）, 记录所有 key 的到期时间 （注意存储的是到期时间，不是剩余存活时间）
 	 */
 	public Map<String, Long> expireMap = new ConcurrentHashMap<>();
+
+	/**
+	 * 有序 key 索引，与 expireMap 中的 key 保持一致（按字典序排列）
+	 * <p> 同一类数据的 key 拥有相同前缀，在索引中是连续的一段，searchData 可直接定位到此区间并分页，无需遍历全部 key </p>
+	 */
+	public ConcurrentSkipListSet<String> keyIndex = new ConcurrentSkipListSet<>();
 	
 	// ------------------------ String 读写操作 
 	
@@ -55,7 +63,7 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 			return;
 		}
 		dataMap.put(key, value);
-		expireMap.put(key, (timeout == SaTokenDao.NEVER_EXPIRE) ? (SaTokenDao.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000));
+		putExpireTime(key, (timeout == SaTokenDao.NEVER_EXPIRE) ? (SaTokenDao.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000));
 	}
 
 	@Override
@@ -68,8 +76,7 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 
 	@Override
 	public void delete(String key) {
-		dataMap.remove(key);
-		expireMap.remove(key);
+		removeKey(key);
 	}
 	
 	@Override
@@ -79,7 +86,7 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 
 	@Override
 	public void updateTimeout(String key, long timeout) {
-		expireMap.put(key, (timeout == SaTokenDao.NEVER_EXPIRE) ? (SaTokenDao.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000));
+		putExpireTime(key, (timeout == SaTokenDao.NEVER_EXPIRE) ? (SaTokenDao.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000));
 	}
 
 	
@@ -97,7 +104,7 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 			return;
 		}
 		dataMap.put(key, object);
-		expireMap.put(key, (timeout == SaTokenDao.NEVER_EXPIRE) ? (SaTokenDao.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000));
+		putExpireTime(key, (timeout == SaTokenDao.NEVER_EXPIRE) ? (SaTokenDao.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000));
 	}
 
 	@Override
@@ -110,8 +117,7 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 
 	@Override
 	public void deleteObject(String key) {
-		dataMap.remove(key);
-		expireMap.remove(key);
+		removeKey(key);
 	}
 
 	@Override
@@ -121,7 +127,7 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 
 	@Override
 	public void updateObjectTimeout(String key, long timeout) {
-		expireMap.put(key, (timeout == SaTokenDao.NEVER_EXPIRE) ? (SaTokenDao.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000));
+		putExpireTime(key, (timeout == SaTokenDao.NEVER_EXPIRE) ? (SaTokenDao.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000));
 	}
 	
 	
@@ -129,11 +135,42 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 	// 使用接口默认实现 
 
 
+	// ------------------------ 获取并删除 
+
+	@Override
+	public String getAndDelete(String key) {
+		return (String) getAndDeleteObject(key);
+	}
+
+	@Override
+	public Object getAndDeleteObject(String key) {
+		clearKeyByTimeout(key);
+		// 只有成功从 dataMap 中移除的调用方能拿到值 
+		Object value = dataMap.remove(key);
+		if(value != null) {
+			expireMap.computeIfPresent(key, (k, v) -> {
+				keyIndex.remove(k);
+				return null;
+			});
+		}
+		return value;
+	}
+
+
 	// --------- 会话管理
 
 	@Override
 	public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
-		return SaFoxUtil.searchList(expireMap.keySet(), prefix, keyword, start, size, sortType);
+		return SaFoxUtil.searchSortedSet(keyIndex, prefix, keyword, start, size, sortType);
+	}
+
+	@Override
+	public void scanData(String prefix, String keyword, SaParamRetFunction<String, Boolean> function) {
+		for (String key : keyIndex.subSet(prefix, true, prefix + Character.MAX_VALUE, false)) {
+			if(key.contains(keyword) && ! function.run(key)) {
+				return;
+			}
+		}
 	}
 
 
@@ -141,6 +178,31 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 
 	// --------- 过期时间相关操作
 
+	/**
+	 * 写入指定 key 的到期时间，并同步维护有序索引
+	 * <p> 在 expireMap 的同一个 key 锁内修改索引，保证并发写入与删除时，索引与 expireMap 不会出现不一致 </p>
+	 * @param key 指定 key
+	 * @param expireTime 到期时间（13位时间戳）
+	 */
+	void putExpireTime(String key, long expireTime) {
+		expireMap.compute(key, (k, v) -> {
+			keyIndex.add(k);
+			return expireTime;
+		});
+	}
+
+	/**
+	 * 删除指定 key 的数据、到期时间与索引
+	 * @param key 指定 key
+	 */
+	void removeKey(String key) {
+		dataMap.remove(key);
+		expireMap.computeIfPresent(key, (k, v) -> {
+			keyIndex.remove(k);
+			return null;
+		});
+	}
+
 	/**
 	 * 如果指定的 key 已经过期，则立即清除它
 	 * @param key 指定 key
@@ -152,8 +214,7 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 		// 		2、不是 [ 永不过期 ]。
 		// 		3、已经超过过期时间。
 		if(expirationTime != null && expirationTime != SaTokenDao.NEVER_EXPIRE && expirationTime < System.currentTimeMillis()) {
-			dataMap.remove(key);
-			expireMap.remove(key);
+			removeKey(key);
 		}
 	}
 
@@ -186,8 +247,7 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 
 		// 小于零时，视为不存在 
 		if(timeout < 0) {
-			dataMap.remove(key);
-			expireMap.remove(key);
+			removeKey(key);
 			return SaTokenDao.NOT_VALUE_EXPIRE;
 		}
 		return timeout;
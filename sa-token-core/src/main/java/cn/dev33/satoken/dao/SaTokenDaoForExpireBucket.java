@@ -0,0 +1,397 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.dao;
+
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.util.SaFoxUtil;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Sa-Token 持久层接口，基于内存 Map + 过期时间分桶索引的实现（系统重启后数据丢失）
+ *
+ * <p>
+ *     与 {@link SaTokenDaoDefaultImpl} 的区别： <br>
+ *     	1、每个 key 的 value 与到期时间存放在同一个不可变的 Entry 对象中，读写只需一次 Map 操作，并发读取不会看到写了一半的数据。 <br>
+ *     	2、所有限时 key 按照到期时间（精确到秒）登记在分桶索引中，定时清理时只需要处理已到期的桶，
+ *     	   清理开销与过期 key 的数量成正比，而不是与 key 的总数成正比。 <br>
+ *     适合在单节点内存中存放大量 token 的场景。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoForExpireBucket implements SaTokenDao {
+
+	/**
+	 * 存储数据的集合，key -> (value + 到期时间)
+	 */
+	public Map<String, Entry> dataMap = new ConcurrentHashMap<>();
+
+	/**
+	 * 过期时间分桶索引，到期时间（秒级时间戳） -> 在这一秒内到期的所有 key
+	 */
+	public ConcurrentSkipListMap<Long, Set<String>> expireBucketMap = new ConcurrentSkipListMap<>();
+
+
+	// ------------------------ String 读写操作
+
+	@Override
+	public String get(String key) {
+		return (String) getObject(key);
+	}
+
+	@Override
+	public void set(String key, String value, long timeout) {
+		setObject(key, value, timeout);
+	}
+
+	@Override
+	public void update(String key, String value) {
+		updateObject(key, value);
+	}
+
+	@Override
+	public void delete(String key) {
+		deleteObject(key);
+	}
+
+	@Override
+	public long getTimeout(String key) {
+		return getObjectTimeout(key);
+	}
+
+	@Override
+	public void updateTimeout(String key, long timeout) {
+		updateObjectTimeout(key, timeout);
+	}
+
+
+	// ------------------------ Object 读写操作
+
+	@Override
+	public Object getObject(String key) {
+		Entry entry = getEntry(key);
+		return entry == null ? null : entry.value;
+	}
+
+	@Override
+	public void setObject(String key, Object object, long timeout) {
+		if(timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE)  {
+			return;
+		}
+		putEntry(key, new Entry(object, getExpireTime(timeout)));
+	}
+
+	@Override
+	public void updateObject(String key, Object object) {
+		// 到期时间保持不变，只替换 value，因此无需改动分桶索引
+		dataMap.computeIfPresent(key, (k, entry) -> entry.isExpired(System.currentTimeMillis()) ? entry : new Entry(object, entry.expireTime));
+	}
+
+	@Override
+	public void deleteObject(String key) {
+		dataMap.computeIfPresent(key, (k, entry) -> {
+			unregisterExpire(k, entry.expireTime);
+			return null;
+		});
+	}
+
+	@Override
+	public long getObjectTimeout(String key) {
+		Entry entry = getEntry(key);
+
+		// 如果 entry 不存在，说明框架没有存储这个 key，此时返回 NOT_VALUE_EXPIRE
+		if(entry == null) {
+			return SaTokenDao.NOT_VALUE_EXPIRE;
+		}
+
+		// 如果 entry 被标注为永不过期，则返回 NEVER_EXPIRE
+		if(entry.expireTime == SaTokenDao.NEVER_EXPIRE) {
+			return SaTokenDao.NEVER_EXPIRE;
+		}
+
+		// 计算剩余时间并返回 （过期时间戳 - 当前时间戳） / 1000 转秒
+		return (entry.expireTime - System.currentTimeMillis()) / 1000;
+	}
+
+	@Override
+	public void updateObjectTimeout(String key, long timeout) {
+		Entry entry = getEntry(key);
+		if(entry == null) {
+			return;
+		}
+		putEntry(key, new Entry(entry.value, getExpireTime(timeout)));
+	}
+
+
+	// ------------------------ Session 读写操作
+	// 使用接口默认实现
+
+
+	// ------------------------ 获取并删除
+
+	@Override
+	public String getAndDelete(String key) {
+		return (String) getAndDeleteObject(key);
+	}
+
+	@Override
+	public Object getAndDeleteObject(String key) {
+		// 只有成功从 dataMap 中移除的调用方能拿到值
+		Entry[] removed = new Entry[1];
+		dataMap.computeIfPresent(key, (k, entry) -> {
+			unregisterExpire(k, entry.expireTime);
+			removed[0] = entry;
+			return null;
+		});
+		Entry entry = removed[0];
+		return (entry == null || entry.isExpired(System.currentTimeMillis())) ? null : entry.value;
+	}
+
+
+	// --------- 会话管理
+
+	@Override
+	public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
+		return SaFoxUtil.searchList(dataMap.keySet(), prefix, keyword, start, size, sortType);
+	}
+
+
+	// ------------------------ 过期时间相关操作
+
+	/**
+	 * 获取指定 key 对应的 Entry，如果已经过期，则立即清除它并返回 null
+	 * @param key 指定 key
+	 * @return /
+	 */
+	protected Entry getEntry(String key) {
+		Entry entry = dataMap.get(key);
+		if(entry == null) {
+			return null;
+		}
+		if(entry.isExpired(System.currentTimeMillis())) {
+			removeExpiredEntry(key, entry);
+			return null;
+		}
+		return entry;
+	}
+
+	/**
+	 * 写入一个 Entry，并同步维护分桶索引
+	 *
+	 * <p> 写入与索引变更在 dataMap.compute 中完成，同一个 key 的并发写入依次执行，索引中登记的始终是当前 Entry 的到期时间 </p>
+	 *
+	 * @param key 指定 key
+	 * @param entry /
+	 */
+	protected void putEntry(String key, Entry entry) {
+		dataMap.compute(key, (k, oldEntry) -> {
+			if(oldEntry != null && oldEntry.expireTime != entry.expireTime) {
+				unregisterExpire(k, oldEntry.expireTime);
+			}
+			registerExpire(k, entry.expireTime);
+			return entry;
+		});
+	}
+
+	/**
+	 * 清除一个已过期的 Entry（只有在此 key 仍然指向这个 Entry 时才会清除，避免误删并发写入的新值）
+	 * @param key 指定 key
+	 * @param entry /
+	 */
+	protected void removeExpiredEntry(String key, Entry entry) {
+		dataMap.computeIfPresent(key, (k, current) -> {
+			if(current != entry) {
+				return current;
+			}
+			unregisterExpire(k, entry.expireTime);
+			return null;
+		});
+	}
+
+	/**
+	 * 将 key 登记到其到期时间所在的桶中
+	 * @param key 指定 key
+	 * @param expireTime 到期时间（13位时间戳）
+	 */
+	protected void registerExpire(String key, long expireTime) {
+		if(expireTime == SaTokenDao.NEVER_EXPIRE) {
+			return;
+		}
+		expireBucketMap.computeIfAbsent(expireTime / 1000, k -> ConcurrentHashMap.newKeySet()).add(key);
+	}
+
+	/**
+	 * 将 key 从其到期时间所在的桶中移除
+	 * @param key 指定 key
+	 * @param expireTime 到期时间（13位时间戳）
+	 */
+	protected void unregisterExpire(String key, long expireTime) {
+		if(expireTime == SaTokenDao.NEVER_EXPIRE) {
+			return;
+		}
+		Set<String> bucket = expireBucketMap.get(expireTime / 1000);
+		if(bucket != null) {
+			bucket.remove(key);
+		}
+	}
+
+	/**
+	 * 根据剩余存活时间计算到期时间
+	 * @param timeout 剩余存活时间（单位: 秒）
+	 * @return 到期时间（13位时间戳），永不过期时返回 NEVER_EXPIRE
+	 */
+	protected long getExpireTime(long timeout) {
+		return (timeout == SaTokenDao.NEVER_EXPIRE) ? (SaTokenDao.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000);
+	}
+
+
+	// --------- 定时清理过期数据
+
+	/**
+	 * 执行数据清理的线程引用
+	 */
+	public Thread refreshThread;
+
+	/**
+	 * 是否继续执行数据清理的线程标记
+	 */
+	public volatile boolean refreshFlag;
+
+	/**
+	 * 清理所有已经过期的 key
+	 *
+	 * <p>
+	 *     只处理秒级时间戳小于当前秒的桶，这些桶里登记的 key 到期时间一定早于当前时间。
+	 *     新写入的 key 最短也会在 1 秒后到期，不会被登记到正在清理的桶中。
+	 * </p>
+	 */
+	public void refreshDataMap() {
+		long now = System.currentTimeMillis();
+		ConcurrentNavigableMap<Long, Set<String>> expiredBuckets = expireBucketMap.headMap(now / 1000, false);
+		for (Long second : expiredBuckets.keySet()) {
+			Set<String> bucket = expireBucketMap.remove(second);
+			if(bucket == null) {
+				continue;
+			}
+			for (String key : bucket) {
+				Entry entry = dataMap.get(key);
+				// 二次确认：此 key 可能在登记之后被重新写入了新的到期时间
+				if(entry != null && entry.isExpired(now)) {
+					dataMap.remove(key, entry);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 初始化定时任务，定时清理过期数据
+	 */
+	public void initRefreshThread() {
+
+		// 如果开发者配置了 <=0 的值，则不启动定时清理
+		if(SaManager.getConfig().getDataRefreshPeriod() <= 0) {
+			return;
+		}
+
+		// 启动定时刷新
+		this.refreshFlag = true;
+		this.refreshThread = new Thread(() -> {
+			for (;;) {
+				try {
+					try {
+						// 如果已经被标记为结束
+						if( ! refreshFlag) {
+							return;
+						}
+						// 执行清理
+						refreshDataMap();
+					} catch (Exception e) {
+						e.printStackTrace();
+					}
+					// 休眠N秒
+					int dataRefreshPeriod = SaManager.getConfig().getDataRefreshPeriod();
+					if(dataRefreshPeriod <= 0) {
+						dataRefreshPeriod = 1;
+					}
+					Thread.sleep(dataRefreshPeriod * 1000L);
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		});
+		this.refreshThread.setDaemon(true);
+		this.refreshThread.start();
+	}
+
+	/**
+	 * 组件被安装时，开始刷新数据线程
+	 */
+	@Override
+	public void init() {
+		initRefreshThread();
+	}
+
+	/**
+	 * 组件被卸载时，结束定时任务，不再定时清理过期数据
+	 */
+	@Override
+	public void destroy() {
+		this.refreshFlag = false;
+	}
+
+
+	// --------- 数据结构
+
+	/**
+	 * 一条缓存数据：value 与到期时间存放在一起，不可变，修改时整体替换
+	 */
+	public static class Entry {
+
+		/**
+		 * 值
+		 */
+		public final Object value;
+
+		/**
+		 * 到期时间（13位时间戳），值为 NEVER_EXPIRE 时代表永不过期
+		 */
+		public final long expireTime;
+
+		public Entry(Object value, long expireTime) {
+			this.value = value;
+			this.expireTime = expireTime;
+		}
+
+		/**
+		 * 在指定时间点，此数据是否已经过期
+		 * @param now 当前时间（13位时间戳）
+		 * @return /
+		 */
+		public boolean isExpired(long now) {
+			return expireTime != SaTokenDao.NEVER_EXPIRE && expireTime < now;
+		}
+
+	}
+
+}
@@ -0,0 +1,486 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.dao;
+
+import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.fun.SaParamFunction;
+import cn.dev33.satoken.fun.SaParamRetFunction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sa-Token 持久层装饰器：在任意 SaTokenDao 前增加一层本地近端缓存（L1）
+ *
+ * <p>
+ *     读：命中本地缓存时直接返回，不再访问底层 SaTokenDao（例如 Redis）。 <br>
+ *     写：先写入底层 SaTokenDao，再清除本地缓存，并通过 {@link SaNearCacheChannel} 通知其它节点清除
+ *     （只修改存活时间时不清除，cacheKeyFilter 不缓存的 key 既不清除也不发送通知）。 <br>
+ *     本地缓存同时受数量上限与存活时间限制，存活时间即为跨节点数据不一致的最大窗口。 <br>
+ *     String 等不可变的值直接缓存；SaSession 等可变对象以序列化后的形式缓存，每次命中都反序列化出一个新对象，
+ *     多个线程之间不会共享同一个可修改的对象（无法序列化的对象不进入本地缓存）。 <br>
+ *     批量写入时，所有失效的 key 通过 {@link SaNearCacheChannel#publishAll} 一次广播。
+ * </p>
+ *
+ * <p> 用法示例：</p>
+ * <pre>
+ * 		SaManager.setSaTokenDao(new SaTokenDaoForNearCache(new SaTokenDaoRedisJackson(), channel));
+ * </pre>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoForNearCache implements SaTokenDao {
+
+	/**
+	 * 底层 SaTokenDao
+	 */
+	public final SaTokenDao dao;
+
+	/**
+	 * 失效通知通道
+	 */
+	public final SaNearCacheChannel channel;
+
+	/**
+	 * 本地缓存
+	 */
+	public final Map<String, CacheEntry> cacheMap = new ConcurrentHashMap<>();
+
+	/**
+	 * 本地缓存最大数量
+	 */
+	public int maxSize = 10000;
+
+	/**
+	 * 本地缓存存活时间（单位: 毫秒）
+	 */
+	public long cacheTimeout = 5000;
+
+	/**
+	 * 判断一个 key 是否允许进入本地缓存，默认只缓存 token -> loginId 映射、Account-Session、Token-Session
+	 */
+	public SaParamRetFunction<String, Boolean> cacheKeyFilter = key ->
+			key.contains(":token:") || key.contains(":session:") || key.contains(":token-session:");
+
+	/**
+	 * 命中次数
+	 */
+	public final LongAdder hitCount = new LongAdder();
+
+	/**
+	 * 未命中次数
+	 */
+	public final LongAdder missCount = new LongAdder();
+
+	/**
+	 * 收到失效通知时执行的回调
+	 */
+	protected final SaParamFunction<String> invalidateListener = cacheMap::remove;
+
+	/**
+	 * 构建一个近端缓存装饰器
+	 * @param dao 底层 SaTokenDao
+	 * @param channel 失效通知通道
+	 */
+	public SaTokenDaoForNearCache(SaTokenDao dao, SaNearCacheChannel channel) {
+		this.dao = dao;
+		this.channel = channel;
+	}
+
+
+	// ------------------------ String 读写操作
+
+	@Override
+	public String get(String key) {
+		return (String) getByCache(key, false);
+	}
+
+	@Override
+	public void set(String key, String value, long timeout) {
+		dao.set(key, value, timeout);
+		invalidate(key);
+	}
+
+	@Override
+	public void update(String key, String value) {
+		dao.update(key, value);
+		invalidate(key);
+	}
+
+	@Override
+	public void delete(String key) {
+		dao.delete(key);
+		invalidate(key);
+	}
+
+	@Override
+	public long getTimeout(String key) {
+		return dao.getTimeout(key);
+	}
+
+	@Override
+	public void updateTimeout(String key, long timeout) {
+		// 只修改存活时间，缓存的值没有变化，无需清除 
+		dao.updateTimeout(key, timeout);
+	}
+
+
+	// ------------------------ Object 读写操作
+
+	@Override
+	public Object getObject(String key) {
+		return getByCache(key, true);
+	}
+
+	@Override
+	public void setObject(String key, Object object, long timeout) {
+		dao.setObject(key, object, timeout);
+		invalidate(key);
+	}
+
+	@Override
+	public void updateObject(String key, Object object) {
+		dao.updateObject(key, object);
+		invalidate(key);
+	}
+
+	@Override
+	public void deleteObject(String key) {
+		dao.deleteObject(key);
+		invalidate(key);
+	}
+
+	@Override
+	public long getObjectTimeout(String key) {
+		return dao.getObjectTimeout(key);
+	}
+
+	@Override
+	public void updateObjectTimeout(String key, long timeout) {
+		// 只修改存活时间，缓存的值没有变化，无需清除 
+		dao.updateObjectTimeout(key, timeout);
+	}
+
+
+	// ------------------------ 批量读写
+
+	@Override
+	public List<String> getMany(List<String> keys) {
+		return dao.getMany(keys);
+	}
+
+	@Override
+	public void setMany(Map<String, String> map, long timeout) {
+		dao.setMany(map, timeout);
+		invalidateAll(map.keySet());
+	}
+
+	@Override
+	public void deleteMany(Collection<String> keys) {
+		dao.deleteMany(keys);
+		invalidateAll(keys);
+	}
+
+	@Override
+	public void executeBatch(SaTokenDaoBatch batch) {
+		dao.executeBatch(batch);
+		invalidateAll(batch.getKeys());
+	}
+
+	@Override
+	public String getAndDelete(String key) {
+		String value = dao.getAndDelete(key);
+		invalidate(key);
+		return value;
+	}
+
+	@Override
+	public Object getAndDeleteObject(String key) {
+		Object value = dao.getAndDeleteObject(key);
+		invalidate(key);
+		return value;
+	}
+
+
+	// ------------------------ 会话管理
+
+	@Override
+	public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
+		return dao.searchData(prefix, keyword, start, size, sortType);
+	}
+
+	@Override
+	public void scanData(String prefix, String keyword, SaParamRetFunction<String, Boolean> function) {
+		dao.scanData(prefix, keyword, function);
+	}
+
+
+	// ------------------------ 本地缓存相关
+
+	/**
+	 * 读取数据，优先从本地缓存读取
+	 * @param key 键名称
+	 * @param isObject 是否为 Object 数据
+	 * @return /
+	 */
+	protected Object getByCache(String key, boolean isObject) {
+		if( ! cacheKeyFilter.run(key)) {
+			return isObject ? dao.getObject(key) : dao.get(key);
+		}
+		long now = System.currentTimeMillis();
+		CacheEntry entry = cacheMap.get(key);
+		if(entry != null && ! entry.isLoading() && entry.expireTime > now) {
+			hitCount.increment();
+			return entry.getValue();
+		}
+		missCount.increment();
+
+		// 读取前先放入一个占位标记：读取期间如果此 key 被清除（本节点写入或收到失效通知），占位标记会随之被移除，
+		// 此时读到的可能是旧值，不能再写入缓存 
+		CacheEntry loading = new CacheEntry(null, 0);
+		boolean placed = placeLoading(key, entry, loading, now);
+		Object value = null;
+		try {
+			value = isObject ? dao.getObject(key) : dao.get(key);
+		} finally {
+			if(placed) {
+				// 值为 null 或无法序列化时不缓存，值为 null 时不缓存还可以避免新写入的数据在其它节点上读不到
+				CacheEntry newEntry = (value == null ? null : CacheEntry.of(value, now + cacheTimeout));
+				if(newEntry == null || ! cacheMap.replace(key, loading, newEntry)) {
+					cacheMap.remove(key, loading);
+				}
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * 放入占位标记，超出数量上限时先清理过期数据，仍然超出则随机淘汰一部分
+	 * @param key 键名称
+	 * @param old 当前的缓存数据（可能为 null、已过期或其它线程的占位标记）
+	 * @param loading 占位标记
+	 * @param now 当前时间（13位时间戳）
+	 * @return 是否放入成功（其它线程正在读取同一个 key 时放入失败，本次读到的值不写入缓存）
+	 */
+	protected boolean placeLoading(String key, CacheEntry old, CacheEntry loading, long now) {
+		if(old != null) {
+			return ! old.isLoading() && cacheMap.replace(key, old, loading);
+		}
+		if(cacheMap.size() >= maxSize) {
+			cacheMap.values().removeIf(e -> e.expireTime <= now);
+			int removeCount = cacheMap.size() - maxSize + Math.max(1, maxSize / 10);
+			Iterator<String> it = cacheMap.keySet().iterator();
+			while (removeCount-- > 0 && it.hasNext()) {
+				it.next();
+				it.remove();
+			}
+		}
+		return cacheMap.putIfAbsent(key, loading) == null;
+	}
+
+	/**
+	 * 清除本地缓存，并通知其它节点清除（不会进入本地缓存的 key 直接跳过，不产生通知）
+	 * @param key 键名称
+	 */
+	protected void invalidate(String key) {
+		if( ! cacheKeyFilter.run(key)) {
+			return;
+		}
+		cacheMap.remove(key);
+		channel.publish(key);
+	}
+
+	/**
+	 * 批量清除本地缓存，并将其中会进入本地缓存的 key 通过一次广播通知其它节点清除
+	 * @param keys 键名称集合
+	 */
+	protected void invalidateAll(Collection<String> keys) {
+		List<String> keyList = new ArrayList<>(keys.size());
+		for (String key : keys) {
+			if(cacheKeyFilter.run(key)) {
+				cacheMap.remove(key);
+				keyList.add(key);
+			}
+		}
+		if( ! keyList.isEmpty()) {
+			channel.publishAll(keyList);
+		}
+	}
+
+	/**
+	 * 清空本地缓存
+	 */
+	public void clearCache() {
+		cacheMap.clear();
+	}
+
+	/**
+	 * 获取命中次数
+	 * @return /
+	 */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/**
+	 * 获取未命中次数
+	 * @return /
+	 */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	/**
+	 * 写入本地缓存最大数量
+	 * @param maxSize /
+	 * @return 对象自身
+	 */
+	public SaTokenDaoForNearCache setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		return this;
+	}
+
+	/**
+	 * 写入本地缓存存活时间（单位: 毫秒）
+	 * @param cacheTimeout /
+	 * @return 对象自身
+	 */
+	public SaTokenDaoForNearCache setCacheTimeout(long cacheTimeout) {
+		this.cacheTimeout = cacheTimeout;
+		return this;
+	}
+
+	/**
+	 * 写入判断一个 key 是否允许进入本地缓存的函数
+	 * @param cacheKeyFilter /
+	 * @return 对象自身
+	 */
+	public SaTokenDaoForNearCache setCacheKeyFilter(SaParamRetFunction<String, Boolean> cacheKeyFilter) {
+		this.cacheKeyFilter = cacheKeyFilter;
+		return this;
+	}
+
+
+	// ------------------------ 生命周期
+
+	@Override
+	public void init() {
+		dao.init();
+		channel.subscribe(invalidateListener);
+	}
+
+	@Override
+	public void destroy() {
+		channel.unsubscribe(invalidateListener);
+		dao.destroy();
+		cacheMap.clear();
+	}
+
+
+	// ------------------------ 数据结构
+
+	/**
+	 * 一条本地缓存数据
+	 */
+	public static class CacheEntry {
+
+		/**
+		 * 值（serialized=true 时为序列化后的 byte[]）
+		 */
+		public final Object value;
+
+		/**
+		 * 本地缓存到期时间（13位时间戳）
+		 */
+		public final long expireTime;
+
+		/**
+		 * value 是否为序列化后的形式
+		 */
+		public final boolean serialized;
+
+		public CacheEntry(Object value, long expireTime) {
+			this(value, expireTime, false);
+		}
+
+		public CacheEntry(Object value, long expireTime, boolean serialized) {
+			this.value = value;
+			this.expireTime = expireTime;
+			this.serialized = serialized;
+		}
+
+		/**
+		 * 构建一条缓存数据：不可变的值直接缓存，其它可序列化的对象以序列化后的形式缓存
+		 * @param value 值
+		 * @param expireTime 本地缓存到期时间（13位时间戳）
+		 * @return 无法序列化时返回 null，代表此值不进入本地缓存
+		 */
+		public static CacheEntry of(Object value, long expireTime) {
+			if(value instanceof String || value instanceof Number || value instanceof Boolean) {
+				return new CacheEntry(value, expireTime);
+			}
+			if( ! (value instanceof Serializable)) {
+				return null;
+			}
+			try {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+					out.writeObject(value);
+				}
+				return new CacheEntry(bytes.toByteArray(), expireTime, true);
+			} catch (IOException e) {
+				return null;
+			}
+		}
+
+		/**
+		 * 获取值：序列化形式的缓存每次都反序列化出一个新对象
+		 * @return /
+		 */
+		public Object getValue() {
+			if( ! serialized) {
+				return value;
+			}
+			try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream((byte[]) value))) {
+				return in.readObject();
+			} catch (IOException | ClassNotFoundException e) {
+				throw new SaTokenException(e);
+			}
+		}
+
+		/**
+		 * 是否为读取中的占位标记
+		 * @return /
+		 */
+		public boolean isLoading() {
+			return value == null;
+		}
+
+	}
+
+}
@@ -99,18 +99,31 @@ public class SaTokenEventCenter {
 	}
 
 	/**
-	 * 移除指定类型的所有侦听器 
+	 * 移除指定类型的所有侦听器（包括被 SaTokenListenerForAsync 装饰的）
 	 * @param cls / 
 	 */
 	public static void removeListener(Class<? extends SaTokenListener> cls) {
 		ArrayList<SaTokenListener> listenerListCopy = new ArrayList<>(listenerList);
 		for (SaTokenListener listener : listenerListCopy) {
-			if(cls.isAssignableFrom(listener.getClass())) {
+			if(isInstance(cls, listener)) {
 				listenerList.remove(listener);
 			}
 		}
 	}
 
+	/**
+	 * 判断一个侦听器是否为指定类型（异步装饰器按被装饰的侦听器判断）
+	 * @param cls /
+	 * @param listener /
+	 * @return /
+	 */
+	static boolean isInstance(Class<? extends SaTokenListener> cls, SaTokenListener listener) {
+		if(cls.isInstance(listener)) {
+			return true;
+		}
+		return listener instanceof SaTokenListenerForAsync && isInstance(cls, ((SaTokenListenerForAsync) listener).listener);
+	}
+
 	/**
 	 * 清空所有已注册的侦听器 
 	 */
@@ -128,13 +141,13 @@ public class SaTokenEventCenter {
 	}
 
 	/**
-	 * 判断是否已经注册了指定类型的侦听器 
+	 * 判断是否已经注册了指定类型的侦听器（包括被 SaTokenListenerForAsync 装饰的）
 	 * @param cls / 
 	 * @return / 
 	 */
 	public static boolean hasListener(Class<? extends SaTokenListener> cls) {
 		for (SaTokenListener listener : listenerList) {
-			if(cls.isAssignableFrom(listener.getClass())) {
+			if(isInstance(cls, listener)) {
 				return true;
 			}
 		}
@@ -142,6 +155,49 @@ public class SaTokenEventCenter {
 	}
 	
 	
+	/**
+	 * 注册一个异步执行的侦听器（使用全局事件分发器）
+	 * @param listener / 
+	 * @return 包装后的侦听器，移除时需使用此对象 
+	 */
+	public static SaTokenListenerForAsync registerAsyncListener(SaTokenListener listener) {
+		if(listener == null) {
+			throw new SaTokenException("注册的侦听器不可以为空").setCode(SaErrorCode.CODE_10032);
+		}
+		SaTokenListenerForAsync asyncListener = new SaTokenListenerForAsync(listener);
+		listenerList.add(asyncListener);
+		return asyncListener;
+	}
+
+
+	// --------- 异步事件分发器 
+
+	private volatile static SaTokenEventDispatcher asyncDispatcher;
+
+	/**
+	 * 获取全局事件分发器，异步侦听器未指定分发器时使用此对象 
+	 * @return / 
+	 */
+	public static SaTokenEventDispatcher getAsyncDispatcher() {
+		if (asyncDispatcher == null) {
+			synchronized (SaTokenEventCenter.class) {
+				if (asyncDispatcher == null) {
+					asyncDispatcher = new SaTokenEventDispatcher();
+				}
+			}
+		}
+		return asyncDispatcher;
+	}
+
+	/**
+	 * 写入全局事件分发器（原分发器不会自动关闭）
+	 * @param asyncDispatcher / 
+	 */
+	public static void setAsyncDispatcher(SaTokenEventDispatcher asyncDispatcher) {
+		SaTokenEventCenter.asyncDispatcher = asyncDispatcher;
+	}
+	
+	
 	// --------- 事件发布 
 	
 	/**
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.listener;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import cn.dev33.satoken.SaManager;
+
+/**
+ * Sa-Token 事件异步分发器：将侦听器的执行从请求线程转移到后台线程
+ *
+ * <p>
+ *     待执行的事件数量有上限（capacity），超出上限时按 {@link OverflowPolicy} 处理：阻塞等待、丢弃、或在当前线程直接执行。<br>
+ *     执行线程可以自定义，例如在 JDK 21+ 中使用虚拟线程：new SaTokenEventDispatcher(Executors.newVirtualThreadPerTaskExecutor(), 10000, OverflowPolicy.CALLER_RUNS)
+ * </p>
+ *
+ * <p>
+ *     只有一个后台线程且使用 BLOCK 策略时，同一个侦听器收到事件的顺序与发布顺序一致。<br>
+ *     使用 CALLER_RUNS（默认）或 DROP 策略时，超出上限的事件会越过队列中尚未执行的事件，或被直接丢弃；使用多个线程时同样不再保证顺序
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenEventDispatcher {
+
+	/**
+	 * 待执行事件数量超出上限时的处理策略
+	 */
+	public enum OverflowPolicy {
+
+		/**
+		 * 阻塞发布事件的线程，直到有空位
+		 */
+		BLOCK,
+
+		/**
+		 * 丢弃此事件
+		 */
+		DROP,
+
+		/**
+		 * 在发布事件的线程中直接执行
+		 */
+		CALLER_RUNS
+
+	}
+
+	/**
+	 * 执行事件的线程池
+	 */
+	public final Executor executor;
+
+	/**
+	 * 待执行事件数量上限（包括正在执行的）
+	 */
+	public final int capacity;
+
+	/**
+	 * 超出上限时的处理策略
+	 */
+	public final OverflowPolicy overflowPolicy;
+
+	/**
+	 * 剩余空位
+	 */
+	protected final Semaphore permits;
+
+	/**
+	 * 已提交到后台线程的事件数
+	 */
+	public final LongAdder dispatchCount = new LongAdder();
+
+	/**
+	 * 因超出上限被丢弃的事件数
+	 */
+	public final LongAdder dropCount = new LongAdder();
+
+	/**
+	 * 因超出上限改为在发布线程中执行的事件数
+	 */
+	public final LongAdder callerRunsCount = new LongAdder();
+
+	/**
+	 * 执行时抛出异常的事件数
+	 */
+	public final LongAdder errorCount = new LongAdder();
+
+	/**
+	 * 使用默认配置构建：单个后台线程，上限 10000，超出时在发布线程中执行（需要严格保证顺序时请改用 BLOCK 策略）
+	 */
+	public SaTokenEventDispatcher() {
+		this(1, 10000, OverflowPolicy.CALLER_RUNS);
+	}
+
+	/**
+	 * 使用固定数量的后台线程构建
+	 *
+	 * @param threadCount 后台线程数量
+	 * @param capacity 待执行事件数量上限
+	 * @param overflowPolicy 超出上限时的处理策略
+	 */
+	public SaTokenEventDispatcher(int threadCount, int capacity, OverflowPolicy overflowPolicy) {
+		this(createDefaultExecutor(threadCount), capacity, overflowPolicy);
+	}
+
+	/**
+	 * 使用自定义线程池构建
+	 *
+	 * @param executor 执行事件的线程池
+	 * @param capacity 待执行事件数量上限
+	 * @param overflowPolicy 超出上限时的处理策略
+	 */
+	public SaTokenEventDispatcher(Executor executor, int capacity, OverflowPolicy overflowPolicy) {
+		this.executor = executor;
+		this.capacity = capacity;
+		this.overflowPolicy = overflowPolicy;
+		this.permits = new Semaphore(capacity);
+	}
+
+	/**
+	 * 分发一个事件
+	 *
+	 * @param task 要执行的侦听器方法
+	 */
+	public void dispatch(Runnable task) {
+		// 1、获取空位，获取不到时按策略处理
+		if( ! permits.tryAcquire()) {
+			if(overflowPolicy == OverflowPolicy.DROP) {
+				dropCount.increment();
+				return;
+			}
+			if(overflowPolicy == OverflowPolicy.CALLER_RUNS) {
+				callerRunsCount.increment();
+				runTask(task);
+				return;
+			}
+			try {
+				permits.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				dropCount.increment();
+				return;
+			}
+		}
+
+		// 2、提交到后台线程，执行完毕后归还空位
+		try {
+			executor.execute(() -> {
+				try {
+					runTask(task);
+				} finally {
+					permits.release();
+				}
+			});
+			dispatchCount.increment();
+		} catch (RejectedExecutionException e) {
+			// 线程池已关闭，在当前线程执行，不丢失事件
+			permits.release();
+			callerRunsCount.increment();
+			runTask(task);
+		}
+	}
+
+	/**
+	 * 执行一个事件，侦听器抛出的异常只记录日志，不向外抛出
+	 *
+	 * @param task /
+	 */
+	protected void runTask(Runnable task) {
+		try {
+			task.run();
+		} catch (Throwable e) {
+			errorCount.increment();
+			SaManager.getLog().error("侦听器执行出现异常：{}", e.toString(), e);
+		}
+	}
+
+	/**
+	 * 获取待执行的事件数量（包括正在执行的）
+	 *
+	 * @return /
+	 */
+	public int getPendingCount() {
+		return capacity - permits.availablePermits();
+	}
+
+	/**
+	 * 获取已提交到后台线程的事件数
+	 *
+	 * @return /
+	 */
+	public long getDispatchCount() {
+		return dispatchCount.sum();
+	}
+
+	/**
+	 * 获取被丢弃的事件数
+	 *
+	 * @return /
+	 */
+	public long getDropCount() {
+		return dropCount.sum();
+	}
+
+	/**
+	 * 获取改为在发布线程中执行的事件数
+	 *
+	 * @return /
+	 */
+	public long getCallerRunsCount() {
+		return callerRunsCount.sum();
+	}
+
+	/**
+	 * 获取执行时抛出异常的事件数
+	 *
+	 * @return /
+	 */
+	public long getErrorCount() {
+		return errorCount.sum();
+	}
+
+	/**
+	 * 停止接收新事件，并等待已提交的事件执行完毕（仅当线程池为 ExecutorService 时有效）
+	 *
+	 * @param timeoutMillis 最长等待时间（单位: 毫秒）
+	 * @return 是否在等待时间内全部执行完毕
+	 */
+	public boolean shutdown(long timeoutMillis) {
+		if( ! (executor instanceof ExecutorService)) {
+			return getPendingCount() == 0;
+		}
+		ExecutorService executorService = (ExecutorService) executor;
+		executorService.shutdown();
+		try {
+			return executorService.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * 创建默认线程池：固定数量的守护线程，队列长度由 capacity 控制，此处不再限制
+	 *
+	 * @param threadCount 线程数量
+	 * @return /
+	 */
+	protected static ExecutorService createDefaultExecutor(int threadCount) {
+		AtomicInteger index = new AtomicInteger();
+		return new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+			Thread thread = new Thread(r, "sa-token-event-" + index.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+}
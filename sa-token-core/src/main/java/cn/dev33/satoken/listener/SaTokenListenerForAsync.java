@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.listener;
+
+import cn.dev33.satoken.annotation.handler.SaAnnotationAbstractHandler;
+import cn.dev33.satoken.config.SaTokenConfig;
+import cn.dev33.satoken.stp.SaLoginModel;
+import cn.dev33.satoken.stp.StpLogic;
+
+/**
+ * Sa-Token 侦听器 异步装饰器：被装饰的侦听器将在后台线程中执行，不再阻塞登录、注销等请求
+ *
+ * <p> 只对需要异步执行的侦听器使用本类包装即可，其它侦听器仍然同步执行 </p>
+ *
+ * <p>
+ *     组件注册、配置载入等框架启动阶段的事件仍然同步执行。<br>
+ *     侦听器抛出的异常不会再影响业务流程，只会记录日志。
+ * </p>
+ *
+ * <p> 用法示例：</p>
+ * <pre>
+ * 		SaTokenEventCenter.registerListener(new SaTokenListenerForAsync(new MyAuditListener()));
+ * </pre>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenListenerForAsync implements SaTokenListener {
+
+	/**
+	 * 被装饰的侦听器
+	 */
+	public final SaTokenListener listener;
+
+	/**
+	 * 事件分发器，为 null 时使用 SaTokenEventCenter.getAsyncDispatcher()
+	 */
+	public final SaTokenEventDispatcher dispatcher;
+
+	/**
+	 * 使用全局事件分发器构建
+	 *
+	 * @param listener 被装饰的侦听器
+	 */
+	public SaTokenListenerForAsync(SaTokenListener listener) {
+		this(listener, null);
+	}
+
+	/**
+	 * 使用指定的事件分发器构建
+	 *
+	 * @param listener 被装饰的侦听器
+	 * @param dispatcher 事件分发器
+	 */
+	public SaTokenListenerForAsync(SaTokenListener listener, SaTokenEventDispatcher dispatcher) {
+		this.listener = listener;
+		this.dispatcher = dispatcher;
+	}
+
+	/**
+	 * 获取事件分发器
+	 *
+	 * @return /
+	 */
+	public SaTokenEventDispatcher getDispatcher() {
+		return dispatcher != null ? dispatcher : SaTokenEventCenter.getAsyncDispatcher();
+	}
+
+	@Override
+	public void doLogin(String loginType, Object loginId, String tokenValue, SaLoginModel loginModel) {
+		getDispatcher().dispatch(() -> listener.doLogin(loginType, loginId, tokenValue, loginModel));
+	}
+
+	@Override
+	public void doLogout(String loginType, Object loginId, String tokenValue) {
+		getDispatcher().dispatch(() -> listener.doLogout(loginType, loginId, tokenValue));
+	}
+
+	@Override
+	public void doKickout(String loginType, Object loginId, String tokenValue) {
+		getDispatcher().dispatch(() -> listener.doKickout(loginType, loginId, tokenValue));
+	}
+
+	@Override
+	public void doReplaced(String loginType, Object loginId, String tokenValue) {
+		getDispatcher().dispatch(() -> listener.doReplaced(loginType, loginId, tokenValue));
+	}
+
+	@Override
+	public void doDisable(String loginType, Object loginId, String service, int level, long disableTime) {
+		getDispatcher().dispatch(() -> listener.doDisable(loginType, loginId, service, level, disableTime));
+	}
+
+	@Override
+	public void doUntieDisable(String loginType, Object loginId, String service) {
+		getDispatcher().dispatch(() -> listener.doUntieDisable(loginType, loginId, service));
+	}
+
+	@Override
+	public void doOpenSafe(String loginType, String tokenValue, String service, long safeTime) {
+		getDispatcher().dispatch(() -> listener.doOpenSafe(loginType, tokenValue, service, safeTime));
+	}
+
+	@Override
+	public void doCloseSafe(String loginType, String tokenValue, String service) {
+		getDispatcher().dispatch(() -> listener.doCloseSafe(loginType, tokenValue, service));
+	}
+
+	@Override
+	public void doCreateSession(String id) {
+		getDispatcher().dispatch(() -> listener.doCreateSession(id));
+	}
+
+	@Override
+	public void doLogoutSession(String id) {
+		getDispatcher().dispatch(() -> listener.doLogoutSession(id));
+	}
+
+	@Override
+	public void doRenewTimeout(String tokenValue, Object loginId, long timeout) {
+		getDispatcher().dispatch(() -> listener.doRenewTimeout(tokenValue, loginId, timeout));
+	}
+
+	// 以下为框架启动阶段的事件，同步执行
+
+	@Override
+	public void doRegisterComponent(String compName, Object compObj) {
+		listener.doRegisterComponent(compName, compObj);
+	}
+
+	@Override
+	public void doRegisterAnnotationHandler(SaAnnotationAbstractHandler<?> handler) {
+		listener.doRegisterAnnotationHandler(handler);
+	}
+
+	@Override
+	public void doSetStpLogic(StpLogic stpLogic) {
+		listener.doSetStpLogic(stpLogic);
+	}
+
+	@Override
+	public void doSetConfig(SaTokenConfig config) {
+		listener.doSetConfig(config);
+	}
+
+}
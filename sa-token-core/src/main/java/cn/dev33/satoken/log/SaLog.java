@@ -17,6 +17,8 @@ package cn.dev33.satoken.log;
 
 /**
  * Sa-Token 日志输出接口
+ *
+ * <p> 与 slf4j 的约定一致：参数列表的最后一个参数为 Throwable 时，实现类应当额外输出其异常堆栈 </p>
  * 
  * @author click33
  * @since 1.33.0
@@ -108,6 +108,10 @@ public class SaLogForConsole implements SaLog {
 				// 黑白日志
 				System.out.println(prefix + StrFormatter.format(str, args));
 			}
+			// 与 slf4j 的约定一致：最后一个参数为异常时，额外输出异常堆栈
+			if(args != null && args.length > 0 && args[args.length - 1] instanceof Throwable) {
+				((Throwable) args[args.length - 1]).printStackTrace(System.out);
+			}
 		}
 	}
 
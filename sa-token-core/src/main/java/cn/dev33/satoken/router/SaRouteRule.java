@@ -0,0 +1,181 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import cn.dev33.satoken.fun.SaFunction;
+import cn.dev33.satoken.fun.SaParamFunction;
+
+/**
+ * 一条路由规则：声明要拦截的 path、排除的 path、请求方式，以及命中后要执行的校验函数，用于组装 {@link SaRouteTable}
+ *
+ * <p> 与 SaRouter 链式匹配不同，本类只做声明，不会立即执行匹配；多次调用 match / notMatch 时为追加，任意一个匹配即可 </p>
+ *
+ * <pre>
+ *    	new SaRouteRule()
+ *    	   	.match("/**")
+ *   	   	.notMatch("/user/doLogin")
+ *   	   	.check(r -&gt; StpUtil.checkLogin());
+ * </pre>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaRouteRule {
+
+	/**
+	 * 拦截的 path 列表，为 null 时代表拦截所有 path
+	 */
+	public List<String> patterns;
+
+	/**
+	 * 排除的 path 列表
+	 */
+	public List<String> excludePatterns = new ArrayList<>();
+
+	/**
+	 * 拦截的请求方式，为 null 时代表拦截所有请求方式
+	 */
+	public List<SaHttpMethod> methods;
+
+	/**
+	 * 排除的请求方式
+	 */
+	public List<SaHttpMethod> excludeMethods = new ArrayList<>();
+
+	/**
+	 * 命中后要执行的校验函数
+	 */
+	public SaParamFunction<SaRouterStaff> action = r -> {};
+
+	// ----------------- path匹配
+
+	/**
+	 * 路由匹配
+	 * @param patterns 路由匹配符数组
+	 * @return 对象自身
+	 */
+	public SaRouteRule match(String... patterns) {
+		return match(Arrays.asList(patterns));
+	}
+
+	/**
+	 * 路由匹配
+	 * @param patterns 路由匹配符集合
+	 * @return 对象自身
+	 */
+	public SaRouteRule match(List<String> patterns) {
+		if(this.patterns == null) {
+			this.patterns = new ArrayList<>();
+		}
+		this.patterns.addAll(patterns);
+		return this;
+	}
+
+	/**
+	 * 路由匹配排除
+	 * @param patterns 路由匹配符排除数组
+	 * @return 对象自身
+	 */
+	public SaRouteRule notMatch(String... patterns) {
+		return notMatch(Arrays.asList(patterns));
+	}
+
+	/**
+	 * 路由匹配排除
+	 * @param patterns 路由匹配符排除集合
+	 * @return 对象自身
+	 */
+	public SaRouteRule notMatch(List<String> patterns) {
+		this.excludePatterns.addAll(patterns);
+		return this;
+	}
+
+	// ----------------- Method匹配
+
+	/**
+	 * Http请求方式匹配 (Enum)
+	 * @param methods Http请求方法断言数组
+	 * @return 对象自身
+	 */
+	public SaRouteRule match(SaHttpMethod... methods) {
+		if(this.methods == null) {
+			this.methods = new ArrayList<>();
+		}
+		this.methods.addAll(Arrays.asList(methods));
+		return this;
+	}
+
+	/**
+	 * Http请求方法匹配排除 (Enum)
+	 * @param methods Http请求方法断言排除数组
+	 * @return 对象自身
+	 */
+	public SaRouteRule notMatch(SaHttpMethod... methods) {
+		this.excludeMethods.addAll(Arrays.asList(methods));
+		return this;
+	}
+
+	/**
+	 * Http请求方法匹配 (String)
+	 * @param methods Http请求方法断言数组
+	 * @return 对象自身
+	 */
+	public SaRouteRule matchMethod(String... methods) {
+		return match(SaHttpMethod.toEnumArray(methods));
+	}
+
+	/**
+	 * Http请求方法匹配排除 (String)
+	 * @param methods Http请求方法断言排除数组
+	 * @return 对象自身
+	 */
+	public SaRouteRule notMatchMethod(String... methods) {
+		return notMatch(SaHttpMethod.toEnumArray(methods));
+	}
+
+	// ----------------- 校验函数
+
+	/**
+	 * 指定命中后要执行的校验函数 (无参)
+	 * @param fun 要执行的函数
+	 * @return 对象自身
+	 */
+	public SaRouteRule check(SaFunction fun) {
+		this.action = r -> fun.run();
+		return this;
+	}
+
+	/**
+	 * 指定命中后要执行的校验函数 (带参)
+	 * @param fun 要执行的函数
+	 * @return 对象自身
+	 */
+	public SaRouteRule check(SaParamFunction<SaRouterStaff> fun) {
+		this.action = fun;
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return "SaRouteRule [patterns=" + patterns + ", excludePatterns=" + excludePatterns + ", methods=" + methods
+				+ ", excludeMethods=" + excludeMethods + "]";
+	}
+
+}
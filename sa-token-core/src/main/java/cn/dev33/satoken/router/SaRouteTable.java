@@ -0,0 +1,555 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.context.SaHolder;
+import cn.dev33.satoken.context.SaTokenContext;
+import cn.dev33.satoken.context.model.SaRequest;
+import cn.dev33.satoken.fun.SaParamFunction;
+import cn.dev33.satoken.util.SaVaguePattern;
+
+/**
+ * 预编译路由表：将多条 {@link SaRouteRule} 一次性编译为按 path 分段的前缀树，每次请求只需沿着 path 各段走一遍即可找出所有命中的规则
+ *
+ * <p>
+ *     与逐条执行 SaRouter.match(...).check(...) 的效果一致：规则按声明顺序依次判断，命中则执行其校验函数，
+ *     校验函数中同样可以使用 SaRouter.stop()、SaRouter.back() 提前退出。
+ * </p>
+ *
+ * <p>
+ *     以 / 开头、由普通字符、*、**、{变量} 组成的路由匹配符会被编译进前缀树，匹配规则同 AntPathMatcher，且尾部的 / 不影响匹配结果；
+ *     其它写法（例如带有 ? 或正则变量）在请求时仍交由 SaRouter.isMatch 逐个匹配。
+ * </p>
+ *
+ * <p>
+ *     前缀树只在当前上下文声明了 {@link SaTokenContext#isAntStylePathMatch()} 时使用（例如 SpringBoot 2.x 的 Spring MVC），
+ *     其它上下文（例如使用 PathPatternParser 的 SpringBoot 3.x、WebFlux，以及 Solon 等框架）的路由匹配规则可能不同，此时所有路由匹配符都交由 SaRouter.isMatch 逐个匹配，
+ *     只保留请求方式掩码等与匹配规则无关的优化，结果与逐条执行 SaRouter.match(...) 完全一致。
+ * </p>
+ *
+ * <p> 路由表创建后不可修改，可在多个线程中共享使用：</p>
+ * <pre>
+ *    	SaRouteTable table = SaRouteTable.of(
+ *    	   	new SaRouteRule().match("/**").notMatch("/user/doLogin").check(r -&gt; StpUtil.checkLogin()),
+ *    	   	new SaRouteRule().match("/admin/**").match(SaHttpMethod.POST).check(r -&gt; StpUtil.checkRole("admin"))
+ *    	);
+ *    	// 在拦截器或过滤器的认证函数中
+ *    	table.check();
+ * </pre>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaRouteTable {
+
+	/**
+	 * 全部请求方式
+	 */
+	protected static final SaHttpMethod[] METHODS = SaHttpMethod.values();
+
+	/**
+	 * 代表全部请求方式的掩码
+	 */
+	protected static final int ALL_METHOD_MASK = (1 << METHODS.length) - 1;
+
+	/**
+	 * 编译后的规则，与声明顺序一致
+	 */
+	protected final CompiledRule[] rules;
+
+	/**
+	 * 拦截 path 前缀树
+	 */
+	protected final PathNode includeTree = new PathNode();
+
+	/**
+	 * 排除 path 前缀树
+	 */
+	protected final PathNode excludeTree = new PathNode();
+
+	/**
+	 * 是否有任意一条规则声明了排除 path（可被编译的部分）
+	 */
+	protected final boolean hasExcludeTree;
+
+	/**
+	 * 编译一组路由规则
+	 *
+	 * @param ruleList 路由规则，按声明顺序执行
+	 */
+	public SaRouteTable(List<SaRouteRule> ruleList) {
+		this.rules = new CompiledRule[ruleList.size()];
+		boolean hasExcludeTree = false;
+		for (int i = 0; i < rules.length; i++) {
+			SaRouteRule rule = ruleList.get(i);
+			CompiledRule compiled = new CompiledRule(rule);
+
+			// 1、拦截 path，能编译的放入前缀树，不能编译的留待请求时逐个匹配
+			compiled.matchAllPath = (rule.patterns == null);
+			compiled.patterns = (rule.patterns == null ? new String[0] : rule.patterns.toArray(new String[0]));
+			compiled.excludePatterns = rule.excludePatterns.toArray(new String[0]);
+			List<String> fallbackList = new ArrayList<>();
+			if(rule.patterns != null) {
+				for (String pattern : rule.patterns) {
+					if( ! includeTree.add(pattern, i)) {
+						fallbackList.add(pattern);
+					}
+				}
+			}
+			compiled.fallbackPatterns = fallbackList.toArray(new String[0]);
+
+			// 2、排除 path，同上
+			List<String> fallbackExcludeList = new ArrayList<>();
+			for (String pattern : rule.excludePatterns) {
+				if(excludeTree.add(pattern, i)) {
+					hasExcludeTree = true;
+				} else {
+					fallbackExcludeList.add(pattern);
+				}
+			}
+			compiled.fallbackExcludePatterns = fallbackExcludeList.toArray(new String[0]);
+
+			// 3、请求方式，转为掩码
+			compiled.methodMask = (rule.methods == null ? ALL_METHOD_MASK : toMethodMask(rule.methods));
+			compiled.excludeMethodMask = toMethodMask(rule.excludeMethods);
+
+			rules[i] = compiled;
+		}
+		this.hasExcludeTree = hasExcludeTree;
+	}
+
+	/**
+	 * 编译一组路由规则
+	 *
+	 * @param rules 路由规则，按声明顺序执行
+	 * @return 路由表
+	 */
+	public static SaRouteTable of(SaRouteRule... rules) {
+		return new SaRouteTable(Arrays.asList(rules));
+	}
+
+	/**
+	 * 使用当前请求的 path 与请求方式进行匹配，按声明顺序执行所有命中规则的校验函数
+	 */
+	public void check() {
+		SaRequest request = SaHolder.getRequest();
+		check(request.getRequestPath(), request.getMethod());
+	}
+
+	/**
+	 * 使用指定的 path 与请求方式进行匹配，按声明顺序执行所有命中规则的校验函数
+	 *
+	 * @param path 请求 path
+	 * @param method 请求方式
+	 */
+	public void check(String path, String method) {
+		boolean useTree = isUseTree();
+		long[] includeBits = useTree ? collect(includeTree, path) : null;
+		long[] excludeBits = useTree && hasExcludeTree ? collect(excludeTree, path) : null;
+		int requestMethodMask = toRequestMethodMask(method);
+		for (int i = 0; i < rules.length; i++) {
+			if(isHit(i, path, requestMethodMask, includeBits, excludeBits)) {
+				rules[i].action.run(new SaRouterStaff());
+			}
+		}
+	}
+
+	/**
+	 * 获取指定 path 与请求方式命中的所有规则（不执行校验函数）
+	 *
+	 * @param path 请求 path
+	 * @param method 请求方式
+	 * @return 命中的规则，按声明顺序排列
+	 */
+	public List<SaRouteRule> getHitRules(String path, String method) {
+		boolean useTree = isUseTree();
+		long[] includeBits = useTree ? collect(includeTree, path) : null;
+		long[] excludeBits = useTree && hasExcludeTree ? collect(excludeTree, path) : null;
+		int requestMethodMask = toRequestMethodMask(method);
+		List<SaRouteRule> list = new ArrayList<>();
+		for (int i = 0; i < rules.length; i++) {
+			if(isHit(i, path, requestMethodMask, includeBits, excludeBits)) {
+				list.add(rules[i].rule);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * 获取规则数量
+	 *
+	 * @return /
+	 */
+	public int size() {
+		return rules.length;
+	}
+
+	/**
+	 * 判断：本次匹配是否使用前缀树（当前上下文的路由匹配规则与前缀树一致时才使用）
+	 *
+	 * @return /
+	 */
+	protected boolean isUseTree() {
+		return SaManager.getSaTokenContextOrSecond().isAntStylePathMatch();
+	}
+
+	/**
+	 * 判断：第 index 条规则是否命中
+	 *
+	 * @param index 规则下标
+	 * @param path 请求 path
+	 * @param requestMethodMask 请求方式掩码
+	 * @param includeBits 拦截前缀树的匹配结果，为 null 时代表不使用前缀树
+	 * @param excludeBits 排除前缀树的匹配结果，可以为 null
+	 * @return /
+	 */
+	protected boolean isHit(int index, String path, int requestMethodMask, long[] includeBits, long[] excludeBits) {
+		CompiledRule rule = rules[index];
+
+		// 1、请求方式
+		if((rule.methodMask & requestMethodMask) == 0 || (rule.excludeMethodMask & requestMethodMask) != 0) {
+			return false;
+		}
+
+		// 不使用前缀树时，所有路由匹配符都交由当前上下文逐个匹配
+		if(includeBits == null) {
+			return (rule.matchAllPath || SaRouter.isMatch(rule.patterns, path)) && ! SaRouter.isMatch(rule.excludePatterns, path);
+		}
+
+		// 2、拦截 path
+		if( ! rule.matchAllPath && ! hasBit(includeBits, index) && ! SaRouter.isMatch(rule.fallbackPatterns, path)) {
+			return false;
+		}
+
+		// 3、排除 path
+		return ! hasBit(excludeBits, index) && ! SaRouter.isMatch(rule.fallbackExcludePatterns, path);
+	}
+
+	/**
+	 * 在前缀树中查找 path 能匹配上的所有规则
+	 *
+	 * @param tree 前缀树
+	 * @param path 请求 path
+	 * @return 命中规则的位图
+	 */
+	protected long[] collect(PathNode tree, String path) {
+		long[] bits = new long[(rules.length + 63) >>> 6];
+		if(path == null || ! path.startsWith("/")) {
+			return bits;
+		}
+		List<String> segments = splitPath(path);
+		tree.collect(segments, 0, path.endsWith("/"), bits);
+		return bits;
+	}
+
+	/**
+	 * 按 / 切分 path，忽略空段
+	 *
+	 * @param path /
+	 * @return /
+	 */
+	protected static List<String> splitPath(String path) {
+		List<String> segments = new ArrayList<>();
+		int start = 0;
+		int length = path.length();
+		for (int i = 0; i <= length; i++) {
+			if(i == length || path.charAt(i) == '/') {
+				if(i > start) {
+					segments.add(path.substring(start, i));
+				}
+				start = i + 1;
+			}
+		}
+		return segments;
+	}
+
+	/**
+	 * 将声明的请求方式转为掩码，包含 ALL 时代表全部请求方式
+	 *
+	 * @param methods /
+	 * @return /
+	 */
+	protected static int toMethodMask(List<SaHttpMethod> methods) {
+		int mask = 0;
+		for (SaHttpMethod method : methods) {
+			if(method == SaHttpMethod.ALL) {
+				return ALL_METHOD_MASK;
+			}
+			if(method != null) {
+				mask |= 1 << method.ordinal();
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * 将请求的请求方式转为掩码，无法识别时只能被声明了 ALL 的规则匹配
+	 *
+	 * @param method /
+	 * @return /
+	 */
+	protected static int toRequestMethodMask(String method) {
+		for (SaHttpMethod item : METHODS) {
+			if(item.name().equalsIgnoreCase(method)) {
+				return 1 << item.ordinal();
+			}
+		}
+		return 1 << SaHttpMethod.ALL.ordinal();
+	}
+
+	protected static boolean hasBit(long[] bits, int index) {
+		return bits != null && (bits[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * 编译后的一条规则
+	 */
+	protected static class CompiledRule {
+
+		/**
+		 * 原始规则
+		 */
+		final SaRouteRule rule;
+
+		/**
+		 * 校验函数
+		 */
+		final SaParamFunction<SaRouterStaff> action;
+
+		/**
+		 * 是否拦截所有 path
+		 */
+		boolean matchAllPath;
+
+		/**
+		 * 全部拦截 path （不使用前缀树时逐个匹配）
+		 */
+		String[] patterns;
+
+		/**
+		 * 全部排除 path （不使用前缀树时逐个匹配）
+		 */
+		String[] excludePatterns;
+
+		/**
+		 * 无法编译、需在请求时逐个匹配的拦截 path
+		 */
+		String[] fallbackPatterns;
+
+		/**
+		 * 无法编译、需在请求时逐个匹配的排除 path
+		 */
+		String[] fallbackExcludePatterns;
+
+		/**
+		 * 拦截的请求方式掩码
+		 */
+		int methodMask;
+
+		/**
+		 * 排除的请求方式掩码
+		 */
+		int excludeMethodMask;
+
+		CompiledRule(SaRouteRule rule) {
+			this.rule = rule;
+			this.action = rule.action;
+		}
+
+	}
+
+	/**
+	 * 前缀树节点，每个节点对应路由匹配符中的一段
+	 */
+	protected static class PathNode {
+
+		/**
+		 * 普通字符段
+		 */
+		final Map<String, PathNode> literalChildren = new HashMap<>();
+
+		/**
+		 * 带有 * 的段，与 vagueChildren 一一对应
+		 */
+		final List<SaVaguePattern> vaguePatterns = new ArrayList<>();
+
+		/**
+		 * 带有 * 的段对应的子节点
+		 */
+		final List<PathNode> vagueChildren = new ArrayList<>();
+
+		/**
+		 * * 或 {变量} 段，匹配任意一段
+		 */
+		PathNode starChild;
+
+		/**
+		 * ** 段，匹配零到多段
+		 */
+		PathNode doubleStarChild;
+
+		/**
+		 * 在此节点结束的规则
+		 */
+		List<Integer> rules = Collections.emptyList();
+
+		/**
+		 * 以 /* 结尾、且不含 ** 的规则，path 在此节点结束并以 / 结尾时也算命中（同 AntPathMatcher）
+		 */
+		List<Integer> slashRules = Collections.emptyList();
+
+		/**
+		 * 添加一个路由匹配符
+		 *
+		 * @param pattern 路由匹配符
+		 * @param ruleIndex 规则下标
+		 * @return 是否添加成功，无法编译时返回 false
+		 */
+		boolean add(String pattern, int ruleIndex) {
+			if(pattern == null || ! pattern.startsWith("/") || pattern.endsWith("/") || pattern.indexOf('?') >= 0) {
+				return false;
+			}
+			List<String> segments = splitPath(pattern);
+			for (String segment : segments) {
+				if( ! isCompilable(segment)) {
+					return false;
+				}
+			}
+			PathNode node = this;
+			PathNode parent = null;
+			for (String segment : segments) {
+				parent = node;
+				node = node.getOrCreate(segment);
+			}
+			node.rules = append(node.rules, ruleIndex);
+			if(parent != null && segments.get(segments.size() - 1).equals("*") && ! segments.contains("**")) {
+				parent.slashRules = append(parent.slashRules, ruleIndex);
+			}
+			return true;
+		}
+
+		/**
+		 * 判断：一段是否可以被编译
+		 *
+		 * @param segment /
+		 * @return /
+		 */
+		static boolean isCompilable(String segment) {
+			if(segment.equals("**") || isVariable(segment)) {
+				return true;
+			}
+			return segment.indexOf('{') < 0 && segment.indexOf('}') < 0 && ! segment.contains("**");
+		}
+
+		/**
+		 * 判断：一段是否为不带正则的 {变量}
+		 *
+		 * @param segment /
+		 * @return /
+		 */
+		static boolean isVariable(String segment) {
+			return segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}'
+					&& segment.indexOf('{', 1) < 0 && segment.indexOf('}') == segment.length() - 1 && segment.indexOf(':') < 0;
+		}
+
+		PathNode getOrCreate(String segment) {
+			if(segment.equals("**")) {
+				if(doubleStarChild == null) {
+					doubleStarChild = new PathNode();
+				}
+				return doubleStarChild;
+			}
+			if(segment.equals("*") || isVariable(segment)) {
+				if(starChild == null) {
+					starChild = new PathNode();
+				}
+				return starChild;
+			}
+			if(segment.indexOf('*') >= 0) {
+				for (int i = 0; i < vaguePatterns.size(); i++) {
+					if(vaguePatterns.get(i).pattern.equals(segment)) {
+						return vagueChildren.get(i);
+					}
+				}
+				PathNode child = new PathNode();
+				vaguePatterns.add(new SaVaguePattern(segment));
+				vagueChildren.add(child);
+				return child;
+			}
+			return literalChildren.computeIfAbsent(segment, k -> new PathNode());
+		}
+
+		/**
+		 * 从第 index 段开始匹配，将命中的规则记录到位图中
+		 *
+		 * @param segments path 各段
+		 * @param index 当前段下标
+		 * @param endsWithSlash path 是否以 / 结尾
+		 * @param bits 位图
+		 */
+		void collect(List<String> segments, int index, boolean endsWithSlash, long[] bits) {
+			int size = segments.size();
+			if(doubleStarChild != null) {
+				for (int i = index; i <= size; i++) {
+					doubleStarChild.collect(segments, i, endsWithSlash, bits);
+				}
+			}
+			if(index == size) {
+				mark(rules, bits);
+				if(endsWithSlash) {
+					mark(slashRules, bits);
+				}
+				return;
+			}
+			String segment = segments.get(index);
+			PathNode child = literalChildren.get(segment);
+			if(child != null) {
+				child.collect(segments, index + 1, endsWithSlash, bits);
+			}
+			if(starChild != null) {
+				starChild.collect(segments, index + 1, endsWithSlash, bits);
+			}
+			for (int i = 0; i < vaguePatterns.size(); i++) {
+				if(vaguePatterns.get(i).match(segment)) {
+					vagueChildren.get(i).collect(segments, index + 1, endsWithSlash, bits);
+				}
+			}
+		}
+
+		static List<Integer> append(List<Integer> list, int ruleIndex) {
+			List<Integer> newList = new ArrayList<>(list);
+			newList.add(ruleIndex);
+			return newList;
+		}
+
+		static void mark(List<Integer> ruleIndexList, long[] bits) {
+			for (int i = 0; i < ruleIndexList.size(); i++) {
+				int index = ruleIndexList.get(i);
+				bits[index >>> 6] |= 1L << index;
+			}
+		}
+
+	}
+
+}
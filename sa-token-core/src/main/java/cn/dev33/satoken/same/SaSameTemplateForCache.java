@@ -0,0 +1,268 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.same;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import cn.dev33.satoken.util.SaFoxUtil;
+
+/**
+ * Same-Token 本地缓存模板：将当前 Same-Token 与 Past-Same-Token 缓存在内存中一段时间，减少每次 RPC 调用时对持久层的读取
+ *
+ * <p>
+ *     缓存到期后只由一个线程重新加载，其它线程继续使用旧值，不会同时打到持久层；<br>
+ *     校验时如果对方提交的 token 与缓存不一致（例如其它节点刚刚刷新了 Same-Token），距上次加载超过 minReloadInterval 时重新加载一次，
+ *     否则直接判定无效：无论提交多少无效 token，每个 minReloadInterval 内最多读取一次持久层（代价是其它节点刷新后，
+ *     新 token 最多要等 minReloadInterval 才会在本节点生效，这段时间内旧 token 仍作为 Past-Same-Token 有效）；<br>
+ *     Same-Token 不存在时，本节点只有一个线程执行刷新，刷新前会再次确认持久层中确实没有值。
+ * </p>
+ *
+ * <p> 用法示例：</p>
+ * <pre>
+ * 		SaManager.setSaSameTemplate(new SaSameTemplateForCache());
+ * </pre>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSameTemplateForCache extends SaSameTemplate {
+
+	/**
+	 * 缓存存活时间（单位: 毫秒）
+	 */
+	public long cacheTimeout = 10000;
+
+	/**
+	 * 校验失败时重新加载缓存的最小间隔（单位: 毫秒），距上次加载不足此间隔时不重新加载，直接判定无效
+	 */
+	public long minReloadInterval = 1000;
+
+	/**
+	 * 当前缓存
+	 */
+	protected volatile CacheEntry cache;
+
+	/**
+	 * 加载锁，保证同一时刻只有一个线程读取持久层或刷新 Same-Token
+	 */
+	protected final ReentrantLock loadLock = new ReentrantLock();
+
+	/**
+	 * 命中次数
+	 */
+	public final LongAdder hitCount = new LongAdder();
+
+	/**
+	 * 从持久层加载次数
+	 */
+	public final LongAdder loadCount = new LongAdder();
+
+	/**
+	 * 设置缓存存活时间
+	 *
+	 * @param cacheTimeout 缓存存活时间（单位: 毫秒）
+	 * @return 对象自身
+	 */
+	public SaSameTemplateForCache setCacheTimeout(long cacheTimeout) {
+		this.cacheTimeout = cacheTimeout;
+		return this;
+	}
+
+	/**
+	 * 设置校验失败时重新加载缓存的最小间隔
+	 *
+	 * @param minReloadInterval 最小间隔（单位: 毫秒）
+	 * @return 对象自身
+	 */
+	public SaSameTemplateForCache setMinReloadInterval(long minReloadInterval) {
+		this.minReloadInterval = minReloadInterval;
+		return this;
+	}
+
+	// -------------------- 获取 & 校验
+
+	/**
+	 * 获取当前 Same-Token（优先从缓存读取）, 如果不存在，则立即创建并返回
+	 * @return /
+	 */
+	@Override
+	public String getToken() {
+		CacheEntry entry = getCache();
+		if(SaFoxUtil.isNotEmpty(entry.token)) {
+			return entry.token;
+		}
+		return refreshTokenIfAbsent();
+	}
+
+	/**
+	 * 判断一个 Same-Token 是否有效（优先与缓存比较，不一致时重新加载一次）
+	 * @param token /
+	 * @return /
+	 */
+	@Override
+	public boolean isValid(String token) {
+		// 1、如果传入的 token 为空，则立即返回 false
+		if(SaFoxUtil.isEmpty(token)) {
+			return false;
+		}
+
+		// 2、与缓存的 Same-Token 及 Past-Same-Token 比较
+		CacheEntry entry = getCache();
+		if(entry.matches(token)) {
+			return true;
+		}
+
+		// 3、距上次加载不足最小间隔时直接判定无效，无效 token 不会频繁读取持久层
+		if(System.currentTimeMillis() - entry.loadTime < minReloadInterval) {
+			return false;
+		}
+
+		// 4、不一致时，可能是其它节点刚刚刷新了 Same-Token，重新加载一次再比较（多个线程同时到达时只加载一次）
+		return reload(entry).matches(token);
+	}
+
+	/**
+	 * 刷新一次 Same-Token，并更新缓存
+	 * @return 刷新后产生的新 Same-Token
+	 */
+	@Override
+	public String refreshToken() {
+		loadLock.lock();
+		try {
+			super.refreshToken();
+			return load().token;
+		} finally {
+			loadLock.unlock();
+		}
+	}
+
+	/**
+	 * 清除缓存，下次获取时重新从持久层加载
+	 */
+	public void invalidate() {
+		cache = null;
+	}
+
+	// -------------------- 缓存
+
+	/**
+	 * 获取缓存，缓存不存在时加载；缓存已过期时，由一个线程重新加载，其它线程继续使用旧值
+	 * @return /
+	 */
+	protected CacheEntry getCache() {
+		CacheEntry entry = cache;
+		if(entry == null) {
+			return reload(null);
+		}
+		if(System.currentTimeMillis() - entry.loadTime >= cacheTimeout && loadLock.tryLock()) {
+			try {
+				if(entry == cache) {
+					return load();
+				}
+				return cache;
+			} finally {
+				loadLock.unlock();
+			}
+		}
+		hitCount.increment();
+		return entry;
+	}
+
+	/**
+	 * 重新加载缓存：等待加载锁，如果在等待期间其它线程已经加载过，则直接使用其结果
+	 * @param oldEntry 调用方看到的旧缓存，可以为 null
+	 * @return /
+	 */
+	protected CacheEntry reload(CacheEntry oldEntry) {
+		loadLock.lock();
+		try {
+			CacheEntry entry = cache;
+			if(entry != null && entry != oldEntry) {
+				return entry;
+			}
+			return load();
+		} finally {
+			loadLock.unlock();
+		}
+	}
+
+	/**
+	 * Same-Token 不存在时刷新：在加载锁内再次确认持久层中确实没有值，避免同一节点的多个线程重复刷新
+	 * @return /
+	 */
+	protected String refreshTokenIfAbsent() {
+		loadLock.lock();
+		try {
+			CacheEntry entry = load();
+			if(SaFoxUtil.isNotEmpty(entry.token)) {
+				return entry.token;
+			}
+			return refreshToken();
+		} finally {
+			loadLock.unlock();
+		}
+	}
+
+	/**
+	 * 从持久层加载 Same-Token 与 Past-Same-Token，写入缓存（调用方需持有加载锁）
+	 * @return /
+	 */
+	protected CacheEntry load() {
+		loadCount.increment();
+		CacheEntry entry = new CacheEntry(getTokenNh(), getPastTokenNh(), System.currentTimeMillis());
+		cache = entry;
+		return entry;
+	}
+
+	/**
+	 * 缓存项
+	 */
+	public static class CacheEntry {
+
+		/**
+		 * 当前 Same-Token
+		 */
+		public final String token;
+
+		/**
+		 * Past-Same-Token
+		 */
+		public final String pastToken;
+
+		/**
+		 * 加载时间
+		 */
+		public final long loadTime;
+
+		public CacheEntry(String token, String pastToken, long loadTime) {
+			this.token = token;
+			this.pastToken = pastToken;
+			this.loadTime = loadTime;
+		}
+
+		/**
+		 * 判断：指定 token 是否与当前 Same-Token 或 Past-Same-Token 一致
+		 * @param token /
+		 * @return /
+		 */
+		public boolean matches(String token) {
+			return token.equals(this.token) || token.equals(this.pastToken);
+		}
+
+	}
+
+}
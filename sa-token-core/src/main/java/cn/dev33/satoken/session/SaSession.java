@@ -237,25 +237,37 @@ public class SaSession implements SaSetValueInterface, Serializable {
 	// ----------------------- TokenSign 相关
 
 	/**
-	 * 此 Session 绑定的 Token 签名列表 
+	 * 此 Session 绑定的 Token 签名列表（持久化的数据，始终为普通的 Vector，只读，修改时整体替换）
+	 *
+	 * <p> 按字段序列化的组件（例如 Redisson 的 JsonJacksonCodec）会直接读写此字段，反序列化后可能是任意 List，由 tokenSignList() 统一转换 </p>
+	 */
+	private volatile List<TokenSign> tokenSignList = SaTokenSignList.EMPTY.getVector();
+
+	/**
+	 * tokenSignList 对应的只读索引，不参与序列化，与 tokenSignList 不对应时重新创建
 	 */
-	private List<TokenSign> tokenSignList = new Vector<>();
+	private transient volatile SaTokenSignList tokenSignIndex = SaTokenSignList.EMPTY;
 
 	/**
 	 * 写入此 Session 绑定的 Token 签名列表 
 	 * @param tokenSignList Token 签名列表
 	 */
 	public void setTokenSignList(List<TokenSign> tokenSignList) {
-		this.tokenSignList = tokenSignList;
+		SaTokenSignList index = SaTokenSignList.of(tokenSignList);
+		synchronized (this) {
+			setTokenSignIndex(index);
+		}
 	}
 
 	/**
 	 * 获取此 Session 绑定的 Token 签名列表 
 	 *
+	 * <p> 返回的是一个拷贝副本（Vector），修改它不会影响此 Session，序列化时也保持与旧版本一致的格式 </p>
+	 *
 	 * @return Token 签名列表
 	 */
 	public List<TokenSign> getTokenSignList() {
-		return tokenSignList;
+		return new Vector<>(tokenSignList());
 	}
 
 	/**
@@ -264,47 +276,58 @@ public class SaSession implements SaSetValueInterface, Serializable {
 	 * @return token签名列表
 	 */
 	public List<TokenSign> tokenSignListCopy() {
-		return new ArrayList<>(tokenSignList);
+		return new ArrayList<>(tokenSignList());
 	}
 
 	/**
-	 * 返回 Token 签名列表 的拷贝副本，根据 device 筛选 
+	 * 获取此 Session 绑定的 Token 签名列表（只读，无需拷贝）
 	 *
-	 * @param device 设备类型，填 null 代表不限设备类型  
-	 * @return token签名列表
+	 * @return /
 	 */
-	public List<TokenSign> getTokenSignListByDevice(String device) {
-		// 返回全部
-		if(device == null) {
-			return tokenSignListCopy();
+	protected SaTokenSignList tokenSignList() {
+		SaTokenSignList index = tokenSignIndex;
+		if(index != null && index.getVector() == tokenSignList) {
+			return index;
 		}
-		// 返回筛选后的
-		List<TokenSign> tokenSignList = tokenSignListCopy();
-		List<TokenSign> list = new ArrayList<>();
-		for (TokenSign tokenSign : tokenSignList) {
-			if(SaFoxUtil.equals(tokenSign.getDevice(), device)) {
-				list.add(tokenSign);
+		// 首次读取，或 tokenSignList 字段被反序列化组件直接写入，重新创建索引并写回
+		synchronized (this) {
+			index = tokenSignIndex;
+			if(index == null || index.getVector() != tokenSignList) {
+				index = SaTokenSignList.of(tokenSignList);
+				setTokenSignIndex(index);
 			}
+			return index;
 		}
-		return list;
 	}
 
 	/**
-	 * 获取当前 Session 上的所有 token 列表
+	 * 替换 Token 签名列表（调用方需持有 this 锁）
+	 *
+	 * @param index 新的只读索引
+	 */
+	private void setTokenSignIndex(SaTokenSignList index) {
+		this.tokenSignList = index.getVector();
+		this.tokenSignIndex = index;
+	}
+
+	/**
+	 * 返回 Token 签名列表（只读），根据 device 筛选 
+	 *
+	 * @param device 设备类型，填 null 代表不限设备类型  
+	 * @return token签名列表
+	 */
+	public List<TokenSign> getTokenSignListByDevice(String device) {
+		return tokenSignList().getListByDevice(device);
+	}
+
+	/**
+	 * 获取当前 Session 上的所有 token 列表（只读）
 	 *
 	 * @param device 设备类型，填 null 代表不限设备类型
 	 * @return 此 loginId 的所有登录 token
 	 */
 	public List<String> getTokenValueListByDevice(String device) {
-		// 遍历解析，按照设备类型进行筛选
-		List<TokenSign> tokenSignList = tokenSignListCopy();
-		List<String> tokenValueList = new ArrayList<>();
-		for (TokenSign tokenSign : tokenSignList) {
-			if(device == null || tokenSign.getDevice().equals(device)) {
-				tokenValueList.add(tokenSign.getValue());
-			}
-		}
-		return tokenValueList;
+		return tokenSignList().getValueListByDevice(device);
 	}
 
 	/**
@@ -314,12 +337,7 @@ public class SaSession implements SaSetValueInterface, Serializable {
 	 * @return 查找到的 TokenSign
 	 */
 	public TokenSign getTokenSign(String tokenValue) {
-		for (TokenSign tokenSign : tokenSignListCopy()) {
-			if (SaFoxUtil.equals(tokenSign.getValue(), tokenValue)) {
-				return tokenSign;
-			}
-		}
-		return null;
+		return tokenSignList().getByValue(tokenValue);
 	}
 
 	/**
@@ -328,18 +346,11 @@ public class SaSession implements SaSetValueInterface, Serializable {
 	 * @param tokenSign Token 签名
 	 */
 	public void addTokenSign(TokenSign tokenSign) {
-		// 根据 tokenValue 值查重，如果不存在，则添加
-		TokenSign oldTokenSign = getTokenSign(tokenSign.getValue());
-		if(oldTokenSign == null) {
-			tokenSignList.add(tokenSign);
-			update();
-		} else {
-			// 如果存在，则更新
-			oldTokenSign.setValue(tokenSign.getValue());
-			oldTokenSign.setDevice(tokenSign.getDevice());
-			oldTokenSign.setTag(tokenSign.getTag());
-			update();
+		// 根据 tokenValue 值查重，如果已存在，则替换为新的 TokenSign
+		synchronized (this) {
+			setTokenSignIndex(tokenSignList().with(tokenSign));
 		}
+		update();
 	}
 
 	/**
@@ -359,8 +370,14 @@ public class SaSession implements SaSetValueInterface, Serializable {
 	 * @param tokenValue token值 
 	 */
 	public void removeTokenSign(String tokenValue) {
-		TokenSign tokenSign = getTokenSign(tokenValue);
-		if (tokenSignList.remove(tokenSign)) {
+		boolean removed;
+		synchronized (this) {
+			SaTokenSignList oldList = tokenSignList();
+			SaTokenSignList newList = oldList.without(tokenValue);
+			removed = (newList != oldList);
+			setTokenSignIndex(newList);
+		}
+		if (removed) {
 			update();
 		}
 	}
@@ -369,14 +386,17 @@ public class SaSession implements SaSetValueInterface, Serializable {
 	// ----------------------- 一些操作
 
 	/**
-	 * 更新Session（从持久库更新刷新一下）
+	 * 更新Session（从持久库更新刷新一下），在 SaSessionWriteScope 作用域内时，推迟到作用域结束时写入
 	 */
 	public void update() {
-		SaManager.getSaTokenDao().updateSession(this);
+		if( ! SaSessionWriteScope.defer(this)) {
+			SaManager.getSaTokenDao().updateSession(this);
+		}
 	}
 
 	/** 注销Session (从持久库删除) */
 	public void logout() {
+		SaSessionWriteScope.discard(this);
 		SaManager.getSaTokenDao().deleteSession(this.id);
  		// $$ 发布事件 
 		SaTokenEventCenter.doLogoutSession(id);
@@ -384,7 +404,7 @@ public class SaSession implements SaSetValueInterface, Serializable {
 
 	/** 当Session上的tokenSign数量为零时，注销会话 */
 	public void logoutByTokenSignCountToZero() {
-		if (tokenSignList.size() == 0) {
+		if (tokenSignList().isEmpty()) {
 			logout();
 		}
 	}
@@ -543,7 +563,7 @@ public class SaSession implements SaSetValueInterface, Serializable {
 	 */
 	@Deprecated
 	public List<TokenSign> tokenSignListCopyByDevice(String device) {
-		return getTokenSignListByDevice(device);
+		return new ArrayList<>(getTokenSignListByDevice(device));
 	}
 
 }
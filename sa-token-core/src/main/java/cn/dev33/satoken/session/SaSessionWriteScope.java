@@ -0,0 +1,266 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.session;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.fun.SaFunction;
+import cn.dev33.satoken.fun.SaRetFunction;
+
+/**
+ * SaSession 写入合并作用域：在作用域内修改 SaSession 时不立即写入持久层，作用域结束时每个被修改的 SaSession 只整体写入一次
+ *
+ * <p>
+ *     作用域与当前线程绑定，可以嵌套，最外层结束时统一写入。
+ *     开启配置项 mergeSessionWrite 后，Servlet 全局过滤器与 SaInterceptor 会为每次请求开启一个作用域，即：每次请求每个 SaSession 只写入一次。<br>
+ *     作用域内注销的 SaSession 不会再被写入；作用域内抛出异常时，已发生的修改仍然会被写入（与不使用作用域时的效果一致）。
+ * </p>
+ *
+ * <p> 用法示例：</p>
+ * <pre>
+ * 		SaSessionWriteScope.run(() -&gt; {
+ * 			session.set("name", "张三");
+ * 			session.set("age", 18);
+ * 			session.delete("tmp");
+ * 		});	// 在这里只写入一次
+ * </pre>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSessionWriteScope {
+
+	private SaSessionWriteScope() {
+	}
+
+	/**
+	 * 当前线程的作用域
+	 */
+	private static final ThreadLocal<SaSessionWriteScope> SCOPE = new ThreadLocal<>();
+
+	/**
+	 * 嵌套层数
+	 */
+	private int depth;
+
+	/**
+	 * 待写入的 SaSession，按最后一次修改的先后排列
+	 */
+	private final List<SaSession> pendingList = new ArrayList<>();
+
+	// ----------------------- 作用域
+
+	/**
+	 * 判断：当前线程是否处于作用域内
+	 *
+	 * @return /
+	 */
+	public static boolean isActive() {
+		return SCOPE.get() != null;
+	}
+
+	/**
+	 * 开启作用域（需与 end() 成对调用）
+	 */
+	public static void begin() {
+		SaSessionWriteScope scope = SCOPE.get();
+		if(scope == null) {
+			scope = new SaSessionWriteScope();
+			SCOPE.set(scope);
+		}
+		scope.depth++;
+	}
+
+	/**
+	 * 结束作用域，最外层结束时写入所有变更
+	 */
+	public static void end() {
+		SaSessionWriteScope scope = SCOPE.get();
+		if(scope == null) {
+			return;
+		}
+		if(--scope.depth > 0) {
+			return;
+		}
+		SCOPE.remove();
+		scope.flushPending();
+	}
+
+	/**
+	 * 因异常结束作用域：最外层结束时仍然写入所有变更，写入失败的异常附加到原异常上，不覆盖原异常
+	 *
+	 * @param cause 原异常，为 null 时与 end() 相同
+	 */
+	public static void end(Throwable cause) {
+		if(cause == null) {
+			end();
+			return;
+		}
+		try {
+			end();
+		} catch (RuntimeException e) {
+			cause.addSuppressed(e);
+		}
+	}
+
+	/**
+	 * 立即写入当前作用域内所有待写入的 SaSession，作用域继续有效（之后的修改仍然推迟到作用域结束时写入）
+	 *
+	 * <p> 适用于后续操作依赖这些数据已经写入的场景，例如：先写入 Account-Session，再保存 token -&gt; id 映射关系 </p>
+	 */
+	public static void flush() {
+		SaSessionWriteScope scope = SCOPE.get();
+		if(scope != null) {
+			scope.flushPending();
+		}
+	}
+
+	/**
+	 * 立即写入指定 SaSession 在当前作用域内尚未写入的变更，其它 SaSession 仍然推迟到作用域结束时写入
+	 *
+	 * <p> 适用于此 SaSession 需要与其它数据保持一致的场景，例如：注销时 token 映射已经删除，Account-Session 上的 token 签名也应同时移除 </p>
+	 *
+	 * @param session /
+	 */
+	public static void flush(SaSession session) {
+		SaSessionWriteScope scope = SCOPE.get();
+		if(scope != null && scope.pendingList.removeIf(item -> item == session)) {
+			SaManager.getSaTokenDao().updateSession(session);
+		}
+	}
+
+	/**
+	 * 在作用域内执行一段代码
+	 *
+	 * @param fun /
+	 */
+	public static void run(SaFunction fun) {
+		begin();
+		try {
+			fun.run();
+		} catch (RuntimeException | Error e) {
+			end(e);
+			throw e;
+		}
+		end();
+	}
+
+	/**
+	 * 在作用域内执行一段代码，并返回结果
+	 *
+	 * @param fun /
+	 * @param <T> /
+	 * @return /
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T call(SaRetFunction fun) {
+		begin();
+		Object result;
+		try {
+			result = fun.run();
+		} catch (RuntimeException | Error e) {
+			end(e);
+			throw e;
+		}
+		end();
+		return (T) result;
+	}
+
+	// ----------------------- 记录待写入的 SaSession
+
+	/**
+	 * 记录：SaSession 需要写入，推迟到作用域结束时统一写入
+	 *
+	 * @param session /
+	 * @return 是否已记录（不在作用域内时返回 false，调用方需立即写入）
+	 */
+	public static boolean defer(SaSession session) {
+		SaSessionWriteScope scope = SCOPE.get();
+		if(scope == null) {
+			return false;
+		}
+		List<SaSession> pendingList = scope.pendingList;
+		for (int i = 0; i < pendingList.size(); i++) {
+			if(pendingList.get(i) == session) {
+				// 移到末尾，保持按最后一次修改的先后写入
+				if(i != pendingList.size() - 1) {
+					pendingList.remove(i);
+					pendingList.add(session);
+				}
+				return true;
+			}
+		}
+		pendingList.add(session);
+		return true;
+	}
+
+	/**
+	 * 丢弃指定 SaSession 尚未写入的变更（SaSession 被注销时调用）
+	 *
+	 * @param session /
+	 */
+	public static void discard(SaSession session) {
+		SaSessionWriteScope scope = SCOPE.get();
+		if(scope != null) {
+			scope.pendingList.removeIf(item -> item == session);
+		}
+	}
+
+	/**
+	 * 获取当前作用域内有待写入变更的 SaSession
+	 *
+	 * <p> 作用域内再次读取同一个 SaSession 时应优先使用此对象，否则从持久层读到的是尚未写入变更的旧数据，两份对象在作用域结束时会互相覆盖 </p>
+	 *
+	 * @param sessionId SessionId
+	 * @return 不在作用域内或此 SaSession 没有待写入的变更时返回 null
+	 */
+	public static SaSession getPending(String sessionId) {
+		SaSessionWriteScope scope = SCOPE.get();
+		if(scope == null) {
+			return null;
+		}
+		for (SaSession session : scope.pendingList) {
+			if(session.getId().equals(sessionId)) {
+				return session;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 写入所有待写入的 SaSession，每个 SaSession 只写入一次
+	 */
+	protected void flushPending() {
+		RuntimeException error = null;
+		for (SaSession session : pendingList) {
+			try {
+				SaManager.getSaTokenDao().updateSession(session);
+			} catch (RuntimeException e) {
+				// 一个写入失败不影响其它写入，全部写完后再抛出第一个异常
+				if(error == null) {
+					error = e;
+				}
+			}
+		}
+		pendingList.clear();
+		if(error != null) {
+			throw error;
+		}
+	}
+
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.session;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Vector;
+
+/**
+ * 只读的 Token 签名列表：创建时按 token 值、按设备类型建好索引，修改时生成一个新列表（写时复制）
+ *
+ * <p>
+ *     读操作不加锁、不创建对象，可以在多个线程中并发读取；按 token 值查重、查找均为 O(1)。<br>
+ *     序列化时写出的是一个普通的 Vector，与旧版本存储的数据格式保持一致。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenSignList extends AbstractList<TokenSign> implements RandomAccess, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 空列表
+	 */
+	public static final SaTokenSignList EMPTY = new SaTokenSignList(new TokenSign[0]);
+
+	/**
+	 * 所有 Token 签名，按添加顺序排列
+	 */
+	private final TokenSign[] array;
+
+	/**
+	 * token 值 -> Token 签名
+	 */
+	private final transient Map<String, TokenSign> valueMap;
+
+	/**
+	 * 设备类型 -> Token 签名列表
+	 */
+	private final transient Map<String, List<TokenSign>> deviceMap;
+
+	/**
+	 * 设备类型 -> token 值列表
+	 */
+	private final transient Map<String, List<String>> deviceValueMap;
+
+	/**
+	 * 全部 token 值列表
+	 */
+	private final transient List<String> valueList;
+
+	/**
+	 * 内容相同的普通 Vector，供 SaSession 持久化使用
+	 */
+	private final transient Vector<TokenSign> vector;
+
+	/**
+	 * 构建一个列表，调用方需保证 array 中的 token 值不重复，且之后不再修改 array
+	 *
+	 * @param array Token 签名数组
+	 */
+	protected SaTokenSignList(TokenSign[] array) {
+		this.array = array;
+		Map<String, TokenSign> valueMap = new HashMap<>();
+		Map<String, List<TokenSign>> deviceMap = new HashMap<>();
+		Map<String, List<String>> deviceValueMap = new HashMap<>();
+		List<String> valueList = new ArrayList<>(array.length);
+		for (TokenSign tokenSign : array) {
+			valueMap.put(tokenSign.getValue(), tokenSign);
+			deviceMap.computeIfAbsent(tokenSign.getDevice(), k -> new ArrayList<>()).add(tokenSign);
+			deviceValueMap.computeIfAbsent(tokenSign.getDevice(), k -> new ArrayList<>()).add(tokenSign.getValue());
+			valueList.add(tokenSign.getValue());
+		}
+		deviceMap.replaceAll((k, v) -> Collections.unmodifiableList(v));
+		deviceValueMap.replaceAll((k, v) -> Collections.unmodifiableList(v));
+		this.valueMap = valueMap;
+		this.deviceMap = deviceMap;
+		this.deviceValueMap = deviceValueMap;
+		this.valueList = Collections.unmodifiableList(valueList);
+		this.vector = new Vector<>(Arrays.asList(array));
+	}
+
+	/**
+	 * 将一个普通列表转为 SaTokenSignList，token 值重复时保留后出现的一个（位置不变）；如果已经是 SaTokenSignList 则直接返回
+	 *
+	 * @param list 普通列表，可以为 null
+	 * @return /
+	 */
+	public static SaTokenSignList of(List<TokenSign> list) {
+		if(list instanceof SaTokenSignList) {
+			return (SaTokenSignList) list;
+		}
+		if(list == null || list.isEmpty()) {
+			return EMPTY;
+		}
+		Map<String, TokenSign> map = new LinkedHashMap<>();
+		for (TokenSign tokenSign : new ArrayList<>(list)) {
+			if(tokenSign != null) {
+				map.put(tokenSign.getValue(), tokenSign);
+			}
+		}
+		return new SaTokenSignList(map.values().toArray(new TokenSign[0]));
+	}
+
+	@Override
+	public TokenSign get(int index) {
+		return array[index];
+	}
+
+	@Override
+	public int size() {
+		return array.length;
+	}
+
+	/**
+	 * 根据 token 值查找 Token 签名
+	 *
+	 * @param tokenValue token 值
+	 * @return 找不到时返回 null
+	 */
+	public TokenSign getByValue(String tokenValue) {
+		return valueMap.get(tokenValue);
+	}
+
+	/**
+	 * 获取指定设备类型的 Token 签名列表（只读）
+	 *
+	 * @param device 设备类型，填 null 代表不限设备类型
+	 * @return /
+	 */
+	public List<TokenSign> getListByDevice(String device) {
+		if(device == null) {
+			return this;
+		}
+		return deviceMap.getOrDefault(device, Collections.emptyList());
+	}
+
+	/**
+	 * 获取指定设备类型的 token 值列表（只读）
+	 *
+	 * @param device 设备类型，填 null 代表不限设备类型
+	 * @return /
+	 */
+	public List<String> getValueListByDevice(String device) {
+		if(device == null) {
+			return valueList;
+		}
+		return deviceValueMap.getOrDefault(device, Collections.emptyList());
+	}
+
+	/**
+	 * 返回一个添加了指定 Token 签名的新列表，token 值已存在时替换原来的 Token 签名（位置不变）
+	 *
+	 * @param tokenSign Token 签名
+	 * @return 新列表
+	 */
+	public SaTokenSignList with(TokenSign tokenSign) {
+		TokenSign old = valueMap.get(tokenSign.getValue());
+		TokenSign[] newArray;
+		if(old == null) {
+			newArray = Arrays.copyOf(array, array.length + 1);
+			newArray[array.length] = tokenSign;
+		} else {
+			newArray = array.clone();
+			newArray[indexOfInstance(old)] = tokenSign;
+		}
+		return new SaTokenSignList(newArray);
+	}
+
+	/**
+	 * 返回一个移除了指定 token 值的新列表，token 值不存在时返回自身
+	 *
+	 * @param tokenValue token 值
+	 * @return 新列表
+	 */
+	public SaTokenSignList without(String tokenValue) {
+		TokenSign old = valueMap.get(tokenValue);
+		if(old == null) {
+			return this;
+		}
+		if(array.length == 1) {
+			return EMPTY;
+		}
+		int index = indexOfInstance(old);
+		TokenSign[] newArray = new TokenSign[array.length - 1];
+		System.arraycopy(array, 0, newArray, 0, index);
+		System.arraycopy(array, index + 1, newArray, index, array.length - index - 1);
+		return new SaTokenSignList(newArray);
+	}
+
+	/**
+	 * 获取内容相同的普通 Vector（与此列表共享同一个对象，调用方不可修改）
+	 *
+	 * <p> SaSession 中持久化的是这个 Vector，以便 Jackson 等按字段序列化的组件写出 java.util.Vector 类型，而不是无法反序列化的 SaTokenSignList </p>
+	 *
+	 * @return /
+	 */
+	public Vector<TokenSign> getVector() {
+		return vector;
+	}
+
+	private int indexOfInstance(TokenSign tokenSign) {
+		for (int i = 0; i < array.length; i++) {
+			if(array[i] == tokenSign) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 序列化时写出普通的 Vector，保持存储格式不变
+	 *
+	 * @return /
+	 */
+	private Object writeReplace() {
+		return new Vector<>(vector);
+	}
+
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.stp;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 自动续签合并缓冲区：将同一 token 在写入间隔内的多次续签合并为一次，由后台线程定时批量写入持久层
+ *
+ * <p>
+ *     开启方式：配置 autoRenewWriteInterval > 0 。 <br>
+ *     持久层中的最后活跃时间最多落后 autoRenewWriteInterval 秒，本节点在校验 activeTimeout 时会优先使用缓冲区中尚未写入的值，
+ *     其它节点看到的最后活跃时间则最多存在 autoRenewWriteInterval 秒的偏差。 <br>
+ *     autoRenewWriteInterval 不小于 activeTimeout 时按 activeTimeout 的一半执行，详见 {@link StpLogic#getAutoRenewWriteInterval()}。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaActiveRenewBuffer {
+
+	/**
+	 * 所属的 StpLogic
+	 */
+	public final StpLogic stpLogic;
+
+	/**
+	 * 尚未写入持久层的续签记录，tokenValue -> 最后活跃时间（13位时间戳）
+	 */
+	public final Map<String, Long> pendingMap = new ConcurrentHashMap<>();
+
+	/**
+	 * 被合并掉（即未实际写入持久层）的续签次数
+	 */
+	public final LongAdder suppressedCount = new LongAdder();
+
+	/**
+	 * 实际写入持久层的续签次数
+	 */
+	public final LongAdder writeCount = new LongAdder();
+
+	/**
+	 * 执行定时写入的线程引用
+	 */
+	public Thread flushThread;
+
+	/**
+	 * 是否继续执行定时写入的线程标记
+	 */
+	public volatile boolean flushFlag;
+
+	public SaActiveRenewBuffer(StpLogic stpLogic) {
+		this.stpLogic = stpLogic;
+	}
+
+	/**
+	 * 记录一次续签：将指定 token 的最后活跃时间记为当前时间，等待后台线程写入
+	 *
+	 * @param tokenValue 指定 token
+	 */
+	public void renew(String tokenValue) {
+		if(pendingMap.put(tokenValue, System.currentTimeMillis()) != null) {
+			suppressedCount.increment();
+		}
+		// 后台线程已结束时直接写入，避免续签记录滞留在缓冲区中
+		if( ! flushFlag) {
+			flush();
+		}
+	}
+
+	/**
+	 * 获取指定 token 尚未写入持久层的最后活跃时间，如果没有则返回 null
+	 *
+	 * @param tokenValue 指定 token
+	 * @return /
+	 */
+	public Long getPending(String tokenValue) {
+		return pendingMap.get(tokenValue);
+	}
+
+	/**
+	 * 丢弃指定 token 尚未写入持久层的续签记录（例如 token 注销时）
+	 *
+	 * @param tokenValue 指定 token
+	 */
+	public void remove(String tokenValue) {
+		pendingMap.remove(tokenValue);
+	}
+
+	/**
+	 * 立即将缓冲区中的所有续签记录批量写入持久层
+	 */
+	public void flush() {
+		if(pendingMap.isEmpty()) {
+			return;
+		}
+		Map<String, Long> lastActiveMap = new LinkedHashMap<>();
+		for (String tokenValue : pendingMap.keySet()) {
+			Long lastActiveTime = pendingMap.remove(tokenValue);
+			if(lastActiveTime != null) {
+				lastActiveMap.put(tokenValue, lastActiveTime);
+			}
+		}
+		if(lastActiveMap.isEmpty()) {
+			return;
+		}
+		stpLogic.updateLastActiveBatch(lastActiveMap);
+		writeCount.add(lastActiveMap.size());
+	}
+
+	/**
+	 * 获取被合并掉（即未实际写入持久层）的续签次数
+	 *
+	 * @return /
+	 */
+	public long getSuppressedCount() {
+		return suppressedCount.sum();
+	}
+
+	/**
+	 * 获取实际写入持久层的续签次数
+	 *
+	 * @return /
+	 */
+	public long getWriteCount() {
+		return writeCount.sum();
+	}
+
+	/**
+	 * 启动后台线程，每隔 autoRenewWriteInterval 秒 （不小于 activeTimeout 时取其一半） 批量写入一次，autoRenewWriteInterval 被改为 0 时自动结束
+	 */
+	public void initFlushThread() {
+		this.flushFlag = true;
+		this.flushThread = new Thread(() -> {
+			while (flushFlag) {
+				try {
+					// 已关闭合并写入，结束线程
+					int interval = stpLogic.getAutoRenewWriteInterval();
+					if(interval <= 0) {
+						flushFlag = false;
+						break;
+					}
+					// 休眠N秒，调用 destroy() 时会被提前唤醒
+					synchronized (this) {
+						if(flushFlag) {
+							wait(interval * 1000L);
+						}
+					}
+					// 执行写入
+					flush();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+			// 结束前将剩余的续签记录全部写入
+			try {
+				flush();
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		});
+		this.flushThread.setDaemon(true);
+		this.flushThread.setName("sa-token-active-renew-" + stpLogic.getLoginType());
+		this.flushThread.start();
+	}
+
+	/**
+	 * 后台线程是否仍在运行
+	 *
+	 * @return /
+	 */
+	public boolean isRunning() {
+		return flushFlag;
+	}
+
+	/**
+	 * 结束后台线程，结束前会将剩余的续签记录全部写入
+	 */
+	public void destroy() {
+		this.flushFlag = false;
+		synchronized (this) {
+			notifyAll();
+		}
+		flush();
+	}
+
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.stp;
+
+import cn.dev33.satoken.util.SaFoxUtil;
+import cn.dev33.satoken.util.SaVaguePattern;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * 已编译的权限码集合（或角色集合）：只读，预先将集合拆分为精确匹配部分与通配符部分，以加速 hasElement 判断
+ *
+ * <p>
+ *     1、不带 * 的元素放入哈希集合，精确匹配。<br>
+ *     2、形如 user* 、 art.* 这样只在末尾带一个 * 的元素放入前缀树，沿着待匹配字符串走一遍即可得出结果。<br>
+ *     3、其它带 * 的元素（例如 *.add 、 user.*.get ），预编译为 SaVaguePattern 后逐个匹配。<br>
+ *     匹配时不创建任何对象，耗时只与待匹配字符串的长度（以及第 3 类元素的数量）有关，与集合大小无关。
+ * </p>
+ *
+ * <p> 本类同时实现了 List 接口，可以直接替代原集合使用，{@link cn.dev33.satoken.strategy.SaStrategy#hasElement} 遇到本类时会走编译后的匹配逻辑 </p>
+ *
+ * <p> 注意：本类是只读的，调用 add、remove 等修改方法会抛出 UnsupportedOperationException，需要修改时请先复制一份：new ArrayList&lt;&gt;(list) </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaPermissionList extends AbstractList<String> implements RandomAccess {
+
+	/**
+	 * 原始集合（编译时复制的一份，之后对原集合的修改不会影响本对象）
+	 */
+	public final List<String> source;
+
+	/**
+	 * 不带 * 的元素
+	 */
+	protected final Set<String> exactSet;
+
+	/**
+	 * 只在末尾带一个 * 的元素，去掉 * 后组成的前缀树
+	 */
+	protected final TrieNode prefixTrie;
+
+	/**
+	 * 其它带 * 的元素（已预编译）
+	 */
+	protected final SaVaguePattern[] patternArray;
+
+	/**
+	 * 编译一个集合（会先复制一份，编译结果与原集合之后的修改无关）
+	 *
+	 * @param source 原始集合
+	 */
+	public SaPermissionList(List<String> source) {
+		this.source = new ArrayList<>(source);
+		Set<String> exactSet = new HashSet<>();
+		List<SaVaguePattern> patternList = new ArrayList<>();
+		TrieNode prefixTrie = null;
+		for (String element : this.source) {
+			int index = element == null ? -1 : element.indexOf('*');
+			if(index < 0) {
+				exactSet.add(element);
+			} else if(index == element.length() - 1) {
+				if(prefixTrie == null) {
+					prefixTrie = new TrieNode();
+				}
+				prefixTrie.add(element, index);
+			} else {
+				patternList.add(SaFoxUtil.compileVaguePattern(element));
+			}
+		}
+		this.exactSet = exactSet;
+		this.prefixTrie = prefixTrie;
+		this.patternArray = patternList.toArray(new SaVaguePattern[0]);
+	}
+
+	/**
+	 * 将一个集合编译为 SaPermissionList，如果已经是 SaPermissionList 则直接返回，为 null 时返回 null
+	 *
+	 * @param list 原始集合
+	 * @return /
+	 */
+	public static SaPermissionList of(List<String> list) {
+		if(list == null || list instanceof SaPermissionList) {
+			return (SaPermissionList) list;
+		}
+		return new SaPermissionList(list);
+	}
+
+	/**
+	 * 判断：集合中是否包含指定元素（模糊匹配），与 SaStrategy.hasElement 默认实现的结果一致
+	 *
+	 * @param element 元素
+	 * @return /
+	 */
+	public boolean has(String element) {
+		if(exactSet.contains(element)) {
+			return true;
+		}
+		if(element == null) {
+			return false;
+		}
+		if(prefixTrie != null && prefixTrie.matchPrefix(element)) {
+			return true;
+		}
+		for (SaVaguePattern pattern : patternArray) {
+			if(pattern.match(element)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String get(int index) {
+		return source.get(index);
+	}
+
+	@Override
+	public int size() {
+		return source.size();
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return source.contains(o);
+	}
+
+	/**
+	 * 前缀树节点
+	 */
+	protected static class TrieNode {
+
+		/**
+		 * 走到此节点时，是否已经可以匹配成功（即存在以此节点为结尾的 xxx* 元素）
+		 */
+		boolean wildcard;
+
+		/**
+		 * 子节点对应的字符，有序，用于二分查找
+		 */
+		char[] keys = new char[0];
+
+		/**
+		 * 子节点，与 keys 一一对应
+		 */
+		TrieNode[] children = new TrieNode[0];
+
+		/**
+		 * 添加一个前缀
+		 *
+		 * @param element 元素
+		 * @param length 前缀长度
+		 */
+		void add(String element, int length) {
+			TrieNode node = this;
+			for (int i = 0; i < length && ! node.wildcard; i++) {
+				node = node.getOrCreate(element.charAt(i));
+			}
+			// 更短的前缀已经能覆盖所有以它开头的字符串，子节点不再需要
+			node.wildcard = true;
+			node.keys = new char[0];
+			node.children = new TrieNode[0];
+		}
+
+		TrieNode getOrCreate(char c) {
+			int index = Arrays.binarySearch(keys, c);
+			if(index >= 0) {
+				return children[index];
+			}
+			int insert = - index - 1;
+			TrieNode child = new TrieNode();
+			char[] newKeys = new char[keys.length + 1];
+			TrieNode[] newChildren = new TrieNode[children.length + 1];
+			System.arraycopy(keys, 0, newKeys, 0, insert);
+			System.arraycopy(children, 0, newChildren, 0, insert);
+			newKeys[insert] = c;
+			newChildren[insert] = child;
+			System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+			System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+			keys = newKeys;
+			children = newChildren;
+			return child;
+		}
+
+		/**
+		 * 判断：字符串是否以树中的某个前缀开头
+		 *
+		 * @param str 字符串
+		 * @return /
+		 */
+		boolean matchPrefix(String str) {
+			TrieNode node = this;
+			int length = str.length();
+			for (int i = 0; ; i++) {
+				if(node.wildcard) {
+					return true;
+				}
+				if(i == length) {
+					return false;
+				}
+				int index = Arrays.binarySearch(node.keys, str.charAt(i));
+				if(index < 0) {
+					return false;
+				}
+				node = node.children[index];
+			}
+		}
+
+	}
+
+}
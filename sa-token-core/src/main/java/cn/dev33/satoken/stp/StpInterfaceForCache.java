@@ -0,0 +1,285 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.stp;
+
+import cn.dev33.satoken.listener.SaTokenEventCenter;
+import cn.dev33.satoken.listener.SaTokenListener;
+import cn.dev33.satoken.listener.SaTokenListenerForSimple;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * StpInterface 跨请求缓存装饰器：将权限码集合、角色集合按 (loginType, loginId) 缓存一段时间，减少对底层 StpInterface 的调用
+ *
+ * <p> 缓存的是编译后的 {@link SaPermissionList}，每个集合只编译一次 </p>
+ *
+ * <p>
+ *     缓存有数量上限与存活时间，到期后重新加载。权限或角色发生变化时，可调用 invalidate 方法立即清除指定账号的缓存。<br>
+ *     调用 init 方法后，账号登录、注销、被踢下线、被顶下线、被封禁、解封时，也会自动清除该账号的缓存。
+ * </p>
+ *
+ * <p> 用法示例：</p>
+ * <pre>
+ * 		StpInterfaceForCache stpInterfaceForCache = new StpInterfaceForCache(new StpInterfaceImpl());
+ * 		stpInterfaceForCache.init();
+ * 		SaManager.setStpInterface(stpInterfaceForCache);
+ * </pre>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class StpInterfaceForCache implements StpInterface {
+
+	/**
+	 * 被装饰的 StpInterface
+	 */
+	public final StpInterface stpInterface;
+
+	/**
+	 * 缓存最大数量（权限码集合、角色集合分别计算）
+	 */
+	public int maxSize = 10000;
+
+	/**
+	 * 缓存存活时间（单位: 毫秒）
+	 */
+	public long cacheTimeout = 60000;
+
+	/**
+	 * 权限码集合缓存，loginType:loginId -> 权限码集合
+	 */
+	public final Map<String, CacheEntry> permissionMap = new ConcurrentHashMap<>();
+
+	/**
+	 * 角色集合缓存，loginType:loginId -> 角色集合
+	 */
+	public final Map<String, CacheEntry> roleMap = new ConcurrentHashMap<>();
+
+	/**
+	 * 命中次数
+	 */
+	public final LongAdder hitCount = new LongAdder();
+
+	/**
+	 * 未命中次数
+	 */
+	public final LongAdder missCount = new LongAdder();
+
+	/**
+	 * 在账号状态发生变化时清除缓存的侦听器
+	 */
+	public final SaTokenListener invalidateListener = new SaTokenListenerForSimple() {
+		@Override
+		public void doLogin(String loginType, Object loginId, String tokenValue, SaLoginModel loginModel) {
+			invalidate(loginType, loginId);
+		}
+		@Override
+		public void doLogout(String loginType, Object loginId, String tokenValue) {
+			invalidate(loginType, loginId);
+		}
+		@Override
+		public void doKickout(String loginType, Object loginId, String tokenValue) {
+			invalidate(loginType, loginId);
+		}
+		@Override
+		public void doReplaced(String loginType, Object loginId, String tokenValue) {
+			invalidate(loginType, loginId);
+		}
+		@Override
+		public void doDisable(String loginType, Object loginId, String service, int level, long disableTime) {
+			invalidate(loginType, loginId);
+		}
+		@Override
+		public void doUntieDisable(String loginType, Object loginId, String service) {
+			invalidate(loginType, loginId);
+		}
+	};
+
+	/**
+	 * 构建一个缓存装饰器
+	 * @param stpInterface 被装饰的 StpInterface
+	 */
+	public StpInterfaceForCache(StpInterface stpInterface) {
+		this.stpInterface = stpInterface;
+	}
+
+	@Override
+	public List<String> getPermissionList(Object loginId, String loginType) {
+		return getByCache(permissionMap, loginId, loginType, stpInterface::getPermissionList);
+	}
+
+	@Override
+	public List<String> getRoleList(Object loginId, String loginType) {
+		return getByCache(roleMap, loginId, loginType, stpInterface::getRoleList);
+	}
+
+	/**
+	 * 从缓存中读取，没有或已过期时调用底层 StpInterface 加载
+	 *
+	 * @param cacheMap 缓存
+	 * @param loginId 账号id
+	 * @param loginType 账号类型
+	 * @param loader 加载函数
+	 * @return /
+	 */
+	protected List<String> getByCache(Map<String, CacheEntry> cacheMap, Object loginId, String loginType,
+									  BiFunction<Object, String, List<String>> loader) {
+		String key = splicingCacheKey(loginType, loginId);
+		long now = System.currentTimeMillis();
+		CacheEntry entry = cacheMap.get(key);
+		if(entry != null && entry.expireTime > now) {
+			hitCount.increment();
+			return entry.value;
+		}
+		missCount.increment();
+		List<String> value = SaPermissionList.of(loader.apply(loginId, loginType));
+		putCache(cacheMap, key, new CacheEntry(value, now + cacheTimeout), now);
+		return value;
+	}
+
+	/**
+	 * 写入缓存，超出数量上限时先清理过期数据，仍然超出则淘汰一部分
+	 *
+	 * @param cacheMap 缓存
+	 * @param key 键名称
+	 * @param entry 缓存项
+	 * @param now 当前时间（13位时间戳）
+	 */
+	protected void putCache(Map<String, CacheEntry> cacheMap, String key, CacheEntry entry, long now) {
+		if(cacheMap.size() >= maxSize) {
+			cacheMap.values().removeIf(e -> e.expireTime <= now);
+			int removeCount = cacheMap.size() - maxSize + Math.max(1, maxSize / 10);
+			Iterator<String> it = cacheMap.keySet().iterator();
+			while (removeCount-- > 0 && it.hasNext()) {
+				it.next();
+				it.remove();
+			}
+		}
+		cacheMap.put(key, entry);
+	}
+
+	/**
+	 * 拼接缓存 key
+	 *
+	 * @param loginType 账号类型
+	 * @param loginId 账号id
+	 * @return /
+	 */
+	public String splicingCacheKey(String loginType, Object loginId) {
+		return loginType + ":" + loginId;
+	}
+
+	/**
+	 * 清除指定账号的权限码集合、角色集合缓存
+	 *
+	 * @param loginType 账号类型
+	 * @param loginId 账号id
+	 */
+	public void invalidate(String loginType, Object loginId) {
+		String key = splicingCacheKey(loginType, loginId);
+		permissionMap.remove(key);
+		roleMap.remove(key);
+	}
+
+	/**
+	 * 清空所有缓存
+	 */
+	public void invalidateAll() {
+		permissionMap.clear();
+		roleMap.clear();
+	}
+
+	/**
+	 * 注册侦听器，在账号状态发生变化时自动清除该账号的缓存
+	 */
+	public void init() {
+		if( ! SaTokenEventCenter.hasListener(invalidateListener)) {
+			SaTokenEventCenter.registerListener(invalidateListener);
+		}
+	}
+
+	/**
+	 * 移除侦听器，并清空所有缓存
+	 */
+	public void destroy() {
+		SaTokenEventCenter.removeListener(invalidateListener);
+		invalidateAll();
+	}
+
+	/**
+	 * 获取命中次数
+	 * @return /
+	 */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/**
+	 * 获取未命中次数
+	 * @return /
+	 */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	/**
+	 * 写入缓存最大数量
+	 * @param maxSize /
+	 * @return 对象自身
+	 */
+	public StpInterfaceForCache setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		return this;
+	}
+
+	/**
+	 * 写入缓存存活时间（单位: 毫秒）
+	 * @param cacheTimeout /
+	 * @return 对象自身
+	 */
+	public StpInterfaceForCache setCacheTimeout(long cacheTimeout) {
+		this.cacheTimeout = cacheTimeout;
+		return this;
+	}
+
+	/**
+	 * 一条缓存数据
+	 */
+	public static class CacheEntry {
+
+		/**
+		 * 权限码集合 或 角色集合
+		 */
+		public final List<String> value;
+
+		/**
+		 * 到期时间（13位时间戳）
+		 */
+		public final long expireTime;
+
+		public CacheEntry(List<String> value, long expireTime) {
+			this.value = value;
+			this.expireTime = expireTime;
+		}
+
+	}
+
+}
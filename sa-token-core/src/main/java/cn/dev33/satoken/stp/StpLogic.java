@@ -25,17 +25,22 @@ import cn.dev33.satoken.context.model.SaRequest;
 import cn.dev33.satoken.context.model.SaResponse;
 import cn.dev33.satoken.context.model.SaStorage;
 import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoBatch;
 import cn.dev33.satoken.error.SaErrorCode;
 import cn.dev33.satoken.exception.*;
 import cn.dev33.satoken.fun.SaFunction;
+import cn.dev33.satoken.fun.SaParamRetFunction;
+import cn.dev33.satoken.fun.SaRetFunction;
 import cn.dev33.satoken.listener.SaTokenEventCenter;
 import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.session.SaSessionWriteScope;
 import cn.dev33.satoken.session.TokenSign;
 import cn.dev33.satoken.strategy.SaStrategy;
 import cn.dev33.satoken.util.SaFoxUtil;
 import cn.dev33.satoken.util.SaTokenConsts;
 import cn.dev33.satoken.util.SaValue2Box;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -459,43 +464,62 @@ public class StpLogic {
 	 * @return 返回会话令牌 
 	 */
 	public String createLoginSession(Object id, SaLoginModel loginModel) {
-
-		// 1、先检查一下，传入的参数是否有效
-		checkLoginArgs(id, loginModel);
+		SaSessionWriteScope.begin();
+		Throwable error = null;
+		try {
+			// 1、先检查一下，传入的参数是否有效
+			checkLoginArgs(id, loginModel);
 		
-		// 2、初始化 loginModel ，给一些参数补上默认值
-		SaTokenConfig config = getConfigOrGlobal();
-		loginModel.build(config);
+			// 2、初始化 loginModel ，给一些参数补上默认值
+			SaTokenConfig config = getConfigOrGlobal();
+			loginModel.build(config);
 
-		// 3、给这个账号分配一个可用的 token
-		String tokenValue = distUsableToken(id, loginModel);
+			// 3、给这个账号分配一个可用的 token
+			String tokenValue = distUsableToken(id, loginModel);
 		
-		// 4、获取此账号的 Account-Session , 续期
-		SaSession session = getSessionByLoginId(id, true, loginModel.getTimeoutOrGlobalConfig());
-		session.updateMinTimeout(loginModel.getTimeout());
+			// 4、获取此账号的 Account-Session , 续期
+			SaSession session = getSessionByLoginId(id, true, loginModel.getTimeoutOrGlobalConfig());
+			session.updateMinTimeout(loginModel.getTimeout());
 		
-		// 5、在 Account-Session 上记录本次登录的 token 签名
-		TokenSign tokenSign = new TokenSign(tokenValue, loginModel.getDeviceOrDefault(), loginModel.getTokenSignTag());
-		session.addTokenSign(tokenSign);
+			// 5、在 Account-Session 上记录本次登录的 token 签名
+			TokenSign tokenSign = new TokenSign(tokenValue, loginModel.getDeviceOrDefault(), loginModel.getTokenSignTag());
+			session.addTokenSign(tokenSign);
 
-		// 6、保存 token -> id 的映射关系，方便日后根据 token 找账号 id
-		saveTokenToIdMapping(tokenValue, id, loginModel.getTimeout());
+			// 6、先写入 Account-Session（以上多次修改只写入一次），再保存映射关系、发布事件，保证 token 生效时 Account-Session 上已有此 token 签名
+			//    只写入这一个 SaSession，外层作用域中其它待写入的 SaSession 仍然推迟到作用域结束时写入
+			SaSessionWriteScope.flush(session);
 
-		// 7、写入这个 token 的最后活跃时间 token-last-active
-		if(isOpenCheckActiveTimeout()) {
-			setLastActiveToNow(tokenValue, loginModel.getActiveTimeout(), loginModel.getTimeoutOrGlobalConfig());
-		}
+			// 7、保存 token -> id 的映射关系，方便日后根据 token 找账号 id
+			SaTokenDaoBatch batch = new SaTokenDaoBatch();
+			saveTokenToIdMapping(batch, tokenValue, id, loginModel.getTimeout());
+
+			// 8、写入这个 token 的最后活跃时间 token-last-active
+			if(isOpenCheckActiveTimeout()) {
+				setLastActiveToNow(batch, tokenValue, loginModel.getActiveTimeout(), loginModel.getTimeoutOrGlobalConfig());
+			}
+
+			// 以上两项写入合并为一次批量操作
+			if( ! batch.isEmpty()) {
+				getSaTokenDao().executeBatch(batch);
+			}
 
-		// 8、$$ 发布全局事件：账号 xxx 登录成功
-		SaTokenEventCenter.doLogin(loginType, id, tokenValue, loginModel);
+			// 9、$$ 发布全局事件：账号 xxx 登录成功
+			SaTokenEventCenter.doLogin(loginType, id, tokenValue, loginModel);
 
-		// 9、检查此账号会话数量是否超出最大值，如果超过，则按照登录时间顺序，把最开始登录的给注销掉
-		if(config.getMaxLoginCount() != -1) {
-			logoutByMaxLoginCount(id, session, null, config.getMaxLoginCount());
-		}
+			// 10、检查此账号会话数量是否超出最大值，如果超过，则按照登录时间顺序，把最开始登录的给注销掉
+			if(config.getMaxLoginCount() != -1) {
+				logoutByMaxLoginCount(id, session, null, config.getMaxLoginCount());
+			}
 		
-		// 10、一切处理完毕，返回会话凭证 token
-		return tokenValue;
+			// 11、一切处理完毕，返回会话凭证 token
+			return tokenValue;
+		} catch (RuntimeException | Error e) {
+			error = e;
+			throw e;
+		} finally {
+			// 合并此次操作中对 SaSession 的多次写入，在这里统一写入（出现异常时，写入失败的异常附加到原异常上，不覆盖原异常）
+			SaSessionWriteScope.end(error);
+		}
 	}
 
 	/**
@@ -646,36 +670,40 @@ public class StpLogic {
 	 * @param device 设备类型 (填 null 代表注销该账号的所有设备类型)
 	 */
 	public void logout(Object loginId, String device) {
-		// 1、获取此账号的 Account-Session，上面记录了此账号的所有登录客户端数据
-		SaSession session = getSessionByLoginId(loginId, false);
-		if(session != null) {
-
-			// 2、遍历此账号所有从这个 device 设备上登录的客户端，清除相关数据
-			for (TokenSign tokenSign: session.getTokenSignListByDevice(device)) {
+		SaSessionWriteScope.begin();
+		Throwable error = null;
+		try {
+			// 1、获取此账号的 Account-Session，上面记录了此账号的所有登录客户端数据
+			SaSession session = getSessionByLoginId(loginId, false);
+			if(session != null) {
 
-				// 2.1、获取此客户端的 token 值
-				String tokenValue = tokenSign.getValue();
+				// 2、遍历此账号所有从这个 device 设备上登录的客户端，从 Account-Session 上清除 token 签名
+				List<String> tokenValueList = new ArrayList<>();
+				for (TokenSign tokenSign: session.getTokenSignListByDevice(device)) {
+					tokenValueList.add(tokenSign.getValue());
+					session.removeTokenSign(tokenSign.getValue());
+				}
 
-				// 2.2、从 Account-Session 上清除 token 签名
-				session.removeTokenSign(tokenValue);
+				// 3、批量清除这些 token 的最后活跃时间记录、token -> id 的映射关系、Token-Session 对象
+				deleteTokenDataBatch(tokenValueList, true, true);
 
-				// 2.3、清除这个 token 的最后活跃时间记录
-				if(isOpenCheckActiveTimeout()) {
-					clearLastActive(tokenValue);
+				// 4、$$ 发布事件：xx 账号的 xx 客户端注销了
+				for (String tokenValue : tokenValueList) {
+					SaTokenEventCenter.doLogout(loginType, loginId, tokenValue);
 				}
 
-		 		// 2.4、清除 token -> id 的映射关系
-				deleteTokenToIdMapping(tokenValue);
-
-				// 2.5、清除这个 token 的 Token-Session 对象
-				deleteTokenSession(tokenValue);
+				// 5、如果代码走到这里的时候，此账号已经没有客户端在登录了，则直接注销掉这个 Account-Session
+				session.logoutByTokenSignCountToZero();
 
-				// 2.6、$$ 发布事件：xx 账号的 xx 客户端注销了
-				SaTokenEventCenter.doLogout(loginType, loginId, tokenValue);
+				// 6、立即写入 Account-Session，不推迟到请求结束，避免 token 已失效但 Account-Session 上仍有其签名
+				SaSessionWriteScope.flush(session);
 			}
-
-			// 3、如果代码走到这里的时候，此账号已经没有客户端在登录了，则直接注销掉这个 Account-Session
-			session.logoutByTokenSignCountToZero();
+		} catch (RuntimeException | Error e) {
+			error = e;
+			throw e;
+		} finally {
+			// 合并此次操作中对 SaSession 的多次写入，在这里统一写入（出现异常时，写入失败的异常附加到原异常上，不覆盖原异常）
+			SaSessionWriteScope.end(error);
 		}
 	}
 	
@@ -688,44 +716,47 @@ public class StpLogic {
 	 * @param maxLoginCount 最大登录数量，超过此数量的将被注销
 	 */
 	public void logoutByMaxLoginCount(Object loginId, SaSession session, String device, int maxLoginCount) {
-
-		// 1、如果调用者提供的  Account-Session 对象为空，则我们先手动获取一下
-		if(session == null) {
-			session = getSessionByLoginId(loginId, false);
+		SaSessionWriteScope.begin();
+		Throwable error = null;
+		try {
+			// 1、如果调用者提供的  Account-Session 对象为空，则我们先手动获取一下
 			if(session == null) {
-				return;
+				session = getSessionByLoginId(loginId, false);
+				if(session == null) {
+					return;
+				}
 			}
-		}
-
-		// 2、获取这个账号指定设备类型下的所有登录客户端
-		List<TokenSign> list = session.getTokenSignListByDevice(device);
 
-		// 3、按照登录时间倒叙，超过 maxLoginCount 数量的，全部注销掉
-		for (int i = 0; i < list.size() - maxLoginCount; i++) {
+			// 2、获取这个账号指定设备类型下的所有登录客户端
+			List<TokenSign> list = session.getTokenSignListByDevice(device);
 
-			// 3.1、获取此客户端的 token 值
-			String tokenValue = list.get(i).getValue();
+			// 3、按照登录时间倒叙，超过 maxLoginCount 数量的，全部从 Account-Session 上清除 token 签名
+			List<String> tokenValueList = new ArrayList<>();
+			for (int i = 0; i < list.size() - maxLoginCount; i++) {
+				tokenValueList.add(list.get(i).getValue());
+				session.removeTokenSign(list.get(i).getValue());
+			}
 
-			// 3.2、从 Account-Session 上清除 token 签名
-			session.removeTokenSign(tokenValue);
+			// 4、批量清除这些 token 的最后活跃时间记录、token -> id 的映射关系、Token-Session 对象
+			deleteTokenDataBatch(tokenValueList, true, true);
 
-			// 3.3、清除这个 token 的最后活跃时间记录
-			if(isOpenCheckActiveTimeout()) {
-				clearLastActive(tokenValue);
+			// 5、$$ 发布事件：xx 账号的 xx 客户端注销了
+			for (String tokenValue : tokenValueList) {
+				SaTokenEventCenter.doLogout(loginType, loginId, tokenValue);
 			}
 
-	 		// 3.4、清除 token -> id 的映射关系
-			deleteTokenToIdMapping(tokenValue);
-
-			// 3.5、清除这个 token 的 Token-Session 对象
-			deleteTokenSession(tokenValue);
+			// 6、如果代码走到这里的时候，此账号已经没有客户端在登录了，则直接注销掉这个 Account-Session
+			session.logoutByTokenSignCountToZero();
 
-			// 3.6、$$ 发布事件：xx 账号的 xx 客户端注销了
-			SaTokenEventCenter.doLogout(loginType, loginId, tokenValue);
+			// 7、立即写入 Account-Session，不推迟到请求结束，避免 token 已失效但 Account-Session 上仍有其签名
+			SaSessionWriteScope.flush(session);
+		} catch (RuntimeException | Error e) {
+			error = e;
+			throw e;
+		} finally {
+			// 合并此次操作中对 SaSession 的多次写入，在这里统一写入（出现异常时，写入失败的异常附加到原异常上，不覆盖原异常）
+			SaSessionWriteScope.end(error);
 		}
-
-		// 4、如果代码走到这里的时候，此账号已经没有客户端在登录了，则直接注销掉这个 Account-Session
-		session.logoutByTokenSignCountToZero();
 	}
 	
 	/**
@@ -782,36 +813,40 @@ public class StpLogic {
 	 * @param device 设备类型 (填 null 代表踢出该账号的所有设备类型)
 	 */
 	public void kickout(Object loginId, String device) {
-		// 1、获取此账号的 Account-Session，上面记录了此账号的所有登录客户端数据
-		SaSession session = getSessionByLoginId(loginId, false);
-		if(session != null) {
-
-			// 2、遍历此账号所有从这个 device 设备上登录的客户端，清除相关数据
-			for (TokenSign tokenSign: session.getTokenSignListByDevice(device)) {
+		SaSessionWriteScope.begin();
+		Throwable error = null;
+		try {
+			// 1、获取此账号的 Account-Session，上面记录了此账号的所有登录客户端数据
+			SaSession session = getSessionByLoginId(loginId, false);
+			if(session != null) {
 
-				// 2.1、获取此客户端的 token 值
-				String tokenValue = tokenSign.getValue();
+				// 2、遍历此账号所有从这个 device 设备上登录的客户端，从 Account-Session 上清除 token 签名
+				List<String> tokenValueList = new ArrayList<>();
+				for (TokenSign tokenSign: session.getTokenSignListByDevice(device)) {
+					tokenValueList.add(tokenSign.getValue());
+					session.removeTokenSign(tokenSign.getValue());
+				}
 
-				// 2.2、从 Account-Session 上清除 token 签名
-				session.removeTokenSign(tokenValue);
+				// 3、批量清除这些 token 的最后活跃时间记录，并将它们标记为：已被踢下线（此处不需要清除它们的 Token-Session 对象）
+				markTokenDataBatch(tokenValueList, NotLoginException.KICK_OUT);
 
-				// 2.3、清除这个 token 的最后活跃时间记录
-				if(isOpenCheckActiveTimeout()) {
-					clearLastActive(tokenValue);
+				// 4、$$ 发布事件：xx 账号的 xx 客户端被踢下线了
+				for (String tokenValue : tokenValueList) {
+					SaTokenEventCenter.doKickout(loginType, loginId, tokenValue);
 				}
 
-				// 2.4、将此 token 标记为：已被踢下线
-				updateTokenToIdMapping(tokenValue, NotLoginException.KICK_OUT);
+				// 5、如果代码走到这里的时候，此账号已经没有客户端在登录了，则直接注销掉这个 Account-Session
+				session.logoutByTokenSignCountToZero();
 
-				// 2.5、此处不需要清除它的 Token-Session 对象
-				// deleteTokenSession(tokenValue);
-
-				// 2.6、$$ 发布事件：xx 账号的 xx 客户端被踢下线了
-				SaTokenEventCenter.doKickout(loginType, loginId, tokenValue);
+				// 6、立即写入 Account-Session，不推迟到请求结束，避免 token 已失效但 Account-Session 上仍有其签名
+				SaSessionWriteScope.flush(session);
 			}
-
-			// 3、如果代码走到这里的时候，此账号已经没有客户端在登录了，则直接注销掉这个 Account-Session
-			session.logoutByTokenSignCountToZero();
+		} catch (RuntimeException | Error e) {
+			error = e;
+			throw e;
+		} finally {
+			// 合并此次操作中对 SaSession 的多次写入，在这里统一写入（出现异常时，写入失败的异常附加到原异常上，不覆盖原异常）
+			SaSessionWriteScope.end(error);
 		}
 	}
 
@@ -858,36 +893,40 @@ public class StpLogic {
 	 * @param device 设备类型 （填 null 代表顶替该账号的所有设备类型）
 	 */
 	public void replaced(Object loginId, String device) {
-		// 1、获取此账号的 Account-Session，上面记录了此账号的所有登录客户端数据
-		SaSession session = getSessionByLoginId(loginId, false);
-		if(session != null) {
-
-			// 2、遍历此账号所有从这个 device 设备上登录的客户端，清除相关数据
-			for (TokenSign tokenSign: session.getTokenSignListByDevice(device)) {
+		SaSessionWriteScope.begin();
+		Throwable error = null;
+		try {
+			// 1、获取此账号的 Account-Session，上面记录了此账号的所有登录客户端数据
+			SaSession session = getSessionByLoginId(loginId, false);
+			if(session != null) {
 
-				// 2.1、获取此客户端的 token 值
-				String tokenValue = tokenSign.getValue();
+				// 2、遍历此账号所有从这个 device 设备上登录的客户端，从 Account-Session 上清除 token 签名
+				List<String> tokenValueList = new ArrayList<>();
+				for (TokenSign tokenSign: session.getTokenSignListByDevice(device)) {
+					tokenValueList.add(tokenSign.getValue());
+					session.removeTokenSign(tokenSign.getValue());
+				}
 
-				// 2.2、从 Account-Session 上清除 token 签名
-				session.removeTokenSign(tokenValue);
+				// 3、批量清除这些 token 的最后活跃时间记录，并将它们标记为：已被顶下线（此处不需要清除它们的 Token-Session 对象）
+				markTokenDataBatch(tokenValueList, NotLoginException.BE_REPLACED);
 
-				// 2.3、清除这个 token 的最后活跃时间记录
-				if(isOpenCheckActiveTimeout()) {
-					clearLastActive(tokenValue);
+				// 4、$$ 发布事件：xx 账号的 xx 客户端注销了
+				for (String tokenValue : tokenValueList) {
+					SaTokenEventCenter.doReplaced(loginType, loginId, tokenValue);
 				}
 
-				// 2.4、将此 token 标记为：已被顶下线
-				updateTokenToIdMapping(tokenValue, NotLoginException.BE_REPLACED);
+				// 5、因为调用顶替下线时，一般都是在新客户端正在登录，所以此处不需要清除该账号的 Account-Session
+				// session.logoutByTokenSignCountToZero();
 
-				// 2.5、此处不需要清除它的 Token-Session 对象
-				// deleteTokenSession(tokenValue);
-
-				// 2.6、$$ 发布事件：xx 账号的 xx 客户端注销了
-				SaTokenEventCenter.doReplaced(loginType, loginId, tokenValue);
+				// 6、立即写入 Account-Session，不推迟到请求结束，避免 token 已失效但 Account-Session 上仍有其签名
+				SaSessionWriteScope.flush(session);
 			}
-
-			// 3、因为调用顶替下线时，一般都是在新客户端正在登录，所以此处不需要清除该账号的 Account-Session
-			// session.logoutByTokenSignCountToZero();
+		} catch (RuntimeException | Error e) {
+			error = e;
+			throw e;
+		} finally {
+			// 合并此次操作中对 SaSession 的多次写入，在这里统一写入（出现异常时，写入失败的异常附加到原异常上，不覆盖原异常）
+			SaSessionWriteScope.end(error);
 		}
 	}
 	
@@ -912,7 +951,7 @@ public class StpLogic {
 	 */
 	public boolean isLogin(Object loginId) {
 		// 判断条件：能否根据 loginId 查询到对应的 tokenSign 值
-		return getTokenSignListByLoginId(loginId, null).size() > 0;
+		return getTokenSignViewByLoginId(loginId, null).size() > 0;
 	}
 
 	/**
@@ -969,8 +1008,17 @@ public class StpLogic {
 			// ------ 至此，loginId 已经是一个合法的值，代表当前会话是一个正常的登录状态了
 
 			// 8、如果配置了自动续签功能, 则: 更新这个 token 的最后活跃时间 （注意此处的续签是在续 active-timeout，而非 timeout）
+			//    如果配置了 autoRenewWriteInterval，则先记录在内存中，由后台线程合并后批量写入
 			if(getConfigOrGlobal().getAutoRenew()) {
-				updateLastActiveToNow(tokenValue);
+				if(getAutoRenewWriteInterval() > 0) {
+					getActiveRenewBuffer().renew(tokenValue);
+				} else {
+					// autoRenewWriteInterval 被改回 0 时，结束后台线程并写入剩余的续签记录
+					if(activeRenewBuffer != null && activeRenewBuffer.isRunning()) {
+						activeRenewBuffer.destroy();
+					}
+					updateLastActiveToNow(tokenValue);
+				}
 			}
 		}
 
@@ -1139,6 +1187,18 @@ public class StpLogic {
 		getSaTokenDao().set(splicingKeyTokenValue(tokenValue), String.valueOf(loginId), timeout);
 	}
 
+	/**
+	 * 存储 token - id 映射关系：添加到批量操作中，由调用方统一执行
+	 *
+	 * @param batch 批量操作
+	 * @param tokenValue token值
+	 * @param loginId 账号id
+	 * @param timeout 会话有效期 (单位: 秒)
+	 */
+	public void saveTokenToIdMapping(SaTokenDaoBatch batch, String tokenValue, Object loginId, long timeout) {
+		batch.set(splicingKeyTokenValue(tokenValue), String.valueOf(loginId), timeout);
+	}
+
 	/**
 	 * 更改 token - id 映射关系
 	 *
@@ -1181,8 +1241,14 @@ public class StpLogic {
 			throw new SaTokenException("SessionId 不能为空").setCode(SaErrorCode.CODE_11072);
 		}
 
+		// 如果处于 SaSession 写入合并作用域内，且这个 SaSession 有尚未写入的变更，则直接返回作用域内的对象，避免读到旧数据
+		SaSession session = SaSessionWriteScope.getPending(sessionId);
+		if(session != null) {
+			return session;
+		}
+
 		// 先检查这个 SaSession 是否已经存在，如果不存在且 isCreate=true，则新建并返回
-		SaSession session = getSaTokenDao().getSession(sessionId);
+		session = getSaTokenDao().getSession(sessionId);
 
 		if(session == null && isCreate) {
 			// 创建这个 SaSession
@@ -1442,6 +1508,59 @@ public class StpLogic {
 		getSaTokenDao().delete(splicingKeyTokenSession(tokenValue));
 	}
 
+	/**
+	 * 批量清除多个 token 的关联数据：最后活跃时间记录、token -> id 的映射关系、Token-Session 对象（通过一次 DAO 批量删除完成）
+	 *
+	 * @param tokenValueList token 列表
+	 * @param isDeleteTokenToIdMapping 是否清除 token -> id 的映射关系
+	 * @param isDeleteTokenSession 是否清除 Token-Session 对象
+	 */
+	protected void deleteTokenDataBatch(List<String> tokenValueList, boolean isDeleteTokenToIdMapping, boolean isDeleteTokenSession) {
+		List<String> keyList = new ArrayList<>();
+		for (String tokenValue : tokenValueList) {
+			if(isOpenCheckActiveTimeout()) {
+				keyList.add(splicingKeyLastActiveTime(tokenValue));
+				if(activeRenewBuffer != null) {
+					activeRenewBuffer.remove(tokenValue);
+				}
+			}
+			if(isDeleteTokenToIdMapping) {
+				keyList.add(splicingKeyTokenValue(tokenValue));
+			}
+			if(isDeleteTokenSession) {
+				keyList.add(splicingKeyTokenSession(tokenValue));
+			}
+		}
+		if(keyList.isEmpty()) {
+			return;
+		}
+		getSaTokenDao().deleteMany(keyList);
+	}
+
+	/**
+	 * 批量标记多个 token 为已下线：清除它们的最后活跃时间记录，并将 token -> id 的映射关系改为指定的标记值（通过一次 DAO 批量操作完成）
+	 *
+	 * @param tokenValueList token 列表
+	 * @param mark 标记值，例如 {@link NotLoginException#KICK_OUT}、{@link NotLoginException#BE_REPLACED}
+	 */
+	protected void markTokenDataBatch(List<String> tokenValueList, Object mark) {
+		SaTokenException.notTrue(SaFoxUtil.isEmpty(mark), "loginId 不能为空", SaErrorCode.CODE_11003);
+		SaTokenDaoBatch batch = new SaTokenDaoBatch();
+		for (String tokenValue : tokenValueList) {
+			if(isOpenCheckActiveTimeout()) {
+				batch.delete(splicingKeyLastActiveTime(tokenValue));
+				if(activeRenewBuffer != null) {
+					activeRenewBuffer.remove(tokenValue);
+				}
+			}
+			batch.update(splicingKeyTokenValue(tokenValue), mark.toString());
+		}
+		if(batch.isEmpty()) {
+			return;
+		}
+		getSaTokenDao().executeBatch(batch);
+	}
+
 
 	// ------------------- Active-Timeout token 最低活跃度 验证相关 -------------------
 
@@ -1454,6 +1573,21 @@ public class StpLogic {
  	 */
  	protected void setLastActiveToNow(String tokenValue, Long activeTimeout, Long timeout) {
 
+		SaTokenDaoBatch batch = new SaTokenDaoBatch();
+		setLastActiveToNow(batch, tokenValue, activeTimeout, timeout);
+		getSaTokenDao().executeBatch(batch);
+ 	}
+
+	/**
+	 * 写入指定 token 的 [ 最后活跃时间 ] 为当前时间戳：添加到批量操作中，由调用方统一执行
+	 *
+	 * @param batch 批量操作
+ 	 * @param tokenValue 指定token
+	 * @param activeTimeout 这个 token 的最低活跃频率，单位：秒，填 null 代表使用全局配置的 activeTimeout 值
+	 * @param timeout 保存数据时使用的 ttl 值，单位：秒，填 null 代表使用全局配置的 timeout 值
+	 */
+	protected void setLastActiveToNow(SaTokenDaoBatch batch, String tokenValue, Long activeTimeout, Long timeout) {
+
 		// 如果提供的 timeout 为null，则使用全局配置的 timeout 值
 		SaTokenConfig config = getConfigOrGlobal();
 		if(timeout == null) {
@@ -1467,8 +1601,8 @@ public class StpLogic {
 		if(config.getDynamicActiveTimeout() && activeTimeout != null) {
 			value += "," + activeTimeout;
 		}
- 		getSaTokenDao().set(key, value, timeout);
- 	}
+		batch.set(key, value, timeout);
+	}
 
 	/**
 	 * 续签指定 token：将这个 token 的 [ 最后活跃时间 ] 更新为当前时间戳
@@ -1492,6 +1626,99 @@ public class StpLogic {
 		updateLastActiveToNow(getTokenValue());
 	}
 
+	/**
+	 * 批量续签：将多个 token 的 [ 最后活跃时间 ] 更新为指定时间戳（供自动续签合并缓冲区批量写入时使用）
+	 *
+	 * @param lastActiveMap tokenValue -> 最后活跃时间（13位时间戳）
+	 */
+	protected void updateLastActiveBatch(Map<String, Long> lastActiveMap) {
+		List<String> keyList = new ArrayList<>();
+		for (String tokenValue : lastActiveMap.keySet()) {
+			keyList.add(splicingKeyLastActiveTime(tokenValue));
+		}
+
+		// 开启动态 activeTimeout 时，需要保留每个 token 原有的 activeTimeout 值，此处一次性批量读出
+		List<String> oldValueList = getConfigOrGlobal().getDynamicActiveTimeout() ? getSaTokenDao().getMany(keyList) : null;
+
+		// 所有更新合并为一个批量操作提交 （过期时间不变，key 已不存在时不做任何操作）
+		SaTokenDaoBatch batch = new SaTokenDaoBatch();
+		int i = 0;
+		for (Long lastActiveTime : lastActiveMap.values()) {
+			Long activeTimeout = null;
+			if(oldValueList != null) {
+				String oldValue = oldValueList.get(i);
+				// 原值已不存在，说明 token 已被注销，无需续签
+				if(oldValue == null) {
+					i++;
+					continue;
+				}
+				activeTimeout = new SaValue2Box(oldValue).getValue2AsLong(null);
+			}
+			batch.update(keyList.get(i), new SaValue2Box(lastActiveTime, activeTimeout).toString());
+			i++;
+		}
+		if( ! batch.isEmpty()) {
+			getSaTokenDao().executeBatch(batch);
+		}
+	}
+
+	/**
+	 * 自动续签合并缓冲区
+	 */
+	protected volatile SaActiveRenewBuffer activeRenewBuffer;
+
+	/**
+	 * 获取实际生效的自动续签写入间隔（单位: 秒）
+	 * <p> 写入间隔不小于 activeTimeout 时，其它节点读到的最后活跃时间可能已经超过 activeTimeout，会把仍在活跃的 token 误判为冻结，
+	 * 因此这种情况下按 activeTimeout 的一半计算，不足 1 秒时返回 0 （即每次续签都立即写入） </p>
+	 *
+	 * @return /
+	 */
+	public int getAutoRenewWriteInterval() {
+		SaTokenConfig config = getConfigOrGlobal();
+		int interval = config.getAutoRenewWriteInterval();
+		long activeTimeout = config.getActiveTimeout();
+		if(interval > 0 && activeTimeout > 0 && interval >= activeTimeout) {
+			return (int) (activeTimeout / 2);
+		}
+		return interval;
+	}
+
+	/**
+	 * 获取自动续签合并缓冲区（首次获取时创建，并启动后台写入线程）
+	 *
+	 * @return /
+	 */
+	public SaActiveRenewBuffer getActiveRenewBuffer() {
+		SaActiveRenewBuffer buffer = activeRenewBuffer;
+		// 后台线程已结束时 （autoRenewWriteInterval 曾被改为 0，或已调用 destroy），重新创建
+		if(buffer == null || ! buffer.isRunning()) {
+			synchronized (this) {
+				buffer = activeRenewBuffer;
+				if(buffer == null || ! buffer.isRunning()) {
+					if(getAutoRenewWriteInterval() != getConfigOrGlobal().getAutoRenewWriteInterval()) {
+						SaManager.getLog().warn("autoRenewWriteInterval ({}) 不应大于等于 activeTimeout ({})，已按 {} 秒执行",
+								getConfigOrGlobal().getAutoRenewWriteInterval(), getConfigOrGlobal().getActiveTimeout(), getAutoRenewWriteInterval());
+					}
+					buffer = new SaActiveRenewBuffer(this);
+					buffer.initFlushThread();
+					activeRenewBuffer = buffer;
+				}
+			}
+		}
+		return buffer;
+	}
+
+	/**
+	 * 销毁此 StpLogic：结束自动续签合并缓冲区的后台线程，并将剩余的续签记录写入持久层 （在 SaManager 中被替换或移除时自动调用）
+	 */
+	public void destroy() {
+		SaActiveRenewBuffer buffer = activeRenewBuffer;
+		if(buffer != null) {
+			buffer.destroy();
+		}
+	}
+
 	/**
  	 * 清除指定 Token 的 [ 最后活跃时间记录 ]
 	 *
@@ -1499,6 +1726,9 @@ public class StpLogic {
  	 */
  	protected void clearLastActive(String tokenValue) {
  		getSaTokenDao().delete(splicingKeyLastActiveTime(tokenValue));
+		if(activeRenewBuffer != null) {
+			activeRenewBuffer.remove(tokenValue);
+		}
  	}
  	
  	/**
@@ -1594,7 +1824,16 @@ public class StpLogic {
 		}
 
 		// 4、根据逗号切割字符串
-		return new SaValue2Box(lastActiveTimeString).getValue1AsLong();
+		long lastActiveTime = new SaValue2Box(lastActiveTimeString).getValue1AsLong();
+
+		// 5、如果自动续签合并缓冲区中有尚未写入的更新值，则以其为准
+		if(activeRenewBuffer != null) {
+			Long pending = activeRenewBuffer.getPending(tokenValue);
+			if(pending != null && pending > lastActiveTime) {
+				return pending;
+			}
+		}
+		return lastActiveTime;
 	}
 
 	/**
@@ -1798,11 +2037,23 @@ public class StpLogic {
 	/**
 	 * 获取：指定账号的角色集合
 	 *
-	 * @param loginId 指定账号id 
-	 * @return /
+	 * @param loginId 指定账号id
+	 * @return 可修改的新集合，修改它不影响本次请求中后续的角色校验
 	 */
 	public List<String> getRoleList(Object loginId) {
-		return SaManager.getStpInterface().getRoleList(loginId, loginType);
+		List<String> list = getRoleListForCheck(loginId);
+		return list == null ? null : new ArrayList<>(list);
+	}
+
+	/**
+	 * 获取：指定账号用于角色校验的角色集合（同一次请求中多次校验时只调用一次 StpInterface，并复用编译后的只读集合）
+	 *
+	 * @param loginId 指定账号id
+	 * @return 只读集合
+	 */
+	protected List<String> getRoleListForCheck(Object loginId) {
+		String key = SaTokenConsts.ROLE_LIST_SAVE_KEY + loginType + ":" + loginId;
+		return getListByStorage(key, () -> SaManager.getStpInterface().getRoleList(loginId, loginType));
 	}
 
  	/** 
@@ -1827,7 +2078,7 @@ public class StpLogic {
  	 * @return 是否含有指定角色标识
  	 */
  	public boolean hasRole(Object loginId, String role) {
- 		return hasElement(getRoleList(loginId), role);
+ 		return hasElement(getRoleListForCheck(loginId), role);
  	}
  	
  	/** 
@@ -1886,7 +2137,7 @@ public class StpLogic {
 		}
 
 		// 开始校验
- 		List<String> roleList = getRoleList(loginId);
+ 		List<String> roleList = getRoleListForCheck(loginId);
  		for (String role : roleArray) {
  			if(!hasElement(roleList, role)) {
  				throw new NotRoleException(role, this.loginType).setCode(SaErrorCode.CODE_11041);
@@ -1909,7 +2160,7 @@ public class StpLogic {
 		}
 
 		// 开始校验
- 		List<String> roleList = getRoleList(loginId);
+ 		List<String> roleList = getRoleListForCheck(loginId);
  		for (String role : roleArray) {
  			if(hasElement(roleList, role)) {
  				// 有的话提前退出 
@@ -1927,7 +2178,7 @@ public class StpLogic {
 	/**
 	 * 获取：当前账号的权限码集合
 	 *
-	 * @return / 
+	 * @return /
 	 */
 	public List<String> getPermissionList() {
 		return getPermissionList(getLoginId());
@@ -1937,10 +2188,63 @@ public class StpLogic {
 	 * 获取：指定账号的权限码集合
 	 *
 	 * @param loginId 指定账号id
-	 * @return / 
+	 * @return 可修改的新集合，修改它不影响本次请求中后续的权限校验
 	 */
 	public List<String> getPermissionList(Object loginId) {
-		return SaManager.getStpInterface().getPermissionList(loginId, loginType);
+		List<String> list = getPermissionListForCheck(loginId);
+		return list == null ? null : new ArrayList<>(list);
+	}
+
+	/**
+	 * 获取：指定账号用于权限校验的权限码集合（同一次请求中多次校验时只调用一次 StpInterface，并复用编译后的只读集合）
+	 *
+	 * @param loginId 指定账号id
+	 * @return 只读集合
+	 */
+	protected List<String> getPermissionListForCheck(Object loginId) {
+		String key = SaTokenConsts.PERMISSION_LIST_SAVE_KEY + loginType + ":" + loginId;
+		return getListByStorage(key, () -> SaManager.getStpInterface().getPermissionList(loginId, loginType));
+	}
+
+	/**
+	 * 从当前请求的 Storage 中读取一个集合，没有时调用 loader 加载、编译为 SaPermissionList 并写入 Storage（不在 Web 上下文中时直接调用 loader）
+	 *
+	 * @param key 在 Storage 中的 key
+	 * @param loader 加载函数
+	 * @return /
+	 */
+	@SuppressWarnings("unchecked")
+	protected List<String> getListByStorage(String key, SaRetFunction loader) {
+		SaStorage storage;
+		try {
+			storage = SaHolder.getStorage();
+		} catch (SaTokenException e) {
+			return (List<String>) loader.run();
+		}
+		Object value = storage.get(key);
+		if(value == null) {
+			// 同一次请求中可能多次匹配，编译后匹配耗时与集合大小无关
+			value = SaPermissionList.of((List<String>) loader.run());
+			// 加载结果为 null 时也做一个标记，避免重复加载
+			storage.set(key, value == null ? SaTokenConsts.NULL_LIST_SAVE_VALUE : value);
+			return (List<String>) value;
+		}
+		return SaTokenConsts.NULL_LIST_SAVE_VALUE.equals(value) ? null : (List<String>) value;
+	}
+
+	/**
+	 * 清除当前请求中缓存的指定账号权限码集合、角色集合（在同一次请求中修改了账号权限后调用）
+	 *
+	 * @param loginId 指定账号id
+	 */
+	public void clearPermissionListInStorage(Object loginId) {
+		try {
+			SaStorage storage = SaHolder.getStorage();
+			storage.delete(SaTokenConsts.PERMISSION_LIST_SAVE_KEY + loginType + ":" + loginId);
+			storage.delete(SaTokenConsts.ROLE_LIST_SAVE_KEY + loginType + ":" + loginId);
+		} catch (SaTokenException e) {
+			// 不在 Web 上下文中，无需清除
+		}
 	}
 
  	/** 
@@ -1965,7 +2269,7 @@ public class StpLogic {
  	 * @return 是否含有指定权限
  	 */
  	public boolean hasPermission(Object loginId, String permission) {
- 		return hasElement(getPermissionList(loginId), permission);
+ 		return hasElement(getPermissionListForCheck(loginId), permission);
  	}
  	
  	/** 
@@ -2024,7 +2328,7 @@ public class StpLogic {
 		}
 
 		// 开始校验
- 		List<String> permissionList = getPermissionList(loginId);
+ 		List<String> permissionList = getPermissionListForCheck(loginId);
  		for (String permission : permissionArray) {
  			if(!hasElement(permissionList, permission)) {
  				throw new NotPermissionException(permission, this.loginType).setCode(SaErrorCode.CODE_11051);
@@ -2047,7 +2351,7 @@ public class StpLogic {
 		}
 
 		// 开始校验
- 		List<String> permissionList = getPermissionList(loginId);
+ 		List<String> permissionList = getPermissionListForCheck(loginId);
  		for (String permission : permissionArray) {
  			if(hasElement(permissionList, permission)) {
  				// 有的话提前退出
@@ -2089,7 +2393,7 @@ public class StpLogic {
 	 * @return token值 
 	 */
 	public String getTokenValueByLoginId(Object loginId, String device) {
-		List<String> tokenValueList = getTokenValueListByLoginId(loginId, device);
+		List<String> tokenValueList = getTokenValueViewByLoginId(loginId, device);
 		return tokenValueList.size() == 0 ? null : tokenValueList.get(tokenValueList.size() - 1);
 	}
 	
@@ -2111,6 +2415,17 @@ public class StpLogic {
 	 * @return 此 loginId 的所有登录 token
  	 */
 	public List<String> getTokenValueListByLoginId(Object loginId, String device) {
+		return new ArrayList<>(getTokenValueViewByLoginId(loginId, device));
+	}
+
+	/**
+	 * 获取指定账号 id 指定设备类型端的 token 集合（只读视图，不做拷贝，仅供框架内部读取）
+	 *
+	 * @param loginId 账号id
+	 * @param device 设备类型，填 null 代表不限设备类型
+	 * @return /
+	 */
+	protected List<String> getTokenValueViewByLoginId(Object loginId, String device) {
 		// 如果该账号的 Account-Session 为 null，说明此账号尚没有客户端在登录，此时返回空集合
 		SaSession session = getSessionByLoginId(loginId, false);
 		if(session == null) {
@@ -2129,6 +2444,17 @@ public class StpLogic {
 	 * @return 此 loginId 的所有登录 token
 	 */
 	public List<TokenSign> getTokenSignListByLoginId(Object loginId, String device) {
+		return new ArrayList<>(getTokenSignViewByLoginId(loginId, device));
+	}
+
+	/**
+	 * 获取指定账号 id 指定设备类型端的 tokenSign 集合（只读视图，不做拷贝，仅供框架内部读取）
+	 *
+	 * @param loginId 账号id
+	 * @param device 设备类型，填 null 代表不限设备类型
+	 * @return /
+	 */
+	protected List<TokenSign> getTokenSignViewByLoginId(Object loginId, String device) {
 		// 如果该账号的 Account-Session 为 null，说明此账号尚没有客户端在登录，此时返回空集合
 		SaSession session = getSessionByLoginId(loginId, false);
 		if(session == null) {
@@ -2177,16 +2503,9 @@ public class StpLogic {
 			return null;
 		}
 
-		// 5、遍历 Account-Session 上的客户端 token 列表，寻找当前 token 对应的设备类型
-		List<TokenSign> tokenSignList = session.tokenSignListCopy();
-		for (TokenSign tokenSign : tokenSignList) {
-			if(tokenSign.getValue().equals(tokenValue)) {
-				return tokenSign.getDevice();
-			}
-		}
-
-		// 6、没有找到，还是返回 null
-		return null;
+		// 5、在 Account-Session 上的客户端 token 列表中，寻找当前 token 对应的设备类型，没有找到则返回 null
+		TokenSign tokenSign = session.getTokenSign(tokenValue);
+		return tokenSign == null ? null : tokenSign.getDevice();
 	}
 
 
@@ -2234,6 +2553,36 @@ public class StpLogic {
 		return getSaTokenDao().searchData(splicingKeyTokenSession(""), keyword, start, size, sortType);
 	}
 
+	/**
+	 * 遍历缓存中所有符合条件的 token，分批从持久层读取，不会一次性将全部数据加载到内存中
+	 *
+	 * @param keyword 关键字
+	 * @param function 对每个 token 执行的回调 (参数为完整的 key)，返回 false 代表停止遍历
+	 */
+	public void scanTokenValue(String keyword, SaParamRetFunction<String, Boolean> function) {
+		getSaTokenDao().scanData(splicingKeyTokenValue(""), keyword, function);
+	}
+
+	/**
+	 * 遍历缓存中所有符合条件的 SessionId，分批从持久层读取，不会一次性将全部数据加载到内存中
+	 *
+	 * @param keyword 关键字
+	 * @param function 对每个 SessionId 执行的回调，返回 false 代表停止遍历
+	 */
+	public void scanSessionId(String keyword, SaParamRetFunction<String, Boolean> function) {
+		getSaTokenDao().scanData(splicingKeySession(""), keyword, function);
+	}
+
+	/**
+	 * 遍历缓存中所有符合条件的 Token-Session-Id，分批从持久层读取，不会一次性将全部数据加载到内存中
+	 *
+	 * @param keyword 关键字
+	 * @param function 对每个 Token-Session-Id 执行的回调，返回 false 代表停止遍历
+	 */
+	public void scanTokenSessionId(String keyword, SaParamRetFunction<String, Boolean> function) {
+		getSaTokenDao().scanData(splicingKeyTokenSession(""), keyword, function);
+	}
+
 
 	// ------------------- 账号封禁 -------------------  
 
@@ -17,6 +17,7 @@ package cn.dev33.satoken.stp;
 
 import cn.dev33.satoken.SaManager;
 import cn.dev33.satoken.fun.SaFunction;
+import cn.dev33.satoken.fun.SaParamRetFunction;
 import cn.dev33.satoken.listener.SaTokenEventCenter;
 import cn.dev33.satoken.session.SaSession;
 import cn.dev33.satoken.session.TokenSign;
@@ -687,7 +688,7 @@ public class StpUtil {
 	/**
 	 * 获取：当前账号的权限码集合
 	 *
-	 * @return / 
+	 * @return /
 	 */
 	public static List<String> getPermissionList() {
 		return stpLogic.getPermissionList();
@@ -697,12 +698,21 @@ public class StpUtil {
 	 * 获取：指定账号的权限码集合
 	 *
 	 * @param loginId 指定账号id
-	 * @return / 
+	 * @return /
 	 */
 	public static List<String> getPermissionList(Object loginId) {
 		return stpLogic.getPermissionList(loginId);
 	}
 
+	/**
+	 * 清除当前请求中缓存的指定账号权限码集合、角色集合（在同一次请求中修改了账号权限后调用）
+	 *
+	 * @param loginId 指定账号id
+	 */
+	public static void clearPermissionListInStorage(Object loginId) {
+		stpLogic.clearPermissionListInStorage(loginId);
+	}
+
 	/**
 	 * 判断：当前账号是否含有指定权限, 返回 true 或 false
 	 *
@@ -909,6 +919,36 @@ public class StpUtil {
 		return stpLogic.searchTokenSessionId(keyword, start, size, sortType);
 	}
 
+	/**
+	 * 遍历缓存中所有符合条件的 token，分批从持久层读取，不会一次性将全部数据加载到内存中
+	 *
+	 * @param keyword 关键字
+	 * @param function 对每个 token 执行的回调 (参数为完整的 key)，返回 false 代表停止遍历
+	 */
+	public static void scanTokenValue(String keyword, SaParamRetFunction<String, Boolean> function) {
+		stpLogic.scanTokenValue(keyword, function);
+	}
+
+	/**
+	 * 遍历缓存中所有符合条件的 SessionId，分批从持久层读取，不会一次性将全部数据加载到内存中
+	 *
+	 * @param keyword 关键字
+	 * @param function 对每个 SessionId 执行的回调，返回 false 代表停止遍历
+	 */
+	public static void scanSessionId(String keyword, SaParamRetFunction<String, Boolean> function) {
+		stpLogic.scanSessionId(keyword, function);
+	}
+
+	/**
+	 * 遍历缓存中所有符合条件的 Token-Session-Id，分批从持久层读取，不会一次性将全部数据加载到内存中
+	 *
+	 * @param keyword 关键字
+	 * @param function 对每个 Token-Session-Id 执行的回调，返回 false 代表停止遍历
+	 */
+	public static void scanTokenSessionId(String keyword, SaParamRetFunction<String, Boolean> function) {
+		stpLogic.scanTokenSessionId(keyword, function);
+	}
+
 	
 	// ------------------- 账号封禁 -------------------  
 
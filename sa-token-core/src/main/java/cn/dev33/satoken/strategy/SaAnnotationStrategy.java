@@ -23,8 +23,13 @@ import cn.dev33.satoken.fun.strategy.SaIsAnnotationPresentFunction;
 import cn.dev33.satoken.listener.SaTokenEventCenter;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Sa-Token 注解鉴权相关策略
@@ -71,6 +76,7 @@ public final class SaAnnotationStrategy {
 	 */
 	public void registerAnnotationHandler(SaAnnotationAbstractHandler<?> handler) {
 		annotationHandlerMap.put(handler.getHandlerAnnotationClass(), handler);
+		clearCheckPlanCache();
 		SaTokenEventCenter.doRegisterAnnotationHandler(handler);
 	}
 
@@ -82,6 +88,7 @@ public final class SaAnnotationStrategy {
 		newMap.put(handler.getHandlerAnnotationClass(), handler);
 		newMap.putAll(annotationHandlerMap);
 		this.annotationHandlerMap = newMap;
+		clearCheckPlanCache();
 		SaTokenEventCenter.doRegisterAnnotationHandler(handler);
 	}
 
@@ -90,28 +97,75 @@ public final class SaAnnotationStrategy {
 	 */
 	public void removeAnnotationHandler(Class<?> cls) {
 		annotationHandlerMap.remove(cls);
+		clearCheckPlanCache();
 	}
 
 	/**
-	 * 对一个 [Method] 对象进行注解校验 （注解鉴权内部实现）
+	 * 每个 Method 的注解校验计划缓存，Method -> 校验计划
 	 */
-	@SuppressWarnings("unchecked")
-	public SaCheckMethodAnnotationFunction checkMethodAnnotation = (method) -> {
-		// 遍历所有的注解处理器，检查此 method 是否具有这些指定的注解
-		for (Map.Entry<Class<?>, SaAnnotationAbstractHandler<?>> entry: annotationHandlerMap.entrySet()) {
+	public final Map<Method, CheckPlan> checkPlanCache = new ConcurrentHashMap<>();
 
-			// 先校验 Method 所属 Class 上的注解
-			Annotation classTakeAnnotation = instance.getAnnotation.apply(method.getDeclaringClass(), (Class<Annotation>)entry.getKey());
+	/**
+	 * 清空注解校验计划缓存（直接修改 annotationHandlerMap 中的注解处理器后，需要调用此方法）
+	 */
+	public void clearCheckPlanCache() {
+		checkPlanCache.clear();
+	}
+
+	/**
+	 * 获取一个 Method 的注解校验计划，没有或已失效时重新解析
+	 *
+	 * @param method /
+	 * @return /
+	 */
+	public CheckPlan getCheckPlan(Method method) {
+		CheckPlan plan = checkPlanCache.get(method);
+		if(plan == null || ! plan.isValid(this)) {
+			plan = buildCheckPlan(method);
+			checkPlanCache.put(method, plan);
+		}
+		return plan;
+	}
+
+	/**
+	 * 解析一个 [Method] 对象的注解校验计划：按注解处理器的注册顺序，依次找出 Method 所属 Class 上、Method 上实际存在的注解
+	 *
+	 * @param method /
+	 * @return /
+	 */
+	@SuppressWarnings("unchecked")
+	public CheckPlan buildCheckPlan(Method method) {
+		Map<Class<?>, SaAnnotationAbstractHandler<?>> handlerMap = annotationHandlerMap;
+		SaGetAnnotationFunction getAnnotation = this.getAnnotation;
+		List<CheckItem> items = new ArrayList<>();
+		for (Map.Entry<Class<?>, SaAnnotationAbstractHandler<?>> entry: handlerMap.entrySet()) {
+			// 先是 Method 所属 Class 上的注解，再是 Method 上的注解
+			Annotation classTakeAnnotation = getAnnotation.apply(method.getDeclaringClass(), (Class<Annotation>)entry.getKey());
 			if(classTakeAnnotation != null) {
-				entry.getValue().check(classTakeAnnotation, method);
+				items.add(new CheckItem(entry.getValue(), classTakeAnnotation));
 			}
-
-			// 再校验 Method 上的注解
-			Annotation methodTakeAnnotation = instance.getAnnotation.apply(method, (Class<Annotation>)entry.getKey());
+			Annotation methodTakeAnnotation = getAnnotation.apply(method, (Class<Annotation>)entry.getKey());
 			if(methodTakeAnnotation != null) {
-				entry.getValue().check(methodTakeAnnotation, method);
+				items.add(new CheckItem(entry.getValue(), methodTakeAnnotation));
+			}
+			// @SaIgnore 会直接停止匹配，其后的注解不会再被校验
+			if(entry.getValue() instanceof SaIgnoreHandler && (classTakeAnnotation != null || methodTakeAnnotation != null)) {
+				break;
 			}
 		}
+		return new CheckPlan(items.isEmpty() ? Collections.emptyList() : items, handlerMap, handlerMap.size(), getAnnotation);
+	}
+
+	/**
+	 * 对一个 [Method] 对象进行注解校验 （注解鉴权内部实现）
+	 */
+	public SaCheckMethodAnnotationFunction checkMethodAnnotation = (method) -> {
+		// 按缓存的校验计划依次执行，未标注任何注解的 method 直接跳过
+		List<CheckItem> items = instance.getCheckPlan(method).items;
+		for (int i = 0; i < items.size(); i++) {
+			CheckItem item = items.get(i);
+			item.handler.check(item.annotation, method);
+		}
 	};
 
 	/**
@@ -130,4 +184,72 @@ public final class SaAnnotationStrategy {
 				instance.getAnnotation.apply(method.getDeclaringClass(), annotationClass) != null;
 	};
 
+	/**
+	 * 一个 Method 的注解校验计划
+	 */
+	public static class CheckPlan {
+
+		/**
+		 * 需要执行的校验项，按执行顺序排列
+		 */
+		public final List<CheckItem> items;
+
+		/**
+		 * 解析时使用的注解处理器集合
+		 */
+		final Map<Class<?>, SaAnnotationAbstractHandler<?>> handlerMap;
+
+		/**
+		 * 解析时注解处理器集合的大小
+		 */
+		final int handlerCount;
+
+		/**
+		 * 解析时使用的注解获取函数
+		 */
+		final SaGetAnnotationFunction getAnnotation;
+
+		public CheckPlan(List<CheckItem> items, Map<Class<?>, SaAnnotationAbstractHandler<?>> handlerMap, int handlerCount,
+						 SaGetAnnotationFunction getAnnotation) {
+			this.items = items;
+			this.handlerMap = handlerMap;
+			this.handlerCount = handlerCount;
+			this.getAnnotation = getAnnotation;
+		}
+
+		/**
+		 * 判断：注解处理器集合、注解获取函数被替换后，此计划即失效
+		 *
+		 * @param strategy /
+		 * @return /
+		 */
+		boolean isValid(SaAnnotationStrategy strategy) {
+			return handlerMap == strategy.annotationHandlerMap && handlerCount == handlerMap.size()
+					&& getAnnotation == strategy.getAnnotation;
+		}
+
+	}
+
+	/**
+	 * 一个校验项：注解处理器 + 实际标注的注解
+	 */
+	public static class CheckItem {
+
+		/**
+		 * 注解处理器
+		 */
+		public final SaAnnotationAbstractHandler<?> handler;
+
+		/**
+		 * 注解对象
+		 */
+		public final Annotation annotation;
+
+		public CheckItem(SaAnnotationAbstractHandler<?> handler, Annotation annotation) {
+			this.handler = handler;
+			this.annotation = annotation;
+		}
+
+	}
+
 }
@@ -20,6 +20,7 @@ import cn.dev33.satoken.exception.RequestPathInvalidException;
 import cn.dev33.satoken.exception.SaTokenException;
 import cn.dev33.satoken.fun.strategy.*;
 import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.stp.SaPermissionList;
 import cn.dev33.satoken.stp.StpLogic;
 import cn.dev33.satoken.util.SaFoxUtil;
 import cn.dev33.satoken.util.SaTokenConsts;
@@ -112,6 +113,11 @@ public final class SaStrategy {
 			return false;
 		}
 
+		// 已编译的集合，直接走编译后的匹配逻辑
+		if(list instanceof SaPermissionList) {
+			return ((SaPermissionList) list).has(element);
+		}
+
 		// 先尝试一下简单匹配，如果可以匹配成功则无需继续模糊匹配
 		if (list.contains(element)) {
 			return true;
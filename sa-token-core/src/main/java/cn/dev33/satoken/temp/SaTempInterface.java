@@ -131,6 +131,51 @@ public interface SaTempInterface {
 		return SaManager.getSaTokenDao().getObjectTimeout(key);
 	}
 
+	// -------- 一次性解析
+
+	/**
+	 * 解析 Token 获取 value，并立即删除此 Token（同一个 Token 被并发调用时，只有一方能拿到 value）
+	 * @param token 指定 Token
+	 * @return /
+	 */
+	default Object consumeToken(String token) {
+		return consumeToken(SaTokenConsts.DEFAULT_TEMP_TOKEN_SERVICE, token);
+	}
+
+	/**
+	 * 解析 Token 获取 value，并立即删除此 Token（同一个 Token 被并发调用时，只有一方能拿到 value）
+	 * @param service 业务标识
+	 * @param token 指定 Token
+	 * @return /
+	 */
+	default Object consumeToken(String service, String token) {
+		String key = splicingKeyTempToken(service, token);
+		return SaManager.getSaTokenDao().getAndDeleteObject(key);
+	}
+
+	/**
+	 * 解析 Token 获取 value 并转换为指定类型，并立即删除此 Token
+	 * @param token 指定 Token
+	 * @param cs 指定类型
+	 * @param <T> 默认值的类型
+	 * @return /
+	 */
+	default<T> T consumeToken(String token, Class<T> cs) {
+		return consumeToken(SaTokenConsts.DEFAULT_TEMP_TOKEN_SERVICE, token, cs);
+	}
+
+	/**
+	 * 解析 Token 获取 value 并转换为指定类型，并立即删除此 Token
+	 * @param service 业务标识
+	 * @param token 指定 Token
+	 * @param cs 指定类型
+	 * @param <T> 默认值的类型
+	 * @return /
+	 */
+	default<T> T consumeToken(String service, String token, Class<T> cs) {
+		return SaFoxUtil.getValueByType(consumeToken(service, token), cs);
+	}
+
 	// -------- 删除
 
 	/**
@@ -120,6 +120,50 @@ public class SaTempUtil {
 		return SaManager.getSaTemp().getTimeout(service, token);
 	}
 
+	// -------- 一次性解析
+
+	/**
+	 * 解析 Token 获取 value，并立即删除此 Token（同一个 Token 被并发调用时，只有一方能拿到 value）
+	 * @param token 指定 Token
+	 * @return /
+	 */
+	public static Object consumeToken(String token) {
+		return SaManager.getSaTemp().consumeToken(token);
+	}
+
+	/**
+	 * 解析 Token 获取 value，并立即删除此 Token（同一个 Token 被并发调用时，只有一方能拿到 value）
+	 * @param service 业务标识
+	 * @param token 指定 Token
+	 * @return /
+	 */
+	public static Object consumeToken(String service, String token) {
+		return SaManager.getSaTemp().consumeToken(service, token);
+	}
+
+	/**
+	 * 解析 Token 获取 value 并转换为指定类型，并立即删除此 Token
+	 * @param token 指定 Token
+	 * @param cs 指定类型
+	 * @param <T> 默认值的类型
+	 * @return /
+	 */
+	public static<T> T consumeToken(String token, Class<T> cs) {
+		return SaManager.getSaTemp().consumeToken(token, cs);
+	}
+
+	/**
+	 * 解析 Token 获取 value 并转换为指定类型，并立即删除此 Token
+	 * @param service 业务标识
+	 * @param token 指定 Token
+	 * @param cs 指定类型
+	 * @param <T> 默认值的类型
+	 * @return /
+	 */
+	public static<T> T consumeToken(String service, String token, Class<T> cs) {
+		return SaManager.getSaTemp().consumeToken(service, token, cs);
+	}
+
 	// -------- 删除
 
 	/**
@@ -229,6 +229,54 @@ public class SaFoxUtil {
 		return list2;
 	}
 
+	/**
+	 * 从有序集合里查询数据：直接定位到前缀所在区间，只遍历此区间内的数据，正序与反序均无需复制或反转整个集合
+	 *
+	 * @param sortedSet 有序数据集合（按字典序排列）
+	 * @param prefix   前缀
+	 * @param keyword  关键字
+	 * @param start    起始位置
+	 * @param size     获取条数 (-1代表从start处一直取到末尾)
+	 * @param sortType     排序类型（true=正序，false=反序）
+	 *
+	 * @return 符合条件的新数据集合
+	 */
+	public static List<String> searchSortedSet(NavigableSet<String> sortedSet, String prefix, String keyword, int start, int size, boolean sortType) {
+		if (prefix == null) {
+			prefix = "";
+		}
+		if (keyword == null) {
+			keyword = "";
+		}
+		List<String> list = new ArrayList<>();
+		if (size == 0) {
+			return list;
+		}
+		// start 至少为0
+		if (start < 0) {
+			start = 0;
+		}
+		// 以 prefix 开头的所有数据，在有序集合中是连续的一段
+		NavigableSet<String> range = sortedSet.subSet(prefix, true, prefix + Character.MAX_VALUE, false);
+		if ( ! sortType) {
+			range = range.descendingSet();
+		}
+		int index = 0;
+		for (String key : range) {
+			if ( ! key.contains(keyword)) {
+				continue;
+			}
+			if (index++ < start) {
+				continue;
+			}
+			list.add(key);
+			if (size != -1 && list.size() >= size) {
+				break;
+			}
+		}
+		return list;
+	}
+
 	/**
 	 * 字符串模糊匹配
 	 * <p>example:
@@ -256,7 +304,7 @@ public class SaFoxUtil {
 	}
 
 	/**
-	 * 字符串模糊匹配
+	 * 字符串模糊匹配（贪心回溯，不创建任何对象）
 	 *
 	 * @param pattern /
 	 * @param str    /
@@ -265,25 +313,41 @@ public class SaFoxUtil {
 	private static boolean vagueMatchMethod( String pattern, String str) {
 		int m = str.length();
 		int n = pattern.length();
-		boolean[][] dp = new boolean[m + 1][n + 1];
-		dp[0][0] = true;
-		for (int i = 1; i <= n; ++i) {
-			if (pattern.charAt(i - 1) == '*') {
-				dp[0][i] = true;
+		int i = 0;
+		int j = 0;
+		// 最近一个 * 在表达式中的位置，以及当时 str 匹配到的位置
+		int starIndex = -1;
+		int starMatch = 0;
+		while (i < m) {
+			if (j < n && pattern.charAt(j) == '*') {
+				// 先假定 * 匹配空串，匹配失败时再回来让它多吃一个字符
+				starIndex = j++;
+				starMatch = i;
+			} else if (j < n && pattern.charAt(j) == str.charAt(i)) {
+				i++;
+				j++;
+			} else if (starIndex != -1) {
+				j = starIndex + 1;
+				i = ++starMatch;
 			} else {
-				break;
+				return false;
 			}
 		}
-		for (int i = 1; i <= m; ++i) {
-			for (int j = 1; j <= n; ++j) {
-				if (pattern.charAt(j - 1) == '*') {
-					dp[i][j] = dp[i][j - 1] || dp[i - 1][j];
-				} else if (str.charAt(i - 1) == pattern.charAt(j - 1)) {
-					dp[i][j] = dp[i - 1][j - 1];
-				}
-			}
+		// str 已匹配完，表达式剩余部分只能全是 *
+		while (j < n && pattern.charAt(j) == '*') {
+			j++;
 		}
-		return dp[m][n];
+		return j == n;
+	}
+
+	/**
+	 * 将模糊匹配表达式预编译，可在多次匹配之间复用
+	 *
+	 * @param patt 表达式
+	 * @return /
+	 */
+	public static SaVaguePattern compileVaguePattern(String patt) {
+		return new SaVaguePattern(patt);
 	}
 
 	/**
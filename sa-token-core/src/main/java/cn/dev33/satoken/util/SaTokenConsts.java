@@ -71,6 +71,21 @@ public class SaTokenConsts {
 	 */
 	public static final String TOKEN_ACTIVE_TIMEOUT_CHECKED_KEY = "TOKEN_ACTIVE_TIMEOUT_CHECKED_KEY_";
 
+	/**
+	 * 常量 key 标记: 在一次请求中缓存账号的权限码集合时，使用的 key 前缀
+	 */
+	public static final String PERMISSION_LIST_SAVE_KEY = "PERMISSION_LIST_SAVE_KEY_";
+
+	/**
+	 * 常量 key 标记: 在一次请求中缓存账号的角色集合时，使用的 key 前缀
+	 */
+	public static final String ROLE_LIST_SAVE_KEY = "ROLE_LIST_SAVE_KEY_";
+
+	/**
+	 * 常量 key 标记: 在一次请求中缓存的权限码集合、角色集合为 null 时，写入的 value 值
+	 */
+	public static final String NULL_LIST_SAVE_VALUE = "NULL_LIST_SAVE_VALUE";
+
 	/**
 	 * 常量 key 标记: 在登录时，默认使用的设备类型 
 	 */
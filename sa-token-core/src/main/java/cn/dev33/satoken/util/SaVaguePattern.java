@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预编译的模糊匹配表达式，匹配结果与 {@link SaFoxUtil#vagueMatch(String, String)} 一致
+ *
+ * <p>
+ *     编译时按 * 将表达式切分为若干片段，匹配时依次校验：首片段为前缀、尾片段为后缀、中间片段按顺序尽量靠左出现。<br>
+ *     匹配过程不创建任何对象，一个表达式编译一次后可在多个线程中反复使用。
+ * </p>
+ *
+ * <p> 用法示例：</p>
+ * <pre>
+ * 		SaVaguePattern pattern = SaFoxUtil.compileVaguePattern("user.*.get");
+ * 		pattern.match("user.1.get");	// true
+ * </pre>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaVaguePattern {
+
+	/**
+	 * 原始表达式
+	 */
+	public final String pattern;
+
+	/**
+	 * 表达式中是否带有 *
+	 */
+	protected final boolean hasStar;
+
+	/**
+	 * 第一个 * 之前的片段（前缀）
+	 */
+	protected final String head;
+
+	/**
+	 * 最后一个 * 之后的片段（后缀）
+	 */
+	protected final String tail;
+
+	/**
+	 * 首尾之间的非空片段
+	 */
+	protected final String[] middles;
+
+	/**
+	 * 能匹配成功的字符串的最小长度
+	 */
+	protected final int minLength;
+
+	/**
+	 * 编译一个表达式
+	 *
+	 * @param pattern 表达式
+	 */
+	public SaVaguePattern(String pattern) {
+		this.pattern = pattern;
+		this.hasStar = pattern != null && pattern.indexOf('*') >= 0;
+		if( ! hasStar) {
+			this.head = null;
+			this.tail = null;
+			this.middles = new String[0];
+			this.minLength = 0;
+			return;
+		}
+		int first = pattern.indexOf('*');
+		int last = pattern.lastIndexOf('*');
+		this.head = pattern.substring(0, first);
+		this.tail = pattern.substring(last + 1);
+		List<String> middleList = new ArrayList<>();
+		int start = first + 1;
+		while (start <= last) {
+			int end = pattern.indexOf('*', start);
+			if(end > start) {
+				middleList.add(pattern.substring(start, end));
+			}
+			start = end + 1;
+		}
+		this.middles = middleList.toArray(new String[0]);
+		int minLength = head.length() + tail.length();
+		for (String middle : middles) {
+			minLength += middle.length();
+		}
+		this.minLength = minLength;
+	}
+
+	/**
+	 * 判断：指定字符串是否与此表达式匹配
+	 *
+	 * @param str 待匹配的字符串
+	 * @return /
+	 */
+	public boolean match(String str) {
+		// 与 SaFoxUtil.vagueMatch 保持一致：两者均为 null 时返回 true，其一为 null 时返回 false
+		if(pattern == null || str == null) {
+			return pattern == str;
+		}
+		if( ! hasStar) {
+			return pattern.equals(str);
+		}
+		if(str.length() < minLength || ! str.startsWith(head) || ! str.endsWith(tail)) {
+			return false;
+		}
+		// 中间片段只能出现在前缀与后缀之间，按顺序尽量靠左匹配
+		int position = head.length();
+		int limit = str.length() - tail.length();
+		for (String middle : middles) {
+			int index = str.indexOf(middle, position);
+			if(index < 0 || index + middle.length() > limit) {
+				return false;
+			}
+			position = index + middle.length();
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return pattern;
+	}
+
+}
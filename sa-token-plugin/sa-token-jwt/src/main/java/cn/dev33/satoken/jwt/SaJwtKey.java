@@ -0,0 +1,396 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.jwt;
+
+import cn.dev33.satoken.jwt.error.SaJwtErrorCode;
+import cn.dev33.satoken.jwt.exception.SaJwtException;
+import cn.hutool.jwt.signers.JWTSigner;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * jwt 签名秘钥：一个 kid 对应一个秘钥，同时也是该秘钥的签名器
+ *
+ * <p>
+ *     支持的算法：HS256、HS384、HS512、RS256、RS384、RS512、ES256、ES384、ES512、EdDSA。<br>
+ *     秘钥在创建时解析一次，之后每个线程各自缓存一份 Mac / Signature 对象，可被多个线程同时使用。<br>
+ *     只持有公钥的秘钥只能用于验签，适合部署在只需要校验 token 的服务上。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaJwtKey implements JWTSigner {
+
+	/**
+	 * 代表永不过期
+	 */
+	public static final long NEVER_EXPIRE = SaJwtTemplate.NEVER_EXPIRE;
+
+	/**
+	 * 秘钥 id，写入 jwt 头部的 kid 字段
+	 */
+	public final String kid;
+
+	/**
+	 * 算法，即 jwt 头部的 alg 字段，例如 RS256
+	 */
+	public final String algorithm;
+
+	/**
+	 * 签名用的秘钥（HMAC 算法下为对称秘钥，非对称算法下为私钥，只能验签时为 null）
+	 */
+	public final Key signKey;
+
+	/**
+	 * 验签用的秘钥（HMAC 算法下为对称秘钥，非对称算法下为公钥）
+	 */
+	public final Key verifyKey;
+
+	/**
+	 * 对应的 JCA 算法名称，例如 SHA256withRSA
+	 */
+	public final String jcaAlgorithm;
+
+	/**
+	 * ECDSA 签名中 r、s 各自的字节长度，非 ECDSA 算法为 0
+	 */
+	public final int ecNumberSize;
+
+	/**
+	 * 此秘钥的过期时间（13位时间戳），过期后不再用于签名与验签，-1 代表永不过期
+	 */
+	public volatile long expireTime = NEVER_EXPIRE;
+
+	/**
+	 * Mac 对象缓存，每个线程一份（仅 HMAC 算法使用）
+	 */
+	protected final ThreadLocal<Mac> macCache;
+
+	/**
+	 * Signature 对象缓存，每个线程一份（仅非对称算法使用）
+	 */
+	protected final ThreadLocal<Signature> signatureCache;
+
+	/**
+	 * 构建一个秘钥
+	 *
+	 * @param kid 秘钥 id
+	 * @param algorithm 算法
+	 * @param signKey 签名用的秘钥，只能验签时传 null
+	 * @param verifyKey 验签用的秘钥
+	 */
+	public SaJwtKey(String kid, String algorithm, Key signKey, Key verifyKey) {
+		if(kid == null || kid.isEmpty()) {
+			throw new SaJwtException("jwt 秘钥 kid 不可为空");
+		}
+		if(verifyKey == null) {
+			throw new SaJwtException("jwt 秘钥 [" + kid + "] 缺少验签秘钥");
+		}
+		this.kid = kid;
+		this.algorithm = algorithm;
+		this.signKey = signKey;
+		this.verifyKey = verifyKey;
+		this.jcaAlgorithm = getJcaAlgorithm(algorithm);
+		this.ecNumberSize = getEcNumberSize(algorithm);
+
+		// 提前初始化一次，秘钥与算法不匹配时立即报错，而不是等到第一次签名时
+		if(algorithm.startsWith("HS")) {
+			this.macCache = ThreadLocal.withInitial(this::createMac);
+			this.signatureCache = null;
+			this.macCache.get();
+		} else {
+			this.macCache = null;
+			this.signatureCache = ThreadLocal.withInitial(this::createSignature);
+			try {
+				Signature signature = createSignature();
+				signature.initVerify((PublicKey) verifyKey);
+				if(signKey != null) {
+					signature.initSign((PrivateKey) signKey);
+				}
+			} catch (GeneralSecurityException | ClassCastException e) {
+				throw new SaJwtException("jwt 秘钥 [" + kid + "] 与算法 " + algorithm + " 不匹配", e);
+			}
+		}
+	}
+
+	/**
+	 * 构建一个 HMAC 秘钥
+	 *
+	 * @param kid 秘钥 id
+	 * @param algorithm 算法，可选值：HS256、HS384、HS512
+	 * @param secret 秘钥
+	 * @return /
+	 */
+	public static SaJwtKey hmac(String kid, String algorithm, String secret) {
+		SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), getJcaAlgorithm(algorithm));
+		return new SaJwtKey(kid, algorithm, key, key);
+	}
+
+	/**
+	 * 构建一个非对称秘钥（可签名、可验签）
+	 *
+	 * @param kid 秘钥 id
+	 * @param algorithm 算法，可选值：RS256、RS384、RS512、ES256、ES384、ES512、EdDSA
+	 * @param keyPair 密钥对
+	 * @return /
+	 */
+	public static SaJwtKey keyPair(String kid, String algorithm, KeyPair keyPair) {
+		return new SaJwtKey(kid, algorithm, keyPair.getPrivate(), keyPair.getPublic());
+	}
+
+	/**
+	 * 构建一个只能验签的非对称秘钥
+	 *
+	 * @param kid 秘钥 id
+	 * @param algorithm 算法，可选值：RS256、RS384、RS512、ES256、ES384、ES512、EdDSA
+	 * @param publicKey 公钥
+	 * @return /
+	 */
+	public static SaJwtKey publicKey(String kid, String algorithm, PublicKey publicKey) {
+		return new SaJwtKey(kid, algorithm, null, publicKey);
+	}
+
+	/**
+	 * 设置此秘钥的过期时间（13位时间戳），-1 代表永不过期
+	 *
+	 * @param expireTime /
+	 * @return 对象自身
+	 */
+	public SaJwtKey setExpireTime(long expireTime) {
+		this.expireTime = expireTime;
+		return this;
+	}
+
+	/**
+	 * 此秘钥是否可以用于签名
+	 *
+	 * @return /
+	 */
+	public boolean canSign() {
+		return signKey != null;
+	}
+
+	/**
+	 * 此秘钥在指定时间是否已过期
+	 *
+	 * @param now 13位时间戳
+	 * @return /
+	 */
+	public boolean isExpired(long now) {
+		long expireTime = this.expireTime;
+		return expireTime != NEVER_EXPIRE && expireTime < now;
+	}
+
+
+	// ------ 实现 JWTSigner
+
+	@Override
+	public String sign(String headerBase64, String payloadBase64) {
+		if( ! canSign()) {
+			throw new SaJwtException("jwt 秘钥 [" + kid + "] 只能用于验签");
+		}
+		byte[] content = (headerBase64 + "." + payloadBase64).getBytes(StandardCharsets.UTF_8);
+		byte[] sign;
+		try {
+			if(macCache != null) {
+				sign = macCache.get().doFinal(content);
+			} else {
+				Signature signature = signatureCache.get();
+				signature.initSign((PrivateKey) signKey);
+				signature.update(content);
+				sign = signature.sign();
+				if(ecNumberSize > 0) {
+					sign = derToConcat(sign, ecNumberSize);
+				}
+			}
+		} catch (GeneralSecurityException e) {
+			throw new SaJwtException("jwt 签名失败：" + e.getMessage(), e);
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(sign);
+	}
+
+	@Override
+	public boolean verify(String headerBase64, String payloadBase64, String signBase64) {
+		byte[] content = (headerBase64 + "." + payloadBase64).getBytes(StandardCharsets.UTF_8);
+		try {
+			byte[] sign = Base64.getUrlDecoder().decode(signBase64);
+			if(macCache != null) {
+				return MessageDigest.isEqual(macCache.get().doFinal(content), sign);
+			}
+			if(ecNumberSize > 0) {
+				if(sign.length != ecNumberSize * 2) {
+					return false;
+				}
+				sign = concatToDer(sign, ecNumberSize);
+			}
+			Signature signature = signatureCache.get();
+			signature.initVerify((PublicKey) verifyKey);
+			signature.update(content);
+			return signature.verify(sign);
+		} catch (GeneralSecurityException | IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public String getAlgorithm() {
+		return algorithm;
+	}
+
+	@Override
+	public String getAlgorithmId() {
+		return algorithm;
+	}
+
+
+	// ------ 工具方法
+
+	protected Mac createMac() {
+		try {
+			Mac mac = Mac.getInstance(jcaAlgorithm);
+			mac.init(verifyKey);
+			return mac;
+		} catch (GeneralSecurityException e) {
+			throw new SaJwtException("jwt 秘钥 [" + kid + "] 初始化失败：" + e.getMessage(), e);
+		}
+	}
+
+	protected Signature createSignature() {
+		try {
+			return Signature.getInstance(jcaAlgorithm);
+		} catch (GeneralSecurityException e) {
+			throw new SaJwtException("当前运行环境不支持 jwt 签名算法：" + algorithm, e);
+		}
+	}
+
+	/**
+	 * 获取 jwt 算法对应的 JCA 算法名称
+	 *
+	 * @param algorithm jwt 算法
+	 * @return /
+	 */
+	public static String getJcaAlgorithm(String algorithm) {
+		if(algorithm == null) {
+			throw new SaJwtException("jwt 签名算法不可为空");
+		}
+		switch (algorithm) {
+			case "HS256": return "HmacSHA256";
+			case "HS384": return "HmacSHA384";
+			case "HS512": return "HmacSHA512";
+			case "RS256": return "SHA256withRSA";
+			case "RS384": return "SHA384withRSA";
+			case "RS512": return "SHA512withRSA";
+			case "ES256": return "SHA256withECDSA";
+			case "ES384": return "SHA384withECDSA";
+			case "ES512": return "SHA512withECDSA";
+			case "EdDSA": return "EdDSA";
+			default: throw new SaJwtException("不支持的 jwt 签名算法：" + algorithm).setCode(SaJwtErrorCode.CODE_30207);
+		}
+	}
+
+	static int getEcNumberSize(String algorithm) {
+		switch (algorithm) {
+			case "ES256": return 32;
+			case "ES384": return 48;
+			case "ES512": return 66;
+			default: return 0;
+		}
+	}
+
+	/**
+	 * ECDSA 签名：JCA 输出的 DER 格式 转换为 jwt 规范要求的 r||s 格式
+	 */
+	static byte[] derToConcat(byte[] der, int numberSize) throws GeneralSecurityException {
+		// SEQUENCE { INTEGER r, INTEGER s }
+		int offset = 2;
+		if(der[1] == (byte) 0x81) {
+			offset = 3;
+		}
+		byte[] result = new byte[numberSize * 2];
+		offset = copyDerInteger(der, offset, result, 0, numberSize);
+		copyDerInteger(der, offset, result, numberSize, numberSize);
+		return result;
+	}
+
+	static int copyDerInteger(byte[] der, int offset, byte[] dest, int destOffset, int numberSize) throws GeneralSecurityException {
+		if(der[offset] != 0x02) {
+			throw new GeneralSecurityException("ECDSA 签名格式错误");
+		}
+		int length = der[offset + 1] & 0xff;
+		int start = offset + 2;
+		// 去掉符号位补的 0
+		int srcStart = start;
+		int srcLength = length;
+		while (srcLength > numberSize && der[srcStart] == 0) {
+			srcStart++;
+			srcLength--;
+		}
+		if(srcLength > numberSize) {
+			throw new GeneralSecurityException("ECDSA 签名格式错误");
+		}
+		System.arraycopy(der, srcStart, dest, destOffset + numberSize - srcLength, srcLength);
+		return start + length;
+	}
+
+	/**
+	 * ECDSA 签名：jwt 规范的 r||s 格式 转换为 JCA 需要的 DER 格式
+	 */
+	static byte[] concatToDer(byte[] concat, int numberSize) {
+		byte[] r = toDerInteger(Arrays.copyOfRange(concat, 0, numberSize));
+		byte[] s = toDerInteger(Arrays.copyOfRange(concat, numberSize, numberSize * 2));
+		int bodyLength = r.length + s.length;
+		int headerLength = bodyLength >= 128 ? 3 : 2;
+		byte[] der = new byte[headerLength + bodyLength];
+		der[0] = 0x30;
+		if(bodyLength >= 128) {
+			der[1] = (byte) 0x81;
+			der[2] = (byte) bodyLength;
+		} else {
+			der[1] = (byte) bodyLength;
+		}
+		System.arraycopy(r, 0, der, headerLength, r.length);
+		System.arraycopy(s, 0, der, headerLength + r.length, s.length);
+		return der;
+	}
+
+	static byte[] toDerInteger(byte[] number) {
+		int start = 0;
+		while (start < number.length - 1 && number[start] == 0) {
+			start++;
+		}
+		// 最高位为 1 时需要补一个 0，避免被当作负数
+		int pad = (number[start] & 0x80) != 0 ? 1 : 0;
+		int length = number.length - start + pad;
+		byte[] result = new byte[length + 2];
+		result[0] = 0x02;
+		result[1] = (byte) length;
+		System.arraycopy(number, start, result, 2 + pad, number.length - start);
+		return result;
+	}
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.jwt;
+
+import cn.dev33.satoken.jwt.error.SaJwtErrorCode;
+import cn.dev33.satoken.jwt.exception.SaJwtException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * jwt 秘钥环：按 kid 管理多个签名秘钥，支持秘钥轮换
+ *
+ * <p>
+ *     签发 token 时使用当前秘钥，并把它的 kid 写入 jwt 头部；校验 token 时根据头部的 kid 找到对应秘钥进行验签。<br>
+ *     轮换秘钥后，旧秘钥在过期之前仍然可以校验由它签发的 token，因此轮换不会导致已签发的 token 失效。<br>
+ *     只需校验 token 的服务，可以只向秘钥环中添加公钥，无需持有签名秘钥。
+ * </p>
+ *
+ * <p> 用法示例：</p>
+ * <pre>
+ * 		SaJwtKeyRing keyRing = new SaJwtKeyRing().rotate(SaJwtKey.keyPair("k1", "RS256", keyPair));
+ * 		SaJwtUtil.getSaJwtTemplate().setKeyRing(keyRing);
+ * </pre>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaJwtKeyRing {
+
+	/**
+	 * 所有秘钥，kid -> 秘钥
+	 */
+	public final Map<String, SaJwtKey> keyMap = new ConcurrentHashMap<>();
+
+	/**
+	 * 当前用于签名的秘钥 kid
+	 */
+	public volatile String currentKid;
+
+	/**
+	 * 添加一个秘钥（不改变当前签名秘钥），kid 已存在时覆盖
+	 *
+	 * @param key 秘钥
+	 * @return 对象自身
+	 */
+	public SaJwtKeyRing addKey(SaJwtKey key) {
+		keyMap.put(key.kid, key);
+		return this;
+	}
+
+	/**
+	 * 移除一个秘钥，移除后由它签发的 token 将无法通过校验
+	 *
+	 * @param kid 秘钥 id
+	 * @return 对象自身
+	 */
+	public SaJwtKeyRing removeKey(String kid) {
+		keyMap.remove(kid);
+		return this;
+	}
+
+	/**
+	 * 轮换秘钥：添加新秘钥并设为当前签名秘钥，旧秘钥保留至其自身的过期时间
+	 *
+	 * @param key 新秘钥
+	 * @return 对象自身
+	 */
+	public synchronized SaJwtKeyRing rotate(SaJwtKey key) {
+		if( ! key.canSign()) {
+			throw new SaJwtException("jwt 秘钥 [" + key.kid + "] 只能用于验签，不可设为签名秘钥").setCode(SaJwtErrorCode.CODE_30208);
+		}
+		addKey(key);
+		this.currentKid = key.kid;
+		return this;
+	}
+
+	/**
+	 * 轮换秘钥：添加新秘钥并设为当前签名秘钥，旧秘钥在指定时间后过期
+	 *
+	 * <p> 旧秘钥的保留时长应不小于 token 的最长有效期，否则旧 token 会提前失效 </p>
+	 *
+	 * @param key 新秘钥
+	 * @param retainSeconds 旧秘钥的保留时长 (单位: 秒)，-1 代表永久保留
+	 * @return 对象自身
+	 */
+	public synchronized SaJwtKeyRing rotate(SaJwtKey key, long retainSeconds) {
+		SaJwtKey oldKey = currentKid == null ? null : keyMap.get(currentKid);
+		rotate(key);
+		if(oldKey != null && oldKey != key && retainSeconds != SaJwtKey.NEVER_EXPIRE) {
+			long expireTime = System.currentTimeMillis() + retainSeconds * 1000;
+			// 只提前，不延后旧秘钥原有的过期时间
+			if(oldKey.expireTime == SaJwtKey.NEVER_EXPIRE || oldKey.expireTime > expireTime) {
+				oldKey.setExpireTime(expireTime);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * 获取指定 kid 对应的可用秘钥，不存在或已过期时返回 null（已过期的秘钥会被顺便移除）
+	 *
+	 * @param kid 秘钥 id
+	 * @return /
+	 */
+	public SaJwtKey getKey(String kid) {
+		if(kid == null) {
+			return null;
+		}
+		SaJwtKey key = keyMap.get(kid);
+		if(key != null && key.isExpired(System.currentTimeMillis())) {
+			keyMap.remove(kid, key);
+			return null;
+		}
+		return key;
+	}
+
+	/**
+	 * 获取当前用于签名的秘钥
+	 *
+	 * @return /
+	 */
+	public SaJwtKey getCurrentKey() {
+		SaJwtKey key = getKey(currentKid);
+		if(key == null || ! key.canSign()) {
+			throw new SaJwtException("jwt 秘钥环中没有可用于签名的秘钥").setCode(SaJwtErrorCode.CODE_30208);
+		}
+		return key;
+	}
+
+}
@@ -23,11 +23,15 @@ import cn.hutool.json.JSONException;
 import cn.hutool.json.JSONObject;
 import cn.hutool.jwt.JWT;
 import cn.hutool.jwt.JWTException;
+import cn.hutool.jwt.JWTHeader;
 import cn.hutool.jwt.signers.JWTSigner;
 import cn.hutool.jwt.signers.JWTSignerUtil;
 
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * jwt 操作模板方法封装
@@ -71,6 +75,43 @@ public class SaJwtTemplate {
 	 * 表示一个值不存在 
 	 */ 
 	public static final long NOT_VALUE_EXPIRE = SaTokenDao.NOT_VALUE_EXPIRE;
+
+	/**
+	 * 已验签 token 缓存的最大数量，设置为 0 代表不缓存
+	 */
+	public int verifiedCacheMaxSize = 10000;
+
+	/**
+	 * 已验签 token 缓存，token -> 验签结果
+	 */
+	public final Map<String, VerifiedToken> verifiedCache = new ConcurrentHashMap<>();
+
+	/**
+	 * 签名器缓存，每个线程一份（签名器内部的 Mac 对象不是线程安全的），秘钥 -> 签名器
+	 */
+	public final ThreadLocal<Map<String, JWTSigner>> signerCache = ThreadLocal.withInitial(HashMap::new);
+
+	/**
+	 * 秘钥环，设置后将按 kid 选择秘钥进行签名与验签，不再使用 keyt 参数
+	 */
+	public volatile SaJwtKeyRing keyRing;
+
+	/**
+	 * key：jwt 头部的秘钥 id
+	 */
+	public static final String KID = "kid";
+
+	/**
+	 * 设置秘钥环，设置为 null 代表不使用秘钥环
+	 *
+	 * @param keyRing /
+	 * @return 对象自身
+	 */
+	public SaJwtTemplate setKeyRing(SaJwtKeyRing keyRing) {
+		this.keyRing = keyRing;
+		this.verifiedCache.clear();
+		return this;
+	}
 	
 	// ------ 创建
 
@@ -142,7 +183,23 @@ public class SaJwtTemplate {
 	 * @return 根据 JWT 对象和 keyt 秘钥，生成的 token 字符串
 	 */
 	public String generateToken (JWT jwt, String keyt) {
-		return jwt.setSigner(createSigner(keyt)).sign();
+		// 使用秘钥环时，以当前秘钥签名，并在头部写入 kid
+		SaJwtKeyRing keyRing = this.keyRing;
+		if(keyRing != null) {
+			SaJwtKey key = keyRing.getCurrentKey();
+			return jwt.setHeader(KID, key.kid).setHeader(JWTHeader.ALGORITHM, key.algorithm).setSigner(key).sign();
+		}
+		return jwt.setSigner(getSigner(keyt)).sign();
+	}
+
+	/**
+	 * 获取指定秘钥对应的签名器（优先从当前线程的缓存中获取，没有时调用 createSigner 创建）
+	 *
+	 * @param keyt 秘钥
+	 * @return /
+	 */
+	public JWTSigner getSigner (String keyt) {
+		return signerCache.get().computeIfAbsent(keyt, this::createSigner);
 	}
 
 	/**
@@ -168,8 +225,8 @@ public class SaJwtTemplate {
      */
     public JWT parseToken(String token, String loginType, String keyt, boolean isCheckTimeout) {
 
-    	// 秘钥不可以为空
-    	if(SaFoxUtil.isEmpty(keyt)) {
+    	// 秘钥不可以为空 (使用秘钥环时除外)
+    	if(keyRing == null && SaFoxUtil.isEmpty(keyt)) {
     		throw new SaJwtException("请配置 jwt 秘钥");
     	}
 
@@ -178,20 +235,9 @@ public class SaJwtTemplate {
     		throw new SaJwtException("jwt 字符串不可为空");
     	}
     	
-    	// 解析 
-    	JWT jwt;
-    	try {
-    		jwt = JWT.of(token);
-		} catch (JWTException | JSONException e) {
-    		throw new SaJwtException("jwt 解析失败：" + token, e).setCode(SaJwtErrorCode.CODE_30201);
-		}
+    	// 解析并校验 Token 签名
+    	JWT jwt = verifyToken(token, keyt);
     	JSONObject payloads = jwt.getPayloads();
-    	
-    	// 校验 Token 签名
-		boolean verify = jwt.setSigner(createSigner(keyt)).verify();
-    	if( ! verify) {
-    		throw new SaJwtException("jwt 签名无效：" + token).setCode(SaJwtErrorCode.CODE_30202);
-    	}
 
     	// 校验 loginType 
     	if( ! Objects.equals(loginType, payloads.getStr(LOGIN_TYPE))) {
@@ -260,6 +306,17 @@ public class SaJwtTemplate {
 		}
     }
 
+    /**
+     * 获取 jwt 的登录设备类型 （校验 sign、loginType，不校验 timeout）
+     * @param token Token值
+     * @param loginType 登录类型
+     * @param keyt 秘钥
+     * @return 值
+     */
+    public String getDevice(String token, String loginType, String keyt) {
+    	return getPayloadsNotCheck(token, loginType, keyt).getStr(DEVICE);
+    }
+
     /**
      * 获取 jwt 剩余有效期 
      * @param token JwtToken值 
@@ -274,21 +331,14 @@ public class SaJwtTemplate {
     		return NOT_VALUE_EXPIRE;
     	}
     	
-    	// 取出数据 
+    	// 取出数据，解析失败或签名无效时返回 -2
     	JWT jwt;
     	try {
-    		jwt = JWT.of(token);
-		} catch (JWTException e) {
-			// 解析失败 
+    		jwt = verifyToken(token, keyt);
+		} catch (SaJwtException e) {
 			return NOT_VALUE_EXPIRE;
 		}
     	JSONObject payloads = jwt.getPayloads();
-    	
-    	// 如果签名无效 
-    	boolean verify = jwt.setSigner(createSigner(keyt)).verify();
-    	if( ! verify) {
-    		return NOT_VALUE_EXPIRE;
-    	}
 
     	// 如果 loginType  无效 
     	if( ! Objects.equals(loginType, payloads.getStr(LOGIN_TYPE))) {
@@ -309,4 +359,121 @@ public class SaJwtTemplate {
         return (effTime - System.currentTimeMillis()) / 1000;
     }
 
+
+    // ------ 验签缓存
+
+    /**
+     * 解析 jwt 并校验签名，验签通过的结果会被缓存，同一个 token 再次校验时只做解析，不再重复验签
+     * <p> 缓存中只记录验签结果，每次调用都返回新解析的 JWT 对象，调用方可以随意修改，不会影响其它调用方 </p>
+     *
+     * @param token Jwt-Token值
+     * @param keyt 秘钥
+     * @return 解析后的jwt 对象
+     */
+    public JWT verifyToken(String token, String keyt) {
+
+    	// 1、先查缓存，秘钥一致且尚未过期时直接返回
+    	long now = System.currentTimeMillis();
+    	SaJwtKeyRing keyRing = this.keyRing;
+    	VerifiedToken cached = verifiedCache.get(token);
+    	if(cached != null) {
+    		boolean keyValid = keyRing == null ? Objects.equals(cached.keyt, keyt) : keyRing.getKey(cached.kid) != null;
+    		if(cached.expireTime >= now && keyValid) {
+    			JWTSigner signer = keyRing == null ? getSigner(keyt) : keyRing.getKey(cached.kid);
+    			return JWT.of(token).setSigner(signer);
+    		}
+    		verifiedCache.remove(token, cached);
+    	}
+
+    	// 2、解析
+    	JWT jwt;
+    	try {
+    		jwt = JWT.of(token);
+		} catch (JWTException | JSONException e) {
+    		throw new SaJwtException("jwt 解析失败：" + token, e).setCode(SaJwtErrorCode.CODE_30201);
+		}
+
+    	// 3、校验 Token 签名
+    	String kid = null;
+    	JWTSigner signer;
+    	if(keyRing == null) {
+    		signer = getSigner(keyt);
+    	} else {
+    		// 使用秘钥环时，根据头部的 kid 选择秘钥，并且头部声明的算法必须与秘钥一致
+    		Object kidValue = jwt.getHeader(KID);
+    		kid = kidValue == null ? null : kidValue.toString();
+    		SaJwtKey key = keyRing.getKey(kid);
+    		if(key == null || ! key.algorithm.equals(jwt.getAlgorithm())) {
+    			throw new SaJwtException("jwt 签名无效：" + token).setCode(SaJwtErrorCode.CODE_30202);
+    		}
+    		signer = key;
+    	}
+		boolean verify = jwt.setSigner(signer).verify();
+    	if( ! verify) {
+    		throw new SaJwtException("jwt 签名无效：" + token).setCode(SaJwtErrorCode.CODE_30202);
+    	}
+
+    	// 4、写入缓存，缓存有效期与 token 的 eff 一致
+    	if(verifiedCacheMaxSize > 0) {
+    		Long effTime = jwt.getPayloads().getLong(EFF, NEVER_EXPIRE);
+    		long expireTime = (effTime == null || effTime == NEVER_EXPIRE) ? Long.MAX_VALUE : effTime;
+    		if(expireTime >= now) {
+    			putVerifiedCache(token, new VerifiedToken(keyt, kid, expireTime), now);
+    		}
+    	}
+    	return jwt;
+    }
+
+    /**
+     * 写入验签缓存，超出数量上限时先清理过期数据，仍然超出则淘汰一部分
+     *
+     * @param token Jwt-Token值
+     * @param verifiedToken 验签结果
+     * @param now 当前时间（13位时间戳）
+     */
+    protected void putVerifiedCache(String token, VerifiedToken verifiedToken, long now) {
+    	if(verifiedCache.size() >= verifiedCacheMaxSize) {
+    		verifiedCache.values().removeIf(v -> v.expireTime < now);
+    		int removeCount = verifiedCache.size() - verifiedCacheMaxSize + Math.max(1, verifiedCacheMaxSize / 10);
+    		Iterator<String> it = verifiedCache.keySet().iterator();
+    		while (removeCount-- > 0 && it.hasNext()) {
+    			it.next();
+    			it.remove();
+    		}
+    	}
+    	verifiedCache.put(token, verifiedToken);
+    }
+
+    /**
+     * 一条验签缓存 （只记录验签结果，不保存 JWT 对象，避免多个调用方共享同一个可变对象）
+     */
+    public static class VerifiedToken {
+
+    	/**
+    	 * 验签时使用的秘钥
+    	 */
+    	public final String keyt;
+
+    	/**
+    	 * 验签时使用的秘钥环 kid，未使用秘钥环时为 null
+    	 */
+    	public final String kid;
+
+    	/**
+    	 * 缓存到期时间（13位时间戳），即 token 的 eff 值，永不过期的 token 为 Long.MAX_VALUE
+    	 */
+    	public final long expireTime;
+
+    	public VerifiedToken(String keyt, long expireTime) {
+    		this(keyt, null, expireTime);
+    	}
+
+    	public VerifiedToken(String keyt, String kid, long expireTime) {
+    		this.keyt = keyt;
+    		this.kid = kid;
+    		this.expireTime = expireTime;
+    	}
+
+    }
+
 }
@@ -0,0 +1,642 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.jwt;
+
+import cn.dev33.satoken.jwt.error.SaJwtErrorCode;
+import cn.dev33.satoken.jwt.exception.SaJwtException;
+import cn.dev33.satoken.util.SaFoxUtil;
+import cn.hutool.jwt.signers.JWTSigner;
+import cn.hutool.jwt.signers.JWTSignerUtil;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * jwt 操作模板方法封装 [ HS256 / HS512 轻量编解码实现 ]
+ *
+ * <p>
+ *     与 {@link SaJwtTemplate} 生成的 token 完全互通，区别在于：<br>
+ *     	1、签名与验签直接使用 javax.crypto.Mac，每个线程每个秘钥只创建一次 Mac 对象，之后重复使用。<br>
+ *     	2、只解析固定的几个字段（loginType、loginId、device、eff），直接在 Base64URL 解码后的字节上顺序扫描，不构建 JSON 对象树。<br>
+ *     	3、携带扩展数据的 token 在创建、以及读取扩展数据时，仍然走 {@link SaJwtTemplate} 的通用实现。
+ * </p>
+ *
+ * <p> 用法示例：</p>
+ * <pre>
+ * 		SaJwtUtil.setSaJwtTemplate(new SaJwtTemplateForHmac());
+ * </pre>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaJwtTemplateForHmac extends SaJwtTemplate {
+
+	/**
+	 * 算法：HS256
+	 */
+	public static final String HS256 = "HS256";
+
+	/**
+	 * 算法：HS512
+	 */
+	public static final String HS512 = "HS512";
+
+	static final Base64.Encoder BASE64_ENCODER = Base64.getUrlEncoder().withoutPadding();
+	static final Base64.Decoder BASE64_DECODER = Base64.getUrlDecoder();
+
+	static final byte[] KEY_LOGIN_TYPE = LOGIN_TYPE.getBytes(StandardCharsets.UTF_8);
+	static final byte[] KEY_LOGIN_ID = LOGIN_ID.getBytes(StandardCharsets.UTF_8);
+	static final byte[] KEY_DEVICE = DEVICE.getBytes(StandardCharsets.UTF_8);
+	static final byte[] KEY_EFF = EFF.getBytes(StandardCharsets.UTF_8);
+	static final byte[] KEY_ALG = "alg".getBytes(StandardCharsets.UTF_8);
+
+	/**
+	 * jwt 头部声明的算法名称，HS256 或 HS512
+	 */
+	public final String algorithm;
+
+	/**
+	 * 对应的 javax.crypto.Mac 算法名称
+	 */
+	public final String macAlgorithm;
+
+	/**
+	 * 本实现生成的 jwt 头部 (已 Base64URL 编码)，验签时如果头部与之相同，则无需再解析头部
+	 */
+	public final String headerSegment;
+
+	/**
+	 * Mac 对象缓存，每个线程一份，秘钥 -> Mac
+	 */
+	public final ThreadLocal<Map<String, Mac>> macCache = ThreadLocal.withInitial(HashMap::new);
+
+	public SaJwtTemplateForHmac() {
+		this(HS256);
+	}
+
+	/**
+	 * @param algorithm 签名算法，可选值：HS256、HS512
+	 */
+	public SaJwtTemplateForHmac(String algorithm) {
+		if(HS256.equals(algorithm)) {
+			this.macAlgorithm = "HmacSHA256";
+		} else if(HS512.equals(algorithm)) {
+			this.macAlgorithm = "HmacSHA512";
+		} else {
+			throw new SaJwtException("不支持的 jwt 签名算法：" + algorithm);
+		}
+		this.algorithm = algorithm;
+		String header = "{\"typ\":\"JWT\",\"alg\":\"" + algorithm + "\"}";
+		this.headerSegment = BASE64_ENCODER.encodeToString(header.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * 通用实现中使用的签名器，与本实现的算法保持一致
+	 */
+	@Override
+	public JWTSigner createSigner(String keyt) {
+		return HS512.equals(algorithm) ? JWTSignerUtil.hs512(keyt.getBytes()) : JWTSignerUtil.hs256(keyt.getBytes());
+	}
+
+
+	// ------ 创建
+
+	@Override
+	public String createToken(String loginType, Object loginId, Map<String, Object> extraData, String keyt) {
+		// 使用秘钥环、携带扩展数据、或者 loginId 不是简单类型时，走通用实现
+		if(keyRing != null || ! isSimpleValue(loginId) || (extraData != null && ! extraData.isEmpty())) {
+			return super.createToken(loginType, loginId, extraData, keyt);
+		}
+		StringBuilder sb = new StringBuilder(128).append('{');
+		appendField(sb, LOGIN_TYPE, loginType).append(',');
+		appendField(sb, LOGIN_ID, loginId).append(',');
+		appendField(sb, RN_STR, SaFoxUtil.getRandomString(32)).append('}');
+		return sign(sb.toString(), keyt);
+	}
+
+	@Override
+	public String createToken(String loginType, Object loginId, String device, long timeout, Map<String, Object> extraData, String keyt) {
+		// 使用秘钥环、携带扩展数据、或者 loginId 不是简单类型时，走通用实现
+		if(keyRing != null || ! isSimpleValue(loginId) || (extraData != null && ! extraData.isEmpty())) {
+			return super.createToken(loginType, loginId, device, timeout, extraData, keyt);
+		}
+		long effTime = timeout;
+		if(timeout != NEVER_EXPIRE) {
+			effTime = timeout * 1000 + System.currentTimeMillis();
+		}
+		StringBuilder sb = new StringBuilder(160).append('{');
+		appendField(sb, LOGIN_TYPE, loginType).append(',');
+		appendField(sb, LOGIN_ID, loginId).append(',');
+		appendField(sb, DEVICE, device).append(',');
+		appendField(sb, EFF, effTime).append(',');
+		appendField(sb, RN_STR, SaFoxUtil.getRandomString(32)).append('}');
+		return sign(sb.toString(), keyt);
+	}
+
+	/**
+	 * 对载荷进行签名，拼接出完整的 jwt 字符串
+	 *
+	 * @param payloadJson 载荷 json
+	 * @param keyt 秘钥
+	 * @return /
+	 */
+	protected String sign(String payloadJson, String keyt) {
+		String content = headerSegment + "." + BASE64_ENCODER.encodeToString(payloadJson.getBytes(StandardCharsets.UTF_8));
+		byte[] signature = getMac(keyt).doFinal(content.getBytes(StandardCharsets.US_ASCII));
+		return content + "." + BASE64_ENCODER.encodeToString(signature);
+	}
+
+
+	// ------ 解析
+
+	@Override
+	public Object getLoginId(String token, String loginType, String keyt) {
+		Claims claims = parseClaims(token, keyt);
+		if(claims.fallback) {
+			return super.getLoginId(token, loginType, keyt);
+		}
+		checkLoginType(claims, token, loginType);
+		long effTime = claims.eff == null ? 0 : claims.eff;
+		if(effTime != NEVER_EXPIRE && effTime < System.currentTimeMillis()) {
+			throw new SaJwtException("jwt 已过期：" + token).setCode(SaJwtErrorCode.CODE_30204);
+		}
+		return claims.loginId;
+	}
+
+	@Override
+	public Object getLoginIdOrNull(String token, String loginType, String keyt) {
+		try {
+			return getLoginId(token, loginType, keyt);
+		} catch (SaJwtException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public String getDevice(String token, String loginType, String keyt) {
+		Claims claims = parseClaims(token, keyt);
+		if(claims.fallback) {
+			return super.getDevice(token, loginType, keyt);
+		}
+		checkLoginType(claims, token, loginType);
+		return claims.device;
+	}
+
+	@Override
+	public long getTimeout(String token, String loginType, String keyt) {
+		if(token == null) {
+			return NOT_VALUE_EXPIRE;
+		}
+		Claims claims;
+		try {
+			claims = parseClaims(token, keyt);
+		} catch (SaJwtException e) {
+			return NOT_VALUE_EXPIRE;
+		}
+		if(claims.fallback) {
+			return super.getTimeout(token, loginType, keyt);
+		}
+		if( ! Objects.equals(loginType, claims.loginType)) {
+			return NOT_VALUE_EXPIRE;
+		}
+		if(claims.eff == null) {
+			return NOT_VALUE_EXPIRE;
+		}
+		long effTime = claims.eff;
+		if(effTime == NEVER_EXPIRE) {
+			return NEVER_EXPIRE;
+		}
+		if(effTime < System.currentTimeMillis()) {
+			return NOT_VALUE_EXPIRE;
+		}
+		return (effTime - System.currentTimeMillis()) / 1000;
+	}
+
+	/**
+	 * 校验 jwt 签名，并解析出固定字段
+	 *
+	 * @param token Jwt-Token值
+	 * @param keyt 秘钥
+	 * @return /
+	 */
+	protected Claims parseClaims(String token, String keyt) {
+
+		// 1、使用秘钥环时，交给通用实现处理
+		if(keyRing != null) {
+			Claims claims = new Claims();
+			claims.fallback = true;
+			return claims;
+		}
+
+		// 秘钥不可以为空
+		if(SaFoxUtil.isEmpty(keyt)) {
+			throw new SaJwtException("请配置 jwt 秘钥");
+		}
+		if(token == null) {
+			throw new SaJwtException("jwt 字符串不可为空");
+		}
+
+		// 2、切分出 header、payload、signature 三段
+		int dot1 = token.indexOf('.');
+		int dot2 = dot1 < 0 ? -1 : token.indexOf('.', dot1 + 1);
+		if(dot2 < 0 || token.indexOf('.', dot2 + 1) >= 0) {
+			throw new SaJwtException("jwt 解析失败：" + token).setCode(SaJwtErrorCode.CODE_30201);
+		}
+		byte[] bytes = token.getBytes(StandardCharsets.US_ASCII);
+
+		// 3、解析载荷与头部
+		Claims claims = new Claims();
+		try {
+			parseObject(BASE64_DECODER.decode(ByteBuffer.wrap(bytes, dot1 + 1, dot2 - dot1 - 1)), claims);
+			if( ! token.regionMatches(0, headerSegment, 0, dot1) || dot1 != headerSegment.length()) {
+				Claims header = new Claims();
+				parseObject(BASE64_DECODER.decode(ByteBuffer.wrap(bytes, 0, dot1)), header);
+				claims.alg = header.alg;
+			} else {
+				claims.alg = algorithm;
+			}
+		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			throw new SaJwtException("jwt 解析失败：" + token, e).setCode(SaJwtErrorCode.CODE_30201);
+		}
+
+		// 4、校验签名
+		boolean verify;
+		try {
+			Mac mac = getMac(keyt);
+			mac.update(bytes, 0, dot2);
+			byte[] expected = mac.doFinal();
+			ByteBuffer actual = BASE64_DECODER.decode(ByteBuffer.wrap(bytes, dot2 + 1, bytes.length - dot2 - 1));
+			verify = algorithm.equals(claims.alg) && constantTimeEquals(expected, actual);
+		} catch (IllegalArgumentException e) {
+			verify = false;
+		}
+		if( ! verify) {
+			throw new SaJwtException("jwt 签名无效：" + token).setCode(SaJwtErrorCode.CODE_30202);
+		}
+		return claims;
+	}
+
+	/**
+	 * 校验 loginType
+	 */
+	protected void checkLoginType(Claims claims, String token, String loginType) {
+		if( ! Objects.equals(loginType, claims.loginType)) {
+			throw new SaJwtException("jwt loginType 无效：" + token).setCode(SaJwtErrorCode.CODE_30203);
+		}
+	}
+
+	/**
+	 * 获取当前线程下指定秘钥对应的 Mac 对象
+	 *
+	 * @param keyt 秘钥
+	 * @return /
+	 */
+	protected Mac getMac(String keyt) {
+		return macCache.get().computeIfAbsent(keyt, k -> {
+			try {
+				Mac mac = Mac.getInstance(macAlgorithm);
+				mac.init(new SecretKeySpec(k.getBytes(), macAlgorithm));
+				return mac;
+			} catch (GeneralSecurityException e) {
+				throw new SaJwtException(e.getMessage(), e);
+			}
+		});
+	}
+
+
+	// ------ json 读写
+
+	/**
+	 * 是否为可以直接写入 json 的简单值
+	 */
+	static boolean isSimpleValue(Object value) {
+		return value instanceof String || value instanceof Long || value instanceof Integer
+				|| value instanceof Short || value instanceof Byte;
+	}
+
+	static StringBuilder appendField(StringBuilder sb, String key, Object value) {
+		appendString(sb, key).append(':');
+		if(value == null) {
+			return sb.append("null");
+		}
+		if(value instanceof String) {
+			return appendString(sb, (String) value);
+		}
+		return sb.append(value);
+	}
+
+	static StringBuilder appendString(StringBuilder sb, String str) {
+		sb.append('"');
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+			if(c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			} else if(c < 0x20) {
+				sb.append(String.format("\\u%04x", (int) c));
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.append('"');
+	}
+
+	/**
+	 * 顺序扫描一个 json 对象，只取出固定字段，其余字段直接跳过
+	 *
+	 * @param buf 解码后的 json 字节
+	 * @param claims 解析结果
+	 */
+	static void parseObject(ByteBuffer buf, Claims claims) {
+		byte[] b = buf.array();
+		int end = buf.limit();
+		int i = skipWhitespace(b, buf.position(), end);
+		expect(b, i++, '{');
+		i = skipWhitespace(b, i, end);
+		if(b[i] == '}') {
+			return;
+		}
+		for (;;) {
+			// key
+			expect(b, i, '"');
+			int keyStart = i + 1;
+			i = skipString(b, i, end);
+			int keyEnd = i - 1;
+			i = skipWhitespace(b, i, end);
+			expect(b, i++, ':');
+			i = skipWhitespace(b, i, end);
+
+			// value
+			int field = matchField(b, keyStart, keyEnd);
+			byte c = b[i];
+			int valueStart = i;
+			if(c == '"') {
+				i = skipString(b, i, end);
+				if(field != 0) {
+					setField(claims, field, decodeString(b, valueStart + 1, i - 1));
+				}
+			} else if(c == '{' || c == '[') {
+				i = skipNested(b, i, end);
+				if(field != 0 && field != 5) {
+					claims.fallback = true;
+				}
+			} else {
+				while (i < end && b[i] != ',' && b[i] != '}' && b[i] > ' ') {
+					i++;
+				}
+				if(field != 0) {
+					setField(claims, field, parseLiteral(b, valueStart, i, claims));
+				}
+			}
+
+			i = skipWhitespace(b, i, end);
+			if(b[i] == ',') {
+				i = skipWhitespace(b, i + 1, end);
+				continue;
+			}
+			expect(b, i, '}');
+			return;
+		}
+	}
+
+	static int matchField(byte[] b, int start, int end) {
+		if(regionEquals(b, start, end, KEY_LOGIN_ID)) {
+			return 1;
+		}
+		if(regionEquals(b, start, end, KEY_LOGIN_TYPE)) {
+			return 2;
+		}
+		if(regionEquals(b, start, end, KEY_DEVICE)) {
+			return 3;
+		}
+		if(regionEquals(b, start, end, KEY_EFF)) {
+			return 4;
+		}
+		if(regionEquals(b, start, end, KEY_ALG)) {
+			return 5;
+		}
+		return 0;
+	}
+
+	static void setField(Claims claims, int field, Object value) {
+		switch (field) {
+			case 1:
+				claims.loginId = value;
+				break;
+			case 2:
+				claims.loginType = value == null ? null : value.toString();
+				break;
+			case 3:
+				claims.device = value == null ? null : value.toString();
+				break;
+			case 4:
+				if(value instanceof Number) {
+					claims.eff = ((Number) value).longValue();
+				} else if(value != null) {
+					claims.fallback = true;
+				}
+				break;
+			case 5:
+				claims.alg = value == null ? null : value.toString();
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * 解析 null、整数；其它字面量（小数、布尔值）交给通用实现处理
+	 */
+	static Object parseLiteral(byte[] b, int start, int end, Claims claims) {
+		if(regionEquals(b, start, end, NULL_BYTES)) {
+			return null;
+		}
+		long value = 0;
+		boolean negative = b[start] == '-';
+		int i = negative ? start + 1 : start;
+		if(i == end || end - i > 18) {
+			claims.fallback = true;
+			return null;
+		}
+		for (; i < end; i++) {
+			int d = b[i] - '0';
+			if(d < 0 || d > 9) {
+				claims.fallback = true;
+				return null;
+			}
+			value = value * 10 + d;
+		}
+		value = negative ? -value : value;
+		// int 范围内的整数返回 Integer，否则返回 Long
+		if(value == (int) value) {
+			return (int) value;
+		}
+		return value;
+	}
+
+	static final byte[] NULL_BYTES = "null".getBytes(StandardCharsets.US_ASCII);
+
+	static String decodeString(byte[] b, int start, int end) {
+		int escape = -1;
+		for (int i = start; i < end; i++) {
+			if(b[i] == '\\') {
+				escape = i;
+				break;
+			}
+		}
+		if(escape < 0) {
+			return new String(b, start, end - start, StandardCharsets.UTF_8);
+		}
+		StringBuilder sb = new StringBuilder(end - start);
+		int segment = start;
+		int i = escape;
+		while (i < end) {
+			if(b[i] != '\\') {
+				i++;
+				continue;
+			}
+			sb.append(new String(b, segment, i - segment, StandardCharsets.UTF_8));
+			byte c = b[i + 1];
+			switch (c) {
+				case 'b': sb.append('\b'); break;
+				case 'f': sb.append('\f'); break;
+				case 'n': sb.append('\n'); break;
+				case 'r': sb.append('\r'); break;
+				case 't': sb.append('\t'); break;
+				case 'u':
+					sb.append((char) Integer.parseInt(new String(b, i + 2, 4, StandardCharsets.US_ASCII), 16));
+					i += 4;
+					break;
+				default: sb.append((char) c); break;
+			}
+			i += 2;
+			segment = i;
+		}
+		sb.append(new String(b, segment, end - segment, StandardCharsets.UTF_8));
+		return sb.toString();
+	}
+
+	/**
+	 * 跳过一个字符串，返回字符串结束引号之后的位置
+	 */
+	static int skipString(byte[] b, int i, int end) {
+		for (i = i + 1; i < end; i++) {
+			if(b[i] == '\\') {
+				i++;
+			} else if(b[i] == '"') {
+				return i + 1;
+			}
+		}
+		throw new IllegalArgumentException("json 字符串未结束");
+	}
+
+	/**
+	 * 跳过一个嵌套的对象或数组，返回其结束符号之后的位置
+	 */
+	static int skipNested(byte[] b, int i, int end) {
+		int depth = 0;
+		while (i < end) {
+			byte c = b[i];
+			if(c == '"') {
+				i = skipString(b, i, end);
+				continue;
+			}
+			if(c == '{' || c == '[') {
+				depth++;
+			} else if(c == '}' || c == ']') {
+				if(--depth == 0) {
+					return i + 1;
+				}
+			}
+			i++;
+		}
+		throw new IllegalArgumentException("json 对象未结束");
+	}
+
+	static int skipWhitespace(byte[] b, int i, int end) {
+		while (i < end && (b[i] == ' ' || b[i] == '\t' || b[i] == '\n' || b[i] == '\r')) {
+			i++;
+		}
+		if(i >= end) {
+			throw new IllegalArgumentException("json 意外结束");
+		}
+		return i;
+	}
+
+	static void expect(byte[] b, int i, char c) {
+		if(b[i] != c) {
+			throw new IllegalArgumentException("json 格式错误，位置 " + i + " 处应为 " + c);
+		}
+	}
+
+	/**
+	 * 以固定耗时比较签名，避免时序攻击
+	 */
+	static boolean constantTimeEquals(byte[] expected, ByteBuffer actual) {
+		if(expected.length != actual.remaining()) {
+			return false;
+		}
+		int result = 0;
+		for (int i = 0; i < expected.length; i++) {
+			result |= expected[i] ^ actual.get(actual.position() + i);
+		}
+		return result == 0;
+	}
+
+	static boolean regionEquals(byte[] b, int start, int end, byte[] target) {
+		if(end - start != target.length) {
+			return false;
+		}
+		for (int i = 0; i < target.length; i++) {
+			if(b[start + i] != target[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 从 jwt 中解析出的固定字段
+	 */
+	public static class Claims {
+
+		/** 账号类型 */
+		public String loginType;
+
+		/** 账号id */
+		public Object loginId;
+
+		/** 登录设备类型 */
+		public String device;
+
+		/** 有效截止期 (时间戳)，不存在时为 null */
+		public Long eff;
+
+		/** 签名算法 (仅在解析头部时使用) */
+		public String alg;
+
+		/** 是否存在本实现无法处理的字段值，需要交给通用实现处理 */
+		public boolean fallback;
+
+	}
+
+}
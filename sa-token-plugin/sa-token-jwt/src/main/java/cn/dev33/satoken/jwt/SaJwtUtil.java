@@ -184,6 +184,17 @@ public class SaJwtUtil {
     	return saJwtTemplate.getLoginIdOrNull(token, loginType, keyt);
     }
 
+    /**
+     * 获取 jwt 的登录设备类型 （校验 sign、loginType，不校验 timeout）
+     * @param token Token值
+     * @param loginType 登录类型
+     * @param keyt 秘钥
+     * @return 值
+     */
+    public static String getDevice(String token, String loginType, String keyt) {
+    	return saJwtTemplate.getDevice(token, loginType, keyt);
+    }
+
     /**
      * 获取 jwt 剩余有效期 
      * @param token JwtToken值 
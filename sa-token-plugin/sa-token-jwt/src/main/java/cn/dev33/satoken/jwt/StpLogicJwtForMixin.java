@@ -20,9 +20,11 @@ import java.util.Map;
 
 import cn.dev33.satoken.context.SaHolder;
 import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoBatch;
 import cn.dev33.satoken.exception.ApiDisabledException;
 import cn.dev33.satoken.exception.NotLoginException;
 import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.fun.SaParamRetFunction;
 import cn.dev33.satoken.jwt.error.SaJwtErrorCode;
 import cn.dev33.satoken.jwt.exception.SaJwtException;
 import cn.dev33.satoken.session.SaSession;
@@ -61,6 +63,10 @@ public class StpLogicJwtForMixin extends StpLogic {
 	 */
 	public String jwtSecretKey() {
 		String keyt = getConfigOrGlobal().getJwtSecretKey();
+		// 使用秘钥环时，签名与验签都由秘钥环负责，可以不配置秘钥
+		if(SaJwtUtil.getSaJwtTemplate().keyRing != null) {
+			return keyt;
+		}
 		SaJwtException.throwByNull(keyt, "请配置jwt秘钥", SaJwtErrorCode.CODE_30205);
 		return keyt;
 	}
@@ -211,6 +217,13 @@ public class StpLogicJwtForMixin extends StpLogic {
 	public void saveTokenToIdMapping(String tokenValue, Object loginId, long timeout) {
 		// not action 
 	}
+	/**
+	 * 存储 Token-Id 映射 （批量操作）
+	 */
+	@Override
+	public void saveTokenToIdMapping(SaTokenDaoBatch batch, String tokenValue, Object loginId, long timeout) {
+		// not action 
+	}
  	
  	// ------------------- 过期时间相关 -------------------  
 
@@ -256,6 +269,14 @@ public class StpLogicJwtForMixin extends StpLogic {
 	public List<String> searchTokenValue(String keyword, int start, int size, boolean sortType) {
 		throw new ApiDisabledException(); 
 	}
+
+	/**
+	 * [禁用] 根据条件遍历Token
+	 */
+	@Override
+	public void scanTokenValue(String keyword, SaParamRetFunction<String, Boolean> function) {
+		throw new ApiDisabledException();
+	}
 	
 
 	// ------------------- Bean对象代理 -------------------  
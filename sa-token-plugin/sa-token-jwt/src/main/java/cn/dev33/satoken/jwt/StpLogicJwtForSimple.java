@@ -51,6 +51,10 @@ public class StpLogicJwtForSimple extends StpLogic {
 	 */
 	public String jwtSecretKey() {
 		String keyt = getConfigOrGlobal().getJwtSecretKey();
+		// 使用秘钥环时，签名与验签都由秘钥环负责，可以不配置秘钥
+		if(SaJwtUtil.getSaJwtTemplate().keyRing != null) {
+			return keyt;
+		}
 		SaJwtException.throwByNull(keyt, "请配置jwt秘钥", SaJwtErrorCode.CODE_30205);
 		return keyt;
 	}
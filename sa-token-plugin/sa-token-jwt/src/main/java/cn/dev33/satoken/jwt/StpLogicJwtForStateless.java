@@ -59,6 +59,10 @@ public class StpLogicJwtForStateless extends StpLogic {
 	 */
 	public String jwtSecretKey() {
 		String keyt = getConfigOrGlobal().getJwtSecretKey();
+		// 使用秘钥环时，签名与验签都由秘钥环负责，可以不配置秘钥
+		if(SaJwtUtil.getSaJwtTemplate().keyRing != null) {
+			return keyt;
+		}
 		SaJwtException.throwByNull(keyt, "请配置jwt秘钥", SaJwtErrorCode.CODE_30205);
 		return keyt;
 	}
@@ -207,7 +211,7 @@ public class StpLogicJwtForStateless extends StpLogic {
 			return null;
 		}
 		// 获取
-		return SaJwtUtil.getPayloadsNotCheck(tokenValue, loginType, jwtSecretKey()).getStr(SaJwtUtil.DEVICE); 
+		return SaJwtUtil.getDevice(tokenValue, loginType, jwtSecretKey());
 	}
 
 	
@@ -41,4 +41,10 @@ public interface SaJwtErrorCode {
 	/** 登录时提供的账号id为空 */
 	int CODE_30206 = 30206;
 
+	/** 不支持的 jwt 签名算法 */
+	int CODE_30207 = 30207;
+
+	/** 秘钥环中没有可用于签名的秘钥 */
+	int CODE_30208 = 30208;
+
 }
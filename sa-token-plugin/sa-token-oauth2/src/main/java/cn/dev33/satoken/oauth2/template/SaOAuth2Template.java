@@ -17,6 +17,8 @@ package cn.dev33.satoken.oauth2.template;
 
 import cn.dev33.satoken.SaManager;
 import cn.dev33.satoken.context.model.SaRequest;
+import cn.dev33.satoken.dao.SaTokenDaoBatch;
+import cn.dev33.satoken.fun.SaFunction;
 import cn.dev33.satoken.oauth2.SaOAuth2Manager;
 import cn.dev33.satoken.oauth2.consts.SaOAuth2Consts.Param;
 import cn.dev33.satoken.oauth2.error.SaOAuth2ErrorCode;
@@ -173,13 +175,13 @@ public class SaOAuth2Template {
 	 */
 	public AccessTokenModel generateAccessToken(String code) {
 
-		// 1、先校验
-		CodeModel cm = getCode(code);
+		// 1、先校验，读取的同时删除此Code，保证同一个Code并发兑换时只有一方能成功
+		CodeModel cm = consumeCode(code);
 		SaOAuth2Exception.throwBy(cm == null, "无效code", SaOAuth2ErrorCode.CODE_30110);
 
-		// 2、删除旧Token
-		deleteAccessToken(getAccessTokenValue(cm.clientId, cm.loginId));
-		deleteRefreshToken(getRefreshTokenValue(cm.clientId, cm.loginId));
+		// 2、读取旧Token
+		String oldAccessToken = getAccessTokenValue(cm.clientId, cm.loginId);
+		String oldRefreshToken = getRefreshTokenValue(cm.clientId, cm.loginId);
 
 		// 3、生成token
 		AccessTokenModel at = convertCodeToAccessToken(cm);
@@ -187,17 +189,18 @@ public class SaOAuth2Template {
 		at.refreshToken = rt.refreshToken;
 		at.refreshExpiresTime = rt.expiresTime;
 
-		// 4、保存token
-		saveAccessToken(at);
-		saveAccessTokenIndex(at);
-		saveRefreshToken(rt);
-		saveRefreshTokenIndex(rt);
-
-		// 5、删除此Code
-		deleteCode(code);
-		deleteCodeIndex(cm.clientId, cm.loginId);
+		// 4、删除旧Token、保存新Token、删除此Code的索引，作为一个批量操作提交
+		runInBatch(() -> {
+			deleteAccessToken(oldAccessToken);
+			deleteRefreshToken(oldRefreshToken);
+			saveAccessToken(at);
+			saveAccessTokenIndex(at);
+			saveRefreshToken(rt);
+			saveRefreshTokenIndex(rt);
+			deleteCodeIndex(cm.clientId, cm.loginId);
+		});
 
-		// 6、返回 Access-Token
+		// 5、返回 Access-Token
 		return at;
 	}
 	/**
@@ -208,29 +211,33 @@ public class SaOAuth2Template {
 	public AccessTokenModel refreshAccessToken(String refreshToken) {
 
 		// 获取 Refresh-Token 信息
-		RefreshTokenModel rt = getRefreshToken(refreshToken);
-		SaOAuth2Exception.throwBy(rt == null, "无效refresh_token: " + refreshToken, SaOAuth2ErrorCode.CODE_30111);
-		
-		// 如果配置了[每次刷新产生新的Refresh-Token]
-		if(checkClientModel(rt.clientId).getIsNewRefresh()) {
-			// 删除旧 Refresh-Token
-			deleteRefreshToken(rt.refreshToken);
-
-			// 创建并保持新的 Refresh-Token
-			rt = convertRefreshTokenToRefreshToken(rt);
-			saveRefreshToken(rt);
-			saveRefreshTokenIndex(rt);
-		}
+		RefreshTokenModel oldRt = getRefreshToken(refreshToken);
+		SaOAuth2Exception.throwBy(oldRt == null, "无效refresh_token: " + refreshToken, SaOAuth2ErrorCode.CODE_30111);
+
+		// 获取旧 Access-Token
+		String oldAccessToken = getAccessTokenValue(oldRt.clientId, oldRt.loginId);
 
-		// 删除旧 Access-Token
-		deleteAccessToken(getAccessTokenValue(rt.clientId, rt.loginId));
+		// 如果配置了[每次刷新产生新的Refresh-Token]，则创建新的 Refresh-Token
+		boolean isNewRefresh = checkClientModel(oldRt.clientId).getIsNewRefresh();
+		RefreshTokenModel rt = isNewRefresh ? convertRefreshTokenToRefreshToken(oldRt) : oldRt;
 
 		// 生成新 Access-Token
 		AccessTokenModel at = convertRefreshTokenToAccessToken(rt);
 
-		// 保存新 Access-Token
-		saveAccessToken(at);
-		saveAccessTokenIndex(at);
+		// 以下写操作作为一个批量操作提交
+		runInBatch(() -> {
+			if(isNewRefresh) {
+				// 删除旧 Refresh-Token，保存新的 Refresh-Token
+				deleteRefreshToken(oldRt.refreshToken);
+				saveRefreshToken(rt);
+				saveRefreshTokenIndex(rt);
+			}
+
+			// 删除旧 Access-Token，保存新 Access-Token
+			deleteAccessToken(oldAccessToken);
+			saveAccessToken(at);
+			saveAccessTokenIndex(at);
+		});
 
 		// 返回新 Access-Token
 		return at;
@@ -243,11 +250,9 @@ public class SaOAuth2Template {
 	 */
 	public AccessTokenModel generateAccessToken(RequestAuthModel ra, boolean isCreateRt) {
 
-		// 1、删除 旧Token
-		deleteAccessToken(getAccessTokenValue(ra.clientId, ra.loginId));
-		if(isCreateRt) {
-			deleteRefreshToken(getRefreshTokenValue(ra.clientId, ra.loginId));
-		}
+		// 1、读取 旧Token
+		String oldAccessToken = getAccessTokenValue(ra.clientId, ra.loginId);
+		String oldRefreshToken = isCreateRt ? getRefreshTokenValue(ra.clientId, ra.loginId) : null;
 
 		// 2、生成 新Access-Token
 		String newAtValue = randomAccessToken(ra.clientId, ra.loginId, ra.scope);
@@ -255,18 +260,22 @@ public class SaOAuth2Template {
 		at.openid = getOpenid(ra.clientId, ra.loginId);
 		at.expiresTime = System.currentTimeMillis() + (checkClientModel(ra.clientId).getAccessTokenTimeout() * 1000);
 
-		// 3、生成&保存 Refresh-Token
-		if(isCreateRt) {
-			RefreshTokenModel rt = convertAccessTokenToRefreshToken(at);
-			saveRefreshToken(rt);
-			saveRefreshTokenIndex(rt);
-		}
+		// 3、生成 Refresh-Token
+		RefreshTokenModel rt = isCreateRt ? convertAccessTokenToRefreshToken(at) : null;
 
-		// 5、保存 新Access-Token
-		saveAccessToken(at);
-		saveAccessTokenIndex(at);
+		// 4、删除旧Token、保存新Token，作为一个批量操作提交
+		runInBatch(() -> {
+			deleteAccessToken(oldAccessToken);
+			if(isCreateRt) {
+				deleteRefreshToken(oldRefreshToken);
+				saveRefreshToken(rt);
+				saveRefreshTokenIndex(rt);
+			}
+			saveAccessToken(at);
+			saveAccessTokenIndex(at);
+		});
 
-		// 6、返回 新Access-Token
+		// 5、返回 新Access-Token
 		return at;
 	}
 	/**
@@ -276,31 +285,62 @@ public class SaOAuth2Template {
 	 * @return Client-Token Model
 	 */
 	public ClientTokenModel generateClientToken(String clientId, String scope) {
-		// 1、删掉旧 Past-Token
-		deleteClientToken(getPastTokenValue(clientId));
-
-		// 2、将旧Client-Token 标记为新 Past-Token
+		// 1、读取旧 Past-Token 与旧 Client-Token
+		String oldPastToken = getPastTokenValue(clientId);
 		ClientTokenModel oldCt = getClientToken(getClientTokenValue(clientId));
-		savePastTokenIndex(oldCt);
-		
-		// 2.5、如果配置了 PastClientToken 的 ttl ，则需要更新一下 
+
+		// 2、如果配置了 PastClientToken 的 ttl ，则需要更新一下 
 		SaClientModel cm = checkClientModel(clientId);
-		if(oldCt != null && cm.getPastClientTokenTimeout() != -1) {
+		boolean isUpdatePast = oldCt != null && cm.getPastClientTokenTimeout() != -1;
+		if(isUpdatePast) {
 			oldCt.expiresTime = System.currentTimeMillis() + (cm.getPastClientTokenTimeout() * 1000);
-			saveClientToken(oldCt);
 		}
 
 		// 3、生成新Client-Token
 		ClientTokenModel ct = new ClientTokenModel(randomClientToken(clientId, scope), clientId, scope);
 		ct.expiresTime = System.currentTimeMillis() + (cm.getClientTokenTimeout() * 1000);
 
-		// 3、保存新Client-Token 
-		saveClientToken(ct);
-		saveClientTokenIndex(ct);
+		// 4、以下写操作作为一个批量操作提交
+		runInBatch(() -> {
+			// 删掉旧 Past-Token
+			deleteClientToken(oldPastToken);
+
+			// 将旧Client-Token 标记为新 Past-Token
+			savePastTokenIndex(oldCt);
+			if(isUpdatePast) {
+				saveClientToken(oldCt);
+			}
 
-		// 4、返回
+			// 保存新Client-Token
+			saveClientToken(ct);
+			saveClientTokenIndex(ct);
+		});
+
+		// 5、返回
 		return ct;
 	}
+	/**
+	 * 在一个批量操作中执行：期间调用的 save* / delete* 方法只会将写操作加入批量操作中，执行完毕后一次性提交
+	 *
+	 * <p> 重写 save* / delete* 方法的子类不受影响：直接调用 SaTokenDao 的写操作会立即执行，调用父类方法的写操作会被加入批量操作 </p>
+	 *
+	 * @param fun 要执行的代码
+	 */
+	public void runInBatch(SaFunction fun) {
+		// 已在批量操作中时，直接加入外层的批量操作
+		if(currentBatch.get() != null) {
+			fun.run();
+			return;
+		}
+		SaTokenDaoBatch batch = new SaTokenDaoBatch();
+		currentBatch.set(batch);
+		try {
+			fun.run();
+		} finally {
+			currentBatch.remove();
+		}
+		SaManager.getSaTokenDao().executeBatch(batch);
+	}
 	/**
 	 * 构建URL：下放Code URL (Authorization Code 授权码)
 	 * @param redirectUri 下放地址
@@ -574,7 +614,7 @@ public class SaOAuth2Template {
 		if(c == null) {
 			return;
 		}
-		SaManager.getSaTokenDao().setObject(splicingCodeSaveKey(c.code), c, SaOAuth2Manager.getConfig().getCodeTimeout());
+		saveObjectValue(splicingCodeSaveKey(c.code), c, SaOAuth2Manager.getConfig().getCodeTimeout());
 	}
 	/**
 	 * 持久化：Code-索引
@@ -584,7 +624,7 @@ public class SaOAuth2Template {
 		if(c == null) {
 			return;
 		}
-		SaManager.getSaTokenDao().set(splicingCodeIndexKey(c.clientId, c.loginId), c.code, SaOAuth2Manager.getConfig().getCodeTimeout());
+		saveStringValue(splicingCodeIndexKey(c.clientId, c.loginId), c.code, SaOAuth2Manager.getConfig().getCodeTimeout());
 	}
 	/**
 	 * 持久化：AccessToken-Model
@@ -594,7 +634,7 @@ public class SaOAuth2Template {
 		if(at == null) {
 			return;
 		}
-		SaManager.getSaTokenDao().setObject(splicingAccessTokenSaveKey(at.accessToken), at, at.getExpiresIn());
+		saveObjectValue(splicingAccessTokenSaveKey(at.accessToken), at, at.getExpiresIn());
 	}
 	/**
 	 * 持久化：AccessToken-索引
@@ -604,7 +644,7 @@ public class SaOAuth2Template {
 		if(at == null) {
 			return;
 		}
-		SaManager.getSaTokenDao().set(splicingAccessTokenIndexKey(at.clientId, at.loginId), at.accessToken, at.getExpiresIn());
+		saveStringValue(splicingAccessTokenIndexKey(at.clientId, at.loginId), at.accessToken, at.getExpiresIn());
 	}
 	/**
 	 * 持久化：RefreshToken-Model
@@ -614,7 +654,7 @@ public class SaOAuth2Template {
 		if(rt == null) {
 			return;
 		}
-		SaManager.getSaTokenDao().setObject(splicingRefreshTokenSaveKey(rt.refreshToken), rt, rt.getExpiresIn());
+		saveObjectValue(splicingRefreshTokenSaveKey(rt.refreshToken), rt, rt.getExpiresIn());
 	}
 	/**
 	 * 持久化：RefreshToken-索引
@@ -624,7 +664,7 @@ public class SaOAuth2Template {
 		if(rt == null) {
 			return;
 		}
-		SaManager.getSaTokenDao().set(splicingRefreshTokenIndexKey(rt.clientId, rt.loginId), rt.refreshToken, rt.getExpiresIn());
+		saveStringValue(splicingRefreshTokenIndexKey(rt.clientId, rt.loginId), rt.refreshToken, rt.getExpiresIn());
 	}
 	/**
 	 * 持久化：ClientToken-Model
@@ -634,7 +674,7 @@ public class SaOAuth2Template {
 		if(ct == null) {
 			return;
 		}
-		SaManager.getSaTokenDao().setObject(splicingClientTokenSaveKey(ct.clientToken), ct, ct.getExpiresIn());
+		saveObjectValue(splicingClientTokenSaveKey(ct.clientToken), ct, ct.getExpiresIn());
 	}
 	/**
 	 * 持久化：ClientToken-索引
@@ -644,7 +684,7 @@ public class SaOAuth2Template {
 		if(ct == null) {
 			return;
 		}
-		SaManager.getSaTokenDao().set(splicingClientTokenIndexKey(ct.clientId), ct.clientToken, ct.getExpiresIn());
+		saveStringValue(splicingClientTokenIndexKey(ct.clientId), ct.clientToken, ct.getExpiresIn());
 	}
 	/**
 	 * 持久化：Past-Token-索引
@@ -659,7 +699,7 @@ public class SaOAuth2Template {
 		if (cm.getPastClientTokenTimeout() != -1) {
 			ttl = cm.getPastClientTokenTimeout();
 		}
-		SaManager.getSaTokenDao().set(splicingPastTokenIndexKey(ct.clientId), ct.clientToken, ttl);
+		saveStringValue(splicingPastTokenIndexKey(ct.clientId), ct.clientToken, ttl);
 	}
 	/**
 	 * 持久化：用户授权记录
@@ -670,7 +710,7 @@ public class SaOAuth2Template {
 	public void saveGrantScope(String clientId, Object loginId, String scope) {
 		if( ! SaFoxUtil.isEmpty(scope)) {
 			long ttl = checkClientModel(clientId).getAccessTokenTimeout();
-			SaManager.getSaTokenDao().set(splicingGrantScopeKey(clientId, loginId), scope, ttl);
+			saveStringValue(splicingGrantScopeKey(clientId, loginId), scope, ttl);
 		}
 	}
 
@@ -686,6 +726,17 @@ public class SaOAuth2Template {
 		}
 		return (CodeModel)SaManager.getSaTokenDao().getObject(splicingCodeSaveKey(code));
 	}
+	/**
+	 * 获取并删除：Code Model（同一个Code被并发调用时，只有一方能拿到）
+	 * @param code .
+	 * @return .
+	 */
+	public CodeModel consumeCode(String code) {
+		if(code == null) {
+			return null;
+		}
+		return (CodeModel)SaManager.getSaTokenDao().getAndDeleteObject(splicingCodeSaveKey(code));
+	}
 	/**
 	 * 获取：Code Value
 	 * @param clientId 应用id
@@ -779,7 +830,7 @@ public class SaOAuth2Template {
 	 */
 	public void deleteCode(String code) {
 		if(code != null) {
-			SaManager.getSaTokenDao().deleteObject(splicingCodeSaveKey(code));
+			deleteObjectValue(splicingCodeSaveKey(code));
 		}
 	}
 	/**
@@ -788,7 +839,7 @@ public class SaOAuth2Template {
 	 * @param loginId 账号id
 	 */
 	public void deleteCodeIndex(String clientId, Object loginId) {
-		SaManager.getSaTokenDao().delete(splicingCodeIndexKey(clientId, loginId));
+		deleteStringValue(splicingCodeIndexKey(clientId, loginId));
 	}
 	/**
 	 * 删除：Access-Token
@@ -796,7 +847,7 @@ public class SaOAuth2Template {
 	 */
 	public void deleteAccessToken(String accessToken) {
 		if(accessToken != null) {
-			SaManager.getSaTokenDao().deleteObject(splicingAccessTokenSaveKey(accessToken));
+			deleteObjectValue(splicingAccessTokenSaveKey(accessToken));
 		}
 	}
 	/**
@@ -805,7 +856,7 @@ public class SaOAuth2Template {
 	 * @param loginId 账号id
 	 */
 	public void deleteAccessTokenIndex(String clientId, Object loginId) {
-		SaManager.getSaTokenDao().delete(splicingAccessTokenIndexKey(clientId, loginId));
+		deleteStringValue(splicingAccessTokenIndexKey(clientId, loginId));
 	}
 	/**
 	 * 删除：Refresh-Token
@@ -813,7 +864,7 @@ public class SaOAuth2Template {
 	 */
 	public void deleteRefreshToken(String refreshToken) {
 		if(refreshToken != null) {
-			SaManager.getSaTokenDao().deleteObject(splicingRefreshTokenSaveKey(refreshToken));
+			deleteObjectValue(splicingRefreshTokenSaveKey(refreshToken));
 		}
 	}
 	/**
@@ -822,7 +873,7 @@ public class SaOAuth2Template {
 	 * @param loginId 账号id
 	 */
 	public void deleteRefreshTokenIndex(String clientId, Object loginId) {
-		SaManager.getSaTokenDao().delete(splicingRefreshTokenIndexKey(clientId, loginId));
+		deleteStringValue(splicingRefreshTokenIndexKey(clientId, loginId));
 	}
 	/**
 	 * 删除：Client-Token
@@ -830,7 +881,7 @@ public class SaOAuth2Template {
 	 */
 	public void deleteClientToken(String clientToken) {
 		if(clientToken != null) {
-			SaManager.getSaTokenDao().deleteObject(splicingClientTokenSaveKey(clientToken));
+			deleteObjectValue(splicingClientTokenSaveKey(clientToken));
 		}
 	}
 	/**
@@ -838,14 +889,14 @@ public class SaOAuth2Template {
 	 * @param clientId 应用id
 	 */
 	public void deleteClientTokenIndex(String clientId) {
-		SaManager.getSaTokenDao().delete(splicingClientTokenIndexKey(clientId));
+		deleteStringValue(splicingClientTokenIndexKey(clientId));
 	}
 	/**
 	 * 删除：Past-Token索引
 	 * @param clientId 应用id
 	 */
 	public void deletePastTokenIndex(String clientId) {
-		SaManager.getSaTokenDao().delete(splicingPastTokenIndexKey(clientId));
+		deleteStringValue(splicingPastTokenIndexKey(clientId));
 	}
 	/**
 	 * 删除：用户授权记录
@@ -853,7 +904,65 @@ public class SaOAuth2Template {
 	 * @param loginId 账号id
 	 */
 	public void deleteGrantScope(String clientId, Object loginId) {
-		SaManager.getSaTokenDao().delete(splicingGrantScopeKey(clientId, loginId));
+		deleteStringValue(splicingGrantScopeKey(clientId, loginId));
+	}
+
+	// ------------------- 写入操作（在 runInBatch 中时加入批量操作，否则立即执行）
+	/**
+	 * 当前线程正在收集的批量操作
+	 */
+	protected final ThreadLocal<SaTokenDaoBatch> currentBatch = new ThreadLocal<>();
+	/**
+	 * 写入：String 值
+	 * @param key 键名称
+	 * @param value 值
+	 * @param timeout 存活时间（单位: 秒）
+	 */
+	protected void saveStringValue(String key, String value, long timeout) {
+		SaTokenDaoBatch batch = currentBatch.get();
+		if(batch != null) {
+			batch.set(key, value, timeout);
+		} else {
+			SaManager.getSaTokenDao().set(key, value, timeout);
+		}
+	}
+	/**
+	 * 写入：Object 值
+	 * @param key 键名称
+	 * @param object 值
+	 * @param timeout 存活时间（单位: 秒）
+	 */
+	protected void saveObjectValue(String key, Object object, long timeout) {
+		SaTokenDaoBatch batch = currentBatch.get();
+		if(batch != null) {
+			batch.setObject(key, object, timeout);
+		} else {
+			SaManager.getSaTokenDao().setObject(key, object, timeout);
+		}
+	}
+	/**
+	 * 删除：String 值
+	 * @param key 键名称
+	 */
+	protected void deleteStringValue(String key) {
+		SaTokenDaoBatch batch = currentBatch.get();
+		if(batch != null) {
+			batch.delete(key);
+		} else {
+			SaManager.getSaTokenDao().delete(key);
+		}
+	}
+	/**
+	 * 删除：Object 值
+	 * @param key 键名称
+	 */
+	protected void deleteObjectValue(String key) {
+		SaTokenDaoBatch batch = currentBatch.get();
+		if(batch != null) {
+			batch.delete(key);
+		} else {
+			SaManager.getSaTokenDao().deleteObject(key);
+		}
 	}
 
 	// ------------------- Random数据
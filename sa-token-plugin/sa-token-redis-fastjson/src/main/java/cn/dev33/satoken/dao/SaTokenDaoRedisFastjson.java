@@ -15,22 +15,36 @@
  */
 package cn.dev33.satoken.dao;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Properties;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.stereotype.Component;
 
 import com.alibaba.fastjson.JSON;
 
+import cn.dev33.satoken.fun.SaParamRetFunction;
 import cn.dev33.satoken.session.SaSession;
 import cn.dev33.satoken.strategy.SaStrategy;
-import cn.dev33.satoken.util.SaFoxUtil;
 
 /**
  * Sa-Token 持久层实现 [ Redis存储、fastjson序列化 ]
@@ -41,6 +55,28 @@ import cn.dev33.satoken.util.SaFoxUtil;
 @Component
 public class SaTokenDaoRedisFastjson implements SaTokenDao {
 
+	/**
+	 * Lua 脚本：修改 key 的值，并保持其剩余存活时间不变 (key 不存在时不做任何操作)
+	 */
+	public static final byte[] UPDATE_KEEP_TTL_SCRIPT = (
+			"local ttl = redis.call('pttl', KEYS[1]) " +
+			"if ttl == -2 then return 0 end " +
+			"if ttl > 0 then redis.call('set', KEYS[1], ARGV[1], 'PX', ttl) else redis.call('set', KEYS[1], ARGV[1]) end " +
+			"return 1"
+	).getBytes(StandardCharsets.UTF_8);
+
+	/**
+	 * Lua 脚本：获取并删除指定 key，返回删除前的值 (key 不存在时返回 nil)
+	 */
+	public static final byte[] GET_AND_DELETE_SCRIPT = (
+			"local value = redis.call('get', KEYS[1]) " +
+			"if value then redis.call('del', KEYS[1]) end " +
+			"return value"
+	).getBytes(StandardCharsets.UTF_8);
+
+	static final byte[] SET_XX = "XX".getBytes(StandardCharsets.UTF_8);
+	static final byte[] SET_KEEPTTL = "KEEPTTL".getBytes(StandardCharsets.UTF_8);
+
 	/**
 	 * String 读写专用
 	 */
@@ -56,6 +92,16 @@ public class SaTokenDaoRedisFastjson implements SaTokenDao {
 	 */
 	public boolean isInit;
 	
+	/**
+	 * 标记：当前 Redis 服务端是否支持 SET 命令的 KEEPTTL 参数 (Redis 6.0+)，为 null 代表尚未读取版本号
+	 */
+	public volatile Boolean isSupportKeepTtl;
+
+	/**
+	 * 标记：当前连接是否为集群连接，为 null 代表尚未检测
+	 */
+	public volatile Boolean isCluster;
+	
 	@Autowired
 	public void init(RedisConnectionFactory connectionFactory) {
 		// 如果已经初始化成功了，就立刻退出，不重复初始化
@@ -122,12 +168,7 @@ public class SaTokenDaoRedisFastjson implements SaTokenDao {
 	 */
 	@Override
 	public void update(String key, String value) {
-		long expire = getTimeout(key);
-		// -2 = 无此键 
-		if(expire == SaTokenDao.NOT_VALUE_EXPIRE) {
-			return;
-		}
-		this.set(key, value, expire);
+		updateKeepTtl(key, stringRedisTemplate.getStringSerializer().serialize(value));
 	}
 	
 	/**
@@ -205,12 +246,7 @@ public class SaTokenDaoRedisFastjson implements SaTokenDao {
 	 */
 	@Override
 	public void updateObject(String key, Object object) {
-		long expire = getObjectTimeout(key);
-		// -2 = 无此键 
-		if(expire == SaTokenDao.NOT_VALUE_EXPIRE) {
-			return;
-		}
-		this.setObject(key, object, expire);
+		updateKeepTtl(key, objectRedisTemplate.getStringSerializer().serialize(JSON.toJSONString(object)));
 	}
 
 	/**
@@ -251,13 +287,251 @@ public class SaTokenDaoRedisFastjson implements SaTokenDao {
 
 	
 	/**
-	 * 搜索数据 
+	 * 在一次往返内修改指定 key 的值，并保持其剩余存活时间不变 (key 不存在时不做任何操作)
+	 * <p> Redis 6.0+ 使用 SET key value XX KEEPTTL，低版本 Redis 使用 Lua 脚本 </p>
+	 *
+	 * @param key 键名称
+	 * @param value 已序列化的值
+	 */
+	protected void updateKeepTtl(String key, byte[] value) {
+		byte[] rawKey = stringRedisTemplate.getStringSerializer().serialize(key);
+		stringRedisTemplate.execute((RedisCallback<Object>) connection -> {
+			if(isSupportKeepTtl(connection)) {
+				connection.execute("SET", rawKey, value, SET_XX, SET_KEEPTTL);
+			} else {
+				connection.scriptingCommands().eval(UPDATE_KEEP_TTL_SCRIPT, ReturnType.INTEGER, 1, rawKey, value);
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * 判断当前 Redis 服务端是否支持 SET 命令的 KEEPTTL 参数：第一次调用时通过 INFO server 读取版本号，之后直接使用缓存的结果
+	 * <p> 读取失败时 (例如 INFO 命令被禁用) 按不支持处理，始终使用 Lua 脚本，Lua 脚本在所有版本上都能得到正确结果 </p>
+	 *
+	 * @param connection /
+	 * @return /
+	 */
+	protected boolean isSupportKeepTtl(RedisConnection connection) {
+		Boolean support = isSupportKeepTtl;
+		if(support == null) {
+			try {
+				support = isKeepTtlVersion(connection.serverCommands().info("server"));
+			} catch (RuntimeException e) {
+				support = false;
+			}
+			isSupportKeepTtl = support;
+		}
+		return support;
+	}
+
+	/**
+	 * 判断当前连接是否为集群连接：第一次调用时检测，之后直接使用缓存的结果
+	 * <p> JedisClusterConnection 不支持 pipeline，集群连接下的批量写入改为逐条执行 </p>
+	 *
+	 * @return /
+	 */
+	protected boolean isClusterConnection() {
+		Boolean cluster = isCluster;
+		if(cluster == null) {
+			cluster = Boolean.TRUE.equals(stringRedisTemplate.execute((RedisCallback<Boolean>) connection -> connection instanceof RedisClusterConnection));
+			isCluster = cluster;
+		}
+		return cluster;
+	}
+
+	/**
+	 * 判断 INFO 信息中的 Redis 版本号是否为 6.0+ (集群模式下每个节点各有一个版本号，所有节点都是 6.0+ 时才算支持)
+	 *
+	 * @param info INFO server 命令的返回值
+	 * @return /
+	 */
+	protected static boolean isKeepTtlVersion(Properties info) {
+		boolean found = false;
+		for (String name : info.stringPropertyNames()) {
+			if( ! name.endsWith("redis_version")) {
+				continue;
+			}
+			String version = info.getProperty(name).trim();
+			int dot = version.indexOf('.');
+			if(Integer.parseInt(dot == -1 ? version : version.substring(0, dot)) < 6) {
+				return false;
+			}
+			found = true;
+		}
+		return found;
+	}
+
+	/**
+	 * 获取并删除Value (Lua 脚本，一次往返，并发调用时只有一方能拿到值)
+	 */
+	@Override
+	public String getAndDelete(String key) {
+		return stringRedisTemplate.getStringSerializer().deserialize(getAndDeleteRaw(key));
+	}
+
+	/**
+	 * 获取并删除Object (Lua 脚本，一次往返，并发调用时只有一方能拿到值)
+	 */
+	@Override
+	public Object getAndDeleteObject(String key) {
+		return objectRedisTemplate.getStringSerializer().deserialize(getAndDeleteRaw(key));
+	}
+
+	/**
+	 * 在一次往返内原子地获取并删除指定 key，返回未反序列化的原始值
+	 *
+	 * @param key 键名称
+	 * @return 原始值，key 不存在时返回 null
+	 */
+	protected byte[] getAndDeleteRaw(String key) {
+		byte[] rawKey = stringRedisTemplate.getStringSerializer().serialize(key);
+		return stringRedisTemplate.execute((RedisCallback<byte[]>) connection ->
+				connection.scriptingCommands().eval(GET_AND_DELETE_SCRIPT, ReturnType.VALUE, 1, rawKey));
+	}
+
+	/**
+	 * 批量获取Value (MGET，一次往返)
+	 */
+	@Override
+	public List<String> getMany(List<String> keys) {
+		if(keys.isEmpty()) {
+			return new ArrayList<>();
+		}
+		return stringRedisTemplate.opsForValue().multiGet(keys);
+	}
+
+	/**
+	 * 批量写入Value，并设定统一的存活时间 (pipeline，一次往返；集群连接下逐条写入)
+	 */
+	@Override
+	public void setMany(Map<String, String> map, long timeout) {
+		if(map.isEmpty() || timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE)  {
+			return;
+		}
+		if(isClusterConnection()) {
+			SaTokenDao.super.setMany(map, timeout);
+			return;
+		}
+		stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public <K, V> Object execute(RedisOperations<K, V> operations) {
+				ValueOperations<String, String> ops = (ValueOperations<String, String>) operations.opsForValue();
+				for (Map.Entry<String, String> entry : map.entrySet()) {
+					// 判断是否为永不过期 
+					if(timeout == SaTokenDao.NEVER_EXPIRE) {
+						ops.set(entry.getKey(), entry.getValue());
+					} else {
+						ops.set(entry.getKey(), entry.getValue(), timeout, TimeUnit.SECONDS);
+					}
+				}
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * 批量删除 (DEL key1 key2 ...，一次往返)
+	 */
+	@Override
+	public void deleteMany(Collection<String> keys) {
+		if(keys.isEmpty()) {
+			return;
+		}
+		stringRedisTemplate.delete(keys);
+	}
+
+	/**
+	 * 按顺序执行一组写操作 (pipeline，一次往返；集群连接下逐条执行)
+	 */
+	@Override
+	public void executeBatch(SaTokenDaoBatch batch) {
+		if(batch.isEmpty()) {
+			return;
+		}
+		if(isClusterConnection()) {
+			SaTokenDao.super.executeBatch(batch);
+			return;
+		}
+		RedisSerializer<String> stringSerializer = stringRedisTemplate.getStringSerializer();
+		stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+			for (SaTokenDaoBatch.Op op : batch.ops) {
+				byte[] rawKey = stringSerializer.serialize(op.key);
+				if(op.type == SaTokenDaoBatch.DELETE) {
+					connection.keyCommands().del(rawKey);
+					continue;
+				}
+				if(op.type == SaTokenDaoBatch.UPDATE) {
+					// pipeline 中无法根据单条回复判断是否支持 KEEPTTL 并降级，统一使用 Lua 脚本，兼容所有 Redis 版本
+					connection.scriptingCommands().eval(UPDATE_KEEP_TTL_SCRIPT, ReturnType.INTEGER, 1, rawKey, stringSerializer.serialize((String) op.value));
+					continue;
+				}
+				if( ! SaTokenDaoBatch.isStorable(op)) {
+					continue;
+				}
+				byte[] rawValue = (op.type == SaTokenDaoBatch.SET) ? stringSerializer.serialize((String) op.value) : stringSerializer.serialize(JSON.toJSONString(op.value));
+				// 判断是否为永不过期 
+				if(op.timeout == SaTokenDao.NEVER_EXPIRE) {
+					connection.stringCommands().set(rawKey, rawValue);
+				} else {
+					connection.stringCommands().setEx(rawKey, op.timeout, rawValue);
+				}
+			}
+			return null;
+		});
+	}
+
+	
+	/**
+	 * 搜索数据 (基于 SCAN 游标分批遍历，不使用会阻塞 Redis 的 KEYS 命令)
+	 * <p> 正序时取够 start + size 条即停止遍历；反序时需要先取出全部匹配的 key 放入内存再排序，数据量大时应尽量使用正序 </p>
 	 */
 	@Override
 	public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
-		Set<String> keys = stringRedisTemplate.keys(prefix + "*" + keyword + "*");
-		List<String> list = new ArrayList<>(keys);
-		return SaFoxUtil.searchList(list, start, size, sortType);
+		return searchDataByScan(prefix, keyword, start, size, sortType);
+	}
+
+	/**
+	 * 遍历数据 （集群连接不支持跨节点 SCAN，在每个主节点上分别执行 SCAN）
+	 */
+	@Override
+	public void scanData(String prefix, String keyword, SaParamRetFunction<String, Boolean> function) {
+		ScanOptions options = ScanOptions.scanOptions().match(prefix + "*" + keyword + "*").count(SCAN_BATCH_SIZE).build();
+		stringRedisTemplate.execute((RedisCallback<Object>) connection -> {
+			if(connection instanceof RedisClusterConnection) {
+				RedisClusterConnection clusterConnection = (RedisClusterConnection) connection;
+				for (RedisClusterNode node : clusterConnection.clusterGetNodes()) {
+					if( ! node.isMaster()) {
+						continue;
+					}
+					if( ! scanCursor(clusterConnection.scan(node, options), function)) {
+						break;
+					}
+				}
+				return null;
+			}
+			scanCursor(connection.scan(options), function);
+			return null;
+		});
+	}
+
+	/**
+	 * 逐条回调一个 SCAN 游标中的 key，遍历结束后关闭游标
+	 *
+	 * @param cursor 游标
+	 * @param function 对每个 key 执行的回调，返回 false 代表停止遍历
+	 * @return 是否遍历完整个游标（回调返回 false 时返回 false）
+	 */
+	protected static boolean scanCursor(Cursor<byte[]> cursor, SaParamRetFunction<String, Boolean> function) {
+		try (Cursor<byte[]> c = cursor) {
+			while (c.hasNext()) {
+				if( ! function.run(new String(c.next(), StandardCharsets.UTF_8))) {
+					return false;
+				}
+			}
+		}
+		return true;
 	}
 	
 	
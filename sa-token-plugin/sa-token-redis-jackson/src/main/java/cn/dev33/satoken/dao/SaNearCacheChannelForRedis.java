@@ -0,0 +1,137 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import cn.dev33.satoken.fun.SaParamFunction;
+
+/**
+ * 近端缓存失效通知通道 [ Redis Pub/Sub 实现 ]，适用于多节点部署
+ *
+ * <p> 用法示例：</p>
+ * <pre>
+ * 		SaNearCacheChannel channel = new SaNearCacheChannelForRedis(redisConnectionFactory);
+ * 		SaManager.setSaTokenDao(new SaTokenDaoForNearCache(saTokenDaoRedisJackson, channel));
+ * </pre>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaNearCacheChannelForRedis implements SaNearCacheChannel {
+
+	/**
+	 * 默认的 Pub/Sub 频道名称
+	 */
+	public static final String DEFAULT_TOPIC = "satoken:near-cache:invalidate";
+
+	/**
+	 * 发布消息专用
+	 */
+	public final StringRedisTemplate stringRedisTemplate;
+
+	/**
+	 * 订阅消息专用
+	 */
+	public final RedisMessageListenerContainer listenerContainer;
+
+	/**
+	 * Pub/Sub 频道
+	 */
+	public final ChannelTopic topic;
+
+	/**
+	 * 所有订阅者
+	 */
+	public final List<SaParamFunction<String>> listenerList = new CopyOnWriteArrayList<>();
+
+	/**
+	 * 一条消息中多个 key 之间的分隔符
+	 */
+	public static final String KEY_SEPARATOR = "\n";
+
+	/**
+	 * 收到 Redis 消息时，逐个 key 转发给所有订阅者
+	 */
+	protected final MessageListener messageListener = (message, pattern) -> {
+		String body = new String(message.getBody(), StandardCharsets.UTF_8);
+		for (String key : body.split(KEY_SEPARATOR)) {
+			for (SaParamFunction<String> listener : listenerList) {
+				listener.run(key);
+			}
+		}
+	};
+
+	public SaNearCacheChannelForRedis(RedisConnectionFactory connectionFactory) {
+		this(connectionFactory, DEFAULT_TOPIC);
+	}
+
+	public SaNearCacheChannelForRedis(RedisConnectionFactory connectionFactory, String topic) {
+		this.stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+		this.topic = new ChannelTopic(topic);
+		this.listenerContainer = new RedisMessageListenerContainer();
+		this.listenerContainer.setConnectionFactory(connectionFactory);
+		this.listenerContainer.afterPropertiesSet();
+	}
+
+	@Override
+	public void publish(String key) {
+		stringRedisTemplate.convertAndSend(topic.getTopic(), key);
+	}
+
+	/**
+	 * 多个 key 以换行符拼接为一条消息，一次 PUBLISH 完成
+	 */
+	@Override
+	public void publishAll(Collection<String> keys) {
+		if(keys.isEmpty()) {
+			return;
+		}
+		stringRedisTemplate.convertAndSend(topic.getTopic(), String.join(KEY_SEPARATOR, keys));
+	}
+
+	@Override
+	public synchronized void subscribe(SaParamFunction<String> listener) {
+		listenerList.add(listener);
+		// 第一个订阅者出现时，才开始监听 Redis 频道
+		if(listenerList.size() == 1) {
+			listenerContainer.addMessageListener(messageListener, topic);
+			if( ! listenerContainer.isRunning()) {
+				listenerContainer.start();
+			}
+		}
+	}
+
+	@Override
+	public synchronized void unsubscribe(SaParamFunction<String> listener) {
+		listenerList.remove(listener);
+		// 最后一个订阅者取消时，停止监听，释放订阅连接
+		if(listenerList.isEmpty()) {
+			listenerContainer.removeMessageListener(messageListener, topic);
+			listenerContainer.stop();
+		}
+	}
+
+}
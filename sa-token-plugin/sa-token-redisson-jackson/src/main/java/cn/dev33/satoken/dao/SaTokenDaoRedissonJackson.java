@@ -21,13 +21,16 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Map;
 
 import org.redisson.api.RBatch;
 import org.redisson.api.RBucket;
 import org.redisson.api.RBucketAsync;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
 import org.redisson.client.codec.Codec;
 import org.redisson.codec.JsonJacksonCodec;
@@ -45,8 +48,8 @@ import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalTimeSerializer;
 
+import cn.dev33.satoken.fun.SaParamRetFunction;
 import cn.dev33.satoken.strategy.SaStrategy;
-import cn.dev33.satoken.util.SaFoxUtil;
 
 /**
  * Sa-Token 持久层实现  [ Redisson客户端、Redis存储、Jackson序列化 ]
@@ -64,6 +67,15 @@ public class SaTokenDaoRedissonJackson implements SaTokenDao {
 	public static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(DATE_PATTERN);
 	public static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern(TIME_PATTERN);
 
+	/**
+	 * Lua 脚本：修改 key 的值，并保持其剩余存活时间不变 (key 不存在时不做任何操作)
+	 */
+	public static final String UPDATE_KEEP_TTL_SCRIPT =
+			"local ttl = redis.call('pttl', KEYS[1]) " +
+			"if ttl == -2 then return 0 end " +
+			"if ttl > 0 then redis.call('set', KEYS[1], ARGV[1], 'PX', ttl) else redis.call('set', KEYS[1], ARGV[1]) end " +
+			"return 1";
+
 	/**
 	 * ObjectMapper 对象 (以 public 作用域暴露出此对象，方便开发者二次更改配置)
 	 *
@@ -167,12 +179,7 @@ public class SaTokenDaoRedissonJackson implements SaTokenDao {
 	 */
 	@Override
 	public void update(String key, String value) {
-		long expire = getTimeout(key);
-		// -2 = 无此键 
-		if(expire == SaTokenDao.NOT_VALUE_EXPIRE) {
-			return;
-		}
-		this.set(key, value, expire);
+		updateKeepTtl(key, value);
 	}
 	
 	/**
@@ -251,12 +258,7 @@ public class SaTokenDaoRedissonJackson implements SaTokenDao {
 	 */
 	@Override
 	public void updateObject(String key, Object object) {
-		long expire = getObjectTimeout(key);
-		// -2 = 无此键 
-		if(expire == SaTokenDao.NOT_VALUE_EXPIRE) {
-			return;
-		}
-		this.setObject(key, object, expire);
+		updateKeepTtl(key, object);
 	}
 
 	/**
@@ -299,13 +301,132 @@ public class SaTokenDaoRedissonJackson implements SaTokenDao {
 
 	
 	/**
-	 * 搜索数据 
+	 * 在一次往返内修改指定 key 的值，并保持其剩余存活时间不变 (key 不存在时不做任何操作)
+	 *
+	 * @param key 键名称
+	 * @param value 值
+	 */
+	protected void updateKeepTtl(String key, Object value) {
+		redissonClient.getScript(codec).eval(RScript.Mode.READ_WRITE, UPDATE_KEEP_TTL_SCRIPT, RScript.ReturnType.INTEGER,
+				Collections.singletonList(key), value);
+	}
+
+	/**
+	 * 获取并删除Value (一次往返，并发调用时只有一方能拿到值)
+	 */
+	@Override
+	public String getAndDelete(String key) {
+		RBucket<String> rBucket = redissonClient.getBucket(key, codec);
+		return rBucket.getAndDelete();
+	}
+
+	/**
+	 * 获取并删除Object (一次往返，并发调用时只有一方能拿到值)
+	 */
+	@Override
+	public Object getAndDeleteObject(String key) {
+		RBucket<Object> rBucket = redissonClient.getBucket(key, codec);
+		return rBucket.getAndDelete();
+	}
+
+	/**
+	 * 批量获取Value (MGET，一次往返)
+	 */
+	@Override
+	public List<String> getMany(List<String> keys) {
+		List<String> list = new ArrayList<>(keys.size());
+		if(keys.isEmpty()) {
+			return list;
+		}
+		Map<String, String> map = redissonClient.getBuckets(codec).get(keys.toArray(new String[0]));
+		for (String key : keys) {
+			list.add(map.get(key));
+		}
+		return list;
+	}
+
+	/**
+	 * 批量写入Value，并设定统一的存活时间 (batch，一次往返)
+	 */
+	@Override
+	public void setMany(Map<String, String> map, long timeout) {
+		if(map.isEmpty() || timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE)  {
+			return;
+		}
+		RBatch batch = redissonClient.createBatch();
+		for (Map.Entry<String, String> entry : map.entrySet()) {
+			RBucketAsync<String> bucket = batch.getBucket(entry.getKey(), codec);
+			bucket.setAsync(entry.getValue());
+			// 判断是否为永不过期
+			if(timeout != SaTokenDao.NEVER_EXPIRE) {
+				bucket.expireAsync(Duration.ofSeconds(timeout));
+			}
+		}
+		batch.execute();
+	}
+
+	/**
+	 * 批量删除 (DEL key1 key2 ...，一次往返)
+	 */
+	@Override
+	public void deleteMany(Collection<String> keys) {
+		if(keys.isEmpty()) {
+			return;
+		}
+		redissonClient.getKeys().delete(keys.toArray(new String[0]));
+	}
+
+	/**
+	 * 按顺序执行一组写操作 (RBatch，一次往返)
+	 */
+	@Override
+	public void executeBatch(SaTokenDaoBatch batch) {
+		if(batch.isEmpty()) {
+			return;
+		}
+		RBatch rBatch = redissonClient.createBatch();
+		for (SaTokenDaoBatch.Op op : batch.ops) {
+			RBucketAsync<Object> bucket = rBatch.getBucket(op.key, codec);
+			if(op.type == SaTokenDaoBatch.DELETE) {
+				bucket.deleteAsync();
+				continue;
+			}
+			if(op.type == SaTokenDaoBatch.UPDATE) {
+				rBatch.getScript(codec).evalAsync(RScript.Mode.READ_WRITE, UPDATE_KEEP_TTL_SCRIPT, RScript.ReturnType.INTEGER,
+						Collections.singletonList(op.key), op.value);
+				continue;
+			}
+			if( ! SaTokenDaoBatch.isStorable(op)) {
+				continue;
+			}
+			bucket.setAsync(op.value);
+			// 判断是否为永不过期
+			if(op.timeout != SaTokenDao.NEVER_EXPIRE) {
+				bucket.expireAsync(Duration.ofSeconds(op.timeout));
+			}
+		}
+		rBatch.execute();
+	}
+
+	
+	/**
+	 * 搜索数据 (基于 SCAN 游标分批遍历，正序时取够数据即停止)
 	 */
 	@Override
 	public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
-		Stream<String> stream = redissonClient.getKeys().getKeysStreamByPattern(prefix + "*" + keyword + "*");
-		List<String> list = stream.collect(Collectors.toList());
-		return SaFoxUtil.searchList(list, start, size, sortType);
+		return searchDataByScan(prefix, keyword, start, size, sortType);
+	}
+
+	/**
+	 * 遍历数据 
+	 */
+	@Override
+	public void scanData(String prefix, String keyword, SaParamRetFunction<String, Boolean> function) {
+		for (String key : redissonClient.getKeys().getKeysByPattern(prefix + "*" + keyword + "*", SCAN_BATCH_SIZE)) {
+			if( ! function.run(key)) {
+				return;
+			}
+		}
 	}
 	
 }
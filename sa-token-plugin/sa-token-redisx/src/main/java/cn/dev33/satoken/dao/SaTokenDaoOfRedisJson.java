@@ -15,17 +15,25 @@
  */
 package cn.dev33.satoken.dao;
 
+import cn.dev33.satoken.fun.SaParamRetFunction;
 import cn.dev33.satoken.session.SaSession;
 import cn.dev33.satoken.strategy.SaStrategy;
-import cn.dev33.satoken.util.SaFoxUtil;
 import org.noear.redisx.RedisClient;
 import org.noear.redisx.plus.RedisBucket;
+import redis.clients.jedis.PipelineBase;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.util.SafeEncoder;
 import org.noear.snack.ONode;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
-import java.util.Set;
 
 /**
  * SaTokenDao 的 redis 适配（基于json序列化，不能完全精准还原所有类型）
@@ -34,14 +42,38 @@ import java.util.Set;
  * @since 1.34.0
  */
 public class SaTokenDaoOfRedisJson implements SaTokenDao {
+    /**
+     * Lua 脚本：修改 key 的值，并保持其剩余存活时间不变 (key 不存在时不做任何操作)
+     */
+    public static final String UPDATE_KEEP_TTL_SCRIPT =
+            "local ttl = redis.call('pttl', KEYS[1]) " +
+            "if ttl == -2 then return 0 end " +
+            "if ttl > 0 then redis.call('set', KEYS[1], ARGV[1], 'PX', ttl) else redis.call('set', KEYS[1], ARGV[1]) end " +
+            "return 1";
+
+    /**
+     * Lua 脚本：获取并删除指定 key，返回删除前的值 (key 不存在时返回 nil)
+     */
+    public static final String GET_AND_DELETE_SCRIPT =
+            "local value = redis.call('get', KEYS[1]) " +
+            "if value then redis.call('del', KEYS[1]) end " +
+            "return value";
+
+    private final RedisClient redisClient;
     private final RedisBucket redisBucket;
 
+    /**
+     * 标记：当前 Redis 服务端是否支持 SET 命令的 KEEPTTL 参数 (Redis 6.0+)，为 null 代表尚未读取版本号
+     */
+    private volatile Boolean isSupportKeepTtl;
+
     public SaTokenDaoOfRedisJson(Properties props) {
         this(new RedisClient(props));
     }
 
     public SaTokenDaoOfRedisJson(RedisClient redisClient) {
-        redisBucket = redisClient.getBucket();
+        this.redisClient = redisClient;
+        this.redisBucket = redisClient.getBucket();
 
         // 重写 SaSession 生成策略
         //SaStrategy.instance.createSession = (sessionId) -> new SaSessionForJson(sessionId);
@@ -71,8 +103,7 @@ public class SaTokenDaoOfRedisJson implements SaTokenDao {
      */
     @Override
     public void update(String key, String value) {
-        long expire = getTimeout(key);
-        this.set(key, value, expire);
+        updateKeepTtl(key, value);
     }
 
     /**
@@ -127,8 +158,7 @@ public class SaTokenDaoOfRedisJson implements SaTokenDao {
      */
     @Override
     public void updateObject(String key, Object object) {
-        long expire = getObjectTimeout(key);
-        this.setObject(key, object, expire);
+        updateKeepTtl(key, ONode.serialize(object));
     }
 
     /**
@@ -159,12 +189,180 @@ public class SaTokenDaoOfRedisJson implements SaTokenDao {
 
 
     /**
-     * 搜索数据
+     * 在一次往返内修改指定 key 的值，并保持其剩余存活时间不变 (key 不存在时不做任何操作)
+     * <p> Redis 6.0+ 使用 SET key value XX KEEPTTL，低版本 Redis 使用 Lua 脚本 </p>
+     */
+    protected void updateKeepTtl(String key, String value) {
+        redisClient.open(session -> {
+            UnifiedJedis jedis = session.jedis();
+            if (isSupportKeepTtl(jedis)) {
+                jedis.set(key, value, SetParams.setParams().xx().keepttl());
+            } else {
+                jedis.eval(UPDATE_KEEP_TTL_SCRIPT, 1, key, value);
+            }
+        });
+    }
+
+    /**
+     * 判断当前 Redis 服务端是否支持 SET 命令的 KEEPTTL 参数：第一次调用时通过 INFO server 读取版本号，之后直接使用缓存的结果
+     * <p> 读取失败时 (例如 INFO 命令被禁用) 按不支持处理，始终使用 Lua 脚本，Lua 脚本在所有版本上都能得到正确结果 </p>
+     */
+    protected boolean isSupportKeepTtl(UnifiedJedis jedis) {
+        Boolean support = isSupportKeepTtl;
+        if (support == null) {
+            try {
+                support = isKeepTtlVersion(SafeEncoder.encode((byte[]) jedis.sendCommand(Protocol.Command.INFO, "server")));
+            } catch (RuntimeException e) {
+                support = false;
+            }
+            isSupportKeepTtl = support;
+        }
+        return support;
+    }
+
+    /**
+     * 判断 INFO server 命令返回的 Redis 版本号是否为 6.0+
+     *
+     * @param info INFO server 命令的返回值
+     * @return /
+     */
+    protected static boolean isKeepTtlVersion(String info) {
+        for (String line : info.split("\r?\n")) {
+            if (line.startsWith("redis_version:")) {
+                String version = line.substring("redis_version:".length()).trim();
+                int dot = version.indexOf('.');
+                return Integer.parseInt(dot == -1 ? version : version.substring(0, dot)) >= 6;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * 获取并删除Value (Lua 脚本，一次往返，并发调用时只有一方能拿到值)
+     */
+    @Override
+    public String getAndDelete(String key) {
+        Object[] result = new Object[1];
+        redisClient.open(session -> {
+            result[0] = session.jedis().eval(GET_AND_DELETE_SCRIPT, 1, key);
+        });
+        return (String) result[0];
+    }
+
+    /**
+     * 获取并删除Object (Lua 脚本，一次往返，并发调用时只有一方能拿到值)
+     */
+    @Override
+    public Object getAndDeleteObject(String key) {
+        return ONode.deserialize(getAndDelete(key));
+    }
+
+    /**
+     * 批量获取Value (MGET，一次往返)
+     */
+    @Override
+    public List<String> getMany(List<String> keys) {
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return redisBucket.getMore(keys.toArray(new String[0]));
+    }
+
+    /**
+     * 批量写入Value，并设定统一的存活时间 (pipeline，一次往返)
+     */
+    @Override
+    public void setMany(Map<String, String> map, long timeout) {
+        if (map.isEmpty() || (timeout <= 0 && timeout != SaTokenDao.NEVER_EXPIRE)) {
+            return;
+        }
+        redisClient.open(session -> {
+            PipelineBase pipeline = session.jedis().pipelined();
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                if (timeout == SaTokenDao.NEVER_EXPIRE) {
+                    pipeline.set(entry.getKey(), entry.getValue());
+                } else {
+                    pipeline.setex(entry.getKey(), timeout, entry.getValue());
+                }
+            }
+            pipeline.sync();
+            pipeline.close();
+        });
+    }
+
+    /**
+     * 批量删除 (DEL key1 key2 ...，一次往返)
+     */
+    @Override
+    public void deleteMany(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        redisBucket.remove(keys);
+    }
+
+    /**
+     * 按顺序执行一组写操作 (pipeline，一次往返)
+     */
+    @Override
+    public void executeBatch(SaTokenDaoBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        redisClient.open(session -> {
+            PipelineBase pipeline = session.jedis().pipelined();
+            for (SaTokenDaoBatch.Op op : batch.ops) {
+                if (op.type == SaTokenDaoBatch.DELETE) {
+                    pipeline.del(op.key);
+                    continue;
+                }
+                if (op.type == SaTokenDaoBatch.UPDATE) {
+                    // pipeline 中无法根据单条回复判断是否支持 KEEPTTL 并降级，统一使用 Lua 脚本，兼容所有 Redis 版本
+                    pipeline.eval(UPDATE_KEEP_TTL_SCRIPT, 1, op.key, (String) op.value);
+                    continue;
+                }
+                if (!SaTokenDaoBatch.isStorable(op)) {
+                    continue;
+                }
+                String value = (op.type == SaTokenDaoBatch.SET) ? (String) op.value : ONode.serialize(op.value);
+                if (op.timeout == SaTokenDao.NEVER_EXPIRE) {
+                    pipeline.set(op.key, value);
+                } else {
+                    pipeline.setex(op.key, op.timeout, value);
+                }
+            }
+            pipeline.sync();
+            pipeline.close();
+        });
+    }
+
+    /**
+     * 搜索数据 (基于 SCAN 游标分批遍历，不使用会阻塞 Redis 的 KEYS 命令)
      */
     @Override
     public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
-        Set<String> keys = redisBucket.keys(prefix + "*" + keyword + "*");
-        List<String> list = new ArrayList<>(keys);
-        return SaFoxUtil.searchList(list, start, size, sortType);
+        return searchDataByScan(prefix, keyword, start, size, sortType);
+    }
+
+    /**
+     * 遍历数据
+     */
+    @Override
+    public void scanData(String prefix, String keyword, SaParamRetFunction<String, Boolean> function) {
+        ScanParams params = new ScanParams().match(prefix + "*" + keyword + "*").count(SCAN_BATCH_SIZE);
+        redisClient.open(session -> {
+            UnifiedJedis jedis = session.jedis();
+            String cursor = ScanParams.SCAN_POINTER_START;
+            do {
+                ScanResult<String> result = jedis.scan(cursor, params);
+                for (String key : result.getResult()) {
+                    if (!function.run(key)) {
+                        return;
+                    }
+                }
+                cursor = result.getCursor();
+            } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        });
     }
 }
\ No newline at end of file
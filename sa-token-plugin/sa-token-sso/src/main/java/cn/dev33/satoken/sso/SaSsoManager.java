@@ -17,6 +17,7 @@ package cn.dev33.satoken.sso;
 
 import cn.dev33.satoken.sso.config.SaSsoClientConfig;
 import cn.dev33.satoken.sso.config.SaSsoServerConfig;
+import cn.dev33.satoken.sso.slo.SaSsoSloDispatcher;
 
 /**
  * Sa-Token-SSO 模块 总控类
@@ -70,6 +71,24 @@ public class SaSsoManager {
 		}
 	}
 
+	/**
+	 * SSO 单点注销异步分发器（在 is-slo-async=true 时使用）
+	 */
+	private volatile static SaSsoSloDispatcher sloDispatcher;
+	public static SaSsoSloDispatcher getSloDispatcher() {
+		if (sloDispatcher == null) {
+			synchronized (SaSsoManager.class) {
+				if (sloDispatcher == null) {
+					sloDispatcher = new SaSsoSloDispatcher();
+				}
+			}
+		}
+		return sloDispatcher;
+	}
+	public static void setSloDispatcher(SaSsoSloDispatcher sloDispatcher) {
+		SaSsoManager.sloDispatcher = sloDispatcher;
+	}
+
 	// 在启动时检测到 sa-token.sso.is-check-sign=false 时，输出警告信息
 	public static void printNoCheckSignWarningByStartup() {
 		System.err.println("-----------------------------------------------------------------------------");
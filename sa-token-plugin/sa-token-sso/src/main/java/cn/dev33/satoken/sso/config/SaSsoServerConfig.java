@@ -67,6 +67,11 @@ public class SaSsoServerConfig implements Serializable {
      */
     public Boolean isSlo = true;
 
+    /**
+     * 是否异步发送单点注销通知（此值为 true 时，注销接口不再等待各个 Client 的回调返回，通知由 SaSsoSloDispatcher 在后台并行发送、失败重试）
+     */
+    public Boolean isSloAsync = false;
+
     /**
      * 是否打开模式三（此值为 true 时将使用 http 请求：校验ticket值、单点注销、获取userinfo）
      */
@@ -177,6 +182,22 @@ public class SaSsoServerConfig implements Serializable {
         return this;
     }
 
+    /**
+     * @return 是否异步发送单点注销通知
+     */
+    public Boolean getIsSloAsync() {
+        return isSloAsync;
+    }
+
+    /**
+     * @param isSloAsync 是否异步发送单点注销通知（此值为 true 时，注销接口不再等待各个 Client 的回调返回，通知由 SaSsoSloDispatcher 在后台并行发送、失败重试）
+     * @return 对象自身
+     */
+    public SaSsoServerConfig setIsSloAsync(Boolean isSloAsync) {
+        this.isSloAsync = isSloAsync;
+        return this;
+    }
+
     /**
      * @return isHttp 是否打开模式三（此值为 true 时将使用 http 请求：校验ticket值、单点注销、获取userinfo）
      */
@@ -262,6 +283,7 @@ public class SaSsoServerConfig implements Serializable {
                 + ", allowUrl=" + allowUrl
                 + ", homeRoute=" + homeRoute
                 + ", isSlo=" + isSlo
+                + ", isSloAsync=" + isSloAsync
                 + ", isHttp=" + isHttp
                 + ", autoRenewTimeout=" + autoRenewTimeout
                 + ", maxRegClient=" + maxRegClient
@@ -68,4 +68,7 @@ public interface SaSsoErrorCode {
 	/** 无效的 allow-url 配置 */
 	int CODE_30015 = 30015;
 
+	/** 内置 http 客户端请求失败（连接失败、超时或响应码不是 2xx） */
+	int CODE_30016 = 30016;
+
 }
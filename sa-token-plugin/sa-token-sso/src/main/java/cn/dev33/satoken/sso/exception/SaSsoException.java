@@ -49,6 +49,15 @@ public class SaSsoException extends SaTokenException {
 		super(code, message);
 	}
 
+	/**
+	 * 一个异常：代表 SSO 认证流程错误
+	 * @param message 异常描述
+	 * @param cause 异常对象
+	 */
+	public SaSsoException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
 	/**
 	 * 写入异常细分状态码 
 	 * @param code 异常细分状态码
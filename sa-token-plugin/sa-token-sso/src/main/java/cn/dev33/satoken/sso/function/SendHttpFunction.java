@@ -29,4 +29,17 @@ import java.util.function.Function;
 @FunctionalInterface
 public interface SendHttpFunction extends Function<String, String> {
 
+	/**
+	 * 发送 Http 请求，并限制请求的超时时间
+	 *
+	 * <p> 默认实现忽略 timeout，直接调用 apply(url)；支持超时设置的实现（例如 SaSsoHttpClient）应重写此方法 </p>
+	 *
+	 * @param url 要请求的url
+	 * @param timeout 超时时间（单位: 毫秒，-1=不限制）
+	 * @return 请求结果
+	 */
+	default String apply(String url, long timeout) {
+		return apply(url);
+	}
+
 }
\ No newline at end of file
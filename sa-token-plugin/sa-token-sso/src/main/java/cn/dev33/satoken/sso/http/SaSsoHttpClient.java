@@ -0,0 +1,421 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.sso.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import cn.dev33.satoken.sso.error.SaSsoErrorCode;
+import cn.dev33.satoken.sso.exception.SaSsoException;
+import cn.dev33.satoken.sso.function.SendHttpFunction;
+
+/**
+ * SSO 内置 http 客户端：基于 JDK 自带的 HttpURLConnection，复用 keep-alive 长连接，无需引入第三方依赖
+ *
+ * <p>
+ *     每次请求都会完整读取并关闭响应流（包括错误响应），使底层连接可以放回 JDK 的 keep-alive 连接缓存，
+ *     下一次请求同一主机时直接复用，省去 TCP / TLS 握手。<br>
+ *     每个主机允许同时进行的请求数由 maxConnectionsPerHost 限制；JDK 为每个主机保留的空闲连接数由系统属性 http.maxConnections 决定（默认 5），
+ *     如需调大，请在启动参数中指定，例如：-Dhttp.maxConnections=20
+ * </p>
+ *
+ * <p> 用法示例：</p>
+ * <pre>
+ * 		SaSsoHttpClient httpClient = new SaSsoHttpClient().setConnectTimeout(3000).setReadTimeout(5000);
+ * 		SaSsoManager.getServerConfig().sendHttp = httpClient;
+ * 		SaSsoManager.getClientConfig().sendHttp = httpClient;
+ * </pre>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSsoHttpClient implements SendHttpFunction {
+
+	/**
+	 * 连接超时时间（单位: 毫秒）
+	 */
+	public int connectTimeout = 3000;
+
+	/**
+	 * 读取超时时间（单位: 毫秒）
+	 */
+	public int readTimeout = 5000;
+
+	/**
+	 * 每个主机允许同时进行的请求数
+	 */
+	public int maxConnectionsPerHost = 20;
+
+	/**
+	 * 等待空闲名额的最长时间（单位: 毫秒），超出时按请求失败处理
+	 */
+	public long acquireTimeout = 3000;
+
+	/**
+	 * 异步请求使用的线程数
+	 */
+	public int asyncThreadCount = 8;
+
+	/**
+	 * 每个主机的请求名额
+	 */
+	protected final Map<String, Semaphore> hostPermitsMap = new ConcurrentHashMap<>();
+
+	/**
+	 * 每个主机的请求统计
+	 */
+	protected final Map<String, HostMetrics> hostMetricsMap = new ConcurrentHashMap<>();
+
+	/**
+	 * 异步请求使用的线程池
+	 */
+	protected volatile ExecutorService asyncExecutor;
+
+	// ------------------- 配置
+
+	/**
+	 * @param connectTimeout 连接超时时间（单位: 毫秒）
+	 * @return 对象自身
+	 */
+	public SaSsoHttpClient setConnectTimeout(int connectTimeout) {
+		this.connectTimeout = connectTimeout;
+		return this;
+	}
+
+	/**
+	 * @param readTimeout 读取超时时间（单位: 毫秒）
+	 * @return 对象自身
+	 */
+	public SaSsoHttpClient setReadTimeout(int readTimeout) {
+		this.readTimeout = readTimeout;
+		return this;
+	}
+
+	/**
+	 * @param maxConnectionsPerHost 每个主机允许同时进行的请求数（需在发出第一个请求之前设置）
+	 * @return 对象自身
+	 */
+	public SaSsoHttpClient setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+		this.maxConnectionsPerHost = maxConnectionsPerHost;
+		return this;
+	}
+
+	/**
+	 * @param acquireTimeout 等待空闲名额的最长时间（单位: 毫秒）
+	 * @return 对象自身
+	 */
+	public SaSsoHttpClient setAcquireTimeout(long acquireTimeout) {
+		this.acquireTimeout = acquireTimeout;
+		return this;
+	}
+
+	/**
+	 * @param asyncThreadCount 异步请求使用的线程数（需在发出第一个异步请求之前设置）
+	 * @return 对象自身
+	 */
+	public SaSsoHttpClient setAsyncThreadCount(int asyncThreadCount) {
+		this.asyncThreadCount = asyncThreadCount;
+		return this;
+	}
+
+	// ------------------- 请求
+
+	/**
+	 * 发送 GET 请求，返回响应体
+	 *
+	 * @param url 请求地址
+	 * @return 响应体
+	 */
+	@Override
+	public String apply(String url) {
+		return apply(url, -1);
+	}
+
+	/**
+	 * 发送 GET 请求，返回响应体：等待名额、连接、读取的超时时间均不超过 timeout
+	 *
+	 * @param url 请求地址
+	 * @param timeout 超时时间（单位: 毫秒，-1=使用 acquireTimeout、connectTimeout、readTimeout 的配置）
+	 * @return 响应体
+	 */
+	@Override
+	public String apply(String url, long timeout) {
+		long acquireLimit = limitTimeout(acquireTimeout, timeout);
+		int connectLimit = (int) limitTimeout(connectTimeout, timeout);
+		int readLimit = (int) limitTimeout(readTimeout, timeout);
+		URL u = parseUrl(url);
+		String host = getHostKey(u);
+		HostMetrics metrics = getHostMetrics(host);
+		Semaphore permits = hostPermitsMap.computeIfAbsent(host, k -> new Semaphore(maxConnectionsPerHost));
+
+		// 1、获取此主机的请求名额
+		try {
+			if( ! permits.tryAcquire(acquireLimit, TimeUnit.MILLISECONDS)) {
+				metrics.errorCount.increment();
+				throw new SaSsoException("http 请求等待连接超时：" + url).setCode(SaSsoErrorCode.CODE_30016);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SaSsoException("http 请求被中断：" + url).setCode(SaSsoErrorCode.CODE_30016);
+		}
+
+		// 2、发送请求
+		long start = System.currentTimeMillis();
+		metrics.activeCount.incrementAndGet();
+		try {
+			return send(u, connectLimit, readLimit);
+		} catch (IOException e) {
+			metrics.errorCount.increment();
+			throw new SaSsoException("http 请求失败：" + e.getMessage() + "，url=" + url, e).setCode(SaSsoErrorCode.CODE_30016);
+		} catch (RuntimeException e) {
+			metrics.errorCount.increment();
+			throw e;
+		} finally {
+			metrics.activeCount.decrementAndGet();
+			metrics.requestCount.increment();
+			metrics.totalTime.add(System.currentTimeMillis() - start);
+			permits.release();
+		}
+	}
+
+	/**
+	 * 异步发送 GET 请求
+	 *
+	 * @param url 请求地址
+	 * @return 响应体
+	 */
+	public CompletableFuture<String> applyAsync(String url) {
+		return CompletableFuture.supplyAsync(() -> apply(url), getAsyncExecutor());
+	}
+
+	/**
+	 * 取配置的超时时间与调用方限制的超时时间中较小的一个
+	 *
+	 * @param configTimeout 配置的超时时间
+	 * @param limit 调用方限制的超时时间，小于等于 0 代表不限制
+	 * @return /
+	 */
+	protected static long limitTimeout(long configTimeout, long limit) {
+		if(limit <= 0) {
+			return configTimeout;
+		}
+		// 配置为 0 代表不限制，此时以调用方的限制为准
+		return configTimeout <= 0 ? limit : Math.min(configTimeout, limit);
+	}
+
+	/**
+	 * 发送请求并完整读取响应，关闭响应流但不断开连接，使连接可以被复用
+	 *
+	 * @param u 请求地址
+	 * @return 响应体
+	 * @throws IOException /
+	 */
+	protected String send(URL u) throws IOException {
+		return send(u, connectTimeout, readTimeout);
+	}
+
+	/**
+	 * 发送请求并完整读取响应，使用指定的连接、读取超时时间
+	 *
+	 * @param u 请求地址
+	 * @param connectTimeout 连接超时时间（单位: 毫秒）
+	 * @param readTimeout 读取超时时间（单位: 毫秒）
+	 * @return 响应体
+	 * @throws IOException /
+	 */
+	protected String send(URL u, int connectTimeout, int readTimeout) throws IOException {
+		HttpURLConnection conn = (HttpURLConnection) u.openConnection();
+		conn.setRequestMethod("GET");
+		conn.setConnectTimeout(connectTimeout);
+		conn.setReadTimeout(readTimeout);
+		conn.setUseCaches(false);
+		conn.setRequestProperty("Connection", "keep-alive");
+		conn.setRequestProperty("Accept-Charset", "UTF-8");
+
+		int status;
+		try {
+			status = conn.getResponseCode();
+		} catch (IOException e) {
+			// 连接失败时断开连接，避免将损坏的连接放回缓存
+			conn.disconnect();
+			throw e;
+		}
+
+		// 错误响应也需要读完，否则连接无法复用
+		if(status < 200 || status >= 300) {
+			String body = readBody(conn.getErrorStream());
+			throw new SaSsoException("http 请求失败，响应码：" + status + "，url=" + u + "，响应：" + body).setCode(SaSsoErrorCode.CODE_30016);
+		}
+		return readBody(conn.getInputStream());
+	}
+
+	/**
+	 * 读取并关闭响应流
+	 *
+	 * @param in /
+	 * @return /
+	 * @throws IOException /
+	 */
+	protected String readBody(InputStream in) throws IOException {
+		if(in == null) {
+			return "";
+		}
+		try (InputStream input = in) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int len;
+			while ((len = input.read(buffer)) != -1) {
+				out.write(buffer, 0, len);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * 解析请求地址
+	 *
+	 * @param url /
+	 * @return /
+	 */
+	protected URL parseUrl(String url) {
+		try {
+			return new URL(url);
+		} catch (IOException e) {
+			throw new SaSsoException("无效的 http 请求地址：" + url, e).setCode(SaSsoErrorCode.CODE_30016);
+		}
+	}
+
+	/**
+	 * 获取主机标识：协议 + 主机 + 端口
+	 *
+	 * @param u /
+	 * @return /
+	 */
+	protected String getHostKey(URL u) {
+		int port = u.getPort() == -1 ? u.getDefaultPort() : u.getPort();
+		return u.getProtocol() + "://" + u.getHost() + ":" + port;
+	}
+
+	/**
+	 * 获取异步请求使用的线程池，首次使用时创建
+	 *
+	 * @return /
+	 */
+	protected ExecutorService getAsyncExecutor() {
+		if(asyncExecutor == null) {
+			synchronized (this) {
+				if(asyncExecutor == null) {
+					AtomicInteger index = new AtomicInteger();
+					asyncExecutor = new ThreadPoolExecutor(asyncThreadCount, asyncThreadCount, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+						Thread thread = new Thread(r, "sa-token-sso-http-" + index.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					});
+				}
+			}
+		}
+		return asyncExecutor;
+	}
+
+	/**
+	 * 关闭异步请求使用的线程池
+	 */
+	public void shutdown() {
+		if(asyncExecutor != null) {
+			asyncExecutor.shutdown();
+		}
+	}
+
+	// ------------------- 监控
+
+	/**
+	 * 获取指定主机的请求统计，不存在时创建
+	 *
+	 * @param host 主机标识，格式：协议://主机:端口
+	 * @return /
+	 */
+	public HostMetrics getHostMetrics(String host) {
+		return hostMetricsMap.computeIfAbsent(host, k -> new HostMetrics());
+	}
+
+	/**
+	 * 获取所有主机的请求统计
+	 *
+	 * @return /
+	 */
+	public Map<String, HostMetrics> getAllHostMetrics() {
+		return Collections.unmodifiableMap(hostMetricsMap);
+	}
+
+	/**
+	 * 单个主机的请求统计
+	 */
+	public static class HostMetrics {
+
+		/**
+		 * 已完成的请求数（包括失败的）
+		 */
+		public final LongAdder requestCount = new LongAdder();
+
+		/**
+		 * 失败的请求数
+		 */
+		public final LongAdder errorCount = new LongAdder();
+
+		/**
+		 * 请求总耗时（单位: 毫秒）
+		 */
+		public final LongAdder totalTime = new LongAdder();
+
+		/**
+		 * 正在进行的请求数
+		 */
+		public final AtomicInteger activeCount = new AtomicInteger();
+
+		/**
+		 * 获取平均耗时（单位: 毫秒）
+		 *
+		 * @return /
+		 */
+		public double getAverageTime() {
+			long count = requestCount.sum();
+			return count == 0 ? 0 : (double) totalTime.sum() / count;
+		}
+
+		@Override
+		public String toString() {
+			return "HostMetrics [requestCount=" + requestCount.sum() + ", errorCount=" + errorCount.sum()
+					+ ", activeCount=" + activeCount.get() + ", averageTime=" + getAverageTime() + "]";
+		}
+
+	}
+
+}
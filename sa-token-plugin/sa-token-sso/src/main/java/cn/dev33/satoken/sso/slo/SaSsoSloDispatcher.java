@@ -0,0 +1,524 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.sso.slo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.sso.template.SaSsoServerTemplate;
+import cn.dev33.satoken.util.SaFoxUtil;
+
+/**
+ * SSO 单点注销异步分发器：在后台线程中并行通知各个 Client 注销，请求线程无需等待 http 请求返回
+ *
+ * <p>
+ *     每个通知单独计算超时时间（由 sendHttp 的超时设置保证），超时或失败后按指数退避重试（retryInterval、retryInterval * 2、retryInterval * 4 ...）；<br>
+ *     重试次数用尽后，如果打开了 persistent，则将通知参数存入持久层，由 retryPersisted() 定时重新发送（集群中任意一个节点均可发送）。<br>
+ *     重试与持久化保存的都是通知参数（{@link SaSsoSloNotice}），每次发送前由 SaSsoServerTemplate 重新拼接地址、计算签名，不会因签名中的时间戳过期而被 Client 拒绝。
+ * </p>
+ *
+ * <p>
+ *     待执行的通知数量有上限（capacity），超出上限时在当前线程中直接发送。<br>
+ *     执行线程可以自定义，例如在 JDK 21+ 中使用虚拟线程：new SaSsoSloDispatcher(Executors.newVirtualThreadPerTaskExecutor(), 10000)
+ * </p>
+ *
+ * <p> 用法示例：</p>
+ * <pre>
+ * 		SaSsoManager.setSloDispatcher(new SaSsoSloDispatcher().setTimeout(3000).setRetryCount(3).setPersistent(true));
+ * 		SaSsoManager.getServerConfig().setIsSloAsync(true);
+ * 		// 定时任务中：
+ * 		SaSsoManager.getSloDispatcher().retryPersisted(SaSsoServerProcessor.instance.ssoServerTemplate);
+ * </pre>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSsoSloDispatcher {
+
+	/**
+	 * 持久层中待重试通知的 key 前缀（拼接在 tokenName 之后）
+	 */
+	public static final String RETRY_KEY_PREFIX = ":slo-retry:";
+
+	/**
+	 * 发送 http 请求的线程池
+	 */
+	public final ExecutorService executor;
+
+	/**
+	 * 待执行通知数量上限（包括正在执行和等待重试的）
+	 */
+	public final int capacity;
+
+	/**
+	 * 单次通知的超时时间（单位: 毫秒，-1=不限制），作为 http 请求的超时时间传给 sendHttp，不包括排队等待的时间
+	 */
+	public long timeout = 5000;
+
+	/**
+	 * 失败后的重试次数（不包括第一次发送）
+	 */
+	public int retryCount = 2;
+
+	/**
+	 * 第一次重试前的等待时间（单位: 毫秒），之后每次翻倍
+	 */
+	public long retryInterval = 1000;
+
+	/**
+	 * 重试等待时间上限（单位: 毫秒）
+	 */
+	public long maxRetryInterval = 30000;
+
+	/**
+	 * 重试次数用尽后，是否将通知存入持久层，等待 retryPersisted() 重新发送
+	 */
+	public boolean persistent = false;
+
+	/**
+	 * 存入持久层的通知的有效期（单位: 秒）
+	 */
+	public long persistTimeout = 60 * 60 * 24;
+
+	/**
+	 * 剩余空位
+	 */
+	protected final Semaphore permits;
+
+	/**
+	 * 负责重试计时与超时计时的线程
+	 */
+	protected final ScheduledExecutorService scheduler;
+
+	/**
+	 * 发送成功的通知数
+	 */
+	public final LongAdder successCount = new LongAdder();
+
+	/**
+	 * 发生的重试次数
+	 */
+	public final LongAdder retryTimes = new LongAdder();
+
+	/**
+	 * 发生超时的次数
+	 */
+	public final LongAdder timeoutCount = new LongAdder();
+
+	/**
+	 * 重试次数用尽后仍然失败的通知数
+	 */
+	public final LongAdder failCount = new LongAdder();
+
+	/**
+	 * 存入持久层的通知数
+	 */
+	public final LongAdder persistCount = new LongAdder();
+
+	/**
+	 * 因超出上限改为在当前线程中发送的通知数
+	 */
+	public final LongAdder callerRunsCount = new LongAdder();
+
+	/**
+	 * 使用默认配置构建：8 个后台线程，上限 10000
+	 */
+	public SaSsoSloDispatcher() {
+		this(8, 10000);
+	}
+
+	/**
+	 * 使用固定数量的后台线程构建
+	 *
+	 * @param threadCount 后台线程数量
+	 * @param capacity 待执行通知数量上限
+	 */
+	public SaSsoSloDispatcher(int threadCount, int capacity) {
+		this(createDefaultExecutor(threadCount), capacity);
+	}
+
+	/**
+	 * 使用自定义线程池构建
+	 *
+	 * @param executor 发送 http 请求的线程池
+	 * @param capacity 待执行通知数量上限
+	 */
+	public SaSsoSloDispatcher(ExecutorService executor, int capacity) {
+		this.executor = executor;
+		this.capacity = capacity;
+		this.permits = new Semaphore(capacity);
+		ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+			Thread thread = new Thread(r, "sa-token-slo-scheduler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.setRemoveOnCancelPolicy(true);
+		this.scheduler = scheduler;
+	}
+
+	// ------------------- 配置
+
+	/**
+	 * @param timeout 单次通知的超时时间（单位: 毫秒，-1=不限制）
+	 * @return 对象自身
+	 */
+	public SaSsoSloDispatcher setTimeout(long timeout) {
+		this.timeout = timeout;
+		return this;
+	}
+
+	/**
+	 * @param retryCount 失败后的重试次数（不包括第一次发送）
+	 * @return 对象自身
+	 */
+	public SaSsoSloDispatcher setRetryCount(int retryCount) {
+		this.retryCount = retryCount;
+		return this;
+	}
+
+	/**
+	 * @param retryInterval 第一次重试前的等待时间（单位: 毫秒），之后每次翻倍
+	 * @return 对象自身
+	 */
+	public SaSsoSloDispatcher setRetryInterval(long retryInterval) {
+		this.retryInterval = retryInterval;
+		return this;
+	}
+
+	/**
+	 * @param maxRetryInterval 重试等待时间上限（单位: 毫秒）
+	 * @return 对象自身
+	 */
+	public SaSsoSloDispatcher setMaxRetryInterval(long maxRetryInterval) {
+		this.maxRetryInterval = maxRetryInterval;
+		return this;
+	}
+
+	/**
+	 * @param persistent 重试次数用尽后，是否将通知存入持久层
+	 * @return 对象自身
+	 */
+	public SaSsoSloDispatcher setPersistent(boolean persistent) {
+		this.persistent = persistent;
+		return this;
+	}
+
+	/**
+	 * @param persistTimeout 存入持久层的通知的有效期（单位: 秒）
+	 * @return 对象自身
+	 */
+	public SaSsoSloDispatcher setPersistTimeout(long persistTimeout) {
+		this.persistTimeout = persistTimeout;
+		return this;
+	}
+
+	// ------------------- 分发
+
+	/**
+	 * 分发一个注销通知，立即返回
+	 *
+	 * @param template 拼接通知地址、发送 http 请求所用的 SaSsoServerTemplate
+	 * @param notice 通知参数
+	 */
+	public void dispatch(SaSsoServerTemplate template, SaSsoSloNotice notice) {
+		if(notice == null) {
+			return;
+		}
+		SloTask task = new SloTask(template, notice);
+		// 超出上限时在当前线程中发送，不丢失通知
+		if( ! permits.tryAcquire()) {
+			callerRunsCount.increment();
+			sendInCaller(task);
+			return;
+		}
+		attempt(task);
+	}
+
+	/**
+	 * 分发多个注销通知，立即返回，各个通知之间并行发送
+	 *
+	 * @param template 拼接通知地址、发送 http 请求所用的 SaSsoServerTemplate
+	 * @param noticeList 通知参数列表
+	 */
+	public void dispatchAll(SaSsoServerTemplate template, List<SaSsoSloNotice> noticeList) {
+		for (SaSsoSloNotice notice : noticeList) {
+			dispatch(template, notice);
+		}
+	}
+
+	/**
+	 * 发送一次，成功或最终失败时归还空位
+	 *
+	 * <p> 超时由 http 请求自身的超时设置保证（见 {@link #send(SloTask)}），此处的计时器只负责统计超时次数；
+	 * 重试只在本次发送结束后安排，同一个通知不会同时有两个请求在执行 </p>
+	 *
+	 * @param task /
+	 */
+	protected void attempt(SloTask task) {
+		try {
+			executor.execute(() -> {
+				// 超时计时从开始发送时算起，排队等待线程的时间不计入
+				ScheduledFuture<?> timer = timeout > 0 ? scheduleQuietly(timeoutCount::increment, timeout) : null;
+				Throwable error = null;
+				try {
+					send(task);
+				} catch (Throwable e) {
+					error = e;
+				} finally {
+					if(timer != null) {
+						timer.cancel(false);
+					}
+				}
+				if(error == null) {
+					successCount.increment();
+					permits.release();
+				} else {
+					onFailure(task, error.toString());
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// 线程池已关闭，在当前线程中发送
+			permits.release();
+			callerRunsCount.increment();
+			sendInCaller(task);
+		}
+	}
+
+	/**
+	 * 发送一个通知：每次发送前重新拼接地址、计算签名，无需通知时直接返回；timeout 作为 http 请求的超时时间传入
+	 *
+	 * @param task /
+	 */
+	protected void send(SloTask task) {
+		SaSsoSloNotice notice = task.notice;
+		String url = task.template.buildSloCallbackUrl(notice.loginId, notice.scm, notice.autoLogout);
+		if(url == null) {
+			return;
+		}
+		task.template.getServerConfig().sendHttp.apply(url, timeout);
+	}
+
+	/**
+	 * 发送失败：还有重试次数时按指数退避重试，否则存入持久层或记录日志
+	 *
+	 * @param task /
+	 * @param reason 失败原因
+	 */
+	protected void onFailure(SloTask task, String reason) {
+		if(task.attempts < retryCount) {
+			long delay = calcRetryDelay(task.attempts);
+			task.attempts++;
+			retryTimes.increment();
+			if(scheduleQuietly(() -> attempt(task), delay) != null) {
+				return;
+			}
+		}
+		permits.release();
+		if(persistent) {
+			saveRetry(task.notice);
+			return;
+		}
+		failCount.increment();
+		SaManager.getLog().warn("SSO 单点注销通知发送失败：{}，{}", reason, task.notice);
+	}
+
+	/**
+	 * 计算第 n 次重试前的等待时间（n 从 0 开始）
+	 *
+	 * @param n /
+	 * @return /
+	 */
+	protected long calcRetryDelay(int n) {
+		long delay = retryInterval << Math.min(n, 30);
+		if(delay <= 0 || delay > maxRetryInterval) {
+			return maxRetryInterval;
+		}
+		return delay;
+	}
+
+	/**
+	 * 在当前线程中发送，失败时存入持久层或记录日志，不向外抛出异常
+	 *
+	 * @param task /
+	 */
+	protected void sendInCaller(SloTask task) {
+		try {
+			send(task);
+			successCount.increment();
+		} catch (Throwable e) {
+			if(persistent) {
+				saveRetry(task.notice);
+				return;
+			}
+			failCount.increment();
+			SaManager.getLog().warn("SSO 单点注销通知发送失败：{}，{}", e.toString(), task.notice);
+		}
+	}
+
+	/**
+	 * 延时执行，调度线程已关闭时返回 null
+	 *
+	 * @param task /
+	 * @param delay 延时（单位: 毫秒）
+	 * @return /
+	 */
+	protected ScheduledFuture<?> scheduleQuietly(Runnable task, long delay) {
+		try {
+			return scheduler.schedule(task, delay, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			return null;
+		}
+	}
+
+	// ------------------- 持久化重试队列
+
+	/**
+	 * 将通知参数存入持久层（不保存已签名的地址，重新发送时再计算签名）
+	 *
+	 * @param notice /
+	 */
+	protected void saveRetry(SaSsoSloNotice notice) {
+		SaManager.getSaTokenDao().setObject(splicingRetryKey(SaFoxUtil.getRandomString(32)), notice, persistTimeout);
+		persistCount.increment();
+	}
+
+	/**
+	 * 重新发送持久层中所有待重试的通知，可由定时任务调用
+	 *
+	 * <p> 每个通知以 getAndDeleteObject 取出，集群中多个节点同时调用时只有一个节点能取到；再次失败时会重新存入 </p>
+	 *
+	 * @param template 拼接通知地址、发送 http 请求所用的 SaSsoServerTemplate
+	 * @return 本次取出的通知数量
+	 */
+	public int retryPersisted(SaSsoServerTemplate template) {
+		SaTokenDao dao = SaManager.getSaTokenDao();
+		List<String> keyList = new ArrayList<>();
+		dao.scanData(splicingRetryKey(""), "", key -> {
+			keyList.add(key);
+			return true;
+		});
+		int count = 0;
+		for (String key : keyList) {
+			Object notice = dao.getAndDeleteObject(key);
+			if( ! (notice instanceof SaSsoSloNotice)) {
+				// 已被其它节点取走
+				continue;
+			}
+			dispatch(template, (SaSsoSloNotice) notice);
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * 拼接key：待重试的注销通知
+	 *
+	 * @param id 通知id
+	 * @return key
+	 */
+	public String splicingRetryKey(String id) {
+		return SaManager.getConfig().getTokenName() + RETRY_KEY_PREFIX + id;
+	}
+
+	// ------------------- 监控 & 关闭
+
+	/**
+	 * 获取待执行的通知数量（包括正在执行和等待重试的）
+	 *
+	 * @return /
+	 */
+	public int getPendingCount() {
+		return capacity - permits.availablePermits();
+	}
+
+	/**
+	 * 停止接收新通知，并等待已提交的通知（包括重试）执行完毕
+	 *
+	 * @param timeoutMillis 最长等待时间（单位: 毫秒）
+	 * @return 是否在等待时间内全部执行完毕
+	 */
+	public boolean shutdown(long timeoutMillis) {
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		try {
+			while (getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			scheduler.shutdownNow();
+			executor.shutdown();
+			return executor.awaitTermination(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS)
+					&& getPendingCount() == 0;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * 创建默认线程池：固定数量的守护线程，队列长度由 capacity 控制，此处不再限制
+	 *
+	 * @param threadCount 线程数量
+	 * @return /
+	 */
+	protected static ExecutorService createDefaultExecutor(int threadCount) {
+		AtomicInteger index = new AtomicInteger();
+		return new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+			Thread thread = new Thread(r, "sa-token-slo-" + index.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * 一个注销通知
+	 */
+	protected static class SloTask {
+
+		/**
+		 * 拼接通知地址、发送 http 请求所用的 SaSsoServerTemplate
+		 */
+		final SaSsoServerTemplate template;
+
+		/**
+		 * 通知参数
+		 */
+		final SaSsoSloNotice notice;
+
+		/**
+		 * 已重试次数
+		 */
+		int attempts;
+
+		SloTask(SaSsoServerTemplate template, SaSsoSloNotice notice) {
+			this.template = template;
+			this.notice = notice;
+		}
+
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.sso.slo;
+
+import java.io.Serializable;
+
+import cn.dev33.satoken.sso.model.SaSsoClientModel;
+
+/**
+ * 一个待发送的单点注销通知：只记录通知参数，每次发送前再拼接地址、计算签名，避免重试时签名中的时间戳过期
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSsoSloNotice implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 注销的账号id
+	 */
+	public Object loginId;
+
+	/**
+	 * 需要通知的客户端信息
+	 */
+	public SaSsoClientModel scm;
+
+	/**
+	 * 是否为超过 maxRegClient 的自动注销
+	 */
+	public boolean autoLogout;
+
+	public SaSsoSloNotice() {
+	}
+
+	public SaSsoSloNotice(Object loginId, SaSsoClientModel scm, boolean autoLogout) {
+		this.loginId = loginId;
+		this.scm = scm;
+		this.autoLogout = autoLogout;
+	}
+
+	/**
+	 * @return 注销的账号id
+	 */
+	public Object getLoginId() {
+		return loginId;
+	}
+
+	/**
+	 * @param loginId 注销的账号id
+	 * @return 对象自身
+	 */
+	public SaSsoSloNotice setLoginId(Object loginId) {
+		this.loginId = loginId;
+		return this;
+	}
+
+	/**
+	 * @return 需要通知的客户端信息
+	 */
+	public SaSsoClientModel getScm() {
+		return scm;
+	}
+
+	/**
+	 * @param scm 需要通知的客户端信息
+	 * @return 对象自身
+	 */
+	public SaSsoSloNotice setScm(SaSsoClientModel scm) {
+		this.scm = scm;
+		return this;
+	}
+
+	/**
+	 * @return 是否为超过 maxRegClient 的自动注销
+	 */
+	public boolean getAutoLogout() {
+		return autoLogout;
+	}
+
+	/**
+	 * @param autoLogout 是否为超过 maxRegClient 的自动注销
+	 * @return 对象自身
+	 */
+	public SaSsoSloNotice setAutoLogout(boolean autoLogout) {
+		this.autoLogout = autoLogout;
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return "SaSsoSloNotice [loginId=" + loginId + ", client=" + (scm == null ? null : scm.getClient())
+				+ ", sloCallbackUrl=" + (scm == null ? null : scm.getSloCallbackUrl()) + ", autoLogout=" + autoLogout + "]";
+	}
+
+}
@@ -22,6 +22,7 @@ import cn.dev33.satoken.sso.config.SaSsoServerConfig;
 import cn.dev33.satoken.sso.error.SaSsoErrorCode;
 import cn.dev33.satoken.sso.exception.SaSsoException;
 import cn.dev33.satoken.sso.model.SaSsoClientModel;
+import cn.dev33.satoken.sso.slo.SaSsoSloNotice;
 import cn.dev33.satoken.sso.util.SaSsoConsts;
 import cn.dev33.satoken.strategy.SaStrategy;
 import cn.dev33.satoken.util.SaFoxUtil;
@@ -192,20 +193,23 @@ public class SaSsoServerTemplate extends SaSsoTemplate {
 
     /**
      * 校验 Ticket 码，获取账号id，如果此ticket是有效的，则立即删除
+     * <p> 读取与删除在同一次操作内完成，同一个 ticket 被并发校验时，只有一方能拿到账号id </p>
      * @param ticket Ticket码
      * @param client client 标识
      * @return 账号id
      */
     public Object checkTicket(String ticket, String client) {
-        // 读取 loginId
-        String loginId = SaManager.getSaTokenDao().get(splicingTicketSaveKey(ticket));
+        // 读取 loginId 并删除 ticket，使其只有一次性有效
+        String loginId = SaManager.getSaTokenDao().getAndDelete(splicingTicketSaveKey(ticket));
 
         if(loginId != null) {
 
-            // 解析出这个 ticket 关联的 Client
-            String ticketClient = getTicketToClient(ticket);
+            // 解析出这个 ticket 关联的 Client，同样读取后立即删除
+            String ticketClient = SaManager.getSaTokenDao().getAndDelete(splicingTicketToClientSaveKey(ticket));
+            deleteTicketIndex(loginId);
 
             // 校验 client 参数是否正确，即：创建 ticket 的 client 和当前校验 ticket 的 client 是否一致
+            //     不一致时 ticket 同样已被消费掉，避免被其它 client 截获的 ticket 继续留在持久层中
             if(SaSsoConsts.CLIENT_WILDCARD.equals(client)) {
                 // 如果提供的是通配符，直接越过 client 校验
             } else if (SaFoxUtil.isEmpty(client) && SaFoxUtil.isEmpty(ticketClient)) {
@@ -217,11 +221,6 @@ public class SaSsoServerTemplate extends SaSsoTemplate {
                             .setCode(SaSsoErrorCode.CODE_30011);
                 }
             }
-
-            // 删除 ticket 信息，使其只有一次性有效
-            deleteTicket(ticket);
-            deleteTicketIndex(loginId);
-            deleteTicketToClient(ticket);
         }
 
         //
@@ -427,22 +426,48 @@ public class SaSsoServerTemplate extends SaSsoTemplate {
     }
 
     /**
-     * 通知指定账号的指定客户端注销
+     * 通知指定账号的指定客户端注销（打开 is-slo-async 时交给 SaSsoSloDispatcher 在后台发送，立即返回）
      * @param loginId 指定账号
      * @param scm 客户端信息对象
      * @param autoLogout 是否为超过 maxRegClient 的自动注销
      */
     public void notifyClientLogout(Object loginId, SaSsoClientModel scm, boolean autoLogout) {
 
+        // 异步发送：交给分发器的是通知参数，每次发送（包括重试）前再拼接地址、计算签名
+        SaSsoServerConfig serverConfig = getServerConfig();
+        if(serverConfig.getIsSloAsync()) {
+            SaSsoManager.getSloDispatcher().dispatch(this, new SaSsoSloNotice(loginId, scm, autoLogout));
+            return;
+        }
+
+        // 拼接通知地址，无需通知时返回 null
+        String finalUrl = buildSloCallbackUrl(loginId, scm, autoLogout);
+        if(finalUrl == null) {
+            return;
+        }
+
+        // 发起请求
+        serverConfig.sendHttp.apply(finalUrl);
+    }
+
+    /**
+     * 构建URL：通知指定账号的指定客户端注销的地址，无需通知时返回 null
+     * @param loginId 指定账号
+     * @param scm 客户端信息对象
+     * @param autoLogout 是否为超过 maxRegClient 的自动注销
+     * @return /
+     */
+    public String buildSloCallbackUrl(Object loginId, SaSsoClientModel scm, boolean autoLogout) {
+
         // 如果给个null值，不进行任何操作
         if(scm == null || scm.mode != SaSsoConsts.SSO_MODE_3) {
-            return;
+            return null;
         }
 
         // url
         String sloCallUrl = scm.getSloCallbackUrl();
         if(SaFoxUtil.isEmpty(sloCallUrl)) {
-            return;
+            return null;
         }
 
         // 参数
@@ -453,10 +478,7 @@ public class SaSsoServerTemplate extends SaSsoTemplate {
         String signParamsStr = getSignTemplate(scm.getClient()).addSignParamsAndJoin(paramsMap);
 
         // 拼接
-        String finalUrl = SaFoxUtil.joinParam(sloCallUrl, signParamsStr);
-
-        // 发起请求
-        getServerConfig().sendHttp.apply(finalUrl);
+        return SaFoxUtil.joinParam(sloCallUrl, signParamsStr);
     }
 
     // ---------------------- 构建URL ----------------------
@@ -54,6 +54,14 @@ public class SaTempForJwt implements SaTempInterface {
 		return SaJwtUtil.getTimeout(service, token, getJwtSecretKey());
 	}
 
+	/**
+	 * 解析token获取value，并删除此token（jwt 无法删除，不支持一次性解析）
+	 */
+	@Override
+	public Object consumeToken(String service, String token) {
+		throw new ApiDisabledException("jwt cannot delete token").setCode(SaTempJwtErrorCode.CODE_30302);
+	}
+
 	/**
 	 * 删除一个token
 	 */
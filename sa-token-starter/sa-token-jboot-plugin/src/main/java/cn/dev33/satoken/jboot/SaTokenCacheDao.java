@@ -16,19 +16,19 @@
 package cn.dev33.satoken.jboot;
 
 import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.fun.SaParamRetFunction;
 import cn.dev33.satoken.session.SaSession;
-import cn.dev33.satoken.util.SaFoxUtil;
 import io.jboot.Jboot;
 import io.jboot.components.serializer.JbootSerializer;
 import io.jboot.exception.JbootIllegalConfigException;
 import io.jboot.support.redis.JbootRedisConfig;
 import io.jboot.utils.ConfigUtil;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -264,13 +264,32 @@ public class SaTokenCacheDao implements SaTokenDao {
         SaTokenDao.super.updateSessionTimeout(sessionId, timeout);
     }
 
+    /**
+     * 搜索数据 (基于 SCAN 游标分批遍历，不使用会阻塞 Redis 的 KEYS 命令)
+     */
     @Override
     public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
+        return searchDataByScan(prefix, keyword, start, size, sortType);
+    }
+
+    /**
+     * 遍历数据
+     */
+    @Override
+    public void scanData(String prefix, String keyword, SaParamRetFunction<String, Boolean> function) {
+        ScanParams params = new ScanParams().match(prefix + "*" + keyword + "*").count(SCAN_BATCH_SIZE);
         Jedis jedis = saRedisCache.getJedis();
         try {
-            Set<String> keys = jedis.keys(prefix + "*" + keyword + "*");
-            List<String> list = new ArrayList<>(keys);
-            return SaFoxUtil.searchList(list, start, size, sortType);
+            String cursor = ScanParams.SCAN_POINTER_START;
+            do {
+                ScanResult<String> result = jedis.scan(cursor, params);
+                for (String key : result.getResult()) {
+                    if (!function.run(key)) {
+                        return;
+                    }
+                }
+                cursor = result.getCursor();
+            } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
         } finally {
             saRedisCache.returnResource(jedis);
         }
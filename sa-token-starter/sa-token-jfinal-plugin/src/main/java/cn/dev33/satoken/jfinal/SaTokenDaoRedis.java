@@ -16,15 +16,15 @@
 package cn.dev33.satoken.jfinal;
 
 import cn.dev33.satoken.dao.SaTokenDao;
-import cn.dev33.satoken.util.SaFoxUtil;
+import cn.dev33.satoken.fun.SaParamRetFunction;
 import com.jfinal.plugin.redis.Cache;
 import com.jfinal.plugin.redis.Redis;
 import com.jfinal.plugin.redis.serializer.ISerializer;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
 public class SaTokenDaoRedis implements SaTokenDao {
 
@@ -230,13 +230,34 @@ public class SaTokenDaoRedis implements SaTokenDao {
     }
 
     /**
-     * 搜索数据
+     * 搜索数据 (基于 SCAN 游标分批遍历，不使用会阻塞 Redis 的 KEYS 命令)
      */
     @Override
     public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
-        Set<String> keys = redis.keys(prefix + "*" + keyword + "*");
-        List<String> list = new ArrayList<>(keys);
-        return SaFoxUtil.searchList(list, start, size, sortType);
+        return searchDataByScan(prefix, keyword, start, size, sortType);
+    }
+
+    /**
+     * 遍历数据
+     */
+    @Override
+    public void scanData(String prefix, String keyword, SaParamRetFunction<String, Boolean> function) {
+        ScanParams params = new ScanParams().match(prefix + "*" + keyword + "*").count(SCAN_BATCH_SIZE);
+        Jedis jedis = getJedis();
+        try {
+            String cursor = ScanParams.SCAN_POINTER_START;
+            do {
+                ScanResult<String> result = jedis.scan(cursor, params);
+                for (String key : result.getResult()) {
+                    if (!function.run(key)) {
+                        return;
+                    }
+                }
+                cursor = result.getCursor();
+            } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        } finally {
+            close(jedis);
+        }
     }
 
     public Jedis getJedis() {
@@ -31,10 +31,13 @@ import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Reactor 全局鉴权过滤器
@@ -123,6 +126,35 @@ public class SaReactorFilter implements SaFilter, WebFilter {
 		return this;
 	}
 
+	/**
+	 * 执行认证函数的调度器，默认为 Schedulers.boundedElastic()
+	 * <p>
+	 *     认证函数中的 StpUtil.checkLogin() 等方法会同步读写持久层（例如 Redis），因此默认在此调度器的线程上执行，不阻塞事件循环线程。
+	 *     如果认证函数不访问远程存储，可以设置为 null，直接在当前线程（事件循环线程）上执行，省去一次线程切换
+	 * </p>
+	 */
+	public Scheduler authScheduler = defaultAuthScheduler();
+
+	/**
+	 * 设置执行认证函数的调度器
+	 *
+	 * @param authScheduler 调度器，填 null 代表直接在当前线程上执行
+	 * @return 对象自身
+	 */
+	public SaReactorFilter setAuthScheduler(Scheduler authScheduler) {
+		this.authScheduler = authScheduler;
+		return this;
+	}
+
+	/**
+	 * 获取默认的认证调度器：Schedulers.boundedElastic()
+	 *
+	 * @return /
+	 */
+	protected static Scheduler defaultAuthScheduler() {
+		return Schedulers.boundedElastic();
+	}
+
 	
 	// ------------------------ filter
 
@@ -131,8 +163,26 @@ public class SaReactorFilter implements SaFilter, WebFilter {
 		
 		// 写入WebFilterChain对象 
 		exchange.getAttributes().put(SaReactorHolder.CHAIN_KEY, chain);
-		
-		// ---------- 全局认证处理 
+
+		// 认证调度器被设置为 null：直接在当前线程执行认证
+		if(authScheduler == null) {
+			String result = runAuth(exchange);
+			return result == null ? runChain(exchange, chain) : writeResult(exchange, result);
+		}
+
+		// 设置了认证调度器：在调度器线程上执行认证，认证通过后再继续执行过滤器链，避免阻塞事件循环线程
+		return Mono.fromCallable(() -> Optional.ofNullable(runAuth(exchange)))
+				.subscribeOn(authScheduler)
+				.flatMap(result -> result.isPresent() ? writeResult(exchange, result.get()) : runChain(exchange, chain));
+	}
+
+	/**
+	 * 执行全局认证处理
+	 *
+	 * @param exchange /
+	 * @return 认证通过时返回 null，否则返回要写入输出流的结果
+	 */
+	protected String runAuth(ServerWebExchange exchange) {
 		try {
 			// 写入全局上下文 (同步) 
 			SaReactorSyncHolder.setContext(exchange);
@@ -142,29 +192,46 @@ public class SaReactorFilter implements SaFilter, WebFilter {
 			SaRouter.match(includeList).notMatch(excludeList).check(r -> {
 				auth.run(null);
 			});
-			
+			return null;
+
 		} catch (StopMatchException e) {
 			// StopMatchException 异常代表：停止匹配，进入Controller
+			return null;
 
 		} catch (Throwable e) {
-			// 1. 获取异常处理策略结果 
-			String result = (e instanceof BackResultException) ? e.getMessage() : String.valueOf(error.run(e));
-			
-			// 2. 写入输出流
-			// 		请注意此处默认 Content-Type 为 text/plain，如果需要返回 JSON 信息，需要在 return 前自行设置 Content-Type 为 application/json
-			// 		例如：SaHolder.getResponse().setHeader("Content-Type", "application/json;charset=UTF-8");
-			if(exchange.getResponse().getHeaders().getFirst(SaTokenConsts.CONTENT_TYPE_KEY) == null) {
-				exchange.getResponse().getHeaders().set(SaTokenConsts.CONTENT_TYPE_KEY, SaTokenConsts.CONTENT_TYPE_TEXT_PLAIN);
-			}
-			return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(result.getBytes())));
-			
+			// 获取异常处理策略结果 
+			return (e instanceof BackResultException) ? e.getMessage() : String.valueOf(error.run(e));
+
 		} finally {
 			// 清除上下文 
 			SaReactorSyncHolder.clearContext();
 		}
+	}
 
-		// ---------- 执行
+	/**
+	 * 认证未通过时，将结果写入输出流
+	 *
+	 * @param exchange /
+	 * @param result 异常处理策略结果
+	 * @return /
+	 */
+	protected Mono<Void> writeResult(ServerWebExchange exchange, String result) {
+		// 请注意此处默认 Content-Type 为 text/plain，如果需要返回 JSON 信息，需要在 return 前自行设置 Content-Type 为 application/json
+		// 例如：SaHolder.getResponse().setHeader("Content-Type", "application/json;charset=UTF-8");
+		if(exchange.getResponse().getHeaders().getFirst(SaTokenConsts.CONTENT_TYPE_KEY) == null) {
+			exchange.getResponse().getHeaders().set(SaTokenConsts.CONTENT_TYPE_KEY, SaTokenConsts.CONTENT_TYPE_TEXT_PLAIN);
+		}
+		return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(result.getBytes())));
+	}
 
+	/**
+	 * 认证通过后，继续执行过滤器链
+	 *
+	 * @param exchange /
+	 * @param chain /
+	 * @return /
+	 */
+	protected Mono<Void> runChain(ServerWebExchange exchange, WebFilterChain chain) {
 		// 写入全局上下文 (同步) 
 		SaReactorSyncHolder.setContext(exchange);
 		
@@ -20,6 +20,7 @@ import cn.dev33.satoken.sso.config.SaSsoClientConfig;
 import cn.dev33.satoken.sso.config.SaSsoServerConfig;
 import cn.dev33.satoken.sso.processor.SaSsoClientProcessor;
 import cn.dev33.satoken.sso.processor.SaSsoServerProcessor;
+import cn.dev33.satoken.sso.slo.SaSsoSloDispatcher;
 import cn.dev33.satoken.sso.template.SaSsoClientTemplate;
 import cn.dev33.satoken.sso.template.SaSsoServerTemplate;
 import org.noear.solon.annotation.Bean;
@@ -52,6 +53,9 @@ public class SaSsoAutoConfigure {
         appContext.subBeansOfType(SaSsoClientConfig.class, bean -> {
             SaSsoManager.setClientConfig(bean);
         });
+        appContext.subBeansOfType(SaSsoSloDispatcher.class, bean -> {
+            SaSsoManager.setSloDispatcher(bean);
+        });
     }
 
     /**
@@ -20,6 +20,7 @@ import cn.dev33.satoken.sso.config.SaSsoClientConfig;
 import cn.dev33.satoken.sso.config.SaSsoServerConfig;
 import cn.dev33.satoken.sso.processor.SaSsoClientProcessor;
 import cn.dev33.satoken.sso.processor.SaSsoServerProcessor;
+import cn.dev33.satoken.sso.slo.SaSsoSloDispatcher;
 import cn.dev33.satoken.sso.template.SaSsoClientTemplate;
 import cn.dev33.satoken.sso.template.SaSsoServerTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -54,6 +55,16 @@ public class SaSsoBeanInject {
 		SaSsoManager.setClientConfig(clientConfig);
 	}
 
+	/**
+	 * 注入 SSO 单点注销异步分发器
+	 *
+	 * @param sloDispatcher /
+	 */
+	@Autowired(required = false)
+	public void setSaSsoSloDispatcher(SaSsoSloDispatcher sloDispatcher) {
+		SaSsoManager.setSloDispatcher(sloDispatcher);
+	}
+
 	/**
 	 * 注入 SSO 模板代码类 (Server 端)
 	 *
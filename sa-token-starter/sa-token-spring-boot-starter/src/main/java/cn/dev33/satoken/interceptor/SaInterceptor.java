@@ -15,12 +15,14 @@
  */
 package cn.dev33.satoken.interceptor;
 
+import cn.dev33.satoken.SaManager;
 import cn.dev33.satoken.exception.BackResultException;
 import cn.dev33.satoken.exception.StopMatchException;
 import cn.dev33.satoken.fun.SaParamFunction;
+import cn.dev33.satoken.session.SaSessionWriteScope;
 import cn.dev33.satoken.strategy.SaAnnotationStrategy;
 import org.springframework.web.method.HandlerMethod;
-import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -32,7 +34,7 @@ import java.lang.reflect.Method;
  * @author click33
  * @since 1.31.0
  */
-public class SaInterceptor implements HandlerInterceptor {
+public class SaInterceptor implements AsyncHandlerInterceptor {
 
 	/**
 	 * 是否打开注解鉴权，配置为 true 时注解鉴权才会生效，配置为 false 时，即使写了注解也不会进行鉴权
@@ -116,7 +118,39 @@ public class SaInterceptor implements HandlerInterceptor {
 		}
 		
 		// 通过验证 
+		// 开启 mergeSessionWrite 时，此后对 SaSession 的修改在请求结束时统一写入（返回 true 后 Spring 保证会回调 afterCompletion）
+		if(isMergeSessionWrite()) {
+			SaSessionWriteScope.begin();
+		}
 		return true;
 	}
 
+	/**
+	 * 请求结束时触发的方法 
+	 */
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		if(isMergeSessionWrite()) {
+			SaSessionWriteScope.end();
+		}
+	}
+
+	/**
+	 * 异步请求开始时触发的方法（此时不会回调 afterCompletion，需在这里结束当前线程的作用域）
+	 */
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if(isMergeSessionWrite()) {
+			SaSessionWriteScope.end();
+		}
+	}
+
+	/**
+	 * 是否合并每次请求中对 SaSession 的写入
+	 * @return /
+	 */
+	protected boolean isMergeSessionWrite() {
+		return SaManager.getConfig().getMergeSessionWrite() == Boolean.TRUE;
+	}
+
 }
@@ -64,6 +64,14 @@ public class SaTokenContextForSpring implements SaTokenContext {
 		return SaPatternsRequestConditionHolder.match(pattern, path);
 	}
 
+	/**
+	 * 判断：matchPath 是否与 AntPathMatcher 的匹配规则一致，且尾部的 / 不影响匹配结果 （PatternsRequestCondition 默认如此）
+	 */
+	@Override
+	public boolean isAntStylePathMatch() {
+		return true;
+	}
+
 	/**
 	 * 判断：在本次请求中，此上下文是否可用。
 	 */
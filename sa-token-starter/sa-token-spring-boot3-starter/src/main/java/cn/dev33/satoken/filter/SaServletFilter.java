@@ -15,11 +15,13 @@
  */
 package cn.dev33.satoken.filter;
 
+import cn.dev33.satoken.SaManager;
 import cn.dev33.satoken.error.SaSpringBootErrorCode;
 import cn.dev33.satoken.exception.BackResultException;
 import cn.dev33.satoken.exception.SaTokenException;
 import cn.dev33.satoken.exception.StopMatchException;
 import cn.dev33.satoken.router.SaRouter;
+import cn.dev33.satoken.session.SaSessionWriteScope;
 import cn.dev33.satoken.util.SaTokenConsts;
 import jakarta.servlet.*;
 import org.springframework.core.annotation.Order;
@@ -121,6 +123,30 @@ public class SaServletFilter implements SaFilter, Filter {
 
 	@Override
 	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+		// 开启 mergeSessionWrite 时，本次请求中对 SaSession 的修改在请求结束时统一写入
+		if(SaManager.getConfig().getMergeSessionWrite() != Boolean.TRUE) {
+			doFilterInternal(request, response, chain);
+			return;
+		}
+		SaSessionWriteScope.begin();
+		try {
+			doFilterInternal(request, response, chain);
+		} catch (Throwable e) {
+			SaSessionWriteScope.end(e);
+			throw e;
+		}
+		SaSessionWriteScope.end();
+	}
+
+	/**
+	 * 执行鉴权与后续过滤器
+	 * @param request /
+	 * @param response /
+	 * @param chain /
+	 * @throws IOException /
+	 * @throws ServletException /
+	 */
+	protected void doFilterInternal(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
 		
 		try {
 			// 执行全局过滤器
@@ -10,8 +10,10 @@ import org.springframework.boot.test.context.SpringBootTest;
 import cn.dev33.satoken.SaManager;
 import cn.dev33.satoken.dao.SaTokenDao;
 import cn.dev33.satoken.exception.ApiDisabledException;
+import cn.dev33.satoken.jwt.SaJwtTemplate;
 import cn.dev33.satoken.jwt.SaJwtUtil;
 import cn.dev33.satoken.jwt.StpLogicJwtForStateless;
+import cn.dev33.satoken.jwt.exception.SaJwtException;
 import cn.dev33.satoken.stp.SaLoginConfig;
 import cn.dev33.satoken.stp.StpUtil;
 import cn.dev33.satoken.util.SaTokenConsts;
@@ -179,5 +181,31 @@ public class JwtForStatelessTest {
     	// 取不到 
     	Assertions.assertEquals(StpUtil.getExtra("name2"), null);
     }
+
+    // 测试：验签缓存 
+    @Test
+    public void verifiedCache() {
+    	StpUtil.login(10001);
+    	String tokenValue = StpUtil.getTokenValue();
+    	String keyt = SaManager.getConfig().getJwtSecretKey();
+    	SaJwtTemplate template = SaJwtUtil.getSaJwtTemplate();
+
+    	// 校验通过后进入缓存，再次校验命中缓存，但每次返回的都是新对象，修改其中一个不会影响其它调用方 
+    	JWT jwt = template.verifyToken(tokenValue, keyt);
+    	Assertions.assertTrue(template.verifiedCache.containsKey(tokenValue));
+    	JWT cachedJwt = template.verifyToken(tokenValue, keyt);
+    	Assertions.assertNotSame(jwt, cachedJwt);
+    	cachedJwt.setPayload("loginId", "10002");
+    	Assertions.assertEquals("10001", template.verifyToken(tokenValue, keyt).getPayloads().getStr("loginId"));
+    	Assertions.assertEquals("10001", StpUtil.getLoginIdByToken(tokenValue));
+
+    	// 换一个秘钥，不能命中缓存 
+    	Assertions.assertThrows(SaJwtException.class, () -> template.verifyToken(tokenValue, keyt + "-other"));
+
+    	// 签名被篡改的 token 不会进入缓存 
+    	String badToken = tokenValue.substring(0, tokenValue.length() - 2) + "xx";
+    	Assertions.assertThrows(SaJwtException.class, () -> template.verifyToken(badToken, keyt));
+    	Assertions.assertFalse(template.verifiedCache.containsKey(badToken));
+    }
     
 }
@@ -0,0 +1,128 @@
+package com.pj.test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.jwt.SaJwtKey;
+import cn.dev33.satoken.jwt.SaJwtKeyRing;
+import cn.dev33.satoken.jwt.SaJwtTemplate;
+import cn.dev33.satoken.jwt.SaJwtTemplateForHmac;
+import cn.dev33.satoken.jwt.error.SaJwtErrorCode;
+import cn.dev33.satoken.jwt.exception.SaJwtException;
+import cn.hutool.jwt.JWT;
+
+/**
+ * SaJwtKeyRing 秘钥环 测试
+ *
+ * @author click33
+ *
+ */
+public class JwtKeyRingTest {
+
+	// 各种算法签发、校验
+    @Test
+    public void testAlgorithms() throws NoSuchAlgorithmException {
+    	checkAlgorithm(SaJwtKey.hmac("h1", "HS256", "asdasdasifhueuiwyurfewbfjsdafjk"), null);
+    	checkAlgorithm(SaJwtKey.hmac("h5", "HS512", "asdasdasifhueuiwyurfewbfjsdafjk"), null);
+    	KeyPair rsa = generate("RSA", 2048);
+    	checkAlgorithm(SaJwtKey.keyPair("r1", "RS256", rsa), SaJwtKey.publicKey("r1", "RS256", rsa.getPublic()));
+    	KeyPair ec = generate("EC", 256);
+    	checkAlgorithm(SaJwtKey.keyPair("e1", "ES256", ec), SaJwtKey.publicKey("e1", "ES256", ec.getPublic()));
+    	KeyPair ed = generate("Ed25519", 0);
+    	checkAlgorithm(SaJwtKey.keyPair("d1", "EdDSA", ed), SaJwtKey.publicKey("d1", "EdDSA", ed.getPublic()));
+
+    	// ES256 签名为 jwt 规范的 64 字节 r||s 格式
+    	String token = new SaJwtTemplate().setKeyRing(new SaJwtKeyRing().rotate(SaJwtKey.keyPair("e1", "ES256", ec)))
+    			.createToken("login", 10001, "PC", 600, null, null);
+    	Assertions.assertEquals(64, Base64.getUrlDecoder().decode(token.split("\\.")[2]).length);
+
+    	// 秘钥与算法不匹配、不支持的算法
+    	Assertions.assertThrows(SaJwtException.class, () -> SaJwtKey.keyPair("x", "ES256", rsa));
+    	SaJwtException e = Assertions.assertThrows(SaJwtException.class, () -> SaJwtKey.keyPair("x", "PS256", rsa));
+    	Assertions.assertEquals(SaJwtErrorCode.CODE_30207, e.getCode());
+    }
+
+    private void checkAlgorithm(SaJwtKey signKey, SaJwtKey verifyKey) {
+    	for (SaJwtTemplate template : new SaJwtTemplate[] {new SaJwtTemplate(), new SaJwtTemplateForHmac()}) {
+    		template.setKeyRing(new SaJwtKeyRing().rotate(signKey));
+    		String token = template.createToken("login", 10001, "PC", 600, null, null);
+    		JWT jwt = JWT.of(token);
+    		Assertions.assertEquals(signKey.kid, jwt.getHeader("kid"));
+    		Assertions.assertEquals(signKey.algorithm, jwt.getAlgorithm());
+    		Assertions.assertEquals("10001", template.getLoginId(token, "login", null).toString());
+
+    		// 只持有公钥的服务也能校验
+    		if(verifyKey != null) {
+    			SaJwtTemplate verifier = new SaJwtTemplate().setKeyRing(new SaJwtKeyRing().addKey(verifyKey));
+    			Assertions.assertEquals("10001", verifier.getLoginId(token, "login", null).toString());
+    			Assertions.assertEquals("PC", verifier.getDevice(token, "login", null));
+    			assertCode(() -> verifier.createToken("login", 10001, "PC", 600, null, null), SaJwtErrorCode.CODE_30208);
+    		}
+    	}
+    }
+
+	// 秘钥轮换：旧秘钥在保留期内仍可校验，过期或移除后不可校验
+    @Test
+    public void testRotate() throws Exception {
+    	SaJwtKeyRing keyRing = new SaJwtKeyRing().rotate(SaJwtKey.hmac("k1", "HS256", "secret-one-secret-one"));
+    	SaJwtTemplate template = new SaJwtTemplate().setKeyRing(keyRing);
+    	String token1 = template.createToken("login", 10001, "PC", 600, null, null);
+
+    	keyRing.rotate(SaJwtKey.hmac("k2", "HS256", "secret-two-secret-two"), 1);
+    	String token2 = template.createToken("login", 10002, "PC", 600, null, null);
+    	Assertions.assertEquals("k2", JWT.of(token2).getHeader("kid"));
+    	Assertions.assertEquals("10001", template.getLoginId(token1, "login", null).toString());
+    	Assertions.assertEquals("10002", template.getLoginId(token2, "login", null).toString());
+
+    	// 旧秘钥过期后，即使已在验签缓存中，也不再通过校验
+    	Thread.sleep(1100);
+    	assertCode(() -> template.getLoginId(token1, "login", null), SaJwtErrorCode.CODE_30202);
+    	Assertions.assertEquals(-2, template.getTimeout(token1, "login", null));
+    	Assertions.assertNull(keyRing.getKey("k1"));
+    	Assertions.assertEquals("10002", template.getLoginId(token2, "login", null).toString());
+
+    	// 移除秘钥
+    	keyRing.removeKey("k2");
+    	assertCode(() -> template.getLoginId(token2, "login", null), SaJwtErrorCode.CODE_30202);
+    }
+
+	// 伪造 kid、alg 的 token 不能通过校验
+    @Test
+    public void testForged() throws NoSuchAlgorithmException {
+    	KeyPair rsa = generate("RSA", 2048);
+    	SaJwtTemplate template = new SaJwtTemplate().setKeyRing(new SaJwtKeyRing().rotate(SaJwtKey.keyPair("r1", "RS256", rsa)));
+
+    	// 没有 kid
+    	String noKid = new SaJwtTemplate().createToken("login", 10001, "PC", 600, null, "any-secret");
+    	assertCode(() -> template.getLoginId(noKid, "login", null), SaJwtErrorCode.CODE_30202);
+
+    	// 未知的 kid
+    	String unknown = new SaJwtTemplate().setKeyRing(new SaJwtKeyRing().rotate(SaJwtKey.hmac("r2", "HS256", "any-secret")))
+    			.createToken("login", 10001, "PC", 600, null, null);
+    	assertCode(() -> template.getLoginId(unknown, "login", null), SaJwtErrorCode.CODE_30202);
+
+    	// kid 正确，但算法被改为 HS256
+    	String confused = new SaJwtTemplate().setKeyRing(new SaJwtKeyRing().rotate(SaJwtKey.hmac("r1", "HS256", "any-secret")))
+    			.createToken("login", 10001, "PC", 600, null, null);
+    	assertCode(() -> template.getLoginId(confused, "login", null), SaJwtErrorCode.CODE_30202);
+    }
+
+    private KeyPair generate(String algorithm, int size) throws NoSuchAlgorithmException {
+    	KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+    	if(size > 0) {
+    		generator.initialize(size);
+    	}
+    	return generator.generateKeyPair();
+    }
+
+    private void assertCode(Runnable runnable, int code) {
+    	SaJwtException e = Assertions.assertThrows(SaJwtException.class, runnable::run);
+    	Assertions.assertEquals(code, e.getCode());
+    }
+
+}
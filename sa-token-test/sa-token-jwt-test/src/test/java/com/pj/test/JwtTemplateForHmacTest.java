@@ -0,0 +1,115 @@
+package com.pj.test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.jwt.SaJwtTemplate;
+import cn.dev33.satoken.jwt.SaJwtTemplateForHmac;
+import cn.dev33.satoken.jwt.error.SaJwtErrorCode;
+import cn.dev33.satoken.jwt.exception.SaJwtException;
+
+/**
+ * SaJwtTemplateForHmac 轻量编解码 测试
+ *
+ * @author click33
+ *
+ */
+public class JwtTemplateForHmacTest {
+
+	static final String KEYT = "asdasdasifhueuiwyurfewbfjsdafjk";
+
+	// 与通用实现生成的 token 互通
+    @Test
+    public void testCompatible() {
+    	SaJwtTemplate generic = new SaJwtTemplate();
+    	SaJwtTemplateForHmac fast = new SaJwtTemplateForHmac();
+
+    	// 轻量实现生成，通用实现解析
+    	String token = fast.createToken("login", 10001, "PC", 600, null, KEYT);
+    	Assertions.assertEquals("10001", generic.getLoginId(token, "login", KEYT).toString());
+    	Assertions.assertEquals("PC", generic.getDevice(token, "login", KEYT));
+    	Assertions.assertTrue(generic.getTimeout(token, "login", KEYT) > 590);
+
+    	// 通用实现生成，轻量实现解析
+    	token = generic.createToken("login", "user-\"1\"\\中文", "APP", -1, null, KEYT);
+    	Assertions.assertEquals("user-\"1\"\\中文", fast.getLoginId(token, "login", KEYT));
+    	Assertions.assertEquals("APP", fast.getDevice(token, "login", KEYT));
+    	Assertions.assertEquals(-1, fast.getTimeout(token, "login", KEYT));
+
+    	// 长整数
+    	token = fast.createToken("login", 12345678901234L, "PC", 600, null, KEYT);
+    	Assertions.assertEquals(12345678901234L, fast.getLoginId(token, "login", KEYT));
+    	Assertions.assertEquals("12345678901234", generic.getLoginId(token, "login", KEYT).toString());
+
+    	// 携带扩展数据时走通用实现，两者读取结果一致
+    	Map<String, Object> extraData = new HashMap<>();
+    	extraData.put("name", "zhang");
+    	extraData.put("roles", new String[] {"admin"});
+    	token = fast.createToken("login", 10002, "PC", 600, extraData, KEYT);
+    	Assertions.assertEquals("10002", fast.getLoginId(token, "login", KEYT).toString());
+    	Assertions.assertEquals("zhang", fast.getPayloads(token, "login", KEYT).getStr("name"));
+    	Assertions.assertEquals("zhang", generic.getPayloads(token, "login", KEYT).getStr("name"));
+
+    	// HS512
+    	SaJwtTemplateForHmac fast512 = new SaJwtTemplateForHmac(SaJwtTemplateForHmac.HS512);
+    	token = fast512.createToken("login", 10003, "PC", 600, null, KEYT);
+    	Assertions.assertEquals(10003, fast512.getLoginId(token, "login", KEYT));
+    	Assertions.assertEquals(10003, fast512.getPayloads(token, "login", KEYT).getInt("loginId"));
+    	Assertions.assertThrows(SaJwtException.class, () -> new SaJwtTemplateForHmac("RS256"));
+    }
+
+	// 篡改、秘钥错误、类型错误、过期
+    @Test
+    public void testReject() {
+    	SaJwtTemplateForHmac fast = new SaJwtTemplateForHmac();
+    	String token = fast.createToken("login", 10001, "PC", 600, null, KEYT);
+
+    	// 秘钥错误
+    	assertCode(() -> fast.getLoginId(token, "login", KEYT + "x"), SaJwtErrorCode.CODE_30202);
+
+    	// 篡改载荷
+    	String[] parts = token.split("\\.");
+    	String forged = new SaJwtTemplateForHmac().createToken("login", 10002, "PC", 600, null, "other-key");
+    	String tampered = parts[0] + "." + forged.split("\\.")[1] + "." + parts[2];
+    	assertCode(() -> fast.getLoginId(tampered, "login", KEYT), SaJwtErrorCode.CODE_30202);
+
+    	// 结构错误
+    	assertCode(() -> fast.getLoginId("abc.def", "login", KEYT), SaJwtErrorCode.CODE_30201);
+    	assertCode(() -> fast.getLoginId("a.b.c.d", "login", KEYT), SaJwtErrorCode.CODE_30201);
+    	assertCode(() -> fast.getLoginId("!!.@@.##", "login", KEYT), SaJwtErrorCode.CODE_30201);
+
+    	// loginType 错误
+    	assertCode(() -> fast.getLoginId(token, "user", KEYT), SaJwtErrorCode.CODE_30203);
+    	Assertions.assertEquals(-2, fast.getTimeout(token, "user", KEYT));
+
+    	// 已过期
+    	String expired = fast.createToken("login", 10001, "PC", -100, null, KEYT);
+    	assertCode(() -> fast.getLoginId(expired, "login", KEYT), SaJwtErrorCode.CODE_30204);
+    	Assertions.assertNull(fast.getLoginIdOrNull(expired, "login", KEYT));
+    	Assertions.assertEquals(-2, fast.getTimeout(expired, "login", KEYT));
+    	Assertions.assertEquals("PC", fast.getDevice(expired, "login", KEYT));
+    }
+
+	// 连续签发、验签，结果正确（每次都生成新 token，避免命中验签缓存）
+    @Test
+    public void testRepeat() {
+    	repeat(new SaJwtTemplate(), 100);
+    	repeat(new SaJwtTemplateForHmac(), 100);
+    }
+
+    private void repeat(SaJwtTemplate template, int count) {
+    	for (int i = 0; i < count; i++) {
+    		String token = template.createToken("login", i, "PC", 600, null, KEYT);
+    		Assertions.assertEquals(String.valueOf(i), template.getLoginId(token, "login", KEYT).toString());
+		}
+    }
+
+    private void assertCode(Runnable runnable, int code) {
+    	SaJwtException e = Assertions.assertThrows(SaJwtException.class, runnable::run);
+    	Assertions.assertEquals(code, e.getCode());
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.pj.test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.context.SaTokenContext;
+import cn.dev33.satoken.reactor.filter.SaReactorFilter;
+import cn.dev33.satoken.reactor.spring.SaTokenContextForSpringReactor;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * SaReactorFilter 测试
+ *
+ * @author click33
+ *
+ */
+public class SaReactorFilterTest {
+
+	SaTokenContext oldContext;
+
+	/**
+	 * 模拟 Netty 的事件循环线程（filter 方法在此线程上被调用）
+	 */
+	Scheduler eventLoop;
+
+	@BeforeEach
+	public void before() {
+		oldContext = SaManager.getSaTokenContext();
+		SaManager.setSaTokenContext(new SaTokenContextForSpringReactor());
+		eventLoop = Schedulers.newSingle("event-loop");
+	}
+
+	@AfterEach
+	public void after() {
+		SaManager.setSaTokenContext(oldContext);
+		eventLoop.dispose();
+	}
+
+	// 默认在 boundedElastic 调度器上执行认证函数，不占用事件循环线程
+	@Test
+	public void testAuthOffEventLoop() {
+		AtomicReference<Thread> authThread = new AtomicReference<>();
+		AtomicReference<Thread> chainThread = new AtomicReference<>();
+		SaReactorFilter filter = new SaReactorFilter()
+				.addInclude("/**")
+				.setAuth(obj -> authThread.set(Thread.currentThread()));
+
+		Mono.defer(() -> filter.filter(exchange(), ex -> {
+			chainThread.set(Thread.currentThread());
+			return Mono.empty();
+		})).subscribeOn(eventLoop).block(Duration.ofSeconds(5));
+
+		Assertions.assertNotNull(authThread.get());
+		Assertions.assertNotNull(chainThread.get());
+		Assertions.assertFalse(authThread.get().getName().startsWith("event-loop"));
+		Assertions.assertTrue(authThread.get().getName().startsWith("boundedElastic"));
+	}
+
+	// 认证未通过时，在调度器线程上执行异常处理函数，并写出结果
+	@Test
+	public void testAuthErrorOffEventLoop() {
+		AtomicReference<Thread> errorThread = new AtomicReference<>();
+		AtomicReference<Boolean> chainRun = new AtomicReference<>(false);
+		SaReactorFilter filter = new SaReactorFilter()
+				.addInclude("/**")
+				.setAuth(obj -> {
+					throw new IllegalStateException("no login");
+				})
+				.setError(e -> {
+					errorThread.set(Thread.currentThread());
+					return e.getMessage();
+				});
+
+		MockServerWebExchange exchange = exchange();
+		Mono.defer(() -> filter.filter(exchange, ex -> {
+			chainRun.set(true);
+			return Mono.empty();
+		})).subscribeOn(eventLoop).block(Duration.ofSeconds(5));
+
+		Assertions.assertFalse(chainRun.get());
+		Assertions.assertTrue(errorThread.get().getName().startsWith("boundedElastic"));
+		Assertions.assertEquals("no login", exchange.getResponse().getBodyAsString().block(Duration.ofSeconds(5)));
+	}
+
+	// 调度器设置为 null 时，直接在当前线程（事件循环线程）上执行
+	@Test
+	public void testAuthOnEventLoop() {
+		AtomicReference<Thread> authThread = new AtomicReference<>();
+		SaReactorFilter filter = new SaReactorFilter()
+				.addInclude("/**")
+				.setAuth(obj -> authThread.set(Thread.currentThread()))
+				.setAuthScheduler(null);
+
+		Mono.defer(() -> filter.filter(exchange(), ex -> Mono.empty())).subscribeOn(eventLoop).block(Duration.ofSeconds(5));
+
+		Assertions.assertTrue(authThread.get().getName().startsWith("event-loop"));
+	}
+
+	private MockServerWebExchange exchange() {
+		return MockServerWebExchange.from(MockServerHttpRequest.get("/user/info"));
+	}
+
+}
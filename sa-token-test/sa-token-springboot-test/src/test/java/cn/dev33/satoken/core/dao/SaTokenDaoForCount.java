@@ -0,0 +1,162 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.dao;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoBatch;
+
+/**
+ * 统计调用次数的 SaTokenDao 包装类（每一次 DAO 方法调用计数一次）
+ * 
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoForCount implements SaTokenDao {
+
+	/**
+	 * 被包装的 SaTokenDao 
+	 */
+	public final SaTokenDao dao;
+
+	/**
+	 * 调用次数 
+	 */
+	public final AtomicInteger count = new AtomicInteger();
+
+	public SaTokenDaoForCount(SaTokenDao dao) {
+		this.dao = dao;
+	}
+
+	@Override
+	public String get(String key) {
+		count.incrementAndGet();
+		return dao.get(key);
+	}
+
+	@Override
+	public void set(String key, String value, long timeout) {
+		count.incrementAndGet();
+		dao.set(key, value, timeout);
+	}
+
+	@Override
+	public void update(String key, String value) {
+		count.incrementAndGet();
+		dao.update(key, value);
+	}
+
+	@Override
+	public void delete(String key) {
+		count.incrementAndGet();
+		dao.delete(key);
+	}
+
+	@Override
+	public long getTimeout(String key) {
+		count.incrementAndGet();
+		return dao.getTimeout(key);
+	}
+
+	@Override
+	public void updateTimeout(String key, long timeout) {
+		count.incrementAndGet();
+		dao.updateTimeout(key, timeout);
+	}
+
+	@Override
+	public Object getObject(String key) {
+		count.incrementAndGet();
+		return dao.getObject(key);
+	}
+
+	@Override
+	public void setObject(String key, Object object, long timeout) {
+		count.incrementAndGet();
+		dao.setObject(key, object, timeout);
+	}
+
+	@Override
+	public void updateObject(String key, Object object) {
+		count.incrementAndGet();
+		dao.updateObject(key, object);
+	}
+
+	@Override
+	public void deleteObject(String key) {
+		count.incrementAndGet();
+		dao.deleteObject(key);
+	}
+
+	@Override
+	public long getObjectTimeout(String key) {
+		count.incrementAndGet();
+		return dao.getObjectTimeout(key);
+	}
+
+	@Override
+	public void updateObjectTimeout(String key, long timeout) {
+		count.incrementAndGet();
+		dao.updateObjectTimeout(key, timeout);
+	}
+
+	@Override
+	public List<String> getMany(List<String> keys) {
+		count.incrementAndGet();
+		return dao.getMany(keys);
+	}
+
+	@Override
+	public void setMany(Map<String, String> map, long timeout) {
+		count.incrementAndGet();
+		dao.setMany(map, timeout);
+	}
+
+	@Override
+	public void deleteMany(Collection<String> keys) {
+		count.incrementAndGet();
+		dao.deleteMany(keys);
+	}
+
+	@Override
+	public void executeBatch(SaTokenDaoBatch batch) {
+		count.incrementAndGet();
+		dao.executeBatch(batch);
+	}
+
+	@Override
+	public String getAndDelete(String key) {
+		count.incrementAndGet();
+		return dao.getAndDelete(key);
+	}
+
+	@Override
+	public Object getAndDeleteObject(String key) {
+		count.incrementAndGet();
+		return dao.getAndDeleteObject(key);
+	}
+
+	@Override
+	public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
+		count.incrementAndGet();
+		return dao.searchData(prefix, keyword, start, size, sortType);
+	}
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.dao;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoForExpireBucket;
+import cn.dev33.satoken.session.SaSession;
+
+/**
+ * SaTokenDaoForExpireBucket 持久层 测试 
+ * 
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoForExpireBucketTest {
+
+	SaTokenDaoForExpireBucket dao = new SaTokenDaoForExpireBucket();
+
+	// 字符串存取 
+    @Test
+    public void get() {
+    	dao.set("name", "zhangsan", 60);
+    	Assertions.assertEquals("zhangsan", dao.get("name"));
+    	Assertions.assertTrue(dao.getTimeout("name") <= 60);
+    	Assertions.assertEquals(-2, dao.getTimeout("name2"));
+    	
+    	dao.update("name", "lisi");
+    	Assertions.assertEquals("lisi", dao.get("name"));
+    	Assertions.assertTrue(dao.getTimeout("name") <= 60);
+    	
+    	dao.updateTimeout("name", 100);
+    	Assertions.assertTrue(dao.getTimeout("name") > 60);
+    	
+    	dao.delete("name");
+    	Assertions.assertNull(dao.get("name"));
+    	Assertions.assertEquals(0, dao.expireBucketMap.values().stream().mapToInt(s -> s.size()).sum());
+    }
+
+	// SaSession 存取 
+    @Test
+    public void getSession() {
+    	SaSession session = new SaSession("session-1001");
+    	
+    	dao.setSession(session, -1);
+    	Assertions.assertEquals(session.getId(), dao.getSession("session-1001").getId());
+    	Assertions.assertEquals(SaTokenDao.NEVER_EXPIRE, dao.getSessionTimeout("session-1001"));
+    	
+    	dao.updateSession(new SaSession("session-1001"));
+    	Assertions.assertEquals(SaTokenDao.NEVER_EXPIRE, dao.getSessionTimeout("session-1001"));
+    	
+    	dao.deleteSession("session-1001");
+    	Assertions.assertNull(dao.getSession("session-1001"));
+    }
+
+    // timeout为0或者小于-2时，不写入；对不存在的 key 执行 update 无效 
+    @Test
+    public void testInvalidWrite() {
+    	dao.set("avatar", "1.jpg", 0);
+    	Assertions.assertNull(dao.get("avatar"));
+    	dao.set("avatar", "1.jpg", -9);
+    	Assertions.assertNull(dao.get("avatar"));
+
+    	dao.update("mid", "zhang");
+    	Assertions.assertNull(dao.get("mid"));
+    	dao.updateTimeout("mid", 100);
+    	Assertions.assertEquals(SaTokenDao.NOT_VALUE_EXPIRE, dao.getTimeout("mid"));
+    }
+
+    // 定时清理只处理已到期的桶 
+    @Test
+    public void refreshDataMap() throws InterruptedException {
+    	dao.set("k1", "v1", 1);
+    	dao.set("k2", "v2", 60);
+    	dao.set("k3", "v3", -1);
+    	Thread.sleep(2100);
+    	
+    	dao.refreshDataMap();
+    	Assertions.assertFalse(dao.dataMap.containsKey("k1"));
+    	Assertions.assertEquals("v2", dao.get("k2"));
+    	Assertions.assertEquals("v3", dao.get("k3"));
+    	Assertions.assertEquals(1, dao.expireBucketMap.size());
+    }
+
+    // 同一个 key 被并发写入不同的存活时间后，索引中只登记当前值的到期时间 
+    @Test
+    public void testConcurrentPut() throws InterruptedException {
+    	ExecutorService executor = Executors.newFixedThreadPool(8);
+    	CountDownLatch start = new CountDownLatch(1);
+    	for (int i = 0; i < 8; i++) {
+    		long timeout = 10 + i * 10;
+    		executor.execute(() -> {
+    			try {
+    				start.await();
+    				for (int j = 0; j < 2000; j++) {
+    					dao.set("k1", "v1", timeout);
+    				}
+    			} catch (InterruptedException e) {
+    				Thread.currentThread().interrupt();
+    			}
+    		});
+    	}
+    	start.countDown();
+    	executor.shutdown();
+    	Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    	long second = dao.dataMap.get("k1").expireTime / 1000;
+    	Assertions.assertTrue(dao.expireBucketMap.get(second).contains("k1"));
+    	Assertions.assertEquals(1, dao.expireBucketMap.values().stream().mapToInt(Set::size).sum());
+    }
+
+}
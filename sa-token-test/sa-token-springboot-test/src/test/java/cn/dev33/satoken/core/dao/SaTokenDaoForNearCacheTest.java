@@ -0,0 +1,212 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.dao;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.dao.SaNearCacheChannelForLocal;
+import cn.dev33.satoken.dao.SaTokenDaoBatch;
+import cn.dev33.satoken.dao.SaTokenDaoForExpireBucket;
+import cn.dev33.satoken.dao.SaTokenDaoForNearCache;
+import cn.dev33.satoken.session.SaSession;
+
+/**
+ * SaTokenDaoForNearCache 近端缓存 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoForNearCacheTest {
+
+	// 两个节点共享同一个远端存储与同一个失效通知通道
+	SaTokenDaoForCount remote;
+	SaNearCacheChannelForLocal channel;
+	SaTokenDaoForNearCache node1;
+	SaTokenDaoForNearCache node2;
+
+	@BeforeEach
+	public void before() {
+		remote = new SaTokenDaoForCount(new SaTokenDaoForExpireBucket());
+		channel = new SaNearCacheChannelForLocal();
+		node1 = new SaTokenDaoForNearCache(remote, channel);
+		node2 = new SaTokenDaoForNearCache(remote, channel);
+		node1.init();
+		node2.init();
+	}
+
+	@AfterEach
+	public void after() {
+		node1.destroy();
+		node2.destroy();
+	}
+
+	// 命中本地缓存时不访问远端存储
+	@Test
+	public void testHit() {
+		node1.set("satoken:login:token:abc", "10001", 60);
+		int count = remote.count.get();
+
+		Assertions.assertEquals("10001", node1.get("satoken:login:token:abc"));
+		Assertions.assertEquals("10001", node1.get("satoken:login:token:abc"));
+		Assertions.assertEquals("10001", node1.get("satoken:login:token:abc"));
+		Assertions.assertEquals(count + 1, remote.count.get());
+		Assertions.assertEquals(1, node1.getMissCount());
+		Assertions.assertEquals(2, node1.getHitCount());
+
+		// 不在缓存范围内的 key，每次都访问远端存储
+		node1.set("satoken:login:last-active:abc", "123", 60);
+		count = remote.count.get();
+		node1.get("satoken:login:last-active:abc");
+		node1.get("satoken:login:last-active:abc");
+		Assertions.assertEquals(count + 2, remote.count.get());
+
+		// 值为 null 时不缓存
+		Assertions.assertNull(node1.get("satoken:login:token:xyz"));
+		Assertions.assertFalse(node1.cacheMap.containsKey("satoken:login:token:xyz"));
+	}
+
+	// 一个节点写入后，其它节点的本地缓存立即失效
+	@Test
+	public void testInvalidate() {
+		node1.setSession(new SaSession("satoken:login:session:10001"), 60);
+		Assertions.assertNotNull(node1.getSession("satoken:login:session:10001"));
+		Assertions.assertNotNull(node2.getSession("satoken:login:session:10001"));
+		Assertions.assertTrue(node2.cacheMap.containsKey("satoken:login:session:10001"));
+
+		node1.deleteSession("satoken:login:session:10001");
+		Assertions.assertFalse(node2.cacheMap.containsKey("satoken:login:session:10001"));
+		Assertions.assertNull(node2.getSession("satoken:login:session:10001"));
+
+		node1.set("satoken:login:token:abc", "10001", 60);
+		Assertions.assertEquals("10001", node2.get("satoken:login:token:abc"));
+		node1.update("satoken:login:token:abc", "-4");
+		Assertions.assertEquals("-4", node2.get("satoken:login:token:abc"));
+
+		// 卸载后不再接收失效通知
+		node2.destroy();
+		Assertions.assertTrue(channel.listenerList.size() == 1);
+	}
+
+	// 只修改存活时间、或写入不缓存的 key 时，不清除本地缓存，也不发送通知 
+	@Test
+	public void testSkipInvalidate() {
+		AtomicInteger publishCount = new AtomicInteger();
+		channel.subscribe(key -> publishCount.incrementAndGet());
+
+		node1.set("satoken:login:token:abc", "10001", 60);
+		Assertions.assertEquals(1, publishCount.get());
+		node2.get("satoken:login:token:abc");
+
+		node1.updateTimeout("satoken:login:token:abc", 120);
+		node1.set("satoken:login:last-active:abc", "123", 60);
+		node1.update("satoken:login:last-active:abc", "456");
+		Assertions.assertEquals(1, publishCount.get());
+		Assertions.assertTrue(node2.cacheMap.containsKey("satoken:login:token:abc"));
+	}
+
+	// 批量写入时，所有失效的 key 通过一次广播通知其它节点
+	@Test
+	public void testPublishAll() {
+		AtomicInteger publishAllCount = new AtomicInteger();
+		SaNearCacheChannelForLocal channel3 = new SaNearCacheChannelForLocal() {
+			@Override
+			public void publishAll(Collection<String> keys) {
+				publishAllCount.incrementAndGet();
+				super.publishAll(keys);
+			}
+		};
+		SaTokenDaoForNearCache node3 = new SaTokenDaoForNearCache(remote, channel3);
+		SaTokenDaoForNearCache node4 = new SaTokenDaoForNearCache(remote, channel3);
+		node3.init();
+		node4.init();
+		node3.set("satoken:login:token:a", "10001", 60);
+		node3.set("satoken:login:token:b", "10001", 60);
+		node4.get("satoken:login:token:a");
+		node4.get("satoken:login:token:b");
+
+		node3.deleteMany(Arrays.asList("satoken:login:token:a", "satoken:login:token:b", "satoken:login:last-active:a"));
+		Assertions.assertEquals(1, publishAllCount.get());
+		Assertions.assertTrue(node4.cacheMap.isEmpty());
+
+		node3.executeBatch(new SaTokenDaoBatch().set("satoken:login:token:c", "10002", 60).delete("satoken:login:last-active:c"));
+		Assertions.assertEquals(2, publishAllCount.get());
+
+		// 没有会进入本地缓存的 key 时，不发送通知
+		node3.deleteMany(Arrays.asList("satoken:login:last-active:a", "satoken:login:last-active:b"));
+		Assertions.assertEquals(2, publishAllCount.get());
+		node3.destroy();
+		node4.destroy();
+	}
+
+	// 缓存中的 SaSession 每次读取都是一个新对象，修改其中一个不影响其它线程读到的值
+	@Test
+	public void testCopy() {
+		node1.setSession(new SaSession("satoken:login:session:10001"), 60);
+		SaSession session1 = node1.getSession("satoken:login:session:10001");
+		SaSession session2 = node1.getSession("satoken:login:session:10001");
+		Assertions.assertEquals(1, node1.getHitCount());
+		Assertions.assertNotSame(session1, session2);
+
+		session2.getDataMap().put("name", "zhangsan");
+		Assertions.assertNull(node1.getSession("satoken:login:session:10001").get("name"));
+	}
+
+	// 读取期间此 key 被清除时，读到的旧值不会写入缓存 
+	@Test
+	public void testStaleFill() {
+		String key = "satoken:login:token:abc";
+		node1.set(key, "old", 60);
+		SaTokenDaoForNearCache node3 = new SaTokenDaoForNearCache(new SaTokenDaoForExpireBucket() {
+			@Override
+			public String get(String k) {
+				String value = remote.get(k);
+				// 模拟：读到旧值之后、写入本地缓存之前，其它节点写入了新值 
+				node1.set(k, "new", 60);
+				return value;
+			}
+		}, channel);
+		node3.init();
+		Assertions.assertEquals("old", node3.get(key));
+		Assertions.assertFalse(node3.cacheMap.containsKey(key));
+		node3.destroy();
+	}
+
+	// 本地缓存存活时间与数量上限
+	@Test
+	public void testExpireAndMaxSize() throws InterruptedException {
+		node1.setCacheTimeout(50);
+		node1.set("satoken:login:token:abc", "10001", 60);
+		node1.get("satoken:login:token:abc");
+		Thread.sleep(80);
+		node1.get("satoken:login:token:abc");
+		Assertions.assertEquals(2, node1.getMissCount());
+
+		node1.setCacheTimeout(60000).setMaxSize(10);
+		for (int i = 0; i < 30; i++) {
+			node1.set("satoken:login:token:" + i, "v" + i, 60);
+			node1.get("satoken:login:token:" + i);
+		}
+		Assertions.assertTrue(node1.cacheMap.size() <= 10);
+	}
+
+}
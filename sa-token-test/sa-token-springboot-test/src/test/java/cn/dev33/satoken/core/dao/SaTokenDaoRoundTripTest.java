@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.stp.SaLoginModel;
+import cn.dev33.satoken.stp.StpLogic;
+
+/**
+ * 修改数据时的 DAO 调用次数（update 系列方法一次调用完成，不再先查询剩余存活时间再写入）
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoRoundTripTest {
+
+	SaTokenDao oldDao;
+
+	SaTokenDaoForCount dao;
+
+	StpLogic stpLogic;
+
+	@BeforeEach
+	public void before() {
+		oldDao = SaManager.getSaTokenDao();
+		dao = new SaTokenDaoForCount(new SaTokenDaoDefaultImpl());
+		SaManager.setSaTokenDao(dao);
+		stpLogic = new StpLogic("round-trip");
+	}
+
+	@AfterEach
+	public void after() {
+		SaManager.setSaTokenDao(oldDao);
+		SaManager.removeStpLogic("round-trip");
+	}
+
+	// 修改 SaSession、修改 token 指向：各一次 DAO 调用，不调用 getTimeout / getObjectTimeout
+	@Test
+	public void testUpdate() {
+		String token = stpLogic.createLoginSession(10001);
+		SaSession session = stpLogic.getSessionByLoginId(10001);
+
+		dao.count.set(0);
+		session.set("name", "zhangsan");
+		Assertions.assertEquals(1, dao.count.get());
+
+		dao.count.set(0);
+		stpLogic.updateTokenToIdMapping(token, 10002);
+		Assertions.assertEquals(1, dao.count.get());
+		Assertions.assertEquals("10002", stpLogic.getLoginIdNotHandle(token));
+	}
+
+	// 12 个设备登录后注销：读取 Account-Session + 一次批量删除 + 删除 Account-Session，与设备数量无关
+	@Test
+	public void testLogout() {
+		for (int i = 0; i < 12; i++) {
+			stpLogic.createLoginSession(10001, new SaLoginModel().setDevice("device-" + i));
+		}
+		dao.count.set(0);
+		stpLogic.logout(10001);
+		Assertions.assertEquals(3, dao.count.get());
+		Assertions.assertNull(stpLogic.getSessionByLoginId(10001, false));
+	}
+
+}
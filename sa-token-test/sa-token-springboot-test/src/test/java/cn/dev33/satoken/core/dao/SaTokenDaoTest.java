@@ -15,11 +15,24 @@
  */
 package cn.dev33.satoken.core.dao;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoBatch;
 import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.fun.SaParamRetFunction;
 import cn.dev33.satoken.session.SaSession;
 
 /**
@@ -149,6 +162,119 @@ public class SaTokenDaoTest {
     	Assertions.assertNull(dao.getSession("session-1001"));
     }
 
+    // 批量读写 
+    @Test
+    public void testMany() {
+    	Map<String, String> map = new LinkedHashMap<>();
+    	map.put("k1", "v1");
+    	map.put("k2", "v2");
+    	dao.setMany(map, 60);
+    	Assertions.assertEquals(Arrays.asList("v1", null, "v2"), dao.getMany(Arrays.asList("k1", "k3", "k2")));
+    	Assertions.assertTrue(dao.getTimeout("k2") <= 60);
+    	
+    	dao.deleteMany(Arrays.asList("k1", "k2"));
+    	Assertions.assertNull(dao.get("k1"));
+    	Assertions.assertNull(dao.get("k2"));
+    }
+
+    // 批量操作：按顺序执行，每个写入操作有各自的存活时间 
+    @Test
+    public void testExecuteBatch() {
+    	dao.set("old", "v", 60);
+    	SaTokenDaoBatch batch = new SaTokenDaoBatch()
+    			.delete("old")
+    			.set("k1", "v1", 60)
+    			.setObject("k2", "v2", 120)
+    			.set("k3", "v3", 0)
+    			.set("k4", "v4", 120)
+    			.update("k4", "v4-new")
+    			.update("k5", "v5");
+    	dao.executeBatch(batch);
+    	Assertions.assertNull(dao.get("old"));
+    	Assertions.assertEquals("v1", dao.get("k1"));
+    	Assertions.assertEquals("v2", dao.getObject("k2"));
+    	Assertions.assertTrue(dao.getObjectTimeout("k2") > 60);
+    	Assertions.assertNull(dao.get("k3"));
+    	Assertions.assertEquals("v4-new", dao.get("k4"));
+    	Assertions.assertTrue(dao.getTimeout("k4") > 60);
+    	Assertions.assertNull(dao.get("k5"));
+    }
+
+    // 获取并删除：并发调用时只有一方能拿到值 
+    @Test
+    public void testGetAndDelete() throws Exception {
+    	dao.set("ticket", "10001", 60);
+    	dao.setObject("code", "code-model", 60);
+    	Assertions.assertEquals("10001", dao.getAndDelete("ticket"));
+    	Assertions.assertNull(dao.getAndDelete("ticket"));
+    	Assertions.assertEquals(-2, dao.getTimeout("ticket"));
+    	Assertions.assertEquals("code-model", dao.getAndDeleteObject("code"));
+    	Assertions.assertNull(dao.getAndDeleteObject("code"));
+    	Assertions.assertEquals(0, dao.searchData("ticket", "", 0, -1, true).size());
+
+    	dao.set("once", "v", 60);
+    	AtomicInteger hitCount = new AtomicInteger();
+    	CountDownLatch start = new CountDownLatch(1);
+    	ExecutorService executor = Executors.newFixedThreadPool(8);
+    	for (int i = 0; i < 8; i++) {
+    		executor.execute(() -> {
+    			try {
+    				start.await();
+    				if(dao.getAndDelete("once") != null) {
+    					hitCount.incrementAndGet();
+    				}
+    			} catch (InterruptedException e) {
+    				Thread.currentThread().interrupt();
+    			}
+    		});
+    	}
+    	start.countDown();
+    	executor.shutdown();
+    	Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    	Assertions.assertEquals(1, hitCount.get());
+    }
+
+    // 游标遍历与基于游标的分页搜索 
+    @Test
+    public void testScanData() {
+    	for (int i = 0; i < 10; i++) {
+    		dao.set("scan:" + i, "v", 60);
+    	}
+    	dao.set("other:1", "v", 60);
+
+    	List<String> list = new ArrayList<>();
+    	dao.scanData("scan:", "", key -> list.add(key) && list.size() < 3);
+    	Assertions.assertEquals(3, list.size());
+
+    	Assertions.assertEquals(dao.searchData("scan:", "", 0, -1, true), dao.searchDataByScan("scan:", "", 0, -1, true));
+    	Assertions.assertEquals(dao.searchData("scan:", "", 2, 3, true), dao.searchDataByScan("scan:", "", 2, 3, true));
+    	Assertions.assertEquals(dao.searchData("scan:", "", 2, 3, false), dao.searchDataByScan("scan:", "", 2, 3, false));
+    	Assertions.assertEquals(2, dao.searchDataByScan("scan:", "", 8, 5, true).size());
+    	Assertions.assertEquals(0, dao.searchDataByScan("scan:", "", 0, 0, true).size());
+    }
+
+    // 游标遍历重复返回同一个 key 时，分页结果中不重复 
+    @Test
+    public void testScanDataRepeat() {
+    	SaTokenDao repeatDao = new SaTokenDaoDefaultImpl() {
+    		@Override
+    		public void scanData(String prefix, String keyword, SaParamRetFunction<String, Boolean> function) {
+    			for (String key : searchData(prefix, keyword, 0, -1, true)) {
+    				if( ! function.run(key) || ! function.run(key)) {
+    					return;
+    				}
+    			}
+    		}
+    	};
+    	for (int i = 0; i < 5; i++) {
+    		repeatDao.set("scan:" + i, "v", 60);
+    	}
+    	List<String> all = repeatDao.searchData("scan:", "", 0, -1, true);
+    	Assertions.assertEquals(all, repeatDao.searchDataByScan("scan:", "", 0, -1, true));
+    	Assertions.assertEquals(all.subList(1, 4), repeatDao.searchDataByScan("scan:", "", 1, 3, true));
+    	Assertions.assertEquals(repeatDao.searchData("scan:", "", 1, 3, false), repeatDao.searchDataByScan("scan:", "", 1, 3, false));
+    }
+
     // TO-DO 和时间相关的测试 
     
 }
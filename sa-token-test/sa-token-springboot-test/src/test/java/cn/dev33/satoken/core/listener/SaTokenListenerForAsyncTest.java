@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.listener;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.listener.SaTokenEventCenter;
+import cn.dev33.satoken.listener.SaTokenEventDispatcher;
+import cn.dev33.satoken.listener.SaTokenEventDispatcher.OverflowPolicy;
+import cn.dev33.satoken.listener.SaTokenListenerForAsync;
+import cn.dev33.satoken.listener.SaTokenListenerForSimple;
+
+/**
+ * SaTokenListenerForAsync 异步侦听器 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenListenerForAsyncTest {
+
+	// 在后台线程按顺序执行
+	@Test
+	public void testAsync() throws InterruptedException {
+		List<String> list = new CopyOnWriteArrayList<>();
+		CountDownLatch latch = new CountDownLatch(2);
+		SaTokenEventDispatcher dispatcher = new SaTokenEventDispatcher();
+		SaTokenListenerForAsync listener = new SaTokenListenerForAsync(new SaTokenListenerForSimple() {
+			@Override
+			public void doLogout(String loginType, Object loginId, String tokenValue) {
+				list.add("logout-" + loginId + "-" + Thread.currentThread().getName());
+				latch.countDown();
+			}
+			@Override
+			public void doKickout(String loginType, Object loginId, String tokenValue) {
+				list.add("kickout-" + loginId + "-" + Thread.currentThread().getName());
+				latch.countDown();
+			}
+		}, dispatcher);
+		SaTokenEventCenter.registerListener(listener);
+		try {
+			SaTokenEventCenter.doLogout("login", 10001, "token-1");
+			SaTokenEventCenter.doKickout("login", 10002, "token-2");
+			Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS));
+		} finally {
+			SaTokenEventCenter.removeListener(listener);
+		}
+		Assertions.assertEquals(2, list.size());
+		Assertions.assertTrue(list.get(0).startsWith("logout-10001-sa-token-event-"));
+		Assertions.assertTrue(list.get(1).startsWith("kickout-10002-sa-token-event-"));
+		Assertions.assertEquals(2, dispatcher.getDispatchCount());
+		Assertions.assertTrue(dispatcher.shutdown(5000));
+		Assertions.assertEquals(0, dispatcher.getPendingCount());
+	}
+
+	// 超出上限时的处理策略
+	@Test
+	public void testOverflow() throws InterruptedException {
+		CountDownLatch block = new CountDownLatch(1);
+		Runnable blockTask = () -> {
+			try {
+				block.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+
+		// 丢弃
+		SaTokenEventDispatcher dropDispatcher = new SaTokenEventDispatcher(1, 1, OverflowPolicy.DROP);
+		dropDispatcher.dispatch(blockTask);
+		dropDispatcher.dispatch(() -> {});
+		Assertions.assertEquals(1, dropDispatcher.getPendingCount());
+		Assertions.assertEquals(1, dropDispatcher.getDropCount());
+
+		// 在发布线程中执行，异常不向外抛出
+		SaTokenEventDispatcher callerDispatcher = new SaTokenEventDispatcher(1, 1, OverflowPolicy.CALLER_RUNS);
+		callerDispatcher.dispatch(blockTask);
+		String[] threadName = new String[1];
+		callerDispatcher.dispatch(() -> threadName[0] = Thread.currentThread().getName());
+		callerDispatcher.dispatch(() -> {
+			throw new RuntimeException("侦听器异常");
+		});
+		Assertions.assertEquals(Thread.currentThread().getName(), threadName[0]);
+		Assertions.assertEquals(2, callerDispatcher.getCallerRunsCount());
+		Assertions.assertEquals(1, callerDispatcher.getErrorCount());
+
+		block.countDown();
+		Assertions.assertTrue(dropDispatcher.shutdown(5000));
+		Assertions.assertTrue(callerDispatcher.shutdown(5000));
+	}
+
+	// 按类型判断、移除侦听器时，异步装饰器按被装饰的侦听器判断
+	@Test
+	public void testRemoveByClass() {
+		SaTokenEventDispatcher dispatcher = new SaTokenEventDispatcher();
+		SaTokenEventCenter.registerListener(new SaTokenListenerForAsync(new SaTokenListenerForSimple(), dispatcher));
+		try {
+			Assertions.assertTrue(SaTokenEventCenter.hasListener(SaTokenListenerForSimple.class));
+			Assertions.assertTrue(SaTokenEventCenter.hasListener(SaTokenListenerForAsync.class));
+			SaTokenEventCenter.removeListener(SaTokenListenerForSimple.class);
+			Assertions.assertFalse(SaTokenEventCenter.hasListener(SaTokenListenerForSimple.class));
+			Assertions.assertFalse(SaTokenEventCenter.hasListener(SaTokenListenerForAsync.class));
+		} finally {
+			SaTokenEventCenter.removeListener(SaTokenListenerForAsync.class);
+			dispatcher.shutdown(5000);
+		}
+	}
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.context.SaTokenContext;
+import cn.dev33.satoken.context.SaTokenContextForThreadLocal;
+import cn.dev33.satoken.exception.StopMatchException;
+import cn.dev33.satoken.router.SaHttpMethod;
+import cn.dev33.satoken.router.SaRouteRule;
+import cn.dev33.satoken.router.SaRouteTable;
+import cn.dev33.satoken.router.SaRouter;
+import cn.dev33.satoken.spring.SaTokenContextForSpring;
+import cn.dev33.satoken.spring.pathmatch.SaPatternsRequestConditionHolder;
+
+/**
+ * SaRouteTable 预编译路由表 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaRouteTableTest {
+
+	static SaTokenContext oldContext;
+
+	@BeforeAll
+	public static void beforeClass() {
+		oldContext = SaManager.getSaTokenContext();
+		SaManager.setSaTokenContext(new SaTokenContextForSpring());
+	}
+
+	@AfterAll
+	public static void afterClass() {
+		SaManager.setSaTokenContext(oldContext);
+	}
+
+	// 命中规则
+	@Test
+	public void testHitRules() {
+		SaRouteRule loginRule = new SaRouteRule().match("/**").notMatch("/user/doLogin", "/static/**");
+		SaRouteRule adminRule = new SaRouteRule().match("/admin/**").match(SaHttpMethod.POST, SaHttpMethod.PUT);
+		SaRouteRule userRule = new SaRouteRule().match("/user/{id}/info", "/user/*.json").notMatchMethod("delete");
+		SaRouteRule fallbackRule = new SaRouteRule().match("/art/?").notMatch("/art/x");
+		SaRouteRule allRule = new SaRouteRule();
+		SaRouteTable table = SaRouteTable.of(loginRule, adminRule, userRule, fallbackRule, allRule);
+		Assertions.assertEquals(5, table.size());
+
+		Assertions.assertEquals(Arrays.asList(allRule), table.getHitRules("/user/doLogin", "GET"));
+		Assertions.assertEquals(Arrays.asList(allRule), table.getHitRules("/user/doLogin/", "GET"));
+		Assertions.assertEquals(Arrays.asList(allRule), table.getHitRules("/static/a/b.js", "GET"));
+		Assertions.assertEquals(Arrays.asList(loginRule, adminRule, allRule), table.getHitRules("/admin/user/add", "POST"));
+		Assertions.assertEquals(Arrays.asList(loginRule, allRule), table.getHitRules("/admin/user/add", "get"));
+		Assertions.assertEquals(Arrays.asList(loginRule, adminRule, allRule), table.getHitRules("/admin", "put"));
+		Assertions.assertEquals(Arrays.asList(loginRule, userRule, allRule), table.getHitRules("/user/1001/info", "GET"));
+		Assertions.assertEquals(Arrays.asList(loginRule, allRule), table.getHitRules("/user/1001/info", "DELETE"));
+		Assertions.assertEquals(Arrays.asList(loginRule, userRule, allRule), table.getHitRules("/user/list.json", "GET"));
+		Assertions.assertEquals(Arrays.asList(loginRule, fallbackRule, allRule), table.getHitRules("/art/a", "GET"));
+		Assertions.assertEquals(Arrays.asList(loginRule, allRule), table.getHitRules("/art/x", "GET"));
+		Assertions.assertEquals(Arrays.asList(loginRule, allRule), table.getHitRules("/art/ab", "GET"));
+	}
+
+	// 按顺序执行校验函数，并支持提前退出
+	@Test
+	public void testCheck() {
+		List<String> list = new ArrayList<>();
+		SaRouteTable table = SaRouteTable.of(
+				new SaRouteRule().match("/**").check(() -> list.add("1")),
+				new SaRouteRule().match("/user/**").check(r -> list.add("2")),
+				new SaRouteRule().match("/user/stop").check(r -> SaRouter.stop()),
+				new SaRouteRule().match("/**").check(r -> list.add("3"))
+		);
+		table.check("/user/info", "GET");
+		Assertions.assertEquals(Arrays.asList("1", "2", "3"), list);
+
+		list.clear();
+		Assertions.assertThrows(StopMatchException.class, () -> table.check("/user/stop", "GET"));
+		Assertions.assertEquals(Arrays.asList("1", "2"), list);
+	}
+
+	// 与 Spring MVC 的路由匹配结果保持一致
+	@Test
+	public void testSameAsSpring() {
+		Random random = new Random(20241016);
+		String[] patternSegments = {"a", "b", "*", "**", "{id}", "a*", "*b"};
+		String[] pathSegments = {"a", "b", "ab", "ba"};
+		for (int round = 0; round < 3000; round++) {
+			String pattern = randomPath(random, patternSegments, 1, 4, false);
+			String path = randomPath(random, pathSegments, 0, 5, random.nextBoolean());
+			SaRouteRule rule = new SaRouteRule().match(pattern);
+			boolean expected = SaPatternsRequestConditionHolder.match(pattern, path);
+			Assertions.assertEquals( expected, ! SaRouteTable.of(rule).getHitRules(path, "GET").isEmpty(), pattern + " -> " + path);
+			SaRouteRule excludeRule = new SaRouteRule().notMatch(pattern);
+			Assertions.assertEquals(expected, SaRouteTable.of(excludeRule).getHitRules(path, "GET").isEmpty(), pattern + " -> " + path);
+		}
+	}
+
+	// 上下文的路由匹配规则与前缀树不一致时，所有路由匹配符都交由上下文逐个匹配
+	@Test
+	public void testOtherContext() {
+		SaRouteRule rule = new SaRouteRule().match("/user/**", "/art/*").notMatch("/user/doLogin");
+		SaRouteTable table = SaRouteTable.of(rule);
+		Assertions.assertFalse(table.getHitRules("/user/info/", "GET").isEmpty());
+		SaManager.setSaTokenContext(new SaTokenContextForThreadLocal() {
+			@Override
+			public boolean matchPath(String pattern, String path) {
+				// 模拟尾部的 / 会影响匹配结果的框架
+				return ! path.endsWith("/") && SaPatternsRequestConditionHolder.match(pattern, path);
+			}
+		});
+		try {
+			Assertions.assertTrue(table.getHitRules("/user/info/", "GET").isEmpty());
+			Assertions.assertTrue(table.getHitRules("/art/1/", "GET").isEmpty());
+			Assertions.assertEquals(Arrays.asList(rule), table.getHitRules("/user/info", "GET"));
+			Assertions.assertEquals(Arrays.asList(rule), table.getHitRules("/art/1", "GET"));
+			Assertions.assertTrue(table.getHitRules("/user/doLogin", "GET").isEmpty());
+		} finally {
+			SaManager.setSaTokenContext(new SaTokenContextForSpring());
+		}
+	}
+
+	private String randomPath(Random random, String[] segments, int minCount, int maxCount, boolean endsWithSlash) {
+		int count = minCount + random.nextInt(maxCount - minCount + 1);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			sb.append("/").append(segments[random.nextInt(segments.length)]);
+		}
+		if(count == 0 || endsWithSlash) {
+			sb.append("/");
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.same;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.same.SaSameTemplate;
+import cn.dev33.satoken.same.SaSameTemplateForCache;
+
+/**
+ * SaSameTemplateForCache Same-Token 本地缓存 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSameTemplateForCacheTest {
+
+	SaTokenDao oldDao;
+
+	@BeforeEach
+	public void before() {
+		oldDao = SaManager.getSaTokenDao();
+		SaManager.setSaTokenDao(new SaTokenDaoDefaultImpl());
+	}
+
+	@AfterEach
+	public void after() {
+		SaManager.getSaTokenDao().destroy();
+		SaManager.setSaTokenDao(oldDao);
+	}
+
+	// 缓存命中时不读取持久层
+	@Test
+	public void testCache() {
+		SaSameTemplateForCache template = new SaSameTemplateForCache().setCacheTimeout(60000);
+		String token = template.getToken();
+		long loadCount = template.loadCount.sum();
+		for (int i = 0; i < 100; i++) {
+			Assertions.assertEquals(token, template.getToken());
+			Assertions.assertTrue(template.isValid(token));
+		}
+		Assertions.assertEquals(loadCount, template.loadCount.sum());
+
+		// 本节点刷新后，新旧 token 均有效
+		String newToken = template.refreshToken();
+		Assertions.assertNotEquals(newToken, token);
+		Assertions.assertEquals(newToken, template.getToken());
+		Assertions.assertTrue(template.isValid(token));
+		Assertions.assertTrue(template.isValid(newToken));
+		Assertions.assertFalse(template.isValid(""));
+	}
+
+	// 其它节点刷新后，距上次加载超过最小间隔时，校验不一致会重新加载一次；最小间隔内直接判定无效
+	@Test
+	public void testRotation() throws Exception {
+		SaSameTemplateForCache template = new SaSameTemplateForCache().setCacheTimeout(60000).setMinReloadInterval(60000);
+		String token = template.getToken();
+
+		String otherToken = new SaSameTemplate().refreshToken();
+		long loadCount = template.loadCount.sum();
+		Assertions.assertFalse(template.isValid(otherToken));
+		Assertions.assertTrue(template.isValid(token));
+		Assertions.assertEquals(loadCount, template.loadCount.sum());
+
+		template.setMinReloadInterval(0);
+		Assertions.assertTrue(template.isValid(otherToken));
+		Assertions.assertTrue(template.isValid(token));
+		Assertions.assertEquals(otherToken, template.getToken());
+		Assertions.assertEquals(loadCount + 1, template.loadCount.sum());
+
+		template.invalidate();
+		loadCount = template.loadCount.sum();
+		Assertions.assertEquals(otherToken, template.getToken());
+		Assertions.assertEquals(loadCount + 1, template.loadCount.sum());
+	}
+
+	// 无效 token 每个最小间隔内最多读取一次持久层，多个线程同时校验时同样只读取一次
+	@Test
+	public void testReloadInterval() throws Exception {
+		SaSameTemplateForCache template = new SaSameTemplateForCache().setCacheTimeout(60000).setMinReloadInterval(200);
+		template.getToken();
+		long loadCount = template.loadCount.sum();
+		for (int i = 0; i < 100; i++) {
+			Assertions.assertFalse(template.isValid("invalid-token"));
+		}
+		Assertions.assertEquals(loadCount, template.loadCount.sum());
+
+		Thread.sleep(250);
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		for (int i = 0; i < 8; i++) {
+			executor.execute(() -> {
+				try {
+					start.await();
+					for (int j = 0; j < 50; j++) {
+						template.isValid("invalid-token");
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		Assertions.assertEquals(loadCount + 1, template.loadCount.sum());
+	}
+
+	// Same-Token 不存在时，多个线程并发获取，只刷新一次
+	@Test
+	public void testSingleFlight() throws Exception {
+		SaSameTemplateForCache template = new SaSameTemplateForCache();
+		Set<String> tokenSet = ConcurrentHashMap.newKeySet();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		for (int i = 0; i < 8; i++) {
+			executor.execute(() -> {
+				try {
+					start.await();
+					tokenSet.add(template.getToken());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		Assertions.assertEquals(1, tokenSet.size());
+		Assertions.assertNull(template.getPastTokenNh());
+	}
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.session;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.session.SaSessionWriteScope;
+import cn.dev33.satoken.session.TokenSign;
+
+/**
+ * SaSessionWriteScope 写入合并作用域 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSessionWriteScopeTest {
+
+	SaTokenDao oldDao;
+
+	List<String> updateLog = new ArrayList<>();
+
+	@BeforeEach
+	public void before() {
+		oldDao = SaManager.getSaTokenDao();
+		SaManager.setSaTokenDao(new SaTokenDaoDefaultImpl() {
+			@Override
+			public void updateSession(SaSession session) {
+				updateLog.add(session.getId());
+				if(session.getId().equals("session-error")) {
+					throw new IllegalArgumentException();
+				}
+				super.updateSession(session);
+			}
+		});
+	}
+
+	@AfterEach
+	public void after() {
+		SaManager.getSaTokenDao().destroy();
+		SaManager.setSaTokenDao(oldDao);
+	}
+
+	// 不在作用域内时，每次修改立即写入
+	@Test
+	public void testWithoutScope() {
+		SaSession session = new SaSession("session-2001");
+		SaManager.getSaTokenDao().setSession(session, 1000);
+		session.set("name", "zhangsan");
+		session.delete("name");
+		session.addTokenSign(new TokenSign("token-1", "PC", null));
+		Assertions.assertEquals(3, updateLog.size());
+	}
+
+	// 作用域内的多次修改合并为一次写入
+	@Test
+	public void testScope() {
+		SaSession session1 = new SaSession("session-2002");
+		SaSession session2 = new SaSession("session-2003");
+		SaManager.getSaTokenDao().setSession(session1, 1000);
+		SaManager.getSaTokenDao().setSession(session2, 1000);
+
+		SaSessionWriteScope.run(() -> {
+			session1.set("name", "zhangsan");
+			session1.set("age", 18);
+			SaSessionWriteScope.run(() -> session1.delete("name"));
+			session2.addTokenSign(new TokenSign("token-1", "PC", null));
+			session2.removeTokenSign("token-1");
+			session1.setByNull("tmp", 1);
+			Assertions.assertTrue(updateLog.isEmpty());
+		});
+
+		Assertions.assertFalse(SaSessionWriteScope.isActive());
+		Assertions.assertEquals(Arrays.asList("session-2003", "session-2002"), updateLog);
+		SaSession saved = SaManager.getSaTokenDao().getSession("session-2002");
+		Assertions.assertEquals(18, saved.get("age"));
+		Assertions.assertEquals(1, saved.get("tmp"));
+		Assertions.assertNull(saved.get("name"));
+	}
+
+	// 作用域内注销的 SaSession 不再写入，抛出异常时已发生的修改仍然写入
+	@Test
+	public void testLogoutAndError() {
+		SaSession session1 = new SaSession("session-2004");
+		SaSession session2 = new SaSession("session-2005");
+		SaManager.getSaTokenDao().setSession(session1, 1000);
+		SaManager.getSaTokenDao().setSession(session2, 1000);
+
+		Assertions.assertThrows(IllegalStateException.class, () -> SaSessionWriteScope.run(() -> {
+			session1.set("name", "zhangsan");
+			session1.logout();
+			session2.update();
+			throw new IllegalStateException();
+		}));
+		Assertions.assertEquals(Arrays.asList("session-2005"), updateLog);
+		Assertions.assertNull(SaManager.getSaTokenDao().getSession("session-2004"));
+
+		// 写入失败的异常附加到原异常上，不覆盖原异常
+		IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, () -> SaSessionWriteScope.run(() -> {
+			new SaSession("session-error").update();
+			throw new IllegalStateException();
+		}));
+		Assertions.assertEquals(IllegalArgumentException.class, e.getSuppressed()[0].getClass());
+		Assertions.assertFalse(SaSessionWriteScope.isActive());
+	}
+
+	// set、delete、addTokenSign 等方法统一经过 update() 写入，子类重写 update() 依然生效
+	@Test
+	public void testOverrideUpdate() {
+		List<String> log = new ArrayList<>();
+		SaSession session = new SaSession("session-2006") {
+			@Override
+			public void update() {
+				log.add("update");
+				super.update();
+			}
+		};
+		SaManager.getSaTokenDao().setSession(session, 1000);
+		session.set("name", "zhangsan");
+		session.setByNull("age", 18);
+		session.delete("name");
+		session.addTokenSign(new TokenSign("token-1", "PC", null));
+		session.removeTokenSign("token-1");
+		Assertions.assertEquals(5, log.size());
+		Assertions.assertEquals(5, updateLog.size());
+	}
+
+}
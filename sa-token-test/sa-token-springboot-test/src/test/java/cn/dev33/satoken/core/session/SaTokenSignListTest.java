@@ -0,0 +1,146 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Vector;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.session.SaTokenSignList;
+import cn.dev33.satoken.session.TokenSign;
+
+/**
+ * SaTokenSignList 只读 Token 签名列表 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenSignListTest {
+
+	// 索引与写时复制
+	@Test
+	public void testIndex() {
+		SaTokenSignList list = SaTokenSignList.of(Arrays.asList(
+				new TokenSign("token-1", "PC", null),
+				new TokenSign("token-2", "APP", null),
+				new TokenSign("token-3", "PC", null),
+				new TokenSign("token-1", "WEB", null)
+		));
+		Assertions.assertEquals(3, list.size());
+		Assertions.assertEquals("WEB", list.get(0).getDevice());
+		Assertions.assertEquals("APP", list.getByValue("token-2").getDevice());
+		Assertions.assertNull(list.getByValue("token-4"));
+		Assertions.assertEquals(Arrays.asList("token-3"), list.getValueListByDevice("PC"));
+		Assertions.assertEquals(Arrays.asList("token-1", "token-2", "token-3"), list.getValueListByDevice(null));
+		Assertions.assertEquals(1, list.getListByDevice("APP").size());
+		Assertions.assertTrue(list.getListByDevice("ipad").isEmpty());
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> list.getValueListByDevice("PC").add("token-5"));
+
+		// 修改时返回新列表，原列表不变
+		SaTokenSignList list2 = list.with(new TokenSign("token-2", "PC", null)).without("token-1");
+		Assertions.assertEquals(Arrays.asList("token-2", "token-3"), list2.getValueListByDevice("PC"));
+		Assertions.assertEquals(Arrays.asList("token-3"), list.getValueListByDevice("PC"));
+		Assertions.assertSame(list2.without("token-9"), list2);
+		Assertions.assertSame(list2.without("token-2").without("token-3"), SaTokenSignList.EMPTY);
+	}
+
+	// JDK 序列化：写出的仍是 Vector，读回后可正常查找
+	@Test
+	public void testJdkSerialize() throws Exception {
+		SaSession session = new SaSession("session-1003");
+		session.setTokenSignList(Arrays.asList(new TokenSign("token-1", "PC", null), new TokenSign("token-2", "APP", null)));
+
+		Assertions.assertEquals(Vector.class, readObject(writeObject(SaTokenSignList.of(session.getTokenSignList()))).getClass());
+
+		SaSession session2 = (SaSession) readObject(writeObject(session));
+		Assertions.assertEquals("APP", session2.getTokenSign("token-2").getDevice());
+		Assertions.assertEquals(Arrays.asList("token-1"), session2.getTokenValueListByDevice("PC"));
+	}
+
+	// Jackson 序列化（带类型信息，与 GenericJackson2JsonRedisSerializer 的格式一致）
+	@Test
+	public void testJacksonSerialize() throws Exception {
+		ObjectMapper objectMapper = new ObjectMapper();
+		objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+		objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
+
+		SaSession session = new SaSession("session-1004");
+		session.addTokenSign(new TokenSign("token-1", "PC", null));
+		session.addTokenSign(new TokenSign("token-2", "APP", null));
+		String json = objectMapper.writeValueAsString(session.getTokenSignList());
+		Assertions.assertTrue(json.contains("java.util.Vector"));
+
+		SaSession session2 = new SaSession("session-1004");
+		session2.setTokenSignList(objectMapper.readValue(json, objectMapper.getTypeFactory().constructCollectionType(Vector.class, TokenSign.class)));
+		Assertions.assertEquals("PC", session2.getTokenSign("token-1").getDevice());
+		Assertions.assertEquals(1, session2.getTokenSignListByDevice("APP").size());
+	}
+
+	// 按字段序列化（与 Redisson 的 JsonJacksonCodec 的配置一致）：写出的是 Vector，读回旧数据中的 Vector 也可正常使用
+	@Test
+	public void testJacksonFieldSerialize() throws Exception {
+		ObjectMapper objectMapper = new ObjectMapper();
+		objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+		objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+		objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+		objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
+
+		SaSession session = new SaSession("session-1005");
+		session.addTokenSign(new TokenSign("token-1", "PC", null));
+		session.addTokenSign(new TokenSign("token-2", "APP", null));
+		String json = objectMapper.writeValueAsString(session);
+		Assertions.assertTrue(json.contains("java.util.Vector"));
+		Assertions.assertFalse(json.contains(SaTokenSignList.class.getName()));
+
+		SaSession session2 = objectMapper.readValue(json, SaSession.class);
+		Assertions.assertEquals("APP", session2.getTokenSign("token-2").getDevice());
+		Assertions.assertEquals(Arrays.asList("token-1"), session2.getTokenValueListByDevice("PC"));
+
+		// 读回后继续修改，再写出、读回
+		session2.addTokenSign(new TokenSign("token-3", "PC", null));
+		session2.removeTokenSign("token-1");
+		SaSession session3 = objectMapper.readValue(objectMapper.writeValueAsString(session2), SaSession.class);
+		Assertions.assertEquals(Arrays.asList("token-2", "token-3"), session3.getTokenValueListByDevice(null));
+	}
+
+	private byte[] writeObject(Object obj) throws Exception {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+			oos.writeObject(obj);
+		}
+		return bos.toByteArray();
+	}
+
+	private Object readObject(byte[] bytes) throws Exception {
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return ois.readObject();
+		}
+	}
+
+}
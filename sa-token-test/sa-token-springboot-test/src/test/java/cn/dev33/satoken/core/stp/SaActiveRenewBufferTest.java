@@ -0,0 +1,144 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.stp;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.config.SaTokenConfig;
+import cn.dev33.satoken.core.dao.SaTokenDaoForCount;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.stp.SaActiveRenewBuffer;
+import cn.dev33.satoken.stp.StpLogic;
+
+/**
+ * SaActiveRenewBuffer 自动续签合并 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaActiveRenewBufferTest {
+
+	// 同一 token 的多次续签只写入一次，写入前本节点读取到的是最新值
+    @Test
+    public void renewAndFlush() throws InterruptedException {
+    	StpLogic stpLogic = new StpLogic("renew-buffer");
+    	stpLogic.setConfig(new SaTokenConfig().setActiveTimeout(180).setAutoRenewWriteInterval(600));
+    	String token = stpLogic.createLoginSession(10001);
+    	long loginTime = stpLogic.getTokenLastActiveTime(token);
+    	String storedValue = SaManager.getSaTokenDao().get(stpLogic.splicingKeyLastActiveTime(token));
+
+    	Thread.sleep(5);
+    	SaActiveRenewBuffer buffer = stpLogic.getActiveRenewBuffer();
+    	for (int i = 0; i < 10; i++) {
+    		buffer.renew(token);
+		}
+    	Assertions.assertEquals(9, buffer.getSuppressedCount());
+    	Assertions.assertEquals(0, buffer.getWriteCount());
+
+    	// 尚未写入持久层，但本节点已经能读到新值
+    	Assertions.assertEquals(storedValue, SaManager.getSaTokenDao().get(stpLogic.splicingKeyLastActiveTime(token)));
+    	Assertions.assertTrue(stpLogic.getTokenLastActiveTime(token) > loginTime);
+
+    	// 批量写入
+    	buffer.flush();
+    	Assertions.assertEquals(1, buffer.getWriteCount());
+    	Assertions.assertNull(buffer.getPending(token));
+    	Assertions.assertTrue(stpLogic.getTokenLastActiveTime(token) > loginTime);
+
+    	// 注销后，尚未写入的续签记录被丢弃，不会把数据写回来
+    	buffer.renew(token);
+    	stpLogic.logoutByTokenValue(token);
+    	Assertions.assertNull(buffer.getPending(token));
+    	buffer.flush();
+    	Assertions.assertNull(SaManager.getSaTokenDao().get(stpLogic.splicingKeyLastActiveTime(token)));
+    	buffer.destroy();
+    }
+
+	// 多个 token 的续签记录合并为一个批量操作写入
+    @Test
+    public void flushInOneBatch() {
+    	SaTokenDao oldDao = SaManager.getSaTokenDao();
+    	SaTokenDaoForCount dao = new SaTokenDaoForCount(new SaTokenDaoDefaultImpl());
+    	SaManager.setSaTokenDao(dao);
+    	try {
+    		StpLogic stpLogic = new StpLogic("renew-buffer-batch");
+    		stpLogic.setConfig(new SaTokenConfig().setActiveTimeout(180).setAutoRenewWriteInterval(600));
+    		SaActiveRenewBuffer buffer = stpLogic.getActiveRenewBuffer();
+    		for (int i = 0; i < 5; i++) {
+    			buffer.renew(stpLogic.createLoginSession(10001 + i));
+    		}
+    		dao.count.set(0);
+    		buffer.flush();
+    		Assertions.assertEquals(1, dao.count.get());
+    		Assertions.assertEquals(5, buffer.getWriteCount());
+    		SaManager.removeStpLogic("renew-buffer-batch");
+    		Assertions.assertFalse(buffer.isRunning());
+    	} finally {
+    		SaManager.setSaTokenDao(oldDao);
+    	}
+    }
+
+	// 写入间隔不小于 activeTimeout 时按 activeTimeout 的一半执行，避免其它节点把仍在活跃的 token 判定为冻结
+    @Test
+    public void capInterval() {
+    	StpLogic stpLogic = new StpLogic("renew-buffer-cap");
+    	SaTokenConfig config = new SaTokenConfig().setActiveTimeout(180).setAutoRenewWriteInterval(600);
+    	stpLogic.setConfig(config);
+    	Assertions.assertEquals(90, stpLogic.getAutoRenewWriteInterval());
+
+    	config.setAutoRenewWriteInterval(60);
+    	Assertions.assertEquals(60, stpLogic.getAutoRenewWriteInterval());
+
+    	config.setActiveTimeout(-1).setAutoRenewWriteInterval(600);
+    	Assertions.assertEquals(600, stpLogic.getAutoRenewWriteInterval());
+
+    	// activeTimeout 不足 2 秒时不再合并，每次续签都立即写入
+    	config.setActiveTimeout(1).setAutoRenewWriteInterval(600);
+    	Assertions.assertEquals(0, stpLogic.getAutoRenewWriteInterval());
+    }
+
+	// autoRenewWriteInterval 改回 0 后后台线程结束，再次开启时重新创建；被 SaManager 替换时结束后台线程
+    @Test
+    public void stopAndRestart() throws InterruptedException {
+    	StpLogic stpLogic = new StpLogic("renew-buffer-stop");
+    	SaTokenConfig config = new SaTokenConfig().setActiveTimeout(180).setAutoRenewWriteInterval(1);
+    	stpLogic.setConfig(config);
+    	SaActiveRenewBuffer buffer = stpLogic.getActiveRenewBuffer();
+    	config.setAutoRenewWriteInterval(0);
+    	buffer.flushThread.join(5000);
+    	Assertions.assertFalse(buffer.flushThread.isAlive());
+    	Assertions.assertFalse(buffer.isRunning());
+
+    	// 线程结束后的续签记录直接写入
+    	String token = stpLogic.createLoginSession(10001);
+    	buffer.renew(token);
+    	Assertions.assertNull(buffer.getPending(token));
+
+    	config.setAutoRenewWriteInterval(600);
+    	SaActiveRenewBuffer newBuffer = stpLogic.getActiveRenewBuffer();
+    	Assertions.assertNotSame(buffer, newBuffer);
+    	Assertions.assertTrue(newBuffer.isRunning());
+
+    	StpLogic newStpLogic = new StpLogic("renew-buffer-stop");
+    	Assertions.assertSame(newStpLogic, SaManager.getStpLogic("renew-buffer-stop"));
+    	newBuffer.flushThread.join(5000);
+    	Assertions.assertFalse(newBuffer.flushThread.isAlive());
+    }
+
+}
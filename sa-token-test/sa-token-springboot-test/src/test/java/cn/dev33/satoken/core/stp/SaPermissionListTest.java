@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.stp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.stp.SaPermissionList;
+import cn.dev33.satoken.strategy.SaStrategy;
+import cn.dev33.satoken.util.SaFoxUtil;
+
+/**
+ * SaPermissionList 已编译权限码集合 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaPermissionListTest {
+
+	// 基本匹配
+	@Test
+	public void testHas() {
+		SaPermissionList list = SaPermissionList.of(Arrays.asList("user-add", "user.*", "art*", "*.get", "goods.*.update", null));
+		Assertions.assertTrue(list.has("user-add"));
+		Assertions.assertFalse(list.has("user-delete"));
+		Assertions.assertTrue(list.has("user."));
+		Assertions.assertTrue(list.has("user.add.x"));
+		Assertions.assertTrue(list.has("art"));
+		Assertions.assertTrue(list.has("article-add"));
+		Assertions.assertFalse(list.has("ar"));
+		Assertions.assertTrue(list.has("order.get"));
+		Assertions.assertTrue(list.has("goods.1.update"));
+		Assertions.assertFalse(list.has("goods.1.delete"));
+		Assertions.assertTrue(list.has(null));
+
+		// 作为 List 使用时与原集合一致
+		Assertions.assertEquals(6, list.size());
+		Assertions.assertEquals("user.*", list.get(1));
+		Assertions.assertTrue(list.contains("art*"));
+		Assertions.assertSame(SaPermissionList.of(list), list);
+		Assertions.assertNull(SaPermissionList.of(null));
+
+		// 全部匹配
+		Assertions.assertTrue(SaPermissionList.of(Arrays.asList("*")).has("anything"));
+		Assertions.assertTrue(SaPermissionList.of(Arrays.asList("*")).has(""));
+		Assertions.assertFalse(SaPermissionList.of(new ArrayList<>()).has(""));
+	}
+
+	// 只读，且与原集合之后的修改无关
+	@Test
+	public void testReadOnly() {
+		List<String> source = new ArrayList<>(Arrays.asList("user-add", "art*"));
+		SaPermissionList list = SaPermissionList.of(source);
+		source.add("user-delete");
+		source.set(1, "goods-add");
+		Assertions.assertEquals(2, list.size());
+		Assertions.assertFalse(list.has("user-delete"));
+		Assertions.assertTrue(list.has("article-add"));
+		Assertions.assertFalse(list.has("goods-add"));
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> list.add("user-delete"));
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> list.remove(0));
+
+		// 复制一份后可以修改
+		List<String> copy = new ArrayList<>(list);
+		copy.add("user-delete");
+		Assertions.assertEquals(3, copy.size());
+	}
+
+	// 与逐个模糊匹配的结果保持一致
+	@Test
+	public void testSameAsVagueMatch() {
+		Random random = new Random(20241016);
+		String alphabet = "ab.*";
+		for (int round = 0; round < 300; round++) {
+			List<String> patterns = new ArrayList<>();
+			for (int i = 0; i < 6; i++) {
+				patterns.add(randomString(random, alphabet, 5));
+			}
+			SaPermissionList list = SaPermissionList.of(patterns);
+			for (int i = 0; i < 30; i++) {
+				String element = randomString(random, "ab.", 6);
+				boolean expected = false;
+				for (String pattern : patterns) {
+					expected |= SaFoxUtil.vagueMatch(pattern, element);
+				}
+				Assertions.assertEquals(expected, list.has(element), patterns + " -> " + element);
+				Assertions.assertEquals(expected, SaStrategy.instance.hasElement.apply(list, element));
+			}
+		}
+	}
+
+	private String randomString(Random random, String alphabet, int maxLength) {
+		int length = random.nextInt(maxLength + 1);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.stp;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.context.SaTokenContext;
+import cn.dev33.satoken.context.SaTokenContextForThreadLocal;
+import cn.dev33.satoken.context.SaTokenContextForThreadLocalStorage;
+import cn.dev33.satoken.context.model.SaStorage;
+import cn.dev33.satoken.listener.SaTokenEventCenter;
+import cn.dev33.satoken.stp.StpInterface;
+import cn.dev33.satoken.stp.StpInterfaceForCache;
+import cn.dev33.satoken.stp.StpLogic;
+
+/**
+ * StpInterface 权限数据缓存 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class StpInterfaceForCacheTest {
+
+	// 记录调用次数的 StpInterface
+	AtomicInteger count = new AtomicInteger();
+	StpInterface countStpInterface = new StpInterface() {
+		@Override
+		public List<String> getPermissionList(Object loginId, String loginType) {
+			count.incrementAndGet();
+			return "10001".equals(String.valueOf(loginId)) ? Arrays.asList("user-add", "user-get", "art*") : null;
+		}
+		@Override
+		public List<String> getRoleList(Object loginId, String loginType) {
+			count.incrementAndGet();
+			return "10001".equals(String.valueOf(loginId)) ? Arrays.asList("admin") : null;
+		}
+	};
+
+	StpInterface oldStpInterface;
+	SaTokenContext oldContext;
+
+	@BeforeEach
+	public void before() {
+		oldStpInterface = SaManager.getStpInterface();
+		oldContext = SaManager.getSaTokenContext();
+	}
+
+	@AfterEach
+	public void after() {
+		SaManager.setStpInterface(oldStpInterface);
+		SaManager.setSaTokenContext(oldContext);
+		SaTokenContextForThreadLocalStorage.clearBox();
+	}
+
+	// 同一次请求中，多次校验只调用一次 StpInterface
+	@Test
+	public void testRequestCache() {
+		SaManager.setStpInterface(countStpInterface);
+		SaManager.setSaTokenContext(new SaTokenContextForThreadLocal());
+		StpLogic stpLogic = new StpLogic("permission-cache");
+
+		// 不在 Web 上下文中时，每次都调用
+		SaTokenContextForThreadLocalStorage.clearBox();
+		stpLogic.hasPermission(10001, "user-add");
+		stpLogic.hasPermission(10001, "user-get");
+		Assertions.assertEquals(2, count.get());
+
+		// 模拟一次请求
+		count.set(0);
+		SaTokenContextForThreadLocalStorage.setBox(null, null, new MapStorage());
+		Assertions.assertTrue(stpLogic.hasPermission(10001, "user-add"));
+		Assertions.assertTrue(stpLogic.hasPermission(10001, "art-get"));
+		Assertions.assertFalse(stpLogic.hasPermission(10001, "user-delete"));
+		Assertions.assertTrue(stpLogic.hasRole(10001, "admin"));
+		Assertions.assertFalse(stpLogic.hasRole(10001, "super-admin"));
+		Assertions.assertEquals(2, count.get());
+
+		// 结果为 null 时也只调用一次
+		Assertions.assertNull(stpLogic.getPermissionList(10002));
+		Assertions.assertNull(stpLogic.getPermissionList(10002));
+		Assertions.assertEquals(3, count.get());
+
+		// 手动清除后重新加载
+		stpLogic.clearPermissionListInStorage(10001);
+		stpLogic.hasPermission(10001, "user-add");
+		Assertions.assertEquals(4, count.get());
+
+		// 新的请求重新加载
+		SaTokenContextForThreadLocalStorage.setBox(null, null, new MapStorage());
+		stpLogic.hasPermission(10001, "user-add");
+		Assertions.assertEquals(5, count.get());
+	}
+
+	// 请求中获取到的集合可以修改，且不影响后续校验
+	@Test
+	public void testMutableList() {
+		SaManager.setStpInterface(countStpInterface);
+		SaManager.setSaTokenContext(new SaTokenContextForThreadLocal());
+		StpLogic stpLogic = new StpLogic("permission-cache-mutable");
+		SaTokenContextForThreadLocalStorage.setBox(null, null, new MapStorage());
+
+		List<String> permissionList = stpLogic.getPermissionList(10001);
+		permissionList.add("user-delete");
+		permissionList.remove("user-add");
+		Assertions.assertFalse(stpLogic.hasPermission(10001, "user-delete"));
+		Assertions.assertTrue(stpLogic.hasPermission(10001, "user-add"));
+		Assertions.assertEquals(3, stpLogic.getPermissionList(10001).size());
+
+		List<String> roleList = stpLogic.getRoleList(10001);
+		roleList.add("super-admin");
+		Assertions.assertFalse(stpLogic.hasRole(10001, "super-admin"));
+		Assertions.assertEquals(2, count.get());
+	}
+
+	// 跨请求缓存
+	@Test
+	public void testCrossRequestCache() throws InterruptedException {
+		StpInterfaceForCache cache = new StpInterfaceForCache(countStpInterface);
+		cache.init();
+		try {
+			for (int i = 0; i < 5; i++) {
+				Assertions.assertEquals(3, cache.getPermissionList(10001, "login").size());
+				Assertions.assertEquals(1, cache.getRoleList(10001, "login").size());
+				Assertions.assertNull(cache.getRoleList(10002, "login"));
+			}
+			Assertions.assertEquals(3, count.get());
+			Assertions.assertEquals(3, cache.getMissCount());
+			Assertions.assertEquals(12, cache.getHitCount());
+
+			// 不同账号类型分开缓存
+			cache.getPermissionList(10001, "user");
+			Assertions.assertEquals(4, count.get());
+
+			// 手动清除
+			cache.invalidate("login", 10001);
+			cache.getPermissionList(10001, "login");
+			cache.getRoleList(10001, "login");
+			Assertions.assertEquals(6, count.get());
+
+			// 事件触发清除
+			SaTokenEventCenter.doLogout("login", 10001, "xxx");
+			cache.getPermissionList(10001, "login");
+			Assertions.assertEquals(7, count.get());
+
+			// 过期后重新加载
+			cache.setCacheTimeout(30);
+			cache.invalidateAll();
+			cache.getPermissionList(10001, "login");
+			Thread.sleep(50);
+			cache.getPermissionList(10001, "login");
+			Assertions.assertEquals(9, count.get());
+
+			// 数量上限
+			cache.setCacheTimeout(60000).setMaxSize(10);
+			for (int i = 0; i < 30; i++) {
+				cache.getPermissionList(i, "login");
+			}
+			Assertions.assertTrue(cache.permissionMap.size() <= 10);
+		} finally {
+			cache.destroy();
+		}
+		Assertions.assertFalse(SaTokenEventCenter.hasListener(cache.invalidateListener));
+	}
+
+	/**
+	 * 基于 Map 的 SaStorage
+	 */
+	static class MapStorage implements SaStorage {
+		Map<String, Object> map = new HashMap<>();
+		@Override
+		public Object getSource() {
+			return map;
+		}
+		@Override
+		public Object get(String key) {
+			return map.get(key);
+		}
+		@Override
+		public SaStorage set(String key, Object value) {
+			map.put(key, value);
+			return this;
+		}
+		@Override
+		public SaStorage delete(String key) {
+			map.remove(key);
+			return this;
+		}
+	}
+
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.stp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.config.SaTokenConfig;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoBatch;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.exception.NotLoginException;
+import cn.dev33.satoken.listener.SaTokenEventCenter;
+import cn.dev33.satoken.listener.SaTokenListenerForSimple;
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.session.SaSessionWriteScope;
+import cn.dev33.satoken.stp.SaLoginModel;
+import cn.dev33.satoken.stp.StpLogic;
+
+/**
+ * StpLogic 登录 / 注销时合并 Account-Session 写入 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class StpLogicWriteScopeTest {
+
+	SaTokenDao oldDao;
+
+	AtomicInteger updateCount = new AtomicInteger();
+
+	boolean failUpdate;
+
+	StpLogic stpLogic;
+
+	@BeforeEach
+	public void before() {
+		oldDao = SaManager.getSaTokenDao();
+		SaManager.setSaTokenDao(new SaTokenDaoDefaultImpl() {
+			@Override
+			public void updateSession(SaSession session) {
+				updateCount.incrementAndGet();
+				if(failUpdate) {
+					throw new IllegalArgumentException();
+				}
+				super.updateSession(session);
+			}
+		});
+		stpLogic = new StpLogic("write-scope");
+	}
+
+	@AfterEach
+	public void after() {
+		SaManager.getSaTokenDao().destroy();
+		SaManager.setSaTokenDao(oldDao);
+		SaManager.removeStpLogic("write-scope");
+	}
+
+	// 注销多个设备时，Account-Session 只写入一次；全部注销时不再写入
+	@Test
+	public void testLogout() {
+		for (int i = 0; i < 6; i++) {
+			stpLogic.createLoginSession(10001, new SaLoginModel().setDevice(i == 0 ? "PC" : "APP"));
+		}
+		updateCount.set(0);
+		stpLogic.logout(10001, "APP");
+		Assertions.assertEquals(1, updateCount.get());
+		Assertions.assertEquals(1, stpLogic.getTokenValueListByLoginId(10001).size());
+
+		for (int i = 0; i < 5; i++) {
+			stpLogic.createLoginSession(10001, new SaLoginModel().setDevice("APP"));
+		}
+		updateCount.set(0);
+		stpLogic.kickout(10001, "APP");
+		Assertions.assertEquals(1, updateCount.get());
+
+		updateCount.set(0);
+		stpLogic.logout(10001);
+		Assertions.assertEquals(0, updateCount.get());
+		Assertions.assertNull(stpLogic.getSessionByLoginId(10001, false));
+	}
+
+	// 在外层作用域（例如 mergeSessionWrite 开启的请求作用域）内注销、踢人时，Account-Session 立即写入，不等到作用域结束
+	@Test
+	public void testLogoutInScope() {
+		for (int i = 0; i < 3; i++) {
+			stpLogic.createLoginSession(10001, new SaLoginModel().setDevice(i == 0 ? "PC" : "APP"));
+		}
+		String key = stpLogic.splicingKeySession(10001);
+		SaSessionWriteScope.begin();
+		try {
+			updateCount.set(0);
+			stpLogic.logout(10001, "APP");
+			Assertions.assertEquals(1, updateCount.get());
+			Assertions.assertEquals(1, SaManager.getSaTokenDao().getSession(key).getTokenSignList().size());
+
+			stpLogic.createLoginSession(10001, new SaLoginModel().setDevice("APP"));
+			updateCount.set(0);
+			stpLogic.kickout(10001, "APP");
+			Assertions.assertEquals(1, updateCount.get());
+			Assertions.assertEquals(1, SaManager.getSaTokenDao().getSession(key).getTokenSignList().size());
+		} finally {
+			SaSessionWriteScope.end();
+		}
+		Assertions.assertEquals(1, updateCount.get());
+	}
+
+	// 按账号获取的 token 集合是可修改的副本，修改后不影响 Account-Session
+	@Test
+	public void testTokenListCopy() {
+		stpLogic.createLoginSession(10001, new SaLoginModel().setDevice("PC"));
+		stpLogic.createLoginSession(10001, new SaLoginModel().setDevice("APP"));
+		List<String> tokenValueList = stpLogic.getTokenValueListByLoginId(10001);
+		tokenValueList.add("token-x");
+		tokenValueList.remove(0);
+		Assertions.assertEquals(2, stpLogic.getTokenValueListByLoginId(10001).size());
+		stpLogic.getTokenValueListByLoginId(10001, "PC").clear();
+		stpLogic.getTokenSignListByLoginId(10001, null).clear();
+		Assertions.assertEquals(1, stpLogic.getTokenSignListByLoginId(10001, "PC").size());
+		Assertions.assertTrue(stpLogic.isLogin(10001));
+		Assertions.assertEquals(stpLogic.getTokenValueListByLoginId(10001, "APP").get(0), stpLogic.getTokenValueByLoginId(10001, "APP"));
+		Assertions.assertTrue(stpLogic.getTokenValueListByLoginId(10002).isEmpty());
+		stpLogic.getTokenValueListByLoginId(10002).add("token-y");
+	}
+
+	// 踢人下线、顶人下线时，多个 token 的映射关系通过一次批量操作标记，不再逐个更新
+	@Test
+	public void testMarkBatch() {
+		List<String> log = new ArrayList<>();
+		SaManager.setSaTokenDao(new SaTokenDaoDefaultImpl() {
+			@Override
+			public void update(String key, String value) {
+				log.add("update");
+				super.update(key, value);
+			}
+			@Override
+			public void executeBatch(SaTokenDaoBatch batch) {
+				// 登录时写入映射关系的批量操作不在此测试的范围内
+				if(batch.ops.get(0).type != SaTokenDaoBatch.UPDATE) {
+					super.executeBatch(batch);
+					return;
+				}
+				log.add("batch-" + batch.ops.size());
+				// 默认实现会逐个调用 update，这里直接执行，只记录批量操作本身
+				for (SaTokenDaoBatch.Op op : batch.ops) {
+					super.update(op.key, (String) op.value);
+				}
+			}
+		});
+		stpLogic.setConfig(new SaTokenConfig().setIsShare(false));
+		List<String> tokenList = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			tokenList.add(stpLogic.createLoginSession(10006, new SaLoginModel().setDevice("APP")));
+		}
+		log.clear();
+		stpLogic.kickout(10006, "APP");
+		Assertions.assertEquals(Arrays.asList("batch-3"), log);
+		for (String token : tokenList) {
+			Assertions.assertEquals(NotLoginException.KICK_OUT, stpLogic.getLoginIdNotHandle(token));
+		}
+
+		tokenList.clear();
+		for (int i = 0; i < 3; i++) {
+			tokenList.add(stpLogic.createLoginSession(10006, new SaLoginModel().setDevice("APP")));
+		}
+		log.clear();
+		stpLogic.replaced(10006, "APP");
+		Assertions.assertEquals(Arrays.asList("batch-3"), log);
+		for (String token : tokenList) {
+			Assertions.assertEquals(NotLoginException.BE_REPLACED, stpLogic.getLoginIdNotHandle(token));
+		}
+	}
+
+	// 登录时顶人下线、写入 token 签名合并为一次写入；按最大登录数量注销发生在保存映射关系之后，再写入一次
+	@Test
+	public void testLogin() {
+		stpLogic.setConfig(new SaTokenConfig().setMaxLoginCount(3).setIsConcurrent(true).setIsShare(false));
+		for (int i = 0; i < 3; i++) {
+			stpLogic.createLoginSession(10002, new SaLoginModel().setDevice("PC"));
+		}
+		updateCount.set(0);
+		String token = stpLogic.createLoginSession(10002, new SaLoginModel().setDevice("PC"));
+		Assertions.assertEquals(2, updateCount.get());
+		Assertions.assertEquals(3, stpLogic.getTokenValueListByLoginId(10002).size());
+		Assertions.assertEquals("PC", stpLogic.getLoginDeviceByToken(token));
+
+		// 顶人下线时立即写入一次（移除旧 token 签名），登录时再写入一次（添加新 token 签名）
+		stpLogic.setConfig(new SaTokenConfig().setIsConcurrent(false));
+		updateCount.set(0);
+		stpLogic.createLoginSession(10002, new SaLoginModel().setDevice("PC"));
+		Assertions.assertEquals(2, updateCount.get());
+		Assertions.assertEquals(1, stpLogic.getTokenValueListByLoginId(10002).size());
+	}
+
+	// 先写入 Account-Session 上的 token 签名，再保存 token -> id 映射关系、发布登录事件
+	@Test
+	public void testWriteBeforeMapping() {
+		List<String> log = new ArrayList<>();
+		SaManager.setSaTokenDao(new SaTokenDaoDefaultImpl() {
+			@Override
+			public void updateSession(SaSession session) {
+				log.add("update-session");
+				super.updateSession(session);
+			}
+			@Override
+			public void executeBatch(SaTokenDaoBatch batch) {
+				for (String key : batch.getKeys()) {
+					if(key.startsWith(stpLogic.splicingKeyTokenValue(""))) {
+						log.add("save-mapping");
+					}
+				}
+				super.executeBatch(batch);
+			}
+		});
+		SaTokenListenerForSimple listener = new SaTokenListenerForSimple() {
+			@Override
+			public void doLogin(String loginType, Object loginId, String tokenValue, SaLoginModel loginModel) {
+				log.add("do-login");
+			}
+		};
+		SaTokenEventCenter.registerListener(listener);
+		try {
+			stpLogic.createLoginSession(10004);
+		} finally {
+			SaTokenEventCenter.removeListener(listener);
+		}
+		Assertions.assertEquals(Arrays.asList("update-session", "save-mapping", "do-login"), log);
+	}
+
+	// 登录时 token -> id 映射与最后活跃时间合并为一次批量写入；只写入本次登录的 Account-Session，外层作用域中其它 SaSession 仍推迟写入
+	@Test
+	public void testLoginBatch() {
+		stpLogic.setConfig(new SaTokenConfig().setActiveTimeout(1800));
+		List<String> log = new ArrayList<>();
+		SaTokenDao dao = new SaTokenDaoDefaultImpl() {
+			@Override
+			public void set(String key, String value, long timeout) {
+				log.add("set");
+				super.set(key, value, timeout);
+			}
+			@Override
+			public void executeBatch(SaTokenDaoBatch batch) {
+				log.add("batch-" + batch.ops.size());
+				super.executeBatch(batch);
+			}
+			@Override
+			public void updateSession(SaSession session) {
+				log.add("update-" + session.getId());
+				super.updateSession(session);
+			}
+		};
+		SaManager.getSaTokenDao().destroy();
+		SaManager.setSaTokenDao(dao);
+		SaSession otherSession = stpLogic.getSessionBySessionId("write-scope-other", true, null, null);
+		SaSessionWriteScope.begin();
+		try {
+			otherSession.set("name", "张三");
+			log.clear();
+			String token = stpLogic.createLoginSession(10005);
+			Assertions.assertEquals(Arrays.asList("update-" + stpLogic.splicingKeySession(10005), "batch-2", "set", "set"), log);
+			Assertions.assertNotNull(dao.get(stpLogic.splicingKeyTokenValue(token)));
+			Assertions.assertNotNull(dao.get(stpLogic.splicingKeyLastActiveTime(token)));
+			log.clear();
+		} finally {
+			SaSessionWriteScope.end();
+		}
+		Assertions.assertEquals(Arrays.asList("update-write-scope-other"), log);
+	}
+
+	// 注销过程中抛出异常时，仍然写入已发生的修改，写入失败的异常附加到原异常上，不覆盖原异常
+	@Test
+	public void testError() {
+		stpLogic.createLoginSession(10005, new SaLoginModel().setDevice("PC"));
+		stpLogic.createLoginSession(10005, new SaLoginModel().setDevice("APP"));
+		failUpdate = true;
+		SaTokenListenerForSimple listener = new SaTokenListenerForSimple() {
+			@Override
+			public void doLogout(String loginType, Object loginId, String tokenValue) {
+				throw new IllegalStateException();
+			}
+		};
+		SaTokenEventCenter.registerListener(listener);
+		try {
+			IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, () -> stpLogic.logout(10005, "APP"));
+			Assertions.assertEquals(IllegalArgumentException.class, e.getSuppressed()[0].getClass());
+		} finally {
+			SaTokenEventCenter.removeListener(listener);
+		}
+		Assertions.assertFalse(SaSessionWriteScope.isActive());
+	}
+
+	// 作用域内读取有待写入变更的 SaSession 时，返回作用域内的同一个对象
+	@Test
+	public void testPendingSession() {
+		SaSession session = stpLogic.getSessionByLoginId(10003);
+		SaManager.getSaTokenDao().setSession(new SaSession(session.getId()), 1000);
+		SaSessionWriteScope.run(() -> {
+			Assertions.assertNotSame(stpLogic.getSessionByLoginId(10003), session);
+			session.set("name", "zhangsan");
+			Assertions.assertSame(stpLogic.getSessionByLoginId(10003), session);
+		});
+		Assertions.assertEquals("zhangsan", stpLogic.getSessionByLoginId(10003).get("name"));
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.strategy;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.annotation.SaCheckLogin;
+import cn.dev33.satoken.annotation.SaCheckPermission;
+import cn.dev33.satoken.annotation.SaCheckRole;
+import cn.dev33.satoken.annotation.SaIgnore;
+import cn.dev33.satoken.annotation.handler.SaAnnotationAbstractHandler;
+import cn.dev33.satoken.annotation.handler.SaIgnoreHandler;
+import cn.dev33.satoken.strategy.SaAnnotationStrategy;
+import cn.dev33.satoken.strategy.SaAnnotationStrategy.CheckItem;
+
+/**
+ * SaAnnotationStrategy 注解校验计划缓存 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaAnnotationStrategyTest {
+
+	// 校验计划的内容与顺序
+	@Test
+	public void testCheckPlan() throws Exception {
+		SaAnnotationStrategy strategy = SaAnnotationStrategy.instance;
+
+		// 未标注任何注解
+		Assertions.assertTrue(strategy.getCheckPlan(PlainController.class.getMethod("info")).items.isEmpty());
+
+		// 先 Class 上的注解，再 Method 上的注解；同一处理器的注解排在一起
+		List<CheckItem> items = strategy.getCheckPlan(UserController.class.getMethod("add")).items;
+		Assertions.assertEquals(3, items.size());
+		Assertions.assertEquals(SaCheckLogin.class, items.get(0).annotation.annotationType());
+		Assertions.assertEquals(SaCheckRole.class, items.get(1).annotation.annotationType());
+		Assertions.assertEquals(SaCheckPermission.class, items.get(2).annotation.annotationType());
+
+		// @SaIgnore 之后的注解不再校验
+		items = strategy.getCheckPlan(UserController.class.getMethod("ignore")).items;
+		Assertions.assertEquals(1, items.size());
+		Assertions.assertTrue(items.get(0).handler instanceof SaIgnoreHandler);
+
+		// 命中缓存
+		Method method = UserController.class.getMethod("add");
+		Assertions.assertSame(strategy.getCheckPlan(method), strategy.getCheckPlan(method));
+	}
+
+	// 注解处理器变化后缓存失效
+	@Test
+	public void testInvalidate() throws Exception {
+		SaAnnotationStrategy strategy = SaAnnotationStrategy.instance;
+		Method method = UserController.class.getMethod("add");
+		Map<Class<?>, SaAnnotationAbstractHandler<?>> oldMap = new LinkedHashMap<>(strategy.annotationHandlerMap);
+		strategy.getCheckPlan(method);
+		try {
+			strategy.removeAnnotationHandler(SaCheckRole.class);
+			Assertions.assertEquals(2, strategy.getCheckPlan(method).items.size());
+
+			// 直接替换注解处理器集合，也会重新解析
+			strategy.annotationHandlerMap = new LinkedHashMap<>(oldMap);
+			Assertions.assertEquals(3, strategy.getCheckPlan(method).items.size());
+		} finally {
+			strategy.annotationHandlerMap = oldMap;
+		}
+	}
+
+	public static class PlainController {
+		public void info() {
+		}
+	}
+
+	@SaCheckLogin
+	public static class UserController {
+		@SaCheckRole("admin")
+		@SaCheckPermission("user.add")
+		public void add() {
+		}
+		@SaIgnore
+		@SaCheckRole("admin")
+		public void ignore() {
+		}
+	}
+
+}
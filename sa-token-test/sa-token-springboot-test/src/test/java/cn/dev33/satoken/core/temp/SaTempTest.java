@@ -103,6 +103,19 @@ public class SaTempTest {
     	Assertions.assertEquals(dao.getObject("satoken:temp-token:" + "shop" + ":" + token), null);
     }
 
+    // 测试：一次性消费临时Token 
+    @Test
+    public void testConsumeToken() {
+    	SaTokenDao dao = SaManager.getSaTokenDao();
+    	
+    	String token = SaTempUtil.createToken("pay", "order-1", 200);
+    	Assertions.assertEquals("order-1", SaTempUtil.consumeToken("pay", token, String.class)); 
+    	Assertions.assertNull(dao.getObject("satoken:temp-token:" + "pay" + ":" + token));
+    	
+    	// 第二次消费拿不到值 
+    	Assertions.assertNull(SaTempUtil.consumeToken("pay", token, String.class)); 
+    }
+
     @Test
     public void testSaTemp2() {
     	// 秘钥默认为null 
@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -113,6 +114,25 @@ public class SaFoxUtilTest {
     	Assertions.assertEquals(list6.get(0), dataList.get(dataList.size() - 1));
     }
 
+    @Test
+    public void searchSortedSet() {
+    	// 原始数据 
+    	TreeSet<String> dataSet = new TreeSet<>(Arrays.asList("token1", "token2", "token3", "token4", "token5", "aaa1", "zzz1"));
+
+    	// 前缀定位 + 分页 
+    	Assertions.assertEquals(Arrays.asList("token2", "token3"), SaFoxUtil.searchSortedSet(dataSet, "token", "", 1, 2, true));
+    	Assertions.assertEquals(Arrays.asList("token4", "token3"), SaFoxUtil.searchSortedSet(dataSet, "token", "", 1, 2, false));
+    	Assertions.assertEquals(Arrays.asList("token5"), SaFoxUtil.searchSortedSet(dataSet, "token", "", 4, 10, true));
+    	Assertions.assertEquals(0, SaFoxUtil.searchSortedSet(dataSet, "token", "", 0, 0, true).size());
+
+    	// 关键字筛选 
+    	Assertions.assertEquals(Arrays.asList("aaa1", "token1", "zzz1"), SaFoxUtil.searchSortedSet(dataSet, "", "1", 0, -1, true));
+    	Assertions.assertEquals(dataSet.size(), SaFoxUtil.searchSortedSet(dataSet, null, null, 0, -1, true).size());
+
+    	// 与 searchList 结果一致 
+    	Assertions.assertEquals(SaFoxUtil.searchList(dataSet, "token", "3", 0, -1, false), SaFoxUtil.searchSortedSet(dataSet, "token", "3", 0, -1, false));
+    }
+
 	@Test
 	public void vagueMatch() {
 		// 不模糊
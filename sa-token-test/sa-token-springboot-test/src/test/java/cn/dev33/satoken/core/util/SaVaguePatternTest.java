@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.util;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.util.SaFoxUtil;
+import cn.dev33.satoken.util.SaVaguePattern;
+
+/**
+ * 模糊匹配 测试：贪心实现、预编译实现 与 原动态规划实现 对比
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaVaguePatternTest {
+
+	// 基本匹配
+	@Test
+	public void testMatch() {
+		check("user*", "user-add", true);
+		check("user*", "art-add", false);
+		check("*", "", true);
+		check("**", "abc", true);
+		check("*.get", "user.get", true);
+		check("*.get", "user.get2", false);
+		check("user.*.get", "user.1.get", true);
+		check("user.*.get", "user.get", false);
+		check("a*b*c", "abc", true);
+		check("a*b*c", "acb", false);
+		check("a*ab", "aab", true);
+		check("ab*ab", "ab", false);
+		check("http://sa-sso-client1.com*", "http://sa-sso-client1.com:9003/sso/login", true);
+		check("http://sa-sso-client1.com*", "http://sa-token.cc/sa-sso-client1.com", false);
+		check(null, null, true);
+		check(null, "a", false);
+		check("a*", null, false);
+	}
+
+	private void check(String pattern, String str, boolean expected) {
+		Assertions.assertEquals(expected, SaFoxUtil.vagueMatch(pattern, str), pattern + " -> " + str);
+		Assertions.assertEquals(expected, SaFoxUtil.compileVaguePattern(pattern).match(str), pattern + " -> " + str);
+	}
+
+	// 随机表达式，与原动态规划实现结果一致
+	@Test
+	public void testSameAsDp() {
+		Random random = new Random(20241016);
+		for (int i = 0; i < 20000; i++) {
+			String pattern = randomString(random, "ab*", 7);
+			String str = randomString(random, "ab", 8);
+			boolean expected = dpMatch(pattern, str);
+			Assertions.assertEquals(expected, SaFoxUtil.vagueMatch(pattern, str), pattern + " -> " + str);
+			Assertions.assertEquals(expected, new SaVaguePattern(pattern).match(str), pattern + " -> " + str);
+		}
+	}
+
+	// 常见的权限码、路由、重定向地址，三种实现结果一致 
+	@Test
+	public void testCommonCase() {
+		String[] patterns = {"user.*", "art.*.update", "*.get", "goods-*", "http://sa-sso-client1.com*", "http://*.sa-sso-client2.com/sso/*"};
+		String[] strs = {"user.add", "art.10001.update", "order.get", "goods-delete", "http://sa-sso-client1.com:9003/sso/login",
+				"http://shop.sa-sso-client2.com/sso/login", "admin.user.list.get.detail", "http://sa-token.cc/a.sa-sso-client1.com"};
+		for (String pattern : patterns) {
+			SaVaguePattern compiled = SaFoxUtil.compileVaguePattern(pattern);
+			for (String str : strs) {
+				boolean expected = dpMatch(pattern, str);
+				Assertions.assertEquals(expected, SaFoxUtil.vagueMatch(pattern, str), pattern + " -> " + str);
+				Assertions.assertEquals(expected, compiled.match(str), pattern + " -> " + str);
+			}
+		}
+	}
+
+	/**
+	 * 原动态规划实现，作为对照
+	 */
+	private static boolean dpMatch(String pattern, String str) {
+		if( ! pattern.contains("*")) {
+			return pattern.equals(str);
+		}
+		int m = str.length();
+		int n = pattern.length();
+		boolean[][] dp = new boolean[m + 1][n + 1];
+		dp[0][0] = true;
+		for (int i = 1; i <= n; ++i) {
+			if (pattern.charAt(i - 1) == '*') {
+				dp[0][i] = true;
+			} else {
+				break;
+			}
+		}
+		for (int i = 1; i <= m; ++i) {
+			for (int j = 1; j <= n; ++j) {
+				if (pattern.charAt(j - 1) == '*') {
+					dp[i][j] = dp[i][j - 1] || dp[i - 1][j];
+				} else if (str.charAt(i - 1) == pattern.charAt(j - 1)) {
+					dp[i][j] = dp[i - 1][j - 1];
+				}
+			}
+		}
+		return dp[m][n];
+	}
+
+	private String randomString(Random random, String alphabet, int maxLength) {
+		int length = random.nextInt(maxLength + 1);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.oauth2;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.core.dao.SaTokenDaoForCount;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.oauth2.dataloader.SaOAuth2DataLoader;
+import cn.dev33.satoken.oauth2.model.AccessTokenModel;
+import cn.dev33.satoken.oauth2.model.ClientTokenModel;
+import cn.dev33.satoken.oauth2.model.CodeModel;
+import cn.dev33.satoken.oauth2.model.RequestAuthModel;
+import cn.dev33.satoken.oauth2.model.SaClientModel;
+import cn.dev33.satoken.oauth2.template.SaOAuth2Template;
+
+/**
+ * OAuth2 颁发 Token 测试（写操作合并为一个批量操作提交）
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaOAuth2RoundTripTest {
+
+	SaTokenDao oldDao;
+
+	SaOAuth2DataLoader oldDataLoader;
+
+	SaOAuth2Template template = new SaOAuth2Template();
+
+	@BeforeEach
+	public void before() {
+		oldDao = SaManager.getSaTokenDao();
+		oldDataLoader = SaOAuth2Manager.getDataLoader();
+		SaOAuth2Manager.setDataLoader(new SaOAuth2DataLoader() {
+			@Override
+			public SaClientModel getClientModel(String clientId) {
+				return new SaClientModel().setClientId(clientId).setIsNewRefresh(true).setPastClientTokenTimeout(600);
+			}
+			@Override
+			public String getOpenid(String clientId, Object loginId) {
+				return "openid-" + loginId;
+			}
+		});
+	}
+
+	@AfterEach
+	public void after() {
+		SaManager.setSaTokenDao(oldDao);
+		SaOAuth2Manager.setDataLoader(oldDataLoader);
+	}
+
+	// 颁发的 Token 可正常使用，旧 Token 被清除
+	@Test
+	public void testIssue() {
+		SaManager.setSaTokenDao(new SaTokenDaoDefaultImpl());
+
+		AccessTokenModel at1 = template.generateAccessToken(newCode(10001).code);
+		AccessTokenModel at2 = template.generateAccessToken(newCode(10001).code);
+		Assertions.assertNull(template.getAccessToken(at1.accessToken));
+		Assertions.assertNull(template.getRefreshToken(at1.refreshToken));
+		Assertions.assertEquals(10001, template.checkAccessToken(at2.accessToken).loginId);
+		Assertions.assertEquals(at2.accessToken, template.getAccessTokenValue("client-1", 10001));
+		Assertions.assertNull(template.getCodeValue("client-1", 10001));
+
+		// 刷新后旧 Access-Token 与旧 Refresh-Token 失效
+		AccessTokenModel at3 = template.refreshAccessToken(at2.refreshToken);
+		Assertions.assertNull(template.getAccessToken(at2.accessToken));
+		Assertions.assertNull(template.getRefreshToken(at2.refreshToken));
+		Assertions.assertEquals(at3.refreshToken, template.getRefreshTokenValue("client-1", 10001));
+		Assertions.assertEquals("openid-10001", template.checkAccessToken(at3.accessToken).openid);
+
+		// 第二次生成 Client-Token 时，旧 Client-Token 变为 Past-Token
+		ClientTokenModel ct1 = template.generateClientToken("client-1", "userinfo");
+		ClientTokenModel ct2 = template.generateClientToken("client-1", "userinfo");
+		Assertions.assertEquals(ct1.clientToken, template.getPastTokenValue("client-1"));
+		Assertions.assertEquals(ct2.clientToken, template.getClientTokenValue("client-1"));
+		Assertions.assertNotNull(template.getClientToken(ct1.clientToken));
+		template.generateClientToken("client-1", "userinfo");
+		Assertions.assertNull(template.getClientToken(ct1.clientToken));
+	}
+
+	// 子类重写的 save* 方法在批量提交的流程中依然生效 
+	@Test
+	public void testOverride() {
+		SaManager.setSaTokenDao(new SaTokenDaoDefaultImpl());
+		AtomicInteger saveCount = new AtomicInteger();
+		template = new SaOAuth2Template() {
+			@Override
+			public void saveAccessToken(AccessTokenModel at) {
+				saveCount.incrementAndGet();
+				at.scope = "custom";
+				super.saveAccessToken(at);
+			}
+		};
+		AccessTokenModel at = template.generateAccessToken(newCode(10001).code);
+		Assertions.assertEquals(1, saveCount.get());
+		Assertions.assertEquals("custom", template.getAccessToken(at.accessToken).scope);
+		template.refreshAccessToken(at.refreshToken);
+		Assertions.assertEquals(2, saveCount.get());
+	}
+
+	// 授权码兑换、刷新、密码式、Client-Token，统计 DAO 调用次数（读操作逐个调用，写操作合并为一个批量操作）
+	@Test
+	public void testRoundTrip() {
+		SaTokenDaoForCount dao = new SaTokenDaoForCount(new SaTokenDaoDefaultImpl());
+		SaManager.setSaTokenDao(dao);
+		template.generateAccessToken(newCode(10001).code);
+		template.generateClientToken("client-1", "userinfo");
+
+		// consumeCode + 两次读取旧 Token + 一次批量写入 
+		String code = newCode(10001).code;
+		dao.count.set(0);
+		AccessTokenModel at = template.generateAccessToken(code);
+		Assertions.assertEquals(4, dao.count.getAndSet(0));
+
+		// 读取 Refresh-Token + 读取旧 Access-Token + 一次批量写入 
+		template.refreshAccessToken(at.refreshToken);
+		Assertions.assertEquals(3, dao.count.getAndSet(0));
+
+		// 两次读取旧 Token + 一次批量写入 
+		RequestAuthModel ra = new RequestAuthModel();
+		ra.clientId = "client-1";
+		ra.loginId = 10001;
+		ra.scope = "userinfo";
+		template.generateAccessToken(ra, true);
+		Assertions.assertEquals(3, dao.count.getAndSet(0));
+
+		// 读取 Past-Token、Client-Token 值与 Model + 一次批量写入 
+		template.generateClientToken("client-1", "userinfo");
+		Assertions.assertEquals(4, dao.count.getAndSet(0));
+	}
+
+	/**
+	 * 生成并保存一个授权码（同一账号只保留最新的授权码）
+	 * @param loginId 账号id
+	 * @return /
+	 */
+	CodeModel newCode(Object loginId) {
+		RequestAuthModel ra = new RequestAuthModel();
+		ra.clientId = "client-1";
+		ra.loginId = loginId;
+		ra.scope = "userinfo";
+		return template.generateCode(ra);
+	}
+
+}
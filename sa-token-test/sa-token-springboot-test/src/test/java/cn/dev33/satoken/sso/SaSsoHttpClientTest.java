@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.sso;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import cn.dev33.satoken.sso.error.SaSsoErrorCode;
+import cn.dev33.satoken.sso.exception.SaSsoException;
+import cn.dev33.satoken.sso.http.SaSsoHttpClient;
+
+/**
+ * SaSsoHttpClient 内置 http 客户端 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSsoHttpClientTest {
+
+	HttpServer server;
+
+	String baseUrl;
+
+	// 服务端看到的客户端端口，端口相同代表复用了同一个连接
+	Set<Integer> remotePortSet = ConcurrentHashMap.newKeySet();
+
+	@BeforeEach
+	public void before() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/ok", exchange -> {
+			remotePortSet.add(exchange.getRemoteAddress().getPort());
+			byte[] body = ("ok:" + exchange.getRequestURI().getQuery()).getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.createContext("/error", exchange -> {
+			byte[] body = "error".getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(500, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.createContext("/slow", exchange -> {
+			try {
+				Thread.sleep(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] body = "slow".getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.start();
+		baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	@AfterEach
+	public void after() {
+		server.stop(0);
+	}
+
+	// 连续请求复用同一个连接
+	@Test
+	public void testKeepAlive() {
+		SaSsoHttpClient httpClient = new SaSsoHttpClient();
+		for (int i = 0; i < 10; i++) {
+			Assertions.assertEquals("ok:n=" + i, httpClient.apply(baseUrl + "/ok?n=" + i));
+		}
+		Assertions.assertEquals(1, remotePortSet.size());
+
+		SaSsoHttpClient.HostMetrics metrics = httpClient.getHostMetrics(baseUrl);
+		Assertions.assertEquals(10, metrics.requestCount.sum());
+		Assertions.assertEquals(0, metrics.errorCount.sum());
+		Assertions.assertEquals(0, metrics.activeCount.get());
+	}
+
+	// 错误响应抛出异常，且不影响后续请求复用连接
+	@Test
+	public void testError() {
+		SaSsoHttpClient httpClient = new SaSsoHttpClient();
+		SaSsoException e = Assertions.assertThrows(SaSsoException.class, () -> httpClient.apply(baseUrl + "/error"));
+		Assertions.assertEquals(SaSsoErrorCode.CODE_30016, e.getCode());
+		Assertions.assertEquals("ok:a=1", httpClient.apply(baseUrl + "/ok?a=1"));
+		Assertions.assertEquals(1, httpClient.getHostMetrics(baseUrl).errorCount.sum());
+		Assertions.assertEquals(2, httpClient.getHostMetrics(baseUrl).requestCount.sum());
+	}
+
+	// 调用方指定的超时时间小于 readTimeout 时，以调用方的为准
+	@Test
+	public void testTimeoutLimit() {
+		SaSsoHttpClient httpClient = new SaSsoHttpClient().setReadTimeout(5000);
+		long start = System.currentTimeMillis();
+		SaSsoException e = Assertions.assertThrows(SaSsoException.class, () -> httpClient.apply(baseUrl + "/slow", 100));
+		Assertions.assertEquals(SaSsoErrorCode.CODE_30016, e.getCode());
+		Assertions.assertTrue(System.currentTimeMillis() - start < 900);
+	}
+
+	// 异步请求
+	@Test
+	public void testAsync() throws Exception {
+		SaSsoHttpClient httpClient = new SaSsoHttpClient().setAsyncThreadCount(2);
+		Assertions.assertEquals("ok:b=2", httpClient.applyAsync(baseUrl + "/ok?b=2").get(5, TimeUnit.SECONDS));
+		httpClient.shutdown();
+	}
+
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.sso;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.sso.config.SaSsoServerConfig;
+import cn.dev33.satoken.sso.function.SendHttpFunction;
+import cn.dev33.satoken.sso.model.SaSsoClientModel;
+import cn.dev33.satoken.sso.slo.SaSsoSloDispatcher;
+import cn.dev33.satoken.sso.slo.SaSsoSloNotice;
+import cn.dev33.satoken.sso.template.SaSsoServerTemplate;
+
+/**
+ * SaSsoSloDispatcher 单点注销异步分发 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSsoSloDispatcherTest {
+
+	SaTokenDao oldDao;
+
+	/**
+	 * 签名次数，拼接在通知地址中，以便区分每次签名
+	 */
+	AtomicInteger signCount = new AtomicInteger();
+
+	@BeforeEach
+	public void before() {
+		oldDao = SaManager.getSaTokenDao();
+		SaManager.setSaTokenDao(new SaTokenDaoDefaultImpl());
+	}
+
+	@AfterEach
+	public void after() {
+		SaManager.getSaTokenDao().destroy();
+		SaManager.setSaTokenDao(oldDao);
+	}
+
+	// 多个通知并行发送，失败后重试直至成功
+	@Test
+	public void testDispatchAndRetry() {
+		SaSsoSloDispatcher dispatcher = new SaSsoSloDispatcher(4, 100).setRetryCount(3).setRetryInterval(10);
+		Set<String> sentSet = ConcurrentHashMap.newKeySet();
+		AtomicInteger callCount = new AtomicInteger();
+		SaSsoServerTemplate template = newTemplate(url -> {
+			// 每个通知的第一次请求失败
+			if(callCount.incrementAndGet() <= 3) {
+				throw new RuntimeException("connect refused");
+			}
+			sentSet.add(url.substring(0, url.indexOf('?')));
+			return "ok";
+		});
+		dispatcher.dispatchAll(template, Arrays.asList(newNotice("http://a.com/call"), newNotice("http://b.com/call"), newNotice("http://c.com/call")));
+
+		Assertions.assertTrue(dispatcher.shutdown(5000));
+		Assertions.assertEquals(3, sentSet.size());
+		Assertions.assertEquals(3, dispatcher.successCount.sum());
+		Assertions.assertEquals(3, dispatcher.retryTimes.sum());
+		Assertions.assertEquals(0, dispatcher.failCount.sum());
+		Assertions.assertEquals(0, dispatcher.getPendingCount());
+	}
+
+	// 超时且重试次数用尽后将通知参数存入持久层，之后可由 retryPersisted 重新签名发送
+	@Test
+	public void testTimeoutAndPersist() throws Exception {
+		SaSsoSloDispatcher dispatcher = new SaSsoSloDispatcher(2, 100).setTimeout(50).setRetryCount(1).setRetryInterval(10).setPersistent(true);
+		List<String> slowList = new CopyOnWriteArrayList<>();
+		List<Long> timeoutList = new CopyOnWriteArrayList<>();
+		dispatcher.dispatch(newTemplate(new SendHttpFunction() {
+			@Override
+			public String apply(String url) {
+				return apply(url, -1);
+			}
+			// 模拟 http 请求的读取超时：等待 timeout 后抛出异常
+			@Override
+			public String apply(String url, long timeout) {
+				slowList.add(url);
+				timeoutList.add(timeout);
+				sleep(timeout + 30);
+				throw new RuntimeException("read timed out");
+			}
+		}), newNotice("http://slow.com/call"));
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (dispatcher.persistCount.sum() == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assertions.assertEquals(2, dispatcher.timeoutCount.sum());
+		Assertions.assertEquals(Arrays.asList(50L, 50L), timeoutList);
+		Assertions.assertEquals(1, dispatcher.persistCount.sum());
+		Assertions.assertEquals(0, dispatcher.getPendingCount());
+
+		// 持久层中保存的是通知参数，而非已签名的地址
+		List<String> keyList = SaManager.getSaTokenDao().searchData(dispatcher.splicingRetryKey(""), "", 0, -1, true);
+		Assertions.assertEquals(1, keyList.size());
+		Object value = SaManager.getSaTokenDao().getObject(keyList.get(0));
+		Assertions.assertTrue(value instanceof SaSsoSloNotice);
+		Assertions.assertEquals(10001, ((SaSsoSloNotice) value).loginId);
+
+		// 每次发送都重新签名
+		List<String> sentList = new CopyOnWriteArrayList<>();
+		Assertions.assertEquals(1, dispatcher.retryPersisted(newTemplate(url -> {
+			sentList.add(url);
+			return "ok";
+		})));
+		Assertions.assertTrue(dispatcher.shutdown(5000));
+		Assertions.assertEquals(2, slowList.size());
+		Assertions.assertNotEquals(slowList.get(0), slowList.get(1));
+		Assertions.assertEquals(1, sentList.size());
+		Assertions.assertTrue(sentList.get(0).startsWith("http://slow.com/call?loginId=10001"));
+		Assertions.assertFalse(slowList.contains(sentList.get(0)));
+		Assertions.assertEquals(0, dispatcher.retryPersisted(newTemplate(url -> "ok")));
+	}
+
+	// 超时后不中断正在执行的请求，等请求结束后才安排重试，同一个通知不会同时有两个请求
+	@Test
+	public void testNoOverlapRetry() {
+		SaSsoSloDispatcher dispatcher = new SaSsoSloDispatcher(4, 100).setTimeout(50).setRetryCount(1).setRetryInterval(10);
+		AtomicInteger active = new AtomicInteger();
+		AtomicInteger maxActive = new AtomicInteger();
+		AtomicInteger callCount = new AtomicInteger();
+		// 不支持超时设置的处理函数：请求耗时远超 timeout
+		dispatcher.dispatch(newTemplate(url -> {
+			callCount.incrementAndGet();
+			maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+			sleep(200);
+			active.decrementAndGet();
+			throw new RuntimeException("connect refused");
+		}), newNotice("http://slow.com/call"));
+
+		Assertions.assertTrue(dispatcher.shutdown(5000));
+		Assertions.assertEquals(2, callCount.get());
+		Assertions.assertEquals(1, maxActive.get());
+		Assertions.assertEquals(2, dispatcher.timeoutCount.sum());
+		Assertions.assertEquals(1, dispatcher.failCount.sum());
+	}
+
+	// 排队等待线程的时间不计入超时
+	@Test
+	public void testTimeoutAfterStart() {
+		SaSsoSloDispatcher dispatcher = new SaSsoSloDispatcher(1, 100).setTimeout(250).setRetryCount(0);
+		SaSsoServerTemplate template = newTemplate(url -> {
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return "ok";
+		});
+		// 单线程依次发送，最后一个通知排队约 300ms，但每次发送只用 100ms
+		dispatcher.dispatchAll(template, Arrays.asList(newNotice("http://a.com/call"), newNotice("http://b.com/call"),
+				newNotice("http://c.com/call"), newNotice("http://d.com/call")));
+
+		Assertions.assertTrue(dispatcher.shutdown(5000));
+		Assertions.assertEquals(4, dispatcher.successCount.sum());
+		Assertions.assertEquals(0, dispatcher.timeoutCount.sum());
+	}
+
+	/**
+	 * 休眠指定时间，不响应中断
+	 * @param millis /
+	 */
+	static void sleep(long millis) {
+		long deadline = System.currentTimeMillis() + millis;
+		long left;
+		while ((left = deadline - System.currentTimeMillis()) > 0) {
+			try {
+				Thread.sleep(left);
+			} catch (InterruptedException e) {
+				// 模拟阻塞中的 http 请求，中断无效
+			}
+		}
+	}
+
+	/**
+	 * 创建一个 SaSsoServerTemplate：拼接的地址中带有签名次数
+	 * @param sendHttp 发送 http 请求的处理函数
+	 * @return /
+	 */
+	SaSsoServerTemplate newTemplate(SendHttpFunction sendHttp) {
+		SaSsoServerConfig serverConfig = new SaSsoServerConfig();
+		serverConfig.sendHttp = sendHttp;
+		return new SaSsoServerTemplate() {
+			@Override
+			public SaSsoServerConfig getServerConfig() {
+				return serverConfig;
+			}
+			@Override
+			public String buildSloCallbackUrl(Object loginId, SaSsoClientModel scm, boolean autoLogout) {
+				return scm.sloCallbackUrl + "?loginId=" + loginId + "&sign=" + signCount.incrementAndGet();
+			}
+		};
+	}
+
+	/**
+	 * 创建一个注销通知
+	 * @param sloCallbackUrl 单点注销回调地址
+	 * @return /
+	 */
+	SaSsoSloNotice newNotice(String sloCallbackUrl) {
+		return new SaSsoSloNotice(10001, new SaSsoClientModel("client-1", sloCallbackUrl, 1), true);
+	}
+
+}